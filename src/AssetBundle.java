@@ -0,0 +1,163 @@
+import java.awt.Image;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Gives the images of the game from one packed file on the classpath, so they
+ * load the same way from FreeCell.jar or from the IDE (Eclipse copies the
+ * file from src to bin). The whole file is read in one go the first time an
+ * image is needed, and each image is decoded once and then kept.
+ *
+ * If the packed file is not on the classpath (it has not been made with
+ * AssetPacker yet) each image is read from the images folder instead.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class AssetBundle
+{
+	// Name of the packed file on the classpath and the folder it is made from
+	public static final String BUNDLE_NAME = "assets.pack";
+	public static final String IMAGES_FOLDER = "images";
+
+	// The first four bytes of a packed file
+	static final int MAGIC = 0x46434150; // "FCAP"
+
+	// Where each image starts in the packed bytes and how long it is, by name
+	private static byte[] bundle;
+	private static HashMap<String, int[]> entries;
+
+	// Images already decoded, by name
+	private static final ConcurrentHashMap<String, Image> images = new ConcurrentHashMap<String, Image>();
+
+	/**
+	 * There are no AssetBundle objects, only static methods.
+	 */
+	private AssetBundle()
+	{
+	}
+
+	/**
+	 * Gets an image, decoding it the first time it is asked for.
+	 * @param name the file name of the image such as "c1.png" (any case)
+	 * @return the image, or null if there is no such image
+	 */
+	public static Image getImage(String name)
+	{
+		name = name.toLowerCase();
+		Image image = images.get(name);
+		if (image == null)
+		{
+			try
+			{
+				InputStream in = open(name);
+				if (in == null)
+					return null;
+				try
+				{
+					image = ImageIO.read(in);
+				}
+				finally
+				{
+					in.close();
+				}
+			}
+			catch (IOException exp)
+			{
+				System.out.println("Error reading the image " + name);
+				return null;
+			}
+			if (image == null)
+				return null;
+
+			// Another thread may have decoded it at the same time
+			Image other = images.putIfAbsent(name, image);
+			if (other != null)
+				image = other;
+		}
+		return image;
+	}
+
+	/**
+	 * Opens the bytes of an image from the packed file, or from the images
+	 * folder if there is no packed file.
+	 * @param name the lower case file name of the image
+	 * @return a stream of the image's bytes, or null if there is no such
+	 *         image
+	 * @throws IOException if the packed file cannot be read
+	 */
+	private static InputStream open(String name) throws IOException
+	{
+		if (loadBundle())
+		{
+			int[] entry = entries.get(name);
+			if (entry == null)
+				return null;
+			return new ByteArrayInputStream(bundle, entry[0], entry[1]);
+		}
+
+		// Look for the file in any case (some are named like "c13.PNG")
+		File[] files = new File(IMAGES_FOLDER).listFiles();
+		if (files != null)
+			for (File file : files)
+				if (file.getName().equalsIgnoreCase(name))
+					return new FileInputStream(file);
+		return null;
+	}
+
+	/**
+	 * Reads the whole packed file from the classpath the first time it is
+	 * needed and finds where each image is in it.
+	 * @return true if the packed file was found or false if not
+	 * @throws IOException if the packed file cannot be read
+	 */
+	private static synchronized boolean loadBundle() throws IOException
+	{
+		if (entries != null)
+			return bundle != null;
+		entries = new HashMap<String, int[]>();
+
+		InputStream in = AssetBundle.class.getResourceAsStream("/"
+				+ BUNDLE_NAME);
+		if (in == null)
+			return false;
+		byte[] bytes;
+		try
+		{
+			DataInputStream dataIn = new DataInputStream(in);
+			if (dataIn.readInt() != MAGIC)
+				throw new IOException(BUNDLE_NAME + " is not a packed file");
+			bytes = new byte[dataIn.readInt()];
+			dataIn.readFully(bytes);
+		}
+		finally
+		{
+			in.close();
+		}
+
+		// The contents list each image's name, length and bytes in turn
+		DataInputStream contents = new DataInputStream(
+				new ByteArrayInputStream(bytes));
+		int noOfImages = contents.readInt();
+		int offset = 4;
+		for (int image = 0; image < noOfImages; image++)
+		{
+			String name = contents.readUTF();
+			int length = contents.readInt();
+			offset += 2 + name.getBytes("UTF-8").length + 4;
+			entries.put(name, new int[] { offset, length });
+			contents.skipBytes(length);
+			offset += length;
+		}
+		bundle = bytes;
+		return true;
+	}
+}
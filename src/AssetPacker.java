@@ -0,0 +1,86 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Packs every image in the images folder into one file for AssetBundle. The
+ * file starts with "FCAP" and the length of the contents, then the contents:
+ * the number of images and, for each one, its lower case name, its length and
+ * its bytes. Run it again whenever an image changes, then put the file in src
+ * (for the IDE) and in FreeCell.jar.
+ *
+ * Usage: java AssetPacker [images folder] [packed file]
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class AssetPacker
+{
+	/**
+	 * Packs the images of a folder into a file.
+	 * @param folder the folder with the images
+	 * @param packed the file to write
+	 * @return the number of images packed
+	 * @throws IOException if an image cannot be read or the file cannot be
+	 *             written
+	 */
+	public static int pack(File folder, File packed) throws IOException
+	{
+		File[] files = folder.listFiles();
+		if (files == null)
+			throw new IOException(folder + " is not a folder");
+		Arrays.sort(files);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream contents = new DataOutputStream(bytes);
+		int noOfImages = 0;
+		for (File file : files)
+			if (file.getName().toLowerCase().endsWith(".png"))
+				noOfImages++;
+		contents.writeInt(noOfImages);
+		for (File file : files)
+			if (file.getName().toLowerCase().endsWith(".png"))
+			{
+				byte[] image = Files.readAllBytes(file.toPath());
+				contents.writeUTF(file.getName().toLowerCase());
+				contents.writeInt(image.length);
+				contents.write(image);
+			}
+		contents.close();
+
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(
+				packed));
+		try
+		{
+			out.writeInt(AssetBundle.MAGIC);
+			out.writeInt(bytes.size());
+			bytes.writeTo(out);
+		}
+		finally
+		{
+			out.close();
+		}
+		return noOfImages;
+	}
+
+	/**
+	 * Packs the images folder into src/assets.pack (or the given folder and
+	 * file).
+	 * @param args the images folder and the packed file (both optional)
+	 * @throws IOException if the images cannot be packed
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		File folder = new File(args.length > 0 ? args[0]
+				: AssetBundle.IMAGES_FOLDER);
+		File packed = new File(args.length > 1 ? args[1] : "src"
+				+ File.separator + AssetBundle.BUNDLE_NAME);
+		int noOfImages = pack(folder, packed);
+		System.out.printf("Packed %d images into %s (%,d bytes)%n",
+				noOfImages, packed, packed.length());
+	}
+}
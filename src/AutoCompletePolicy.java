@@ -0,0 +1,72 @@
+import java.util.SplittableRandom;
+
+/**
+ * A Policy that plays like a cautious player with auto complete on: it moves
+ * cards to the Foundations first, then builds on other Cascades (longest
+ * moves first), then empties FreeCells, and only uses a FreeCell or an empty
+ * Cascade when nothing else is possible. Ties are broken at random.
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class AutoCompletePolicy implements Policy
+{
+	/**
+	 * Chooses the move with the highest priority.
+	 * @param board the current position
+	 * @param moves the moves to choose from
+	 * @param noOfMoves the number of moves to choose from
+	 * @param random the random number generator of the calling thread
+	 * @return the index of the chosen move
+	 */
+	public int chooseMove(Board board, int[] moves, int noOfMoves,
+			SplittableRandom random)
+	{
+		int best = -1;
+		int bestScore = Integer.MIN_VALUE;
+		int ties = 0;
+		for (int move = 0; move < noOfMoves; move++)
+		{
+			int score = score(board, moves[move]);
+			if (score > bestScore)
+			{
+				best = move;
+				bestScore = score;
+				ties = 1;
+			}
+			else if (score == bestScore && random.nextInt(++ties) == 0)
+				best = move;
+		}
+		return best;
+	}
+
+	/**
+	 * Scores a move by the kind of move it is.
+	 * @param board the current position
+	 * @param move the packed move
+	 * @return a higher score for a better move
+	 */
+	private int score(Board board, int move)
+	{
+		BoardLayout layout = board.getLayout();
+		int from = Board.getFrom(move);
+		int to = Board.getTo(move);
+		if (to >= layout.getFirstFoundation())
+			return 400;
+		if (to < layout.getFirstFreeCell() && board.getHeight(to) > 0)
+			return 300 + Board.getCount(move);
+		if (from >= layout.getFirstFreeCell())
+			return 200;
+		if (to >= layout.getFirstFreeCell())
+			return 100;
+		return Board.getCount(move);
+	}
+
+	/**
+	 * Gets the name of this Policy.
+	 * @return "auto-complete-first"
+	 */
+	public String getName()
+	{
+		return "auto-complete-first";
+	}
+}
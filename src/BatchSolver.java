@@ -0,0 +1,516 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a list of deals or positions from the command line without any
+ * graphics, and writes one line of JSON for each as it is solved:
+ *
+ * <pre>
+ * {"index":0,"deal":1,"solved":true,"length":87,"nodes":512,"ms":3.214,"solution":"3a 3h 62 ..."}
+ * </pre>
+ *
+ * The input (a file, or standard input for "-") is either deal numbers, one
+ * to a line, or positions in the text layout of PositionReader separated by
+ * blank lines; which one is decided from the first line. Lines of deal
+ * numbers starting with # are comments. A deal number or position that is
+ * not valid gets a line with an "error" field instead.
+ *
+ * The inputs are solved on a pool of worker threads, each with its own
+ * Solver guided by the shared PatternDatabase. Only a few inputs for each thread may be waiting, being solved or
+ * waiting to be written at once: the reading stops until one is written, so
+ * millions of inputs take the same memory as a few. The lines are written in
+ * the order of the input, holding back any that finish early, or in the
+ * order they finish. The output is flushed when its buffer is full, once a
+ * second and at the end, not after every line.
+ *
+ * Usage: java BatchSolver [input file | -] [threads] [ordered | unordered]
+ * [max nodes] [standard | double]
+ * (or java FreeCellMain -solve followed by the same arguments)
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class BatchSolver
+{
+	// Most inputs in progress at once for each worker thread
+	private static final int IN_FLIGHT_PER_THREAD = 4;
+
+	// Longest time finished lines wait in the output buffer (in milliseconds)
+	private static final long FLUSH_MILLIS = 1000;
+
+	// Variables for what to solve with and where to write
+	private final BoardLayout layout;
+	private final int threads;
+	private final boolean ordered;
+	private final Writer out;
+
+	// One Solver for each worker thread
+	private final ThreadLocal<Solver> solvers;
+
+	// One permit for each input that may be in progress, the lines that
+	// finished early (by index, in order only) and the index of the next
+	// line to write
+	private final Semaphore inFlight;
+	private final String[] waiting;
+	private long nextToWrite;
+
+	// Counts of the lines written and the inputs solved, and the first
+	// error writing the output (changed only while holding this object)
+	private long written;
+	private long solved;
+	private IOException writeError;
+
+	/**
+	 * Constructs a new BatchSolver.
+	 * @param layout the size of the games
+	 * @param maxNodes the most positions the Solver expands for each input
+	 * @param threads the number of worker threads
+	 * @param ordered true to write the lines in the order of the input or
+	 *            false to write them in the order they finish
+	 * @param out where to write the lines
+	 */
+	public BatchSolver(BoardLayout layout, final int maxNodes, int threads,
+			boolean ordered, Writer out)
+	{
+		this.layout = layout;
+		this.threads = threads;
+		this.ordered = ordered;
+		this.out = out;
+		solvers = new ThreadLocal<Solver>()
+		{
+			protected Solver initialValue()
+			{
+				return new Solver(maxNodes, PatternDatabase.getShared());
+			}
+		};
+		inFlight = new Semaphore(threads * IN_FLIGHT_PER_THREAD);
+		waiting = new String[threads * IN_FLIGHT_PER_THREAD];
+	}
+
+	/**
+	 * Solves every input of a stream and writes a line for each.
+	 * @param in the deal numbers or positions
+	 * @return the number of inputs read
+	 * @throws IOException if the input cannot be read or the output cannot be
+	 *             written
+	 * @throws InterruptedException if interrupted while waiting for the
+	 *             workers
+	 */
+	public long solveAll(InputStream in) throws IOException,
+			InterruptedException
+	{
+		BufferedInputStream buffered = new BufferedInputStream(in,
+				PositionReader.DEFAULT_BUFFER_SIZE);
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		ScheduledExecutorService flusher = Executors
+				.newSingleThreadScheduledExecutor();
+		flusher.scheduleWithFixedDelay(new Runnable()
+		{
+			public void run()
+			{
+				flush();
+			}
+		}, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+		long index = 0;
+		try
+		{
+			if (isDealList(buffered))
+			{
+				BufferedReader reader = new BufferedReader(new InputStreamReader(
+						buffered, StandardCharsets.US_ASCII));
+				String line;
+				while ((line = reader.readLine()) != null && !hasWriteError())
+				{
+					line = line.trim();
+					if (line.isEmpty() || line.startsWith("#"))
+						continue;
+					long dealNumber;
+					try
+					{
+						dealNumber = Long.parseLong(line);
+					}
+					catch (NumberFormatException exp)
+					{
+						dealNumber = 0;
+					}
+					if (dealNumber < 1)
+						submit(workers, index++, null, "\"error\":"
+								+ quote("bad deal number " + line));
+					else
+						submit(workers, index++, Deal.deal(layout, dealNumber),
+								"\"deal\":" + dealNumber);
+				}
+			}
+			else
+			{
+				PositionReader reader = new PositionReader(buffered, layout,
+						PositionReader.DEFAULT_BUFFER_SIZE);
+				Board board = new Board(layout);
+				while (!hasWriteError())
+				{
+					String input = "\"position\":" + index;
+					try
+					{
+						if (!reader.readPosition(board))
+							break;
+					}
+					catch (IOException exp)
+					{
+						// Skip to the next position (this throws again if the
+						// stream itself cannot be read)
+						reader.skipPosition();
+						submit(workers, index++, null, input + ",\"error\":"
+								+ quote(exp.getMessage()));
+						continue;
+					}
+					submit(workers, index++, board, input);
+					board = new Board(layout);
+				}
+			}
+		}
+		finally
+		{
+			// Wait for every input in progress to be written
+			inFlight.acquire(waiting.length);
+			inFlight.release(waiting.length);
+			workers.shutdown();
+			flusher.shutdownNow();
+			flush();
+		}
+		synchronized (this)
+		{
+			if (writeError != null)
+				throw writeError;
+		}
+		return index;
+	}
+
+	/**
+	 * Helper method of solveAll() that looks at the first line of the input
+	 * without using it up.
+	 * @param in the input (it must support mark())
+	 * @return true if the first line that is not blank is a deal number or a
+	 *         comment, or false if it is part of a position
+	 * @throws IOException if the input cannot be read
+	 */
+	private static boolean isDealList(BufferedInputStream in)
+			throws IOException
+	{
+		in.mark(PositionReader.DEFAULT_BUFFER_SIZE);
+		try
+		{
+			int next = in.read();
+			while (next != -1 && Character.isWhitespace(next))
+				next = in.read();
+			if (next == '#')
+				return true;
+
+			// A position's Cascade can also start with a digit ("4C 2C..."),
+			// so the whole line must be digits
+			boolean digits = next != -1;
+			while (next != -1 && next != '\n' && next != '\r')
+			{
+				if (!Character.isDigit(next) && next != ' ' && next != '\t')
+					digits = false;
+				next = in.read();
+			}
+			return digits;
+		}
+		finally
+		{
+			in.reset();
+		}
+	}
+
+	/**
+	 * Helper method of solveAll() that hands an input to the workers once
+	 * there is room for it.
+	 * @param workers the worker threads
+	 * @param index the index of the input
+	 * @param board the position to solve or null to write the line as it is
+	 * @param input the JSON fields saying what the input is
+	 * @throws InterruptedException if interrupted while waiting for room
+	 */
+	private void submit(ExecutorService workers, final long index,
+			final Board board, final String input) throws InterruptedException
+	{
+		inFlight.acquire();
+		if (board == null)
+		{
+			finished(index, "{\"index\":" + index + "," + input + "}", false);
+			return;
+		}
+		workers.execute(new Runnable()
+		{
+			public void run()
+			{
+				String line = null;
+				boolean wasSolved = false;
+				try
+				{
+					Solution solution = solvers.get().solve(board);
+					wasSolved = solution.isSolved();
+					line = toJson(index, input, board, solution);
+				}
+				catch (RuntimeException exp)
+				{
+					line = errorLine(index, input, exp);
+				}
+				catch (OutOfMemoryError error)
+				{
+					// The search's memory is free again once it is thrown
+					// away, so only this input is lost
+					line = errorLine(index, input, error);
+				}
+				finally
+				{
+					// Always free the room, or the reading would wait forever
+					if (line == null)
+						line = errorLine(index, input, null);
+					finished(index, line, wasSolved);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Helper method that writes a finished line, or holds it back until the
+	 * lines before it are written, and frees its room for another input.
+	 * @param index the index of the input
+	 * @param line the JSON line
+	 * @param wasSolved true if the input was solved
+	 */
+	private synchronized void finished(long index, String line,
+			boolean wasSolved)
+	{
+		if (wasSolved)
+			solved++;
+		if (!ordered)
+		{
+			write(line);
+			inFlight.release();
+		}
+		else
+		{
+			// Only waiting.length inputs can be in progress, so the lines held
+			// back never need the same spot
+			waiting[(int) (index % waiting.length)] = line;
+			int spot;
+			while ((line = waiting[spot = (int) (nextToWrite % waiting.length)]) != null)
+			{
+				write(line);
+				waiting[spot] = null;
+				nextToWrite++;
+				inFlight.release();
+			}
+		}
+	}
+
+	/**
+	 * Helper method that flushes the lines written so far, so a reader of
+	 * the output sees them without a flush (a system call) for every line.
+	 */
+	private synchronized void flush()
+	{
+		try
+		{
+			if (writeError == null)
+				out.flush();
+		}
+		catch (IOException exp)
+		{
+			writeError = exp;
+		}
+	}
+
+	/**
+	 * Helper method of finished() that writes one line, keeping the first
+	 * error so the reading can stop.
+	 * @param line the JSON line
+	 */
+	private void write(String line)
+	{
+		if (writeError != null)
+			return;
+		try
+		{
+			out.write(line);
+			out.write('\n');
+			written++;
+		}
+		catch (IOException exp)
+		{
+			writeError = exp;
+		}
+	}
+
+	/**
+	 * Helper method of solveAll() that checks if writing has failed (such as
+	 * when the program reading the output has stopped).
+	 * @return true if a line could not be written
+	 */
+	private synchronized boolean hasWriteError()
+	{
+		return writeError != null;
+	}
+
+	/**
+	 * Gets the number of inputs solved so far.
+	 * @return the number of inputs solved
+	 */
+	public synchronized long getSolved()
+	{
+		return solved;
+	}
+
+	/**
+	 * Gets the number of lines written so far.
+	 * @return the number of lines written
+	 */
+	public synchronized long getWritten()
+	{
+		return written;
+	}
+
+	/**
+	 * Helper method of submit() that makes the JSON line of a Solution. The
+	 * moves are written in the notation of PositionWriter, except that a move
+	 * to an empty Cascade of fewer cards than can be moved, which the two
+	 * letters alone would read as the most cards, is followed by a slash and
+	 * the number of cards (such as "14/2").
+	 * @param index the index of the input
+	 * @param input the JSON fields saying what the input is
+	 * @param start the position that was solved
+	 * @param solution the Solution
+	 * @return the JSON line
+	 */
+	private String toJson(long index, String input, Board start,
+			Solution solution)
+	{
+		StringBuilder line = new StringBuilder(64 + 3 * solution.getLength());
+		line.append("{\"index\":").append(index).append(',').append(input);
+		line.append(",\"solved\":").append(solution.isSolved());
+		line.append(",\"length\":").append(solution.getLength());
+		line.append(",\"nodes\":").append(solution.getNodes());
+		line.append(",\"ms\":").append(
+				String.format(Locale.ROOT, "%.3f", solution.getMillis()));
+		line.append(",\"solution\":");
+		if (!solution.isSolved())
+			line.append("null");
+		else
+		{
+			// Replay the moves to find the ones the letters do not say fully
+			Board board = new Board(start);
+			line.append('"');
+			for (int move = 0; move < solution.getLength(); move++)
+			{
+				if (move > 0)
+					line.append(' ');
+				int packed = solution.getMove(move);
+				int from = Board.getFrom(packed);
+				int to = Board.getTo(packed);
+				line.append(PositionWriter.locationLetter(from, layout));
+				line.append(PositionWriter.locationLetter(to, layout));
+				if (Board.getCount(board.resolveCount(Board.move(from, to, 0))) != Board
+						.getCount(packed))
+					line.append('/').append(Board.getCount(packed));
+				board.apply(packed);
+			}
+			line.append('"');
+		}
+		return line.append('}').toString();
+	}
+
+	/**
+	 * Helper method of submit() that makes the JSON line of an input that
+	 * could not be solved.
+	 * @param index the index of the input
+	 * @param input the JSON fields saying what the input is
+	 * @param problem what went wrong (or null if not known)
+	 * @return the JSON line
+	 */
+	private static String errorLine(long index, String input,
+			Throwable problem)
+	{
+		return "{\"index\":" + index + "," + input + ",\"error\":"
+				+ quote(problem == null ? "failed" : problem.toString()) + "}";
+	}
+
+	/**
+	 * Helper method that makes a JSON string.
+	 * @param text the text
+	 * @return the text in quotes with the special characters escaped
+	 */
+	private static String quote(String text)
+	{
+		StringBuilder quoted = new StringBuilder(text.length() + 2);
+		quoted.append('"');
+		for (int next = 0; next < text.length(); next++)
+		{
+			char letter = text.charAt(next);
+			if (letter == '"' || letter == '\\')
+				quoted.append('\\').append(letter);
+			else if (letter < ' ' || letter > '~')
+				quoted.append(String.format("\\u%04x", (int) letter));
+			else
+				quoted.append(letter);
+		}
+		return quoted.append('"').toString();
+	}
+
+	/**
+	 * Solves the deals or positions of a file or standard input and writes
+	 * the JSON lines to standard output, with a summary on standard error.
+	 * @param args the input file ("-" for standard input), number of
+	 *            threads, ordered or unordered, most positions to expand and
+	 *            layout (all optional)
+	 * @throws Exception if the input is not valid or the output cannot be
+	 *             written
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		String file = args.length > 0 ? args[0] : "-";
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime
+				.getRuntime().availableProcessors();
+		boolean ordered = args.length <= 2 || !args[2].equals("unordered");
+		int maxNodes = args.length > 3 ? Integer.parseInt(args[3])
+				: Solver.DEFAULT_MAX_NODES;
+		BoardLayout layout = args.length > 4 && args[4].equals("double") ? BoardLayout.DOUBLE
+				: BoardLayout.STANDARD;
+
+		InputStream in = file.equals("-") ? System.in : new FileInputStream(
+				file);
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out,
+				StandardCharsets.US_ASCII), 1 << 16);
+		BatchSolver solver = new BatchSolver(layout, maxNodes, threads,
+				ordered, out);
+		long startTime = System.nanoTime();
+		long inputs;
+		try
+		{
+			inputs = solver.solveAll(in);
+		}
+		finally
+		{
+			in.close();
+		}
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		System.err.printf("%,d inputs, %,d solved, %.1f s, %.1f inputs/s%n",
+				inputs, solver.getSolved(), seconds, seconds == 0 ? 0.0
+						: inputs / seconds);
+	}
+}
@@ -0,0 +1,419 @@
+import java.util.Random;
+
+/**
+ * Keeps the cards of a position that matter to the rules as sets of cards
+ * packed into longs, one bit for each card index (see CardCodec), so the
+ * clubs are bits 0 to 12, the diamonds 13 to 25, the hearts 26 to 38 and the
+ * spades 39 to 51. Questions about many cards at once, such as which exposed
+ * cards can go on which Cascades, then take a few ands of PlacementTable rows
+ * instead of comparing Cards one pair at a time. Board.generateMoves() uses
+ * them to skip the cards and runs that fit on no top card.
+ *
+ * A Bitboard is made from a Board and holds the exposed cards (the top card
+ * of each Cascade), the cards in the FreeCells, the next card each Foundation
+ * needs and the cards safely on the Foundations. In Double FreeCell both
+ * copies of a card share one bit.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class Bitboard
+{
+	// Every card, the cards of each suit (1 to 4) and of each colour
+	public static final long ALL = (1L << CardCodec.NO_OF_CARDS) - 1;
+	public static final long[] SUITS = { 0, 0x1FFFL, 0x1FFFL << 13,
+			0x1FFFL << 26, 0x1FFFL << 39 };
+	public static final long BLACK = SUITS[1] | SUITS[4];
+	public static final long RED = SUITS[2] | SUITS[3];
+
+	// The four Aces and the four Kings
+	public static final long ACES = 1L | 1L << 13 | 1L << 26 | 1L << 39;
+	public static final long KINGS = ACES << 12;
+
+	// Number of random positions to check and to time
+	private static final int CHECK_POSITIONS = 20000;
+	private static final int TIMED_POSITIONS = 4096;
+
+	// A face up Card for each card index to check against in main()
+	private static final Card[] CARDS = new Card[CardCodec.NO_OF_CARDS];
+	static
+	{
+		for (int card = 0; card < CARDS.length; card++)
+			CARDS[card] = new Card(CardCodec.rankOf(card),
+					CardCodec.suitOf(card), true);
+	}
+
+	// The sets of cards in the position
+	private long exposed;
+	private long freeCells;
+	private long foundationNext;
+	private long onFoundations;
+
+	// The Cascades (one bit each) with each exposed card on top
+	private int[] cascadesOf = new int[CardCodec.NO_OF_CARDS];
+
+	/**
+	 * Constructs a new empty Bitboard, to be filled by set().
+	 */
+	public Bitboard()
+	{
+	}
+
+	/**
+	 * Constructs a new Bitboard of the given position.
+	 * @param board the position
+	 */
+	public Bitboard(Board board)
+	{
+		set(board);
+	}
+
+	/**
+	 * Gets the set holding only the given card.
+	 * @param card the index of the card
+	 * @return the set with the card's bit
+	 */
+	public static long bit(int card)
+	{
+		return 1L << card;
+	}
+
+	/**
+	 * Finds every card that at least one of the given cards can be placed on
+	 * in a Cascade (the opposite colour and one rank higher).
+	 * @param cards the set of cards to place
+	 * @return the set of cards they can be placed on
+	 */
+	public static long placeTargets(long cards)
+	{
+		// Join the rows of the PlacementTable, which has the rules
+		long targets = 0;
+		for (; cards != 0; cards &= cards - 1)
+			targets |= PlacementTable.cascadeTargets(Long
+					.numberOfTrailingZeros(cards));
+		return targets;
+	}
+
+	/**
+	 * Finds every card that can be placed in a Cascade on at least one of the
+	 * given cards (the opposite colour and one rank lower).
+	 * @param cards the set of cards to place on
+	 * @return the set of cards that can be placed on them
+	 */
+	public static long placeableOn(long cards)
+	{
+		long placeable = 0;
+		for (; cards != 0; cards &= cards - 1)
+			placeable |= PlacementTable.cascadePlaceable(Long
+					.numberOfTrailingZeros(cards));
+		return placeable;
+	}
+
+	/**
+	 * Fills this Bitboard from a position.
+	 * @param board the position
+	 * @return this Bitboard
+	 */
+	public Bitboard set(Board board)
+	{
+		// Only the cards exposed last time have Cascades to clear
+		for (long left = exposed; left != 0; left &= left - 1)
+			cascadesOf[Long.numberOfTrailingZeros(left)] = 0;
+		exposed = 0;
+		freeCells = 0;
+		foundationNext = 0;
+		onFoundations = 0;
+
+		BoardLayout layout = board.getLayout();
+		for (int cascade = 0; cascade < layout.getNoOfCascades(); cascade++)
+			if (board.getHeight(cascade) > 0)
+			{
+				int card = board.getTopCard(cascade);
+				exposed |= bit(card);
+				cascadesOf[card] |= 1 << cascade;
+			}
+		for (int freeCell = 0; freeCell < layout.getNoOfFreeCells(); freeCell++)
+			if (board.getFreeCell(freeCell) != Board.EMPTY)
+				freeCells |= bit(board.getFreeCell(freeCell));
+
+		// A card is only safely on the Foundations when every Foundation of
+		// its suit has it, so use the lowest Foundation of each suit
+		int[] lowest = { 0, 13, 13, 13, 13 };
+		for (int foundation = 0; foundation < layout.getNoOfFoundations(); foundation++)
+		{
+			int suit = Board.getFoundationSuit(foundation);
+			int rank = board.getFoundation(foundation);
+			if (rank < 13)
+				foundationNext |= bit(CardCodec.indexOf(rank + 1, suit));
+			lowest[suit] = Math.min(lowest[suit], rank);
+		}
+		for (int suit = 1; suit <= 4; suit++)
+			onFoundations |= ((1L << lowest[suit]) - 1) << (suit - 1) * 13;
+		return this;
+	}
+
+	/**
+	 * Gets the cards on top of the Cascades.
+	 * @return the set of exposed cards
+	 */
+	public long getExposed()
+	{
+		return exposed;
+	}
+
+	/**
+	 * Gets the cards in the FreeCells.
+	 * @return the set of cards in the FreeCells
+	 */
+	public long getFreeCells()
+	{
+		return freeCells;
+	}
+
+	/**
+	 * Gets the cards that can be moved (the exposed cards and the cards in
+	 * the FreeCells).
+	 * @return the set of cards that can be moved
+	 */
+	public long getAvailable()
+	{
+		return exposed | freeCells;
+	}
+
+	/**
+	 * Gets the next card each Foundation needs, wherever it is.
+	 * @return the set of cards the Foundations need
+	 */
+	public long getFoundationNext()
+	{
+		return foundationNext;
+	}
+
+	/**
+	 * Gets the cards on every Foundation of their suit.
+	 * @return the set of cards on the Foundations
+	 */
+	public long getOnFoundations()
+	{
+		return onFoundations;
+	}
+
+	/**
+	 * Finds the cards that can be moved to a Foundation right now.
+	 * @return the set of cards that can go to the Foundations
+	 */
+	public long toFoundations()
+	{
+		return getAvailable() & foundationNext;
+	}
+
+	/**
+	 * Finds the cards that can be moved onto the top card of some Cascade
+	 * right now (empty Cascades are left out since any card can go there).
+	 * @return the set of cards that can go on a Cascade
+	 */
+	public long toCascades()
+	{
+		return getAvailable() & placeableOn(exposed);
+	}
+
+	/**
+	 * Finds the Cascades whose top card the given card can be placed on.
+	 * @param card the index of the card
+	 * @return one bit for each such Cascade (bit 0 for Cascade 0)
+	 */
+	public int cascadesFor(int card)
+	{
+		// There are at most two targets (four in Double FreeCell)
+		int cascades = 0;
+		for (long targets = PlacementTable.cascadeTargets(card) & exposed; targets != 0; targets &= targets - 1)
+			cascades |= cascadesOf[Long.numberOfTrailingZeros(targets)];
+		return cascades;
+	}
+
+	/**
+	 * Checks if a card can safely go to a Foundation (the same rule as
+	 * Board.isSafeToAutoComplete()): no card still in play could ever need
+	 * to be placed on it.
+	 * @param card the index of the card
+	 * @return true if the card is safe to put on a Foundation
+	 */
+	public boolean isSafeToAutoComplete(int card)
+	{
+		return CardCodec.rankOf(card) <= 2
+				|| (PlacementTable.cascadePlaceable(card) & ~onFoundations) == 0;
+	}
+
+	/**
+	 * Checks the Bitboard against the Card and Board rules on every pair of
+	 * cards and on random positions of both layouts, then times which
+	 * movable cards fit on which Cascades against Card.canPlaceOnCascade()
+	 * and Board.canPlaceOnCascade().
+	 * @param args the number of timing rounds (optional)
+	 */
+	public static void main(String[] args)
+	{
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		Random random = new Random(47);
+
+		// Every pair of cards against Card.canPlaceOnCascade()
+		int differences = 0;
+		for (int card = 0; card < CardCodec.NO_OF_CARDS; card++)
+			for (int other = 0; other < CardCodec.NO_OF_CARDS; other++)
+			{
+				boolean expected = CARDS[card].canPlaceOnCascade(CARDS[other]);
+				if (((placeTargets(bit(card)) >>> other & 1) != 0) != expected
+						|| ((placeableOn(bit(other)) >>> card & 1) != 0) != expected)
+					differences++;
+			}
+
+		// Random positions against the Card and Board rules
+		BoardLayout[] layouts = { BoardLayout.STANDARD, BoardLayout.DOUBLE };
+		Bitboard bitboard = new Bitboard();
+		for (BoardLayout layout : layouts)
+			for (Board board : randomPositions(layout, CHECK_POSITIONS, random))
+			{
+				int found = check(board, bitboard.set(board));
+				if (found > 0 && differences == 0)
+					System.out.println("First difference in:\n" + board);
+				differences += found;
+			}
+		System.out.printf("%,d pairs and %,d positions checked, %d "
+				+ "differences%n", CardCodec.NO_OF_CARDS
+				* CardCodec.NO_OF_CARDS, CHECK_POSITIONS * layouts.length,
+				differences);
+		if (differences > 0)
+			System.exit(1);
+
+		// Time the same question three ways on the same positions
+		Board[] positions = randomPositions(BoardLayout.STANDARD,
+				TIMED_POSITIONS, random);
+		long[] pairs = new long[3];
+		long[] nanos = new long[3];
+		for (int round = 0; round < rounds; round++)
+			for (int way = 0; way < 3; way++)
+			{
+				long startTime = System.nanoTime();
+				for (Board board : positions)
+					pairs[way] += countPairs(board, way, bitboard);
+				nanos[way] += System.nanoTime() - startTime;
+			}
+		String[] names = { "Card.canPlaceOnCascade", "Board.canPlaceOnCascade",
+				"Bitboard" };
+		for (int way = 0; way < 3; way++)
+			System.out.printf("%-24s%,8.1f ns per position, %,d moves%n",
+					names[way], (double) nanos[way] / rounds / TIMED_POSITIONS,
+					pairs[way] / rounds);
+	}
+
+	/**
+	 * Helper method of main() that makes positions by playing random moves
+	 * from random deals.
+	 * @param layout the size of the games
+	 * @param count the number of positions
+	 * @param random the random numbers to use
+	 * @return the positions
+	 */
+	private static Board[] randomPositions(BoardLayout layout, int count,
+			Random random)
+	{
+		Board[] positions = new Board[count];
+		int[] moves = new int[Board.maxMoves(layout)];
+		for (int position = 0; position < count; position++)
+		{
+			Board board = Deal.deal(layout, 1 + random.nextInt(1000000));
+			for (int step = random.nextInt(150); step > 0; step--)
+			{
+				int noOfMoves = board.generateMoves(moves);
+				if (noOfMoves == 0)
+					break;
+				board.apply(moves[random.nextInt(noOfMoves)]);
+			}
+			positions[position] = board;
+		}
+		return positions;
+	}
+
+	/**
+	 * Helper method of main() that compares each answer of the Bitboard with
+	 * the Card and Board rules for every movable card of a position.
+	 * @param board the position
+	 * @param bitboard the Bitboard of the position
+	 * @return the number of answers that differ
+	 */
+	private static int check(Board board, Bitboard bitboard)
+	{
+		BoardLayout layout = board.getLayout();
+		int differences = 0;
+		long available = 0;
+		for (int from = 0; from < layout.getFirstFoundation(); from++)
+		{
+			int card = board.cardAt(from);
+			if (card == Board.EMPTY)
+				continue;
+			available |= bit(card);
+
+			// Which Cascades the card fits on
+			int cascades = bitboard.cascadesFor(card);
+			boolean anyCascade = false;
+			for (int to = 0; to < layout.getNoOfCascades(); to++)
+			{
+				boolean expected = board.getHeight(to) > 0
+						&& CARDS[card].canPlaceOnCascade(CARDS[board
+								.getTopCard(to)]);
+				anyCascade |= expected;
+				if ((cascades >>> to & 1) != 0 != expected)
+					differences++;
+			}
+			if ((bitboard.toCascades() >>> card & 1) != 0 != anyCascade)
+				differences++;
+
+			// And the Foundations
+			if ((bitboard.toFoundations() >>> card & 1) != 0 != (board
+					.findFoundation(card) != -1))
+				differences++;
+			if (bitboard.isSafeToAutoComplete(card) != board
+					.isSafeToAutoComplete(card))
+				differences++;
+		}
+		if (available != bitboard.getAvailable())
+			differences++;
+		return differences;
+	}
+
+	/**
+	 * Helper method of main() that counts the moves of a movable card onto
+	 * the top card of another Cascade.
+	 * @param board the position
+	 * @param way 0 for Card.canPlaceOnCascade(), 1 for
+	 *            Board.canPlaceOnCascade() or 2 for the Bitboard
+	 * @param bitboard a Bitboard to reuse
+	 * @return the number of moves
+	 */
+	private static int countPairs(Board board, int way, Bitboard bitboard)
+	{
+		BoardLayout layout = board.getLayout();
+		int pairs = 0;
+		if (way == 2)
+		{
+			bitboard.set(board);
+			for (long cards = bitboard.toCascades(); cards != 0; cards &= cards - 1)
+				pairs += Integer.bitCount(bitboard.cascadesFor(Long
+						.numberOfTrailingZeros(cards)));
+			return pairs;
+		}
+		for (int from = 0; from < layout.getFirstFoundation(); from++)
+		{
+			int card = board.cardAt(from);
+			if (card == Board.EMPTY)
+				continue;
+			for (int to = 0; to < layout.getNoOfCascades(); to++)
+				if (board.getHeight(to) > 0
+						&& (way == 0 ? CARDS[card].canPlaceOnCascade(CARDS[board
+								.getTopCard(to)]) : Board
+								.canPlaceOnCascade(card, board.getTopCard(to))))
+					pairs++;
+		}
+		return pairs;
+	}
+}
@@ -0,0 +1,825 @@
+import java.util.Arrays;
+
+/**
+ * Keeps track of a FreeCell position without any graphics, packed into a few
+ * arrays so that it can be copied, compared and hashed quickly by the solver
+ * and the file readers. Cards are stored by their index (see CardCodec) and
+ * empty spaces hold EMPTY.
+ *
+ * The size of the game comes from a BoardLayout, so the same Board works for
+ * the standard game and for Double FreeCell. Each place a card can be is given
+ * a location number in the same order as the Hands in CardPanel: the Cascades
+ * first, then the FreeCells and then the Foundations. Foundation f only holds
+ * the suit (f % 4) + 1, so Double FreeCell has two Foundations for each suit.
+ *
+ * A move is packed into an int holding the from location, the to location and
+ * the number of cards moved (see move()).
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class Board
+{
+	// Value of an empty FreeCell or an empty spot in a Cascade
+	public static final byte EMPTY = -1;
+
+	// The size of this game, copied out of the layout so the rule checks only
+	// read final fields
+	private final BoardLayout layout;
+	private final int noOfCards;
+	private final int noOfCascades;
+	private final int noOfFreeCells;
+	private final int noOfFoundations;
+	private final int firstFreeCell;
+	private final int firstFoundation;
+	private final int noOfLocations;
+	private final int cascadeSize;
+
+	// Variables to keep track of the cards in each Cascade (one after another
+	// in one array), the height of each Cascade, the card in each FreeCell and
+	// the rank of the top card of each Foundation (0 when empty)
+	private byte[] cascades;
+	private byte[] heights;
+	private byte[] freeCells;
+	private byte[] foundations;
+
+	/**
+	 * Constructs a new empty Board with the given layout.
+	 * @param layout the size of the game
+	 */
+	public Board(BoardLayout layout)
+	{
+		this.layout = layout;
+		noOfCards = layout.getNoOfCards();
+		noOfCascades = layout.getNoOfCascades();
+		noOfFreeCells = layout.getNoOfFreeCells();
+		noOfFoundations = layout.getNoOfFoundations();
+		firstFreeCell = layout.getFirstFreeCell();
+		firstFoundation = layout.getFirstFoundation();
+		noOfLocations = layout.getNoOfLocations();
+		cascadeSize = layout.getMaxCascadeHeight();
+
+		cascades = new byte[noOfCascades * cascadeSize];
+		heights = new byte[noOfCascades];
+		freeCells = new byte[noOfFreeCells];
+		foundations = new byte[noOfFoundations];
+		Arrays.fill(freeCells, EMPTY);
+	}
+
+	/**
+	 * Constructs a new empty Board with the standard layout.
+	 */
+	public Board()
+	{
+		this(BoardLayout.STANDARD);
+	}
+
+	/**
+	 * Constructs a new Board that is a copy of the given Board.
+	 * @param other the Board to copy
+	 */
+	public Board(Board other)
+	{
+		layout = other.layout;
+		noOfCards = other.noOfCards;
+		noOfCascades = other.noOfCascades;
+		noOfFreeCells = other.noOfFreeCells;
+		noOfFoundations = other.noOfFoundations;
+		firstFreeCell = other.firstFreeCell;
+		firstFoundation = other.firstFoundation;
+		noOfLocations = other.noOfLocations;
+		cascadeSize = other.cascadeSize;
+
+		cascades = other.cascades.clone();
+		heights = other.heights.clone();
+		freeCells = other.freeCells.clone();
+		foundations = other.foundations.clone();
+	}
+
+	/**
+	 * Constructs a new Board by dealing the given cards one at a time to each
+	 * Cascade from left to right, the same way CardPanel deals.
+	 * @param layout the size of the game
+	 * @param cards the indexes of the cards in the order they are dealt
+	 * @return the dealt Board
+	 */
+	public static Board deal(BoardLayout layout, int[] cards)
+	{
+		Board board = new Board(layout);
+		for (int card = 0; card < cards.length; card++)
+			board.addToCascade(card % board.noOfCascades, cards[card]);
+		return board;
+	}
+
+	/**
+	 * Constructs a new standard Board by dealing the given cards.
+	 * @param cards the indexes of the cards in the order they are dealt
+	 * @return the dealt Board
+	 */
+	public static Board deal(int[] cards)
+	{
+		return deal(BoardLayout.STANDARD, cards);
+	}
+
+	/**
+	 * Gets the size of the game this Board is for.
+	 * @return the layout of this Board
+	 */
+	public BoardLayout getLayout()
+	{
+		return layout;
+	}
+
+	/**
+	 * Copies every card of the given Board into this Board.
+	 * @param other the Board to copy
+	 */
+	public void copyFrom(Board other)
+	{
+		System.arraycopy(other.cascades, 0, cascades, 0, cascades.length);
+		System.arraycopy(other.heights, 0, heights, 0, heights.length);
+		System.arraycopy(other.freeCells, 0, freeCells, 0, freeCells.length);
+		System.arraycopy(other.foundations, 0, foundations, 0,
+				foundations.length);
+	}
+
+	/**
+	 * Removes all of the cards from this Board.
+	 */
+	public void clear()
+	{
+		Arrays.fill(heights, (byte) 0);
+		Arrays.fill(freeCells, EMPTY);
+		Arrays.fill(foundations, (byte) 0);
+	}
+
+	/**
+	 * Adds a card to the top of the given Cascade without checking the rules.
+	 * @param cascade the Cascade to add to
+	 * @param card the index of the card to add
+	 */
+	public void addToCascade(int cascade, int card)
+	{
+		cascades[cascade * cascadeSize + heights[cascade]] = (byte) card;
+		heights[cascade]++;
+	}
+
+	/**
+	 * Checks if another card can be added to the given Cascade.
+	 * @param cascade the Cascade to look at
+	 * @return true if the Cascade is not as tall as the layout allows
+	 */
+	public boolean hasRoom(int cascade)
+	{
+		return heights[cascade] < cascadeSize;
+	}
+
+	/**
+	 * Puts a card in the given FreeCell without checking the rules.
+	 * @param freeCell the FreeCell to put the card in
+	 * @param card the index of the card or EMPTY
+	 */
+	public void setFreeCell(int freeCell, int card)
+	{
+		freeCells[freeCell] = (byte) card;
+	}
+
+	/**
+	 * Sets how many cards are on the given Foundation.
+	 * @param foundation the Foundation to set
+	 * @param rank the rank of the top card of the Foundation (0 when empty)
+	 */
+	public void setFoundation(int foundation, int rank)
+	{
+		foundations[foundation] = (byte) rank;
+	}
+
+	/**
+	 * Gets the number of cards in the given Cascade.
+	 * @param cascade the Cascade to look at
+	 * @return the number of cards in the Cascade
+	 */
+	public int getHeight(int cascade)
+	{
+		return heights[cascade];
+	}
+
+	/**
+	 * Gets a card from the given Cascade.
+	 * @param cascade the Cascade to look at
+	 * @param position the position of the card (0 is the bottom card)
+	 * @return the index of the card
+	 */
+	public int getCascadeCard(int cascade, int position)
+	{
+		return cascades[cascade * cascadeSize + position];
+	}
+
+	/**
+	 * Gets the top card of the given Cascade.
+	 * @param cascade the Cascade to look at
+	 * @return the index of the top card or EMPTY if the Cascade is empty
+	 */
+	public int getTopCard(int cascade)
+	{
+		if (heights[cascade] == 0)
+			return EMPTY;
+		return cascades[cascade * cascadeSize + heights[cascade] - 1];
+	}
+
+	/**
+	 * Gets the card in the given FreeCell.
+	 * @param freeCell the FreeCell to look at
+	 * @return the index of the card or EMPTY
+	 */
+	public int getFreeCell(int freeCell)
+	{
+		return freeCells[freeCell];
+	}
+
+	/**
+	 * Gets the rank of the top card of the given Foundation.
+	 * @param foundation the Foundation to look at
+	 * @return the rank of the top card (0 when empty)
+	 */
+	public int getFoundation(int foundation)
+	{
+		return foundations[foundation];
+	}
+
+	/**
+	 * Gets the suit held by the given Foundation.
+	 * @param foundation the Foundation to look at
+	 * @return the suit of the Foundation (1 to 4)
+	 */
+	public static int getFoundationSuit(int foundation)
+	{
+		return foundation % 4 + 1;
+	}
+
+	/**
+	 * Gets the number of cards not yet on the Foundations.
+	 * @return the number of cards left to play
+	 */
+	public int cardsLeft()
+	{
+		int left = noOfCards;
+		for (int foundation = 0; foundation < noOfFoundations; foundation++)
+			left -= foundations[foundation];
+		return left;
+	}
+
+	/**
+	 * Checks if every card is on the Foundations.
+	 * @return true if the game is won or false if not
+	 */
+	public boolean isWon()
+	{
+		return cardsLeft() == 0;
+	}
+
+	/**
+	 * Gets the number of empty FreeCells.
+	 * @return the number of empty FreeCells
+	 */
+	public int getNoOfOpenFreeCells()
+	{
+		int open = 0;
+		for (int freeCell = 0; freeCell < noOfFreeCells; freeCell++)
+			if (freeCells[freeCell] == EMPTY)
+				open++;
+		return open;
+	}
+
+	/**
+	 * Gets the number of empty Cascades.
+	 * @return the number of empty Cascades
+	 */
+	public int getNoOfOpenCascades()
+	{
+		int open = 0;
+		for (int cascade = 0; cascade < noOfCascades; cascade++)
+			if (heights[cascade] == 0)
+				open++;
+		return open;
+	}
+
+	/**
+	 * Checks if a card can be placed on a Cascade whose top card is the other
+	 * given card (the same rules as Card.canPlaceOnCascade()).
+	 * @param card the index of the card to place
+	 * @param cascadeCard the index of the top card of the Cascade
+	 * @return true if the card can be placed or false if not
+	 */
+	public static boolean canPlaceOnCascade(int card, int cascadeCard)
+	{
+		return PlacementTable.canPlaceOnCascade(card, cascadeCard);
+	}
+
+	/**
+	 * Finds a Foundation the given card can be placed on.
+	 * @param card the index of the card to place
+	 * @return the Foundation location number or -1 if there is none
+	 */
+	public int findFoundation(int card)
+	{
+		int suit = CardCodec.suitOf(card);
+		int rank = CardCodec.rankOf(card);
+		for (int foundation = suit - 1; foundation < noOfFoundations; foundation += 4)
+			if (foundations[foundation] == rank - 1)
+				return firstFoundation + foundation;
+		return -1;
+	}
+
+	/**
+	 * Gets the number of cards on top of the given Cascade that are in order
+	 * (each card can be placed on the card below it).
+	 * @param cascade the Cascade to look at
+	 * @return the number of cards in the ordered run at the top
+	 */
+	public int getRunLength(int cascade)
+	{
+		int height = heights[cascade];
+		if (height == 0)
+			return 0;
+		int start = cascade * cascadeSize;
+		int run = 1;
+		while (run < height
+				&& canPlaceOnCascade(cascades[start + height - run],
+						cascades[start + height - run - 1]))
+			run++;
+		return run;
+	}
+
+	/**
+	 * Calculates the maximum number of cards that can be moved at once to a
+	 * Cascade (the same formula as Tableau.maxCardsMovable()).
+	 * @param toEmpty true if the Cascade being moved to is empty
+	 * @return the maximum number of cards that can be moved
+	 */
+	public int maxCardsMovable(boolean toEmpty)
+	{
+		int openCascades = getNoOfOpenCascades();
+		if (toEmpty)
+			openCascades--;
+		return (1 + getNoOfOpenFreeCells()) << openCascades;
+	}
+
+	/**
+	 * Packs a move into an int.
+	 * @param from the location number the cards move from
+	 * @param to the location number the cards move to
+	 * @param count the number of cards moved
+	 * @return the packed move
+	 */
+	public static int move(int from, int to, int count)
+	{
+		return from | to << 8 | count << 16;
+	}
+
+	/**
+	 * Gets the location number a packed move is from.
+	 * @param move the packed move
+	 * @return the location number the cards move from
+	 */
+	public static int getFrom(int move)
+	{
+		return move & 0xFF;
+	}
+
+	/**
+	 * Gets the location number a packed move is to.
+	 * @param move the packed move
+	 * @return the location number the cards move to
+	 */
+	public static int getTo(int move)
+	{
+		return move >>> 8 & 0xFF;
+	}
+
+	/**
+	 * Gets the number of cards a packed move moves.
+	 * @param move the packed move
+	 * @return the number of cards moved
+	 */
+	public static int getCount(int move)
+	{
+		return move >>> 16;
+	}
+
+	/**
+	 * Gets the card that would be moved first from the given location (the
+	 * top card of a Cascade or the card in a FreeCell).
+	 * @param location the location number to look at
+	 * @return the index of the card or EMPTY
+	 */
+	public int cardAt(int location)
+	{
+		if (location < firstFreeCell)
+			return getTopCard(location);
+		if (location < firstFoundation)
+			return freeCells[location - firstFreeCell];
+		return EMPTY;
+	}
+
+	/**
+	 * Checks if the given move follows the rules from this position.
+	 * @param move the packed move to check
+	 * @return true if the move is legal or false if not
+	 */
+	public boolean isLegal(int move)
+	{
+		int from = getFrom(move);
+		int to = getTo(move);
+		int count = getCount(move);
+		if (from == to || from >= firstFoundation || to >= noOfLocations
+				|| count < 1)
+			return false;
+
+		// Only a Cascade can move more than one card
+		if (from >= firstFreeCell)
+		{
+			if (count != 1 || freeCells[from - firstFreeCell] == EMPTY)
+				return false;
+		}
+		else if (count > getRunLength(from))
+			return false;
+
+		// The bottom card of the moving cards
+		int card = from < firstFreeCell ? getCascadeCard(from, heights[from]
+				- count) : freeCells[from - firstFreeCell];
+
+		if (to >= firstFoundation)
+			return count == 1
+					&& foundations[to - firstFoundation] == CardCodec
+							.rankOf(card) - 1
+					&& getFoundationSuit(to - firstFoundation) == CardCodec
+							.suitOf(card);
+		if (to >= firstFreeCell)
+			return count == 1 && freeCells[to - firstFreeCell] == EMPTY;
+		if (heights[to] == 0)
+			return count <= maxCardsMovable(true);
+		return count <= maxCardsMovable(false)
+				&& canPlaceOnCascade(card, getTopCard(to));
+	}
+
+	/**
+	 * Makes the given move without checking the rules.
+	 * @param move the packed move to make
+	 */
+	public void apply(int move)
+	{
+		int from = getFrom(move);
+		int to = getTo(move);
+		int count = getCount(move);
+
+		if (from < firstFreeCell)
+		{
+			// Take the cards off the top of the Cascade in the same order
+			int start = from * cascadeSize + heights[from] - count;
+			heights[from] -= count;
+			if (to < firstFreeCell)
+			{
+				System.arraycopy(cascades, start, cascades, to * cascadeSize
+						+ heights[to], count);
+				heights[to] += count;
+			}
+			else
+				place(to, cascades[start]);
+		}
+		else
+		{
+			int card = freeCells[from - firstFreeCell];
+			freeCells[from - firstFreeCell] = EMPTY;
+			place(to, card);
+		}
+	}
+
+	/**
+	 * Places a single card in the given location.
+	 * @param to the location number to place the card in
+	 * @param card the index of the card
+	 */
+	private void place(int to, int card)
+	{
+		if (to < firstFreeCell)
+			addToCascade(to, card);
+		else if (to < firstFoundation)
+			freeCells[to - firstFreeCell] = (byte) card;
+		else
+			foundations[to - firstFoundation]++;
+	}
+
+	/**
+	 * Fills in the number of cards of a move read without a count (a count of
+	 * zero). Moves to a Cascade with cards take the one run length that fits,
+	 * moves to an empty Cascade take as many cards as can be moved and other
+	 * moves take one card. The notation has one letter for all the
+	 * Foundations, so a move to any Foundation goes to the one the card can
+	 * go on, or else the first one of its suit.
+	 * @param move the packed move, possibly with a count of zero
+	 * @return the packed move with its count (and Foundation) filled in
+	 */
+	public int resolveCount(int move)
+	{
+		if (getCount(move) != 0)
+			return move;
+		int from = getFrom(move);
+		int to = getTo(move);
+		if (from < firstFoundation && to >= firstFoundation
+				&& to < firstFoundation + noOfFoundations)
+		{
+			int card = cardAt(from);
+			if (card != EMPTY)
+			{
+				to = findFoundation(card);
+				if (to < 0)
+					to = firstFoundation + CardCodec.suitOf(card) - 1;
+			}
+			return move(from, to, 1);
+		}
+		if (from >= firstFreeCell || to >= firstFreeCell)
+			return move(from, to, 1);
+
+		int run = getRunLength(from);
+		if (heights[to] == 0)
+			return move(from, to, Math.max(1, Math.min(run,
+					maxCardsMovable(true))));
+
+		// The card that goes on the destination is one rank lower than it
+		int needed = CardCodec.rankOf(getTopCard(to)) - 1;
+		for (int count = 1; count <= run; count++)
+			if (CardCodec.rankOf(getCascadeCard(from, heights[from] - count)) == needed)
+				return move(from, to, count);
+		return move(from, to, 1);
+	}
+
+	/**
+	 * Gets the most moves generateMoves() can find for the given layout.
+	 * @param layout the size of the game
+	 * @return the size of array generateMoves() needs
+	 */
+	public static int maxMoves(BoardLayout layout)
+	{
+		int cascades = layout.getNoOfCascades();
+		int freeCells = layout.getNoOfFreeCells();
+		return layout.getFirstFoundation() + freeCells * cascades + cascades
+				* (cascades + 13) + cascades;
+	}
+
+	/**
+	 * Finds every legal move from this position. Moves that put a card back
+	 * into an empty FreeCell next to another empty FreeCell, or move a whole
+	 * Cascade into another empty Cascade, are left out since they never help.
+	 * @param moves the array to store the packed moves in (at least
+	 *            maxMoves() long)
+	 * @return the number of moves found
+	 */
+	public int generateMoves(int[] moves)
+	{
+		int noOfMoves = 0;
+		int openFreeCells = getNoOfOpenFreeCells();
+		int openCascades = getNoOfOpenCascades();
+		int firstOpenFreeCell = -1;
+		for (int freeCell = 0; freeCell < noOfFreeCells; freeCell++)
+			if (freeCells[freeCell] == EMPTY)
+			{
+				firstOpenFreeCell = firstFreeCell + freeCell;
+				break;
+			}
+		int firstOpenCascade = -1;
+		long exposed = 0;
+		for (int cascade = 0; cascade < noOfCascades; cascade++)
+			if (heights[cascade] > 0)
+				exposed |= Bitboard.bit(getTopCard(cascade));
+			else if (firstOpenCascade == -1)
+				firstOpenCascade = cascade;
+
+		// Moves to the Foundations
+		for (int from = 0; from < firstFoundation; from++)
+		{
+			int card = cardAt(from);
+			if (card != EMPTY)
+			{
+				int to = findFoundation(card);
+				if (to != -1)
+					moves[noOfMoves++] = move(from, to, 1);
+			}
+		}
+
+		// Moves from the FreeCells to the Cascades, skipping the cards that
+		// fit on no top card when there is no empty Cascade
+		for (int freeCell = 0; freeCell < noOfFreeCells; freeCell++)
+		{
+			int card = freeCells[freeCell];
+			if (card != EMPTY
+					&& (firstOpenCascade != -1 || (PlacementTable
+							.cascadeTargets(card) & exposed) != 0))
+				for (int to = 0; to < noOfCascades; to++)
+					if (heights[to] == 0 ? to == firstOpenCascade
+							: canPlaceOnCascade(card, getTopCard(to)))
+						moves[noOfMoves++] = move(firstFreeCell + freeCell,
+								to, 1);
+		}
+
+		// Moves between the Cascades
+		for (int from = 0; from < noOfCascades; from++)
+		{
+			int run = getRunLength(from);
+			if (run == 0)
+				continue;
+
+			// Skip the Cascades whose run fits on no top card when there is
+			// no empty Cascade
+			if (firstOpenCascade == -1)
+			{
+				long runCards = 0;
+				for (int position = heights[from] - run; position < heights[from]; position++)
+					runCards |= Bitboard.bit(getCascadeCard(from, position));
+				if ((Bitboard.placeTargets(runCards) & exposed) == 0)
+					continue;
+			}
+			for (int to = 0; to < noOfCascades; to++)
+			{
+				if (to == from)
+					continue;
+				if (heights[to] == 0)
+				{
+					// Only try the first empty Cascade since they are all
+					// the same, and never move a whole Cascade
+					if (to != firstOpenCascade)
+						continue;
+					int most = Math.min(run, (1 + openFreeCells) << openCascades - 1);
+					if (most == heights[from])
+						most--;
+					for (int count = most; count >= 1; count--)
+						moves[noOfMoves++] = move(from, to, count);
+				}
+				else
+				{
+					// Only one run length can fit on the top card
+					int needed = CardCodec.rankOf(getTopCard(to)) - 1;
+					int bottom = CardCodec.rankOf(getTopCard(from));
+					int count = needed - bottom + 1;
+					if (count >= 1
+							&& count <= run
+							&& count <= (1 + openFreeCells) << openCascades
+							&& canPlaceOnCascade(getCascadeCard(from,
+									heights[from] - count), getTopCard(to)))
+						moves[noOfMoves++] = move(from, to, count);
+				}
+			}
+		}
+
+		// Moves from the Cascades to a FreeCell
+		if (openFreeCells > 0)
+			for (int from = 0; from < noOfCascades; from++)
+				if (heights[from] > 0)
+					moves[noOfMoves++] = move(from, firstOpenFreeCell, 1);
+
+		return noOfMoves;
+	}
+
+	/**
+	 * Checks if the card at the given location can safely go to a Foundation,
+	 * meaning no card still in play could ever need to be placed on it (the
+	 * same rule as CardPanel.shouldAutoComplete()).
+	 * @param card the index of the card
+	 * @return true if the card is safe to put on a Foundation
+	 */
+	public boolean isSafeToAutoComplete(int card)
+	{
+		int rank = CardCodec.rankOf(card);
+		if (rank <= 2)
+			return true;
+
+		// Every card that can be placed on this one (the opposite colour and
+		// one rank lower) must already be on the Foundations
+		long placeable = PlacementTable.cascadePlaceable(card);
+		for (int foundation = 0; foundation < noOfFoundations; foundation++)
+		{
+			int lower = CardCodec.indexOf(rank - 1, getFoundationSuit(foundation));
+			if ((placeable >>> lower & 1) != 0
+					&& foundations[foundation] < rank - 1)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Makes every safe move to the Foundations (see isSafeToAutoComplete()),
+	 * over and over until there are none left.
+	 * @param moves the array to store the packed moves made in or null
+	 * @param offset the position in the array to store the first move at
+	 * @return the number of moves made
+	 */
+	public int autoComplete(int[] moves, int offset)
+	{
+		int made = 0;
+		boolean autoCompletedOnce = true;
+		while (autoCompletedOnce)
+		{
+			autoCompletedOnce = false;
+			for (int from = 0; from < firstFoundation; from++)
+			{
+				int card = cardAt(from);
+				if (card == EMPTY)
+					continue;
+				int to = findFoundation(card);
+				if (to != -1 && isSafeToAutoComplete(card))
+				{
+					int move = move(from, to, 1);
+					apply(move);
+					if (moves != null)
+						moves[offset + made] = move;
+					made++;
+					autoCompletedOnce = true;
+				}
+			}
+		}
+		return made;
+	}
+
+	/**
+	 * Calculates a 64 bit hash of this position that is the same no matter
+	 * what order the Cascades and FreeCells are in, since swapping them does
+	 * not change the game.
+	 * @return the hash of this position
+	 */
+	public long hash()
+	{
+		long hash = 0;
+		for (int cascade = 0; cascade < noOfCascades; cascade++)
+		{
+			// Hash each Cascade from bottom to top, then mix so that adding
+			// the Cascades together does not depend on their order
+			long cascadeHash = heights[cascade];
+			int start = cascade * cascadeSize;
+			for (int card = 0; card < heights[cascade]; card++)
+				cascadeHash = cascadeHash * 0x100000001B3L
+						+ cascades[start + card] + 1;
+			hash += mix(cascadeHash);
+		}
+		for (int freeCell = 0; freeCell < noOfFreeCells; freeCell++)
+			if (freeCells[freeCell] != EMPTY)
+				hash += mix(0x5BD1E995L + freeCells[freeCell]);
+		for (int foundation = 0; foundation < noOfFoundations; foundation++)
+			hash += mix(foundations[foundation] * 31L + foundation
+					+ 0x27D4EB2FL);
+		return mix(hash);
+	}
+
+	/**
+	 * Scrambles the bits of a long (the finalizer of the SplitMix64 random
+	 * number generator).
+	 * @param value the value to scramble
+	 * @return the scrambled value
+	 */
+	static long mix(long value)
+	{
+		value = (value ^ value >>> 30) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ value >>> 27) * 0x94D049BB133111EBL;
+		return value ^ value >>> 31;
+	}
+
+	/**
+	 * Checks if the other object is a Board with the same cards in the same
+	 * places.
+	 * @param other the object to compare to
+	 * @return true if the Boards are the same or false if not
+	 */
+	public boolean equals(Object other)
+	{
+		if (!(other instanceof Board))
+			return false;
+		Board board = (Board) other;
+		if (!layout.equals(board.layout) || !Arrays.equals(heights, board.heights)
+				|| !Arrays.equals(freeCells, board.freeCells)
+				|| !Arrays.equals(foundations, board.foundations))
+			return false;
+		for (int cascade = 0; cascade < noOfCascades; cascade++)
+			for (int card = 0; card < heights[cascade]; card++)
+				if (getCascadeCard(cascade, card) != board.getCascadeCard(
+						cascade, card))
+					return false;
+		return true;
+	}
+
+	/**
+	 * Returns the same hash as hash() cut down to an int.
+	 * @return the hash code of this Board
+	 */
+	public int hashCode()
+	{
+		return (int) hash();
+	}
+
+	/**
+	 * Returns this Board in the standard position text (see PositionWriter).
+	 * @return the position text of this Board
+	 */
+	public String toString()
+	{
+		return PositionWriter.toString(this);
+	}
+}
@@ -0,0 +1,199 @@
+/**
+ * Keeps track of the size of a FreeCell game: the number of 52 card decks,
+ * Cascades and FreeCells. There is one Foundation for each suit of each deck.
+ * Also works out the location numbers used by Board (the Cascades first, then
+ * the FreeCells and then the Foundations).
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class BoardLayout
+{
+	// The standard game and Double FreeCell
+	public static final BoardLayout STANDARD = new BoardLayout(1, 8, 4);
+	public static final BoardLayout DOUBLE = new BoardLayout(2, 10, 6);
+
+	// Most Cascades and FreeCells that fit the move notation (1 to 9 and 0
+	// for the Cascades, a to g for the FreeCells since h is the Foundations)
+	public static final int MAX_CASCADES = 10;
+	public static final int MAX_FREECELLS = 7;
+
+	// Variables to keep track of the size of the game
+	private int noOfDecks;
+	private int noOfCascades;
+	private int noOfFreeCells;
+
+	/**
+	 * Constructs a new BoardLayout with the given size (see isSupported()).
+	 * @param noOfDecks the number of 52 card decks (1 to 4)
+	 * @param noOfCascades the number of Cascades (1 to 10)
+	 * @param noOfFreeCells the number of FreeCells (0 to 7)
+	 */
+	public BoardLayout(int noOfDecks, int noOfCascades, int noOfFreeCells)
+	{
+		if (!isSupported(noOfDecks, noOfCascades, noOfFreeCells))
+			throw new IllegalArgumentException("Unsupported layout: "
+					+ noOfDecks + " decks, " + noOfCascades + " cascades, "
+					+ noOfFreeCells + " freecells");
+		this.noOfDecks = noOfDecks;
+		this.noOfCascades = noOfCascades;
+		this.noOfFreeCells = noOfFreeCells;
+	}
+
+	/**
+	 * Checks if a BoardLayout can be made with the given size. Board keeps
+	 * the height of each Cascade in a byte, so the tallest a Cascade can get
+	 * (see getMaxCascadeHeight()) must fit in one, which leaves out three or
+	 * four decks in one Cascade.
+	 * @param noOfDecks the number of 52 card decks
+	 * @param noOfCascades the number of Cascades
+	 * @param noOfFreeCells the number of FreeCells
+	 * @return true if the size is supported or false if not
+	 */
+	public static boolean isSupported(int noOfDecks, int noOfCascades,
+			int noOfFreeCells)
+	{
+		return noOfDecks >= 1 && noOfDecks <= 4 && noOfCascades >= 1
+				&& noOfCascades <= MAX_CASCADES && noOfFreeCells >= 0
+				&& noOfFreeCells <= MAX_FREECELLS
+				&& maxCascadeHeight(noOfDecks, noOfCascades) <= Byte.MAX_VALUE;
+	}
+
+	/**
+	 * Gets the number of 52 card decks.
+	 * @return the number of decks
+	 */
+	public int getNoOfDecks()
+	{
+		return noOfDecks;
+	}
+
+	/**
+	 * Gets the total number of cards.
+	 * @return the number of cards
+	 */
+	public int getNoOfCards()
+	{
+		return noOfDecks * CardCodec.NO_OF_CARDS;
+	}
+
+	/**
+	 * Gets the number of Cascades.
+	 * @return the number of Cascades
+	 */
+	public int getNoOfCascades()
+	{
+		return noOfCascades;
+	}
+
+	/**
+	 * Gets the number of FreeCells.
+	 * @return the number of FreeCells
+	 */
+	public int getNoOfFreeCells()
+	{
+		return noOfFreeCells;
+	}
+
+	/**
+	 * Gets the number of Foundations (four for each deck).
+	 * @return the number of Foundations
+	 */
+	public int getNoOfFoundations()
+	{
+		return 4 * noOfDecks;
+	}
+
+	/**
+	 * Gets the location number of the first FreeCell.
+	 * @return the location number of the first FreeCell
+	 */
+	public int getFirstFreeCell()
+	{
+		return noOfCascades;
+	}
+
+	/**
+	 * Gets the location number of the first Foundation.
+	 * @return the location number of the first Foundation
+	 */
+	public int getFirstFoundation()
+	{
+		return noOfCascades + noOfFreeCells;
+	}
+
+	/**
+	 * Gets the total number of locations.
+	 * @return the number of Cascades, FreeCells and Foundations
+	 */
+	public int getNoOfLocations()
+	{
+		return getFirstFoundation() + getNoOfFoundations();
+	}
+
+	/**
+	 * Gets the most cards a Cascade can ever hold: the tallest Cascade in the
+	 * deal plus a full run from King down to Ace.
+	 * @return the most cards a Cascade can hold
+	 */
+	public int getMaxCascadeHeight()
+	{
+		return maxCascadeHeight(noOfDecks, noOfCascades);
+	}
+
+	/**
+	 * Works out the most cards a Cascade can ever hold for a size of game.
+	 * @param noOfDecks the number of 52 card decks
+	 * @param noOfCascades the number of Cascades
+	 * @return the most cards a Cascade can hold
+	 */
+	private static int maxCascadeHeight(int noOfDecks, int noOfCascades)
+	{
+		int noOfCards = noOfDecks * CardCodec.NO_OF_CARDS;
+		return (noOfCards + noOfCascades - 1) / noOfCascades + 13;
+	}
+
+	/**
+	 * Checks if this is the standard one deck, eight Cascade, four FreeCell
+	 * layout.
+	 * @return true if this is the standard layout
+	 */
+	public boolean isStandard()
+	{
+		return equals(STANDARD);
+	}
+
+	/**
+	 * Checks if the other object is a BoardLayout of the same size.
+	 * @param other the object to compare to
+	 * @return true if the layouts are the same or false if not
+	 */
+	public boolean equals(Object other)
+	{
+		if (!(other instanceof BoardLayout))
+			return false;
+		BoardLayout layout = (BoardLayout) other;
+		return noOfDecks == layout.noOfDecks
+				&& noOfCascades == layout.noOfCascades
+				&& noOfFreeCells == layout.noOfFreeCells;
+	}
+
+	/**
+	 * Returns a hash code made from the size of this layout.
+	 * @return the hash code of this BoardLayout
+	 */
+	public int hashCode()
+	{
+		return (noOfDecks * 31 + noOfCascades) * 31 + noOfFreeCells;
+	}
+
+	/**
+	 * Returns this BoardLayout's size as a String.
+	 * @return the number of decks, Cascades and FreeCells
+	 */
+	public String toString()
+	{
+		return noOfDecks + " deck, " + noOfCascades + " cascade, "
+				+ noOfFreeCells + " freecell";
+	}
+}
@@ -13,19 +13,12 @@ import java.util.Comparator;
  */
 public class Card implements Comparable<Card>
 {
-	// String representations of the ranks and suits
-	// --------------------------------------------1
-	// Integer values of the ranks ------ 1234567890123
-	private static final String RANKS = " A23456789TJQK";
-	// Integer values of the suits ------ 1234
-	private static final String SUITS = " CDHS";
-
 	// Comparator to sort Cards by their suit first then rank
 	public static final Comparator<Card> SUIT_ORDER = new SuitOrder();
 
-	// Instance variables to keep track of this Card's rank, suit, and whether
-	// this Card is face up or not
-	private int rank, suit;
+	// Instance variables to keep track of this Card's rank, suit, index (see
+	// CardCodec), and whether this Card is face up or not
+	private int rank, suit, index;
 	private boolean faceUp;
 
 	/**
@@ -40,6 +33,10 @@ public class Card implements Comparable<Card>
 		this.rank = rank;
 		this.suit = suit;
 		this.faceUp = faceUp;
+		if (rank >= 1 && rank <= 13 && suit >= 1 && suit <= 4)
+			index = CardCodec.indexOf(rank, suit);
+		else
+			index = CardCodec.NOT_A_CARD;
 	}
 
 	/**
@@ -64,10 +61,18 @@ public class Card implements Comparable<Card>
 	public Card(String card)
 	{
 		// Check if face up by looking at the case of the suit letters
-		if (!(faceUp = Character.isUpperCase(card.charAt(1))))
-			card = card.toUpperCase();
-		rank = RANKS.indexOf(card.charAt(0));
-		suit = SUITS.indexOf(card.charAt(1));
+		faceUp = CardCodec.isFaceUp(card.charAt(1));
+		index = CardCodec.decode(card, 0);
+		if (index == CardCodec.NOT_A_CARD)
+		{
+			rank = -1;
+			suit = -1;
+		}
+		else
+		{
+			rank = CardCodec.rankOf(index);
+			suit = CardCodec.suitOf(index);
+		}
 	}
 
 	/**
@@ -79,6 +84,24 @@ public class Card implements Comparable<Card>
 		return rank;
 	}
 
+	/**
+	 * Gets the numeric suit of this Card (C, D, H, S = 1, 2, 3, 4).
+	 * @return the numeric suit of this Card
+	 */
+	public int getSuit()
+	{
+		return suit;
+	}
+
+	/**
+	 * Gets the index of this Card (0 to 51, see CardCodec).
+	 * @return the index of this Card or NOT_A_CARD if it is not a real card
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
 	/**
 	 * Flips the card (face up to down, face down to up).
 	 */
@@ -120,9 +143,11 @@ public class Card implements Comparable<Card>
 		// return true;
 
 		// Can place on if suits are of opposite colour and the rank of this
-		// Card is one less than the rank of the top Card of the Cascade
-		return !(suit == cascadeCard.suit || suit + cascadeCard.suit == 5)
-				&& rank == cascadeCard.rank - 1;
+		// Card is one less than the rank of the top Card of the Cascade (looked
+		// up in the PlacementTable, which only has rows for real cards)
+		if (index < 0 || cascadeCard.index < 0)
+			return false;
+		return PlacementTable.canPlaceOnCascade(index, cascadeCard.index);
 	}
 
 	/**
@@ -139,9 +164,12 @@ public class Card implements Comparable<Card>
 		// if(foundationCard == null)
 		// return isAce();
 
-		// Can place on if ranks are the same and this Card's rank is one more
-		// than the top Card of the Foundation
-		return suit == foundationCard.suit && rank == foundationCard.rank + 1;
+		// Can place on if suits are the same and this Card's rank is one more
+		// than the top Card of the Foundation (looked up in the PlacementTable,
+		// which only has rows for real cards)
+		if (index < 0 || foundationCard.index < 0)
+			return false;
+		return PlacementTable.canPlaceOnFoundation(index, foundationCard.index);
 	}
 
 	/**
@@ -171,11 +199,7 @@ public class Card implements Comparable<Card>
 	 */
 	public String toString()
 	{
-		if (faceUp)
-			return String
-					.format("%c%c", RANKS.charAt(rank), SUITS.charAt(suit));
-		return String.format("%c%c", RANKS.charAt(rank), SUITS.charAt(suit))
-				.toLowerCase();
+		return CardCodec.encode(getIndex(), faceUp);
 	}
 
 	/**
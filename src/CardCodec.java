@@ -0,0 +1,196 @@
+/**
+ * Converts between the three forms of a card used when saving, loading and
+ * solving: the two letter String ("AS", "th"), the two ASCII bytes of that
+ * String and the card index (0 to 51). All conversions are table lookups that
+ * do not create any objects.
+ *
+ * The index of a card is (suit - 1) * 13 + (rank - 1), so the clubs come first
+ * (0 to 12) followed by the diamonds, hearts and spades, each from Ace to King.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public final class CardCodec
+{
+	// Number of different cards in one deck
+	public static final int NO_OF_CARDS = 52;
+
+	// Value returned when a String or bytes are not a card
+	public static final int NOT_A_CARD = -1;
+
+	// Letter representations of the ranks and suits in index order
+	private static final String RANK_LETTERS = "A23456789TJQK";
+	private static final String SUIT_LETTERS = "CDHS";
+
+	// Tables from a character to its rank (1 to 13) or suit (1 to 4), 0 if
+	// the character is not a rank or suit, for both upper and lower case
+	private static final byte[] RANK_OF_CHAR = new byte[128];
+	private static final byte[] SUIT_OF_CHAR = new byte[128];
+
+	// Tables from a card index to its rank, suit, face up (upper case) and
+	// face down (lower case) String and ASCII bytes
+	private static final byte[] RANK_OF_INDEX = new byte[NO_OF_CARDS];
+	private static final byte[] SUIT_OF_INDEX = new byte[NO_OF_CARDS];
+	private static final String[] UPPER_NAMES = new String[NO_OF_CARDS];
+	private static final String[] LOWER_NAMES = new String[NO_OF_CARDS];
+	private static final byte[] UPPER_BYTES = new byte[2 * NO_OF_CARDS];
+	private static final byte[] LOWER_BYTES = new byte[2 * NO_OF_CARDS];
+
+	static
+	{
+		for (int rank = 1; rank <= 13; rank++)
+		{
+			char letter = RANK_LETTERS.charAt(rank - 1);
+			RANK_OF_CHAR[letter] = (byte) rank;
+			RANK_OF_CHAR[Character.toLowerCase(letter)] = (byte) rank;
+		}
+
+		for (int suit = 1; suit <= 4; suit++)
+		{
+			char letter = SUIT_LETTERS.charAt(suit - 1);
+			SUIT_OF_CHAR[letter] = (byte) suit;
+			SUIT_OF_CHAR[Character.toLowerCase(letter)] = (byte) suit;
+		}
+
+		for (int index = 0; index < NO_OF_CARDS; index++)
+		{
+			int rank = index % 13 + 1;
+			int suit = index / 13 + 1;
+			RANK_OF_INDEX[index] = (byte) rank;
+			SUIT_OF_INDEX[index] = (byte) suit;
+
+			String name = "" + RANK_LETTERS.charAt(rank - 1)
+					+ SUIT_LETTERS.charAt(suit - 1);
+			UPPER_NAMES[index] = name.intern();
+			LOWER_NAMES[index] = name.toLowerCase().intern();
+			UPPER_BYTES[2 * index] = (byte) name.charAt(0);
+			UPPER_BYTES[2 * index + 1] = (byte) name.charAt(1);
+			LOWER_BYTES[2 * index] = (byte) Character.toLowerCase(name
+					.charAt(0));
+			LOWER_BYTES[2 * index + 1] = (byte) Character.toLowerCase(name
+					.charAt(1));
+		}
+	}
+
+	/**
+	 * There are no CardCodec objects, only static methods.
+	 */
+	private CardCodec()
+	{
+	}
+
+	/**
+	 * Gets the index of the card with the given rank and suit.
+	 * @param rank the rank of the card (A to K -> 1 to 13)
+	 * @param suit the suit of the card (C, D, H, S -> 1, 2, 3, 4)
+	 * @return the index of the card (0 to 51)
+	 */
+	public static int indexOf(int rank, int suit)
+	{
+		return (suit - 1) * 13 + rank - 1;
+	}
+
+	/**
+	 * Gets the rank of the card with the given index.
+	 * @param index the index of the card (0 to 51)
+	 * @return the rank of the card (1 to 13)
+	 */
+	public static int rankOf(int index)
+	{
+		return RANK_OF_INDEX[index];
+	}
+
+	/**
+	 * Gets the suit of the card with the given index.
+	 * @param index the index of the card (0 to 51)
+	 * @return the suit of the card (1 to 4)
+	 */
+	public static int suitOf(int index)
+	{
+		return SUIT_OF_INDEX[index];
+	}
+
+	/**
+	 * Decodes a rank and a suit character into a card index.
+	 * @param rank the rank character (A, 2...9, T, J, Q, K in either case)
+	 * @param suit the suit character (C, D, H, S in either case)
+	 * @return the index of the card or NOT_A_CARD if the characters are not a
+	 *         card
+	 */
+	public static int decode(char rank, char suit)
+	{
+		if (rank >= 128 || suit >= 128)
+			return NOT_A_CARD;
+		int rankValue = RANK_OF_CHAR[rank];
+		int suitValue = SUIT_OF_CHAR[suit];
+		if (rankValue == 0 || suitValue == 0)
+			return NOT_A_CARD;
+		return (suitValue - 1) * 13 + rankValue - 1;
+	}
+
+	/**
+	 * Decodes the two characters at the given offset into a card index.
+	 * @param chars the characters to decode from
+	 * @param offset the offset of the rank character
+	 * @return the index of the card or NOT_A_CARD if the characters are not a
+	 *         card
+	 */
+	public static int decode(CharSequence chars, int offset)
+	{
+		return decode(chars.charAt(offset), chars.charAt(offset + 1));
+	}
+
+	/**
+	 * Decodes the two ASCII bytes at the given offset into a card index.
+	 * @param bytes the bytes to decode from
+	 * @param offset the offset of the rank byte
+	 * @return the index of the card or NOT_A_CARD if the bytes are not a card
+	 */
+	public static int decode(byte[] bytes, int offset)
+	{
+		return decode((char) (bytes[offset] & 0xFF),
+				(char) (bytes[offset + 1] & 0xFF));
+	}
+
+	/**
+	 * Gets the shared String for the card with the given index.
+	 * @param index the index of the card (0 to 51)
+	 * @param faceUp true for the upper case (face up) String or false for the
+	 *            lower case (face down) String
+	 * @return the two letter String of the card
+	 */
+	public static String encode(int index, boolean faceUp)
+	{
+		if (faceUp)
+			return UPPER_NAMES[index];
+		return LOWER_NAMES[index];
+	}
+
+	/**
+	 * Writes the two ASCII bytes for the card with the given index.
+	 * @param index the index of the card (0 to 51)
+	 * @param faceUp true to write upper case (face up) or false to write lower
+	 *            case (face down)
+	 * @param bytes the bytes to write to
+	 * @param offset the offset to write the rank byte at
+	 * @return the offset just after the two written bytes
+	 */
+	public static int encode(int index, boolean faceUp, byte[] bytes,
+			int offset)
+	{
+		byte[] table = faceUp ? UPPER_BYTES : LOWER_BYTES;
+		bytes[offset] = table[2 * index];
+		bytes[offset + 1] = table[2 * index + 1];
+		return offset + 2;
+	}
+
+	/**
+	 * Checks if a card String with the given suit character is face up.
+	 * @param suit the suit character of the card
+	 * @return true if the character is an upper case letter
+	 */
+	public static boolean isFaceUp(char suit)
+	{
+		return suit >= 'A' && suit <= 'Z';
+	}
+}
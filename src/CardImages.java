@@ -0,0 +1,310 @@
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Loads the face images of the Cards in the background so that the window can
+ * be shown before any of them are decoded. The images are decoded at the same
+ * time on one thread per core and shared by every GCard of the same rank and
+ * suit (Double FreeCell has two of each). Until an image is ready getFace()
+ * returns null and the GCard draws a plain placeholder instead.
+ *
+ * When the board is drawn larger or smaller (a resized window or a HiDPI
+ * screen), resizing 53 images on every paint would be slow, so a copy of
+ * every image at that scale is made once in the background and kept for the
+ * last few scales. Until it is ready the images are resized as they are drawn.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class CardImages
+{
+	// The face image of each card by index (see CardCodec), filled in as
+	// they are decoded
+	private static final AtomicReferenceArray<Image> faces = new AtomicReferenceArray<Image>(
+			CardCodec.NO_OF_CARDS);
+
+	// Counts down once for each image decoded
+	private static final CountDownLatch loaded = new CountDownLatch(
+			CardCodec.NO_OF_CARDS);
+
+	// True once preload() has been called
+	private static boolean started = false;
+
+	// The image number of the back of the Cards (after the 52 faces)
+	private static final int BACK = CardCodec.NO_OF_CARDS;
+
+	// Most scales to keep copies of the images for, and how finely scales
+	// are told apart (1/100)
+	private static final int MAX_SCALES = 4;
+	private static final int SCALE_STEPS = 100;
+
+	// Copies of the images at each scale by scale key (see scaleKey()), the
+	// newest scale asked for and the thread that makes the copies
+	private static final Map<Integer, Image[]> scaled = new LinkedHashMap<Integer, Image[]>(
+			MAX_SCALES * 2, 0.75f, true)
+	{
+		// To remove yellow warning
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<Integer, Image[]> eldest)
+		{
+			return size() > MAX_SCALES;
+		}
+	};
+	private static int wantedScale = scaleKey(1);
+	private static ExecutorService scaler;
+
+	/**
+	 * There are no CardImages objects, only static methods.
+	 */
+	private CardImages()
+	{
+	}
+
+	/**
+	 * Starts decoding every face image in the background. Only the first call
+	 * does anything.
+	 * @param whenLoaded run on the event thread once every image is ready (or
+	 *            null)
+	 */
+	public static synchronized void preload(final Runnable whenLoaded)
+	{
+		if (started)
+			return;
+		started = true;
+
+		int threads = Math.max(1, Math.min(CardCodec.NO_OF_CARDS, Runtime
+				.getRuntime().availableProcessors()));
+		final ExecutorService loaders = Executors.newFixedThreadPool(threads,
+				new ThreadFactory()
+				{
+					public Thread newThread(Runnable task)
+					{
+						Thread thread = new Thread(task, "Card image loader");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		for (int card = 0; card < CardCodec.NO_OF_CARDS; card++)
+		{
+			final int index = card;
+			loaders.execute(new Runnable()
+			{
+				public void run()
+				{
+					faces.set(index, load(CardCodec.rankOf(index), CardCodec
+							.suitOf(index)));
+					loaded.countDown();
+				}
+			});
+		}
+
+		// Let the event thread know when the last image is done
+		loaders.execute(new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					loaded.await();
+				}
+				catch (InterruptedException exp)
+				{
+					return;
+				}
+				loaders.shutdown();
+				if (whenLoaded != null)
+					SwingUtilities.invokeLater(whenLoaded);
+			}
+		});
+	}
+
+	/**
+	 * Gets the face image of a card if it has been decoded.
+	 * @param rank the rank of the card
+	 * @param suit the suit of the card
+	 * @return the image, or null if it is not ready yet
+	 */
+	public static Image getFace(int rank, int suit)
+	{
+		return faces.get(CardCodec.indexOf(rank, suit));
+	}
+
+	/**
+	 * Checks if every face image has been decoded.
+	 * @return true if all of the images are ready or false if not
+	 */
+	public static boolean isLoaded()
+	{
+		return loaded.getCount() == 0;
+	}
+
+	/**
+	 * Draws a Card image at the given position. If the Graphics context is
+	 * scaled and copies of the images at that scale are ready, the copy is
+	 * drawn pixel for pixel instead of resizing the image.
+	 * @param g the Graphics context to draw in
+	 * @param rank the rank of the card, or 0 for the back
+	 * @param suit the suit of the card (not used for the back)
+	 * @param image the image at its normal size
+	 * @param x the x coordinate of the Card on the board
+	 * @param y the y coordinate of the Card on the board
+	 */
+	public static void draw(Graphics g, int rank, int suit, Image image,
+			int x, int y)
+	{
+		Graphics2D g2 = (Graphics2D) g;
+		AffineTransform transform = g2.getTransform();
+		int key = scaleKey(transform.getScaleX());
+		if (key != scaleKey(1) && transform.getShearX() == 0
+				&& transform.getShearY() == 0
+				&& key == scaleKey(transform.getScaleY()))
+		{
+			Image[] images;
+			synchronized (scaled)
+			{
+				images = scaled.get(key);
+			}
+			if (images != null)
+			{
+				// Draw the copy at the device pixel the Card starts at
+				int card = rank == 0 ? BACK : CardCodec.indexOf(rank, suit);
+				double deviceX = transform.getScaleX() * x
+						+ transform.getTranslateX();
+				double deviceY = transform.getScaleY() * y
+						+ transform.getTranslateY();
+				g2.setTransform(new AffineTransform());
+				g2.drawImage(images[card], (int) Math.round(deviceX),
+						(int) Math.round(deviceY), null);
+				g2.setTransform(transform);
+				return;
+			}
+			prepareScale(transform.getScaleX(), null);
+		}
+		g.drawImage(image, x, y, null);
+	}
+
+	/**
+	 * Starts making copies of the images at the given scale in the background
+	 * if there are none yet. Only the newest scale asked for is made, so
+	 * resizing the window does not queue up work for every size it passed.
+	 * @param scale the scale from board to device pixels
+	 * @param whenReady run on the event thread once the copies are ready (or
+	 *            null)
+	 */
+	public static void prepareScale(double scale, final Runnable whenReady)
+	{
+		final int key = scaleKey(scale);
+		synchronized (scaled)
+		{
+			if (key == scaleKey(1) || scaled.containsKey(key)
+					|| key == wantedScale)
+				return;
+			wantedScale = key;
+		}
+
+		synchronized (CardImages.class)
+		{
+			if (scaler == null)
+				scaler = Executors.newSingleThreadExecutor(new ThreadFactory()
+				{
+					public Thread newThread(Runnable task)
+					{
+						Thread thread = new Thread(task, "Card image scaler");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		}
+		scaler.execute(new Runnable()
+		{
+			public void run()
+			{
+				// Skip scales that were passed by before this one started
+				synchronized (scaled)
+				{
+					if (key != wantedScale)
+						return;
+				}
+				try
+				{
+					loaded.await();
+				}
+				catch (InterruptedException exp)
+				{
+					return;
+				}
+
+				Image[] images = new Image[BACK + 1];
+				for (int card = 0; card < BACK; card++)
+					images[card] = resize(faces.get(card), key);
+				images[BACK] = resize(GCard.BACK_IMAGE, key);
+				synchronized (scaled)
+				{
+					scaled.put(key, images);
+					if (wantedScale == key)
+						wantedScale = scaleKey(1);
+				}
+				if (whenReady != null)
+					SwingUtilities.invokeLater(whenReady);
+			}
+		});
+	}
+
+	/**
+	 * Makes a smoothly resized copy of an image.
+	 * @param image the image to copy
+	 * @param key the scale key of the copy
+	 * @return the resized copy
+	 */
+	private static Image resize(Image image, int key)
+	{
+		double scale = (double) key / SCALE_STEPS;
+		int width = Math.max(1, (int) Math.round(GCard.WIDTH * scale));
+		int height = Math.max(1, (int) Math.round(GCard.HEIGHT * scale));
+		BufferedImage copy = new BufferedImage(width, height,
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = copy.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+				RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING,
+				RenderingHints.VALUE_RENDER_QUALITY);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return copy;
+	}
+
+	/**
+	 * Rounds a scale to the steps the copies are kept for.
+	 * @param scale the scale
+	 * @return the scale key
+	 */
+	private static int scaleKey(double scale)
+	{
+		return (int) Math.round(scale * SCALE_STEPS);
+	}
+
+	/**
+	 * Decodes the face image of a card.
+	 * @param rank the rank of the card
+	 * @param suit the suit of the card
+	 * @return the image of the card
+	 */
+	private static Image load(int rank, int suit)
+	{
+		return AssetBundle.getImage("" + " cdhs".charAt(suit) + rank + ".png");
+	}
+}
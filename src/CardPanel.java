@@ -4,11 +4,22 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 
 /**
@@ -29,32 +40,95 @@ public class CardPanel extends JPanel implements MouseListener,
 	private static final Color TABLE_COLOUR = new Color(0, 140, 0);
 	private static final Font TIME_FONT = new Font("Calibri", Font.BOLD, 18);
 
+	// The numbered deals a new game is picked from (the Microsoft deals for
+	// the standard game) and the player the leaderboard shows wins for
+	private static final int NO_OF_DEALS = 1000000;
+	private static final String PROFILE = System.getProperty("user.name",
+			"Player");
+
+	// The most time a hint waits for the position to be solved and the
+	// colour of the hinted Hands
+	private static final long HINT_WAIT_MILLIS = 50;
+	private static final Color HINT_COLOUR = Color.YELLOW;
+	private static final Font OVERLAY_FONT = new Font("Monospaced", Font.PLAIN,
+			12);
+
 	// Constants for layout of Card area
-	private final int NO_OF_CASCADES = 8;
-	private final int NO_OF_FREECELLS = 4;
-	private final int NO_OF_FOUNDATIONS = 4;
 	private final int CASCADE_X = 30;
 	private final int CASCADE_Y = 150;
 	private final int CASCADE_SPACING = 95;
 	private final int FREECELL_X = 30;
 	private final int FREECELL_Y = 30;
 	private final int TOP_SPACING = 90;
-	private final int FOUNDATION_X = 425;
+	private final int FOUNDATION_GAP = 35;
 	private final int FOUNDATION_Y = 30;
 
+	// Variables for the size of the game and of the Card area (the standard
+	// game is WIDTH by HEIGHT, Double FreeCell is larger)
+	private BoardLayout boardLayout;
+	private int noOfCascades, noOfFreeCells, noOfFoundations;
+	private int boardWidth, boardHeight;
+
+	// The board is drawn scaled to fit the panel and centred, so these turn
+	// board coordinates into panel coordinates
+	private double scale;
+	private double offsetX, offsetY;
+
+	// Repaints once the Card images are ready at a new scale
+	private Runnable repaintWhenScaled;
+
+	// Table of endgames that auto complete finishes the game from, loaded
+	// in the background, and the thread it is loaded and solved on
+	private FutureTask<EndgameTable> endgameLoader;
+	private ExecutorService endgameWork;
+
+	// Log of the game in progress for picking it up after a crash (null if
+	// it cannot be opened) and whether a logged game is being played back
+	private GameLog gameLog;
+	private boolean recovering;
+
+	// Records how long the player thought before each move, from the end of
+	// the last move (or the deal) to the mouse release
+	private MoveTelemetry telemetry;
+	private long lastMoveTime;
+
 	// Variables for the FreeCell Game
 	private FreeCellMain parentFrame;
 	private GDeck myDeck;
 	private ArrayList<GHand> allHands;
 	private LinkedList<Move> moves;
+	private Replay replay;
 	private Movable selectedItem, movingCard;
 	private GHand sourceHand;
 	private Point lastPoint;
 	private boolean inGame;
-	private Statistics stats;
+	private FutureTask<Statistics> statsLoader;
+	private FutureTask<Leaderboard> leaderboardLoader;
+	private ExecutorService leaderboardWork;
+	private FutureTask<DifficultyIndex> difficultyLoader;
+	private int dealNumber;
+
+	// Hints for the current position and the Hands of the hint on show
+	private Solver hintSolver;
+	private HintService hints;
+	private HintService.Hint hint;
+	private GHand hintFrom, hintTo;
+
+	// Shows whether the current position can still be won
+	private Solver winnabilitySolver;
+	private WinnabilityMonitor winnability;
+
 	private Timer timer;
 	private int gameSeconds;
 
+	// Variables to time the mouse handlers and paints and to keep track of
+	// the frames painted per second for the paint time overlay
+	private LatencyHistogram pressTimes, releaseTimes, autoCompleteTimes,
+			winCheckTimes, statsWriteTimes, paintTimes, hintTimes;
+	private boolean showPaintTime;
+	private long fpsSecondStart;
+	private int framesThisSecond, framesPerSecond;
+
 	/**
 	 * Constructs a CardPanel by setting up the Panel, the Deck and all of
 	 * required Hands to keep track of the FreeCells, Foundations, and Cascades.
@@ -65,8 +139,7 @@ public class CardPanel extends JPanel implements MouseListener,
 	 */
 	public CardPanel(FreeCellMain parentFrame)
 	{
-		// Set up the size and background colour
-		setPreferredSize(new Dimension(WIDTH, HEIGHT));
+		// Set up the background colour
 		this.setBackground(TABLE_COLOUR);
 		this.parentFrame = parentFrame;
 
@@ -74,14 +147,204 @@ public class CardPanel extends JPanel implements MouseListener,
 		this.addMouseListener(this);
 		this.addMouseMotionListener(this);
 
-		// Set up the Deck, Cascades, Foundations and FreeCells
-		myDeck = new GDeck(400 - GCard.WIDTH / 2, 470);
+		// The Solvers for hints and for checking if the position can still be
+		// won, which are guided by the pattern database and finish small
+		// positions from the endgame table once it is loaded, and the thread
+		// it is loaded on
+		hintSolver = new Solver(Solver.DEFAULT_MAX_NODES,
+				PatternDatabase.getShared());
+		winnabilitySolver = new Solver(Solver.DEFAULT_MAX_NODES,
+				PatternDatabase.getShared());
+		endgameWork = Executors.newSingleThreadExecutor(new ThreadFactory()
+		{
+			public Thread newThread(Runnable task)
+			{
+				Thread thread = new Thread(task, "Endgame solver");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		// Set up the Deck, Cascades, Foundations and FreeCells for the
+		// standard game
+		setBoardLayout(BoardLayout.STANDARD);
+
+		// Initialize instance variables
+		moves = new LinkedList<Move>();
+		movingCard = null;
+
+		// Open the log of the game in progress (another window may have it)
+		try
+		{
+			gameLog = new GameLog(new File(GameLog.LOG_FILE));
+		}
+		catch (IOException exp)
+		{
+			gameLog = null;
+		}
+		try
+		{
+			telemetry = new MoveTelemetry(new File(MoveTelemetry.TELEMETRY_FILE));
+		}
+		catch (IOException exp)
+		{
+			telemetry = null;
+		}
+
+		// Read the Statistics in the background so the window can show first
+		statsLoader = new FutureTask<Statistics>(new Callable<Statistics>()
+		{
+			public Statistics call()
+			{
+				Statistics stats = Statistics
+						.readFromFile(Statistics.STATS_FILE);
+				StartupTimer.mark("statistics loaded");
+				return stats;
+			}
+		});
+		Thread statsThread = new Thread(statsLoader, "Statistics loader");
+		statsThread.setDaemon(true);
+		statsThread.start();
+
+		// Solve positions for hints on a low priority thread
+		hints = new HintService(hintSolver, new File(
+				SolutionCache.CACHE_FILE));
+
+		// Check if the position can still be won on another low priority
+		// thread, repainting when the answer comes in
+		winnability = new WinnabilityMonitor(winnabilitySolver, new Runnable()
+		{
+			public void run()
+			{
+				repaint();
+			}
+		});
+
+		// Open the leaderboard in the background as well. Wins and queries go
+		// to the same thread after it, so they never wait on this thread
+		leaderboardLoader = new FutureTask<Leaderboard>(
+				new Callable<Leaderboard>()
+				{
+					public Leaderboard call() throws IOException
+					{
+						return new Leaderboard(new File(Leaderboard.FOLDER));
+					}
+				});
+		leaderboardWork = Executors.newSingleThreadExecutor(new ThreadFactory()
+		{
+			public Thread newThread(Runnable task)
+			{
+				Thread thread = new Thread(task, "Leaderboard loader");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		leaderboardWork.execute(leaderboardLoader);
+
+		// Map the difficulty index (if DifficultyRater has made one) so new
+		// games can be picked by difficulty
+		difficultyLoader = new FutureTask<DifficultyIndex>(
+				new Callable<DifficultyIndex>()
+				{
+					public DifficultyIndex call() throws IOException
+					{
+						return new DifficultyIndex(new File(
+								DifficultyIndex.INDEX_FILE));
+					}
+				});
+		Thread difficultyThread = new Thread(difficultyLoader,
+				"Difficulty index loader");
+		difficultyThread.setDaemon(true);
+		difficultyThread.start();
+
+		// Set up the timing histograms
+		pressTimes = new LatencyHistogram("mousePressed");
+		releaseTimes = new LatencyHistogram("mouseReleased");
+		autoCompleteTimes = new LatencyHistogram("autoComplete");
+		winCheckTimes = new LatencyHistogram("checkForWinner");
+		statsWriteTimes = new LatencyHistogram("recordStats");
+		hintTimes = new LatencyHistogram("showHint");
+		paintTimes = new LatencyHistogram("paintComponent");
+		showPaintTime = false;
+		scale = 1;
+		repaintWhenScaled = new Runnable()
+		{
+			public void run()
+			{
+				repaint();
+			}
+		};
+	}
+
+	/**
+	 * Changes the size of the game (such as to Double FreeCell) by setting up
+	 * a new Deck and new Cascades, FreeCells and Foundations, and resizing the
+	 * Card area to fit them. Any game in progress is thrown away.
+	 * @param layout the size of the game
+	 */
+	public void setBoardLayout(final BoardLayout layout)
+	{
+		boardLayout = layout;
+		noOfCascades = layout.getNoOfCascades();
+		noOfFreeCells = layout.getNoOfFreeCells();
+		noOfFoundations = layout.getNoOfFoundations();
+
+		// Work out the size of the Card area: wide enough for the Cascades and
+		// the top row, and tall enough for the tallest possible Cascade
+		int foundationX = FREECELL_X + noOfFreeCells * TOP_SPACING
+				+ FOUNDATION_GAP;
+		boardWidth = Math.max(WIDTH, Math.max(CASCADE_X + noOfCascades
+				* CASCADE_SPACING, foundationX + noOfFoundations * TOP_SPACING));
+		if (layout.isStandard())
+			boardHeight = HEIGHT;
+		else
+			boardHeight = Math.max(HEIGHT, CASCADE_Y
+					+ (layout.getMaxCascadeHeight() - 2) * 20 + GCard.HEIGHT);
+		setPreferredSize(new Dimension(boardWidth, boardHeight));
+
+		// Work out the supermove plans for this layout in the background
+		SupermovePlanner.prepare(layout);
+
+		// Load the saved endgames for this layout in the background, starting
+		// with an empty table if they cannot be read, and hand them to the
+		// Solvers. New endgames are saved as they are found (unless the file
+		// could not be read, so it is not written over) and the table of the
+		// last layout stops saving
+		final FutureTask<EndgameTable> lastLoader = endgameLoader;
+		endgameLoader = new FutureTask<EndgameTable>(
+				new Callable<EndgameTable>()
+				{
+					public EndgameTable call() throws Exception
+					{
+						if (lastLoader != null)
+							lastLoader.get().stopSaving();
+						File file = EndgameTable.fileFor(layout);
+						EndgameTable endgames;
+						try
+						{
+							endgames = EndgameTable.open(file, layout);
+							endgames.saveInBackground(file);
+						}
+						catch (IOException exp)
+						{
+							endgames = new EndgameTable(layout,
+									EndgameTable.DEFAULT_MAX_CARDS);
+						}
+						hintSolver.setEndgameTable(endgames);
+						winnabilitySolver.setEndgameTable(endgames);
+						return endgames;
+					}
+				});
+		endgameWork.execute(endgameLoader);
+
+		myDeck = new GDeck(boardWidth / 2 - GCard.WIDTH / 2, boardHeight - 130,
+				layout.getNoOfDecks());
 		allHands = new ArrayList<GHand>();
 
 		// Create Cascades
 		int xCascade = CASCADE_X;
 		int yCascade = CASCADE_Y;
-		for (int i = 0; i < NO_OF_CASCADES; i++)
+		for (int i = 0; i < noOfCascades; i++)
 		{
 			allHands.add(new Cascade(xCascade, yCascade));
 			xCascade += CASCADE_SPACING;
@@ -90,25 +353,40 @@ public class CardPanel extends JPanel implements MouseListener,
 		// Create FreeCells
 		int xFreeCell = this.FREECELL_X;
 		int yFreeCell = this.FREECELL_Y;
-		for (int i = 0; i < this.NO_OF_FREECELLS; i++)
+		for (int i = 0; i < noOfFreeCells; i++)
 		{
 			allHands.add(new FreeCell(xFreeCell, yFreeCell));
 			xFreeCell += TOP_SPACING;
 		}
 
 		// Create Foundations
-		int xFoundation = FOUNDATION_X;
+		int xFoundation = foundationX;
 		int yFoundation = FOUNDATION_Y;
-		for (int i = 0; i < this.NO_OF_FOUNDATIONS; i++)
+		for (int i = 0; i < noOfFoundations; i++)
 		{
 			allHands.add(new Foundation(xFoundation, yFoundation));
 			xFoundation += TOP_SPACING;
 		}
 
-		// Initialize instance variables
-		moves = new LinkedList<Move>();
-		movingCard = null;
-		stats = Statistics.readFromFile(Statistics.STATS_FILE);
+		inGame = false;
+		if (timer != null)
+			timer.stop();
+		if (moves != null)
+			moves.clear();
+		replay = null;
+		if (gameLog != null && !recovering)
+			gameLog.endGame();
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Gets the size of the current game.
+	 * @return the layout of the current game
+	 */
+	public BoardLayout getBoardLayout()
+	{
+		return boardLayout;
 	}
 
 	/**
@@ -122,13 +400,23 @@ public class CardPanel extends JPanel implements MouseListener,
 		for (Hand next : allHands)
 			next.clear();
 
+		// Pick a numbered deal so that wins of the same deal can be compared
 		myDeck.shuffle();
-
-		// Deal the Cards to the Cascades (first 8 Hands)
+		dealNumber = pickDeal();
+		myDeck.arrange(boardLayout.isStandard() ? Deal
+				.microsoftCards(dealNumber) : Deal.seededCards(boardLayout,
+				dealNumber));
+		parentFrame.setTitle("FreeCell #" + dealNumber);
+
+		// Deal the Cards to the Cascades (first 8 Hands), keeping the order
+		// for the game log
+		int[] dealtCards = new int[myDeck.cardsLeft()];
 		int cascasdeIndex = 0;
 		while (myDeck.cardsLeft() > 0)
 		{
 			GCard dealtCard = myDeck.dealCard();
+			dealtCards[dealtCards.length - myDeck.cardsLeft() - 1] = dealtCard
+					.getIndex();
 			Point pos = new Point(dealtCard.getPosition());
 			allHands.get(cascasdeIndex).addCard(dealtCard);
 			Point finalPos = new Point(dealtCard.getPosition());
@@ -137,20 +425,211 @@ public class CardPanel extends JPanel implements MouseListener,
 			if (!dealtCard.isFaceUp())
 				dealtCard.flip();
 			cascasdeIndex++;
-			if (cascasdeIndex == NO_OF_CASCADES)
+			if (cascasdeIndex == noOfCascades)
 				cascasdeIndex = 0;
 		}
-		paintImmediately(0, 0, WIDTH, HEIGHT);
+		paintImmediately(0, 0, getWidth(), getHeight());
 
-		// Reset some variables for the new game
+		// Reset some variables for the new game and start recording it
 		moves.clear();
+		replay = new Replay(toBoard(new GHand[allHands.size()]));
+		if (gameLog != null)
+			gameLog.startGame(boardLayout, dealNumber, dealtCards);
 		parentFrame.setUndoOption(false);
-		FreeCell.resetnoOfOpenFreeCells();
+		FreeCell.resetnoOfOpenFreeCells(noOfFreeCells);
 		Cascade.resetNoOfOpenCascades();
 		inGame = true;
 		timer = new Timer(1000, this);
 		gameSeconds = 0;
-		paintImmediately(0, 0, WIDTH, HEIGHT);
+		paintImmediately(0, 0, getWidth(), getHeight());
+		lastMoveTime = System.currentTimeMillis();
+		positionChanged();
+	}
+
+	/**
+	 * Takes down the hint on show and lets the HintService and the
+	 * WinnabilityMonitor start on the new position while the player thinks.
+	 */
+	private void positionChanged()
+	{
+		hint = null;
+		hintFrom = null;
+		hintTo = null;
+		if (inGame)
+		{
+			Board board = toBoard(new GHand[allHands.size()]);
+			hints.positionChanged(board);
+			winnability.positionChanged(board);
+		}
+	}
+
+	/**
+	 * Shows a hint for the current position by outlining the Hands to move
+	 * from and to and naming the move at the bottom of the board. If the
+	 * position is still being solved after a moment, says so instead.
+	 */
+	public void showHint()
+	{
+		if (!inGame)
+			return;
+		long startTime = System.nanoTime();
+		GHand[] handAt = new GHand[allHands.size()];
+		hint = hints.getHint(toBoard(handAt), HINT_WAIT_MILLIS);
+		hintTimes.record(System.nanoTime() - startTime);
+		if (hint != null && hint.getMove() != 0)
+		{
+			hintFrom = handAt[Board.getFrom(hint.getMove())];
+			hintTo = handAt[Board.getTo(hint.getMove())];
+		}
+		repaint();
+	}
+
+	/**
+	 * Shows why the hint on show was chosen.
+	 */
+	public void explainHint()
+	{
+		if (hint == null)
+			showHint();
+		String text = hint != null ? hint.explain()
+				: "The hint is still being worked out. Try again in a moment.";
+		JOptionPane.showMessageDialog(this, text, "Why This Hint?",
+				JOptionPane.PLAIN_MESSAGE);
+	}
+
+	/**
+	 * Helper method of newGame() that picks a deal number of the chosen
+	 * difficulty from the difficulty index, or any deal number if no
+	 * difficulty is chosen or there is no index for this layout.
+	 * @return the deal number
+	 */
+	private int pickDeal()
+	{
+		int difficulty = parentFrame.getDifficulty();
+		if (difficulty != DifficultyIndex.ANY)
+		{
+			DifficultyIndex index = waitFor(difficultyLoader);
+			if (index != null && index.getLayout().equals(boardLayout))
+			{
+				int picked = index.sample(difficulty);
+				if (picked > 0)
+					return picked;
+			}
+		}
+		return 1 + (int) (Math.random() * NO_OF_DEALS);
+	}
+
+	/**
+	 * Picks up the game that was in progress when the program last stopped
+	 * without the game ending (such as a crash), by dealing the same Cards
+	 * and making every move in the game log again without animation.
+	 * @return true if a game was picked up or false if there was none
+	 */
+	public boolean recoverGame()
+	{
+		if (gameLog == null)
+			return false;
+		GameLog.SavedGame saved = gameLog.getSavedGame();
+		if (saved == null || !isPlayable(saved))
+			return false;
+
+		recovering = true;
+		try
+		{
+			if (!saved.getLayout().equals(boardLayout))
+				setBoardLayout(saved.getLayout());
+			for (Hand next : allHands)
+				next.clear();
+			myDeck.shuffle();
+
+			// Take all of the Cards from the Deck and deal the logged ones in
+			// the same order
+			ArrayList<GCard> deckCards = new ArrayList<GCard>();
+			while (myDeck.cardsLeft() > 0)
+				deckCards.add(myDeck.dealCard());
+			int[] cards = saved.getCards();
+			for (int card = 0; card < cards.length; card++)
+				for (int next = 0; next < deckCards.size(); next++)
+					if (deckCards.get(next).getIndex() == cards[card])
+					{
+						GCard dealtCard = deckCards.remove(next);
+						allHands.get(card % noOfCascades).addCard(dealtCard);
+						if (!dealtCard.isFaceUp())
+							dealtCard.flip();
+						break;
+					}
+
+			moves.clear();
+			replay = new Replay(toBoard(new GHand[allHands.size()]));
+			parentFrame.setUndoOption(false);
+			FreeCell.resetnoOfOpenFreeCells(noOfFreeCells);
+			Cascade.resetNoOfOpenCascades();
+			inGame = true;
+			timer = new Timer(1000, this);
+			gameSeconds = saved.getSeconds();
+			dealNumber = saved.getDealNumber();
+			parentFrame.setTitle(dealNumber > 0 ? "FreeCell #" + dealNumber
+					: "FreeCell");
+
+			// Make the moves again (they are added to the Moves List and the
+			// Replay but not to the log, which has them already)
+			for (int move : saved.getMoves())
+			{
+				GHand[] handAt = new GHand[allHands.size()];
+				toBoard(handAt);
+				playBoardMove(move, handAt);
+			}
+			if (!moves.isEmpty())
+				timer.start();
+		}
+		finally
+		{
+			recovering = false;
+		}
+		lastMoveTime = System.currentTimeMillis();
+		positionChanged();
+		repaint();
+		return true;
+	}
+
+	/**
+	 * Helper method of recoverGame() that checks that a logged game has the
+	 * right Cards and only legal moves, so a damaged log is never played.
+	 * @param saved the game read from the log
+	 * @return true if the game can be played back or false if not
+	 */
+	private boolean isPlayable(GameLog.SavedGame saved)
+	{
+		BoardLayout layout = saved.getLayout();
+		int[] cards = saved.getCards();
+		if (!layout.equals(BoardLayout.STANDARD)
+				&& !layout.equals(BoardLayout.DOUBLE)
+				|| cards.length != layout.getNoOfCards())
+			return false;
+		int[] copies = new int[CardCodec.NO_OF_CARDS];
+		for (int card : cards)
+			if (card < 0 || card >= CardCodec.NO_OF_CARDS
+					|| ++copies[card] > layout.getNoOfDecks())
+				return false;
+
+		Board board = Board.deal(layout, cards);
+		for (int move : saved.getMoves())
+		{
+			if (!board.isLegal(move))
+				return false;
+			board.apply(move);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if moves should be animated: animation is on and a logged game
+	 * is not being played back.
+	 * @return true if moves should be animated or false if not
+	 */
+	private boolean isAnimating()
+	{
+		return parentFrame.isAnimateOn() && !recovering;
 	}
 
 	/**
@@ -172,6 +651,11 @@ public class CardPanel extends JPanel implements MouseListener,
 		{
 			Move lastMove = moves.removeLast();
 			lastMove.undo();
+			replay.removeLastMove();
+			if (gameLog != null)
+				gameLog.addUndo(gameSeconds);
+			lastMoveTime = System.currentTimeMillis();
+			positionChanged();
 			repaint();
 		}
 	}
@@ -188,30 +672,63 @@ public class CardPanel extends JPanel implements MouseListener,
 		// For each Cascade, get all of the Movables that can be taken from it
 		// and if any can be placed on another Cascade, add that Move to the
 		// List of possible Moves
-		for (GHand Cascade : allHands.subList(0, NO_OF_CASCADES))
+		for (GHand Cascade : allHands.subList(0, noOfCascades))
 			for (Movable movable : ((Cascade) Cascade).getAllMovables())
-				for (GHand next : allHands.subList(0, NO_OF_CASCADES))
+				for (GHand next : allHands.subList(0, noOfCascades))
 					if (next != Cascade)
 						if (movable.canPlaceOn(next))
 							allMoves.add(new Move(Cascade, next, movable));
 		return allMoves;
 	}
 
+	/**
+	 * Helper method of released() and playEndgame() that checks if the game
+	 * has been won and, if so, ends it and congratulates the player.
+	 */
+	private void checkWin()
+	{
+		long checkStart = System.nanoTime();
+		boolean won = checkForWinner();
+		winCheckTimes.record(System.nanoTime() - checkStart);
+		if (won)
+		{
+			// End the game, prevent undos, stop the time, and update the
+			// statistics
+			inGame = false;
+			parentFrame.setUndoOption(false);
+			timer.stop();
+			winnability.stop(WinnabilityMonitor.WINNABLE);
+			if (gameLog != null)
+				gameLog.endGame();
+			updateStatsAfterWin(gameSeconds);
+
+			// Congratulatory message. Let minutes surpass 60 since it is
+			// uncommon for one to play an hour long game
+			String time = String.format("%d:%02d.", gameSeconds / 60,
+					gameSeconds % 60);
+			JOptionPane.showMessageDialog(parentFrame, "You Win! Your time was "
+					+ time, "Congratulations", JOptionPane.INFORMATION_MESSAGE);
+			repaint();
+		}
+	}
+
 	/**
 	 * Checks to see if the player has won by completing all of the Foundations
 	 * @return true if they have won, false if not
 	 */
 	private boolean checkForWinner()
 	{
-		for (GHand nextFoundation : allHands.subList(NO_OF_CASCADES
-				+ NO_OF_FREECELLS, allHands.size()))
+		for (GHand nextFoundation : allHands.subList(noOfCascades
+				+ noOfFreeCells, allHands.size()))
 			if (nextFoundation.cardsLeft() < 13)
 				return false;
 		return true;
 	}
 
 	/**
-	 * Auto completes any Cards up to the Foundations when possible.
+	 * Auto completes any Cards up to the Foundations when possible, then
+	 * finishes the game if only a few Cards are left and the endgame can be
+	 * won.
 	 */
 	private void autoComplete()
 	{
@@ -223,10 +740,10 @@ public class CardPanel extends JPanel implements MouseListener,
 
 			// Go through each Cascade and FreeCell and determine if it can be
 			// put up to a Foundation
-			for (GHand hand : allHands.subList(0, NO_OF_CASCADES
-					+ NO_OF_FREECELLS))
-				for (GHand Foundation : allHands.subList(NO_OF_CASCADES
-						+ NO_OF_FREECELLS, allHands.size()))
+			for (GHand hand : allHands.subList(0, noOfCascades
+					+ noOfFreeCells))
+				for (GHand Foundation : allHands.subList(noOfCascades
+						+ noOfFreeCells, allHands.size()))
 					if (hand.cardsLeft() > 0)
 					{
 						// To avoid null checking, check the number of Cards in
@@ -248,6 +765,167 @@ public class CardPanel extends JPanel implements MouseListener,
 							}
 					}
 		}
+		finishEndgame();
+	}
+
+	/**
+	 * Helper method of autoComplete() that plays out the rest of the game
+	 * from the EndgameTable when few enough Cards are left to look it up and
+	 * the game can still be won. The endgame is looked up (and the table
+	 * filled in if needed) on the endgame thread and played when it is ready.
+	 */
+	private void finishEndgame()
+	{
+		int cardsInPlay = 0;
+		for (GHand hand : allHands.subList(0, noOfCascades + noOfFreeCells))
+			cardsInPlay += hand.cardsLeft();
+		if (!inGame || cardsInPlay == 0)
+			return;
+
+		final Board board = toBoard(new GHand[allHands.size()]);
+		final FutureTask<EndgameTable> loader = endgameLoader;
+		endgameWork.execute(new Runnable()
+		{
+			public void run()
+			{
+				EndgameTable endgames = waitFor(loader);
+				if (endgames == null
+						|| board.cardsLeft() > endgames.getMaxCards())
+					return;
+				final int[] endgame = endgames.solve(board);
+				if (endgame != null)
+					SwingUtilities.invokeLater(new Runnable()
+					{
+						public void run()
+						{
+							playEndgame(board, endgame);
+						}
+					});
+			}
+		});
+	}
+
+	/**
+	 * Helper method of finishEndgame() that plays a solved endgame, if the
+	 * game is still at the position it was solved from, and then checks for
+	 * the win.
+	 * @param board the position the endgame was solved from
+	 * @param endgame the packed moves that win it
+	 */
+	private void playEndgame(Board board, int[] endgame)
+	{
+		// The player may have moved while it was being solved
+		GHand[] handAt = new GHand[allHands.size()];
+		if (!inGame || selectedItem != null || !toBoard(handAt).equals(board))
+			return;
+		for (int move : endgame)
+			playBoardMove(move, handAt);
+		lastMoveTime = System.currentTimeMillis();
+		positionChanged();
+		checkWin();
+	}
+
+	/**
+	 * Makes a packed Board of the current game. The Board's Foundations each
+	 * hold one suit, so each Foundation with Cards is matched to a Board
+	 * Foundation of its suit and the empty ones fill in the rest.
+	 * @param handAt the array to fill with the GHand at each Board location
+	 * @return the Board of the current game
+	 */
+	private Board toBoard(GHand[] handAt)
+	{
+		Board board = new Board(boardLayout);
+		int firstFoundation = noOfCascades + noOfFreeCells;
+		for (int location = 0; location < firstFoundation; location++)
+		{
+			GHand hand = allHands.get(location);
+			handAt[location] = hand;
+			if (location < noOfCascades)
+				for (Card card : hand.hand)
+					board.addToCascade(location, card.getIndex());
+			else if (hand.cardsLeft() > 0)
+				board.setFreeCell(location - noOfCascades, hand.getTopCard()
+						.getIndex());
+		}
+
+		// Match the Foundations with Cards first, then the empty ones
+		for (int pass = 0; pass < 2; pass++)
+			for (GHand hand : allHands.subList(firstFoundation,
+					allHands.size()))
+			{
+				if ((hand.cardsLeft() > 0) == (pass == 1))
+					continue;
+				for (int foundation = 0; foundation < noOfFoundations; foundation++)
+					if (handAt[firstFoundation + foundation] == null
+							&& (pass == 1 || Board.getFoundationSuit(foundation) == hand
+									.getTopCard().getSuit()))
+					{
+						handAt[firstFoundation + foundation] = hand;
+						board.setFoundation(foundation, hand.cardsLeft());
+						break;
+					}
+			}
+		return board;
+	}
+
+	/**
+	 * Makes a packed Board move (see Board.move()) on the GHands, adding it to
+	 * the Moves List so that it can be undone.
+	 * @param move the packed move to make
+	 * @param handAt the GHand at each Board location from toBoard()
+	 */
+	private void playBoardMove(int move, GHand[] handAt)
+	{
+		GHand from = handAt[Board.getFrom(move)];
+		GHand to = handAt[Board.getTo(move)];
+		int count = Board.getCount(move);
+		if (count == 1)
+		{
+			complete(from, to);
+			return;
+		}
+
+		// When animating, show the run going over one Card at a time through
+		// the FreeCells and empty Cascades (only Cascades and FreeCells are
+		// used, which are at the same locations in the Replay's Board)
+		int[] steps = null;
+		if (isAnimating())
+			steps = SupermovePlanner.plan(replay.getLastPosition(), move);
+		GHand source = from;
+		if (steps != null)
+		{
+			for (int step : steps)
+			{
+				GHand stepFrom = handAt[Board.getFrom(step)];
+				GHand stepTo = handAt[Board.getTo(step)];
+				GCard CardToMove = stepFrom.removeTopCard();
+				moveACard(CardToMove, CardToMove.getPosition(), stepTo
+						.getNextCardPosition());
+				stepTo.addCard(CardToMove);
+			}
+
+			// Pick the run back up off the target so that the Tableau below
+			// puts it back and the whole move is undone in one step
+			source = to;
+		}
+
+		// Move a run of Cards as a Tableau, the same way the player picks one
+		// up, so that it is undone in one step
+		int bottom = source.cardsLeft() - count;
+		GCard bottomCard = (GCard) source.hand.get(bottom);
+		Tableau tableau = new Tableau(bottomCard.getPosition().x, bottomCard
+				.getPosition().y, (Cascade) from);
+		for (Card next : source.hand.subList(bottom, source.cardsLeft()))
+			tableau.addCard((GCard) next);
+		for (int card = 0; card < count; card++)
+			source.removeTopCard();
+		tableau.placeOn(to);
+		if (isAnimating() && steps == null)
+		{
+			paintImmediately(0, 0, getWidth(), getHeight());
+			delay(30 * parentFrame.getAnimationFrames());
+		}
+		recordMove(from, to, tableau);
 	}
 
 	/**
@@ -264,12 +942,14 @@ public class CardPanel extends JPanel implements MouseListener,
 
 		// If there is a Card that can be placed on the Card in consideration
 		// (by the canPlaceOnCascade rules) that is not in a Foundation yet, the
-		// Card in consideration should not be auto completed
-		GCard CardConsidering = hand.getTopCard();
-		for (GHand nextHand : allHands.subList(0, NO_OF_CASCADES
-				+ NO_OF_FREECELLS))
+		// Card in consideration should not be auto completed. The
+		// PlacementTable gives all such Cards at once as a set of indexes.
+		long placeable = PlacementTable.cascadePlaceable(hand.getTopCard()
+				.getIndex());
+		for (GHand nextHand : allHands.subList(0, noOfCascades
+				+ noOfFreeCells))
 			for (Card nextCard : nextHand.hand)
-				if (((GCard) nextCard).canPlaceOnCascade(CardConsidering))
+				if ((placeable >>> nextCard.getIndex() & 1) != 0)
 					return false;
 		return true;
 	}
@@ -277,20 +957,84 @@ public class CardPanel extends JPanel implements MouseListener,
 	/**
 	 * Auto completes a Card from the given GHand to the other given GHand.
 	 * @param from the GHand that has the Card to be auto completed
-	 * @param to the GHand (Foundation) that the Card will move to
+	 * @param to the GHand (usually a Foundation) that the Card will move to
 	 */
 	private void complete(GHand from, GHand to)
 	{
 		// Remove the Card from its current GHand and add it to correct
 		// Foundation, animating the Card if animate is on
 		GCard CardToMove = from.removeTopCard();
-		if (parentFrame.isAnimateOn())
+		if (isAnimating())
 			moveACard(CardToMove, CardToMove.getPosition(), to.getPosition());
 		to.addCard(CardToMove);
 
 		// Add the Move to the Moves List so that an auto complete can be undoed
-		moves.addLast(new Move(from, to, CardToMove));
+		recordMove(from, to, CardToMove);
+	}
+
+	/**
+	 * Adds a Move to the Moves List so that it can be undone, and to the
+	 * Replay and the log of this game.
+	 * @param from the GHand the Movable moved from
+	 * @param to the GHand the Movable moved to
+	 * @param moved the GCard or Tableau that was moved
+	 */
+	private void recordMove(GHand from, GHand to, Movable moved)
+	{
+		moves.addLast(new Move(from, to, moved));
 		parentFrame.setUndoOption(true);
+
+		// The Replay's Foundations each hold one suit, so find the one the
+		// Card goes on
+		int fromLocation = allHands.indexOf(from);
+		int toLocation = allHands.indexOf(to);
+		int count = 1;
+		if (moved instanceof Tableau)
+			count = ((Tableau) moved).cardsLeft();
+		else if (to instanceof Foundation)
+			toLocation = replay.getLastPosition().findFoundation(
+					((GCard) moved).getIndex());
+		int move = Board.move(fromLocation, toLocation, count);
+		replay.addMove(move);
+		if (gameLog != null && !recovering)
+			gameLog.addMove(move, gameSeconds);
+	}
+
+	/**
+	 * Helper method of released() that records how long the player thought
+	 * before a move and what the position was like after it.
+	 * @param from the GHand the Movable moved from
+	 * @param to the GHand the Movable moved to
+	 * @param moved the GCard or Tableau that was moved
+	 */
+	private void recordThinkTime(GHand from, GHand to, Movable moved)
+	{
+		if (telemetry == null)
+			return;
+		int cardsLeft = 0;
+		for (GHand next : allHands)
+			if (!(next instanceof Foundation))
+				cardsLeft += next.cardsLeft();
+		int count = 1;
+		if (moved instanceof Tableau)
+			count = ((Tableau) moved).cardsLeft();
+		telemetry.record(System.currentTimeMillis() - lastMoveTime,
+				MoveTelemetry.typeOf(from), MoveTelemetry.typeOf(to), count,
+				cardsLeft, FreeCell.getnoOfOpenFreeCells(),
+				Cascade.getNoOfOpenCascades());
+	}
+
+	/**
+	 * Shows the Replay of the current or last game with a timeline to go to
+	 * any of its moves.
+	 */
+	public void showReplay()
+	{
+		if (replay == null || replay.getLength() == 0)
+			JOptionPane.showMessageDialog(this, "There are no moves to replay.",
+					"Replay", JOptionPane.INFORMATION_MESSAGE);
+		else
+			new ReplayViewer(parentFrame, replay).setVisible(true);
 	}
 
 	/**
@@ -350,30 +1094,179 @@ public class CardPanel extends JPanel implements MouseListener,
 	 */
 	public void paintComponent(Graphics g)
 	{
+		long startTime = System.nanoTime();
 		super.paintComponent(g);
 
+		// Draw the board scaled to fit the panel, and have the Card images
+		// made at the scale of the screen's pixels (which includes any HiDPI
+		// scaling) so they are not resized on every paint
+		updateScale();
+		Graphics2D board = (Graphics2D) g.create();
+		board.translate(offsetX, offsetY);
+		board.scale(scale, scale);
+		board.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+				RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		CardImages.prepareScale(board.getTransform().getScaleX(),
+				repaintWhenScaled);
+
 		// Draw the Deck if there are Cards left
 		if (myDeck.cardsLeft() > 0)
-			myDeck.draw(g);
+			myDeck.draw(board);
 
 		// Draw all of the Hands
 		for (GHand next : allHands)
-			next.draw(g);
+			next.draw(board);
 
 		// For animation to draw the moving Card
 		if (movingCard != null)
-			movingCard.draw(g);
+			movingCard.draw(board);
 
 		// Draw selected GHand or Card on top
 		if (selectedItem != null)
-			selectedItem.draw(g);
+			selectedItem.draw(board);
+
+		// Outline the Hands of the hint and name the move
+		if (hint != null)
+		{
+			Color textColour = board.getColor();
+			board.setColor(HINT_COLOUR);
+			if (hintFrom != null)
+				outline(board, hintFrom.getRectangle());
+			if (hintTo != null)
+				outline(board, hintTo.getRectangle());
+			board.setFont(OVERLAY_FONT);
+			board.drawString("Hint: " + hint, CASCADE_X, boardHeight - 10);
+			board.setColor(textColour);
+		}
 
 		// Draw the time if a game is in progress
-		g.setFont(TIME_FONT);
+		board.setFont(TIME_FONT);
 		if (inGame)
-			g.drawString(
+		{
+			board.drawString(
 					String.format("%d:%02d", gameSeconds / 60, gameSeconds % 60),
-					385, 20);
+					boardWidth / 2 - 15, 20);
+			drawWinnability(board, boardWidth / 2 + 40, 20);
+		}
+
+		// Show that the Cards are still loading on the first paints
+		if (!CardImages.isLoaded())
+		{
+			board.setColor(Color.WHITE);
+			board.drawString("Loading cards...", boardWidth / 2 - 70,
+					boardHeight / 2);
+		}
+		board.dispose();
+
+		// Time this paint and count it towards the frames per second
+		StartupTimer.mark(StartupTimer.FIRST_PAINT);
+		long endTime = System.nanoTime();
+		paintTimes.record(endTime - startTime);
+		framesThisSecond++;
+		if (endTime - fpsSecondStart >= 1000000000L)
+		{
+			framesPerSecond = framesThisSecond;
+			framesThisSecond = 0;
+			fpsSecondStart = endTime;
+		}
+
+		// Draw the paint time overlay in the bottom left corner
+		if (showPaintTime)
+		{
+			g.setFont(OVERLAY_FONT);
+			g.setColor(Color.WHITE);
+			g.drawString(String.format("paint %.2f ms  p99 %.2f ms  %d fps",
+					paintTimes.getLastNanos() / 1e6,
+					paintTimes.getPercentileNanos(99) / 1e6, framesPerSecond),
+					10, getHeight() - 10);
+		}
+	}
+
+	/**
+	 * Helper method of paintComponent() that draws a coloured dot and a word
+	 * for whether the position can still be won.
+	 * @param g the Graphics context to draw on
+	 * @param x the left of the dot
+	 * @param y the baseline of the word
+	 */
+	private void drawWinnability(Graphics g, int x, int y)
+	{
+		int state = winnability.getState();
+		Color textColour = g.getColor();
+		if (state == WinnabilityMonitor.WINNABLE)
+			g.setColor(Color.GREEN);
+		else if (state == WinnabilityMonitor.LOST)
+			g.setColor(Color.RED);
+		else
+			g.setColor(Color.LIGHT_GRAY);
+		g.fillOval(x, y - 10, 10, 10);
+		g.setFont(OVERLAY_FONT);
+		g.drawString(WinnabilityMonitor.NAMES[state], x + 14, y);
+		g.setColor(textColour);
+	}
+
+	/**
+	 * Helper method of paintComponent() that draws a thick outline around a
+	 * rectangle.
+	 * @param g the Graphics context to draw on
+	 * @param area the rectangle
+	 */
+	private static void outline(Graphics g, Rectangle area)
+	{
+		for (int width = 1; width <= 3; width++)
+			g.drawRoundRect(area.x - width, area.y - width, area.width + 2
+					* width, area.height + 2 * width, 8, 8);
+	}
+
+	/**
+	 * Works out the scale and offsets that fit the whole board in the panel
+	 * and centre it.
+	 */
+	private void updateScale()
+	{
+		if (getWidth() <= 0 || getHeight() <= 0)
+			return;
+		scale = Math.min((double) getWidth() / boardWidth,
+				(double) getHeight() / boardHeight);
+		offsetX = (getWidth() - boardWidth * scale) / 2;
+		offsetY = (getHeight() - boardHeight * scale) / 2;
+	}
+
+	/**
+	 * Turns a point on the panel (such as where the mouse is) into a point on
+	 * the board.
+	 * @param point the point on the panel
+	 * @return the same point in board coordinates
+	 */
+	private Point toBoardPoint(Point point)
+	{
+		updateScale();
+		return new Point((int) Math.floor((point.x - offsetX) / scale),
+				(int) Math.floor((point.y - offsetY) / scale));
+	}
+
+	/**
+	 * Turns the on screen paint time and frames per second overlay on or off.
+	 * @param show true to show the overlay or false to hide it
+	 */
+	public void setShowPaintTime(boolean show)
+	{
+		showPaintTime = show;
+		repaint();
+	}
+
+	/**
+	 * Returns a summary of how long the mouse handlers, auto complete, win
+	 * check, Statistics updates and paints have taken so far, and how long
+	 * starting up took.
+	 * @return one line for each timed piece of work
+	 */
+	public String getTimingReport()
+	{
+		return pressTimes + "\n" + releaseTimes + "\n" + autoCompleteTimes
+				+ "\n" + winCheckTimes + "\n" + statsWriteTimes + "\n"
+				+ hintTimes + "\n" + paintTimes + "\n\n"
+				+ StartupTimer.getReport();
 	}
 
 	/**
@@ -382,15 +1275,28 @@ public class CardPanel extends JPanel implements MouseListener,
 	 */
 	private void updateStatsAfterWin(int time)
 	{
-		// Update the appropriate Statistics variables
-		stats.incrementGamesWon();
-		stats.incrementGamesPlayed();
-		stats.incrementCurrentStreak();
-		stats.updateLongestStreak();
-		stats.updateFastestTime(time);
-
-		// Save to the file
-		stats.writeToFile(Statistics.STATS_FILE);
+		// Update the Statistics and save them in the background (the time
+		// only covers handing the save over)
+		long startTime = System.nanoTime();
+		getStats().recordWin(time, Statistics.STATS_FILE);
+		statsWriteTimes.record(System.nanoTime() - startTime);
+
+		// Add the win to the leaderboard once it is open (it is written in
+		// the background)
+		if (dealNumber > 0)
+		{
+			final Leaderboard.Entry entry = new Leaderboard.Entry(boardLayout,
+					dealNumber, PROFILE, time, moves.size());
+			leaderboardWork.execute(new Runnable()
+			{
+				public void run()
+				{
+					Leaderboard leaderboard = waitFor(leaderboardLoader);
+					if (leaderboard != null)
+						leaderboard.add(entry);
+				}
+			});
+		}
 	}
 
 	/**
@@ -398,12 +1304,58 @@ public class CardPanel extends JPanel implements MouseListener,
 	 */
 	public void updateStatsAfterLose()
 	{
-		// Update the appropriate Statistics variables
-		stats.incrementGamesPlayed();
-		stats.resetCurrentStreak();
+		// The game is over, so it should not be picked up again
+		if (gameLog != null)
+			gameLog.endGame();
+
+		// Update the Statistics and save them in the background
+		long startTime = System.nanoTime();
+		getStats().recordLoss(Statistics.STATS_FILE);
+		statsWriteTimes.record(System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Gets the Statistics, waiting for them to be read if they are not yet
+	 * (which only takes a moment after startup).
+	 * @return the Statistics
+	 */
+	private Statistics getStats()
+	{
+		Statistics stats = waitFor(statsLoader);
+		return stats != null ? stats : new Statistics();
+	}
 
-		// Save to the file
-		stats.writeToFile(Statistics.STATS_FILE);
+	/**
+	 * Waits for something loaded in the background to finish loading.
+	 * @param loader the loader
+	 * @return what was loaded, or null if it could not be loaded
+	 */
+	private static <T> T waitFor(FutureTask<T> loader)
+	{
+		boolean interrupted = false;
+		try
+		{
+			while (true)
+			{
+				try
+				{
+					return loader.get();
+				}
+				catch (InterruptedException exp)
+				{
+					interrupted = true;
+				}
+			}
+		}
+		catch (ExecutionException exp)
+		{
+			return null;
+		}
+		finally
+		{
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
 	}
 
 	/**
@@ -420,7 +1372,9 @@ public class CardPanel extends JPanel implements MouseListener,
 	 */
 	public void showStats()
 	{
-		stats.writeToFile(Statistics.STATS_FILE);
+		// Pick up games finished in other windows
+		Statistics stats = getStats();
+		stats.refresh(Statistics.STATS_FILE);
 
 		String[] choices = { "OK", "Reset Statistics" };
 		if (JOptionPane.showOptionDialog(this, stats.toString(),
@@ -429,10 +1383,83 @@ public class CardPanel extends JPanel implements MouseListener,
 			if (JOptionPane.showConfirmDialog(this,
 					"Are you sure you want to reset the Statistics?",
 					"Warning", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION)
+				stats.reset(Statistics.STATS_FILE);
+	}
+
+	/**
+	 * Displays the fastest times and fewest moves for the current deal, by
+	 * everyone and by this player. The wins are looked up on the leaderboard
+	 * thread (after it is open and after any wins before it are added) and
+	 * shown when they are ready.
+	 */
+	public void showLeaderboard()
+	{
+		if (dealNumber == 0)
+		{
+			showLeaderboard("There is no leaderboard for this game.");
+			return;
+		}
+
+		final BoardLayout layout = boardLayout;
+		final int deal = dealNumber;
+		leaderboardWork.execute(new Runnable()
+		{
+			public void run()
 			{
-				stats = new Statistics();
-				stats.writeToFile(Statistics.STATS_FILE);
+				Leaderboard leaderboard = waitFor(leaderboardLoader);
+				if (leaderboard == null)
+				{
+					showLeaderboard("There is no leaderboard for this game.");
+					return;
+				}
+
+				StringBuilder text = new StringBuilder("Deal #" + deal + "\n");
+				appendTop(text, "Fastest times", leaderboard.top(layout, deal,
+						null, false, 10));
+				appendTop(text, "Fewest moves", leaderboard.top(layout, deal,
+						null, true, 10));
+				appendTop(text, "Your fastest times", leaderboard.top(layout,
+						deal, PROFILE, false, 10));
+				showLeaderboard(text.toString());
+			}
+		});
+	}
+
+	/**
+	 * Helper method of showLeaderboard() that shows the given text in a
+	 * dialog on the event thread.
+	 * @param text the text to show
+	 */
+	private void showLeaderboard(final String text)
+	{
+		SwingUtilities.invokeLater(new Runnable()
+		{
+			public void run()
+			{
+				JTextArea area = new JTextArea(text);
+				area.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+				area.setEditable(false);
+				JOptionPane.showMessageDialog(CardPanel.this, area,
+						"Leaderboard", JOptionPane.PLAIN_MESSAGE);
 			}
+		});
+	}
+
+	/**
+	 * Helper method of showLeaderboard() that adds a numbered list of wins.
+	 * @param text the text to add to
+	 * @param title the title of the list
+	 * @param entries the wins, best first
+	 */
+	private static void appendTop(StringBuilder text, String title,
+			List<Leaderboard.Entry> entries)
+	{
+		text.append("\n").append(title).append("\n");
+		if (entries.isEmpty())
+			text.append("  No wins yet\n");
+		for (int entry = 0; entry < entries.size(); entry++)
+			text.append(String.format("%3d. %s\n", entry + 1, entries
+					.get(entry)));
 	}
 
 	/**
@@ -455,10 +1482,25 @@ public class CardPanel extends JPanel implements MouseListener,
 	 */
 	public void mousePressed(MouseEvent event)
 	{
-		if (selectedItem == null)
+		long startTime = System.nanoTime();
+		try
+		{
+			pressed(toBoardPoint(event.getPoint()));
+		}
+		finally
 		{
-			Point selectedPoint = event.getPoint();
+			pressTimes.record(System.nanoTime() - startTime);
+		}
+	}
 
+	/**
+	 * Helper method of mousePressed() that picks up a Card or a Tableau.
+	 * @param selectedPoint the point where the mouse was pressed
+	 */
+	private void pressed(Point selectedPoint)
+	{
+		if (selectedItem == null)
+		{
 			// Pick up one of Cards from a Hand (FreeCell or Cascade)
 			// Could also pick up from a Foundation if you want
 			for (GHand nextHand : allHands)
@@ -483,6 +1525,23 @@ public class CardPanel extends JPanel implements MouseListener,
 	 * @param event event information for mouse released
 	 */
 	public void mouseReleased(MouseEvent event)
+	{
+		long startTime = System.nanoTime();
+		try
+		{
+			released();
+		}
+		finally
+		{
+			releaseTimes.record(System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * Helper method of mouseReleased() that drops a Card or a Tableau and
+	 * checks for auto completes and a win.
+	 */
+	private void released()
 	{
 		if (selectedItem != null)
 		{
@@ -497,9 +1556,8 @@ public class CardPanel extends JPanel implements MouseListener,
 					// Count this move if you didn't place it on the same spot
 					if (nextHand != sourceHand)
 					{
-						moves.addLast(new Move(sourceHand, nextHand,
-								selectedItem));
-						parentFrame.setUndoOption(true);
+						recordThinkTime(sourceHand, nextHand, selectedItem);
+						recordMove(sourceHand, nextHand, selectedItem);
 						// Start the time if that was the first move
 						if (!timer.isRunning())
 							timer.start();
@@ -509,29 +1567,15 @@ public class CardPanel extends JPanel implements MouseListener,
 
 					// Check these things after a Card is dropped
 					if (parentFrame.isAutoCompleteOn())
-						autoComplete();
-					// Check if game has been won
-					if (checkForWinner())
 					{
-						// End the game, prevent undos, stop the time, and
-						// update the statistics
-						inGame = false;
-						parentFrame.setUndoOption(false);
-						timer.stop();
-						updateStatsAfterWin(gameSeconds);
-
-						// Congratulatory message. Let minutes surpass 60 since
-						// it is uncommon
-						// for one to play an hour long game
-						String time = String.format("%d:%02d.",
-								gameSeconds / 60,
-								gameSeconds % 60);
-						JOptionPane.showMessageDialog(parentFrame,
-								"You Win! Your time was "
-										+ time, "Congratulations",
-								JOptionPane.INFORMATION_MESSAGE);
-						repaint();
+						long autoStart = System.nanoTime();
+						autoComplete();
+						autoCompleteTimes.record(System.nanoTime() - autoStart);
 					}
+					// The next think time starts once the auto complete is done
+					lastMoveTime = System.currentTimeMillis();
+					positionChanged();
+					checkWin();
 					return;
 				}
 
@@ -548,7 +1592,7 @@ public class CardPanel extends JPanel implements MouseListener,
 	 */
 	public void mouseDragged(MouseEvent event)
 	{
-		Point currentPoint = event.getPoint();
+		Point currentPoint = toBoardPoint(event.getPoint());
 
 		if (selectedItem != null)
 		{
@@ -571,7 +1615,7 @@ public class CardPanel extends JPanel implements MouseListener,
 	{
 		// Set the cursor to a hand if we are on a Card or Tableau that we can
 		// pick up
-		Point currentPoint = event.getPoint();
+		Point currentPoint = toBoardPoint(event.getPoint());
 		for (GHand nextHand : allHands)
 			if (nextHand.contains(currentPoint)
 					&& nextHand.canPickUp(currentPoint))
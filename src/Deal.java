@@ -0,0 +1,96 @@
+import java.util.SplittableRandom;
+
+/**
+ * Makes repeatable deals. Standard games use the numbered deals from the
+ * Microsoft FreeCell game (1 to 1,000,000 and beyond), which other FreeCell
+ * tools use to name deals, and any layout can be dealt from a seed.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class Deal
+{
+	/**
+	 * There are no Deal objects, only static methods.
+	 */
+	private Deal()
+	{
+	}
+
+	/**
+	 * Gets the cards of the given Microsoft deal number in dealing order (the
+	 * first card goes on the first Cascade, the second on the second and so
+	 * on).
+	 * @param dealNumber the deal number (1 or more)
+	 * @return the indexes of the 52 cards in dealing order
+	 */
+	public static int[] microsoftCards(long dealNumber)
+	{
+		// The Microsoft deck is ordered AC AD AH AS 2C 2D ... KS
+		int[] deck = new int[CardCodec.NO_OF_CARDS];
+		for (int card = 0; card < deck.length; card++)
+			deck[card] = CardCodec.indexOf(card / 4 + 1, card % 4 + 1);
+
+		// Pick cards using the Microsoft C library random number generator,
+		// filling each gap with the last card left
+		int[] cards = new int[deck.length];
+		long seed = dealNumber;
+		int left = deck.length;
+		for (int card = 0; card < cards.length; card++)
+		{
+			seed = seed * 214013 + 2531011 & 0x7FFFFFFFL;
+			int pick = (int) ((seed >> 16) % left);
+			cards[card] = deck[pick];
+			deck[pick] = deck[--left];
+		}
+		return cards;
+	}
+
+	/**
+	 * Deals the given Microsoft deal number onto a standard Board.
+	 * @param dealNumber the deal number (1 or more)
+	 * @return the dealt Board
+	 */
+	public static Board microsoft(long dealNumber)
+	{
+		return Board.deal(microsoftCards(dealNumber));
+	}
+
+	/**
+	 * Gets the cards of a deal for any layout shuffled from the given seed.
+	 * @param layout the size of the game
+	 * @param seed the seed of the shuffle
+	 * @return the indexes of the cards in dealing order
+	 */
+	public static int[] seededCards(BoardLayout layout, long seed)
+	{
+		SplittableRandom random = new SplittableRandom(seed);
+		int[] cards = new int[layout.getNoOfCards()];
+		for (int card = 0; card < cards.length; card++)
+			cards[card] = card % CardCodec.NO_OF_CARDS;
+
+		// Fisher-Yates shuffle
+		for (int card = cards.length - 1; card > 0; card--)
+		{
+			int other = random.nextInt(card + 1);
+			int temp = cards[card];
+			cards[card] = cards[other];
+			cards[other] = temp;
+		}
+		return cards;
+	}
+
+	/**
+	 * Deals the given deal number for any layout: the Microsoft deal for the
+	 * standard game or a seeded shuffle for other layouts.
+	 * @param layout the size of the game
+	 * @param dealNumber the deal number (1 or more)
+	 * @return the dealt Board
+	 */
+	public static Board deal(BoardLayout layout, long dealNumber)
+	{
+		if (layout.isStandard())
+			return microsoft(dealNumber);
+		return Board.deal(layout, seededCards(layout, dealNumber));
+	}
+}
@@ -78,6 +78,29 @@ public class Deck
 		}
 	}
 
+	/**
+	 * Puts the Cards of this Deck in the given order so that they are dealt
+	 * in that order, such as for a numbered deal. The Deck should be shuffled
+	 * first so that every Card is in it.
+	 * @param cards the indexes of the cards in dealing order
+	 */
+	public void arrange(int[] cards)
+	{
+		// The top card is dealt first, so fill the Deck from the top down
+		for (int card = 0; card < cards.length && card < topCard; card++)
+		{
+			int top = topCard - 1 - card;
+			for (int next = 0; next <= top; next++)
+				if (deck[next].getIndex() == cards[card])
+				{
+					Card temp = deck[next];
+					deck[next] = deck[top];
+					deck[top] = temp;
+					break;
+				}
+		}
+	}
+
 	/**
 	 * Gets the number of cards that are left in this Deck.
 	 * @return the number of cards that remain in this Deck
@@ -0,0 +1,313 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A file with one difficulty score for each deal in a range, made by
+ * DifficultyRater, that new games can pick easy, medium or hard deals from.
+ * The file starts with "FCDI", the layout, the first deal number and the
+ * number of deals, then has one byte for each deal: 0 if it has not been
+ * rated yet, 1 (easiest) to 254 (hardest) for a deal the Solver won, or
+ * UNSOLVED for a deal it gave up on. The file is mapped into memory, so
+ * opening it reads nothing and a million deals take a megabyte.
+ *
+ * Easy, medium and hard are each a third of the solved deals: the scores are
+ * counted when the index is opened and split into three equal parts.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class DifficultyIndex
+{
+	// Name of the index file
+	public static final String INDEX_FILE = "difficulty.idx";
+
+	// The difficulties a deal can be picked by
+	public static final int ANY = 0;
+	public static final int EASY = 1;
+	public static final int MEDIUM = 2;
+	public static final int HARD = 3;
+	public static final String[] NAMES = { "Any", "Easy", "Medium", "Hard" };
+
+	// Scores for a deal not rated yet and a deal the Solver gave up on
+	public static final int NOT_RATED = 0;
+	public static final int UNSOLVED = 255;
+
+	// The first four bytes of an index file and where each part of the
+	// header is
+	private static final int MAGIC = 0x46434449; // "FCDI"
+	private static final int LAYOUT = 4;
+	private static final int FIRST_DEAL = 8;
+	private static final int NO_OF_DEALS = 12;
+	private static final int HEADER_SIZE = 16;
+
+	// Most random deals to try when picking one before looking at them all
+	private static final int MAX_TRIES = 1000;
+
+	// Variables for the mapped file
+	private MappedByteBuffer buffer;
+	private BoardLayout layout;
+	private int firstDeal;
+	private int noOfDeals;
+
+	// The highest easy score and the highest medium score
+	private int easyMax, mediumMax;
+
+	/**
+	 * Opens an index file to pick deals from.
+	 * @param file the index file
+	 * @throws IOException if the file cannot be read or is not an index
+	 */
+	public DifficultyIndex(File file) throws IOException
+	{
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try
+		{
+			if (in.length() < HEADER_SIZE)
+				throw new IOException(file + " is not a difficulty index");
+			buffer = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0,
+					in.length());
+		}
+		finally
+		{
+			in.close();
+		}
+		readHeader(file);
+		findCutoffs();
+	}
+
+	/**
+	 * Opens (or makes) an index file to rate a range of deals into. If the
+	 * file is for the same layout and deals, the deals already rated are kept
+	 * so the rating can carry on where it stopped.
+	 * @param file the index file
+	 * @param layout the size of the games
+	 * @param firstDeal the first deal number
+	 * @param noOfDeals the number of deals
+	 * @throws IOException if the file cannot be opened
+	 */
+	DifficultyIndex(File file, BoardLayout layout, int firstDeal,
+			int noOfDeals) throws IOException
+	{
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		try
+		{
+			buffer = out.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+					HEADER_SIZE + noOfDeals);
+		}
+		finally
+		{
+			out.close();
+		}
+		this.layout = layout;
+		this.firstDeal = firstDeal;
+		this.noOfDeals = noOfDeals;
+
+		// Start over if the file is for something else
+		if (buffer.getInt(0) != MAGIC
+				|| buffer.get(LAYOUT) != layout.getNoOfDecks()
+				|| buffer.get(LAYOUT + 1) != layout.getNoOfCascades()
+				|| buffer.get(LAYOUT + 2) != layout.getNoOfFreeCells()
+				|| buffer.getInt(FIRST_DEAL) != firstDeal
+				|| buffer.getInt(NO_OF_DEALS) != noOfDeals)
+		{
+			for (int deal = 0; deal < noOfDeals; deal++)
+				buffer.put(HEADER_SIZE + deal, (byte) NOT_RATED);
+			buffer.put(LAYOUT, (byte) layout.getNoOfDecks());
+			buffer.put(LAYOUT + 1, (byte) layout.getNoOfCascades());
+			buffer.put(LAYOUT + 2, (byte) layout.getNoOfFreeCells());
+			buffer.putInt(FIRST_DEAL, firstDeal);
+			buffer.putInt(NO_OF_DEALS, noOfDeals);
+			buffer.putInt(0, MAGIC);
+		}
+	}
+
+	/**
+	 * Helper method of the constructor that reads and checks the header.
+	 * @param file the index file (for the error message)
+	 * @throws IOException if the file is not an index
+	 */
+	private void readHeader(File file) throws IOException
+	{
+		if (buffer.getInt(0) != MAGIC)
+			throw new IOException(file + " is not a difficulty index");
+		if (!BoardLayout.isSupported(buffer.get(LAYOUT), buffer
+				.get(LAYOUT + 1), buffer.get(LAYOUT + 2)))
+			throw new IOException(file + " is for an unsupported layout");
+		layout = new BoardLayout(buffer.get(LAYOUT), buffer.get(LAYOUT + 1),
+				buffer.get(LAYOUT + 2));
+		firstDeal = buffer.getInt(FIRST_DEAL);
+		noOfDeals = Math.min(buffer.getInt(NO_OF_DEALS), buffer.capacity()
+				- HEADER_SIZE);
+	}
+
+	/**
+	 * Helper method of the constructor that counts the scores of the solved
+	 * deals and splits them into thirds.
+	 */
+	private void findCutoffs()
+	{
+		long[] counts = new long[256];
+		for (int deal = 0; deal < noOfDeals; deal++)
+			counts[buffer.get(HEADER_SIZE + deal) & 0xFF]++;
+		long solved = 0;
+		for (int score = NOT_RATED + 1; score < UNSOLVED; score++)
+			solved += counts[score];
+
+		easyMax = UNSOLVED - 1;
+		mediumMax = UNSOLVED - 1;
+		long total = 0;
+		boolean easyFound = false;
+		for (int score = NOT_RATED + 1; score < UNSOLVED; score++)
+		{
+			total += counts[score];
+			if (!easyFound && total * 3 >= solved)
+			{
+				easyMax = score;
+				easyFound = true;
+			}
+			if (total * 3 >= solved * 2)
+			{
+				mediumMax = score;
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Gets the layout the deals were rated for.
+	 * @return the layout
+	 */
+	public BoardLayout getLayout()
+	{
+		return layout;
+	}
+
+	/**
+	 * Gets the first deal number in the index.
+	 * @return the first deal number
+	 */
+	public int getFirstDeal()
+	{
+		return firstDeal;
+	}
+
+	/**
+	 * Gets the number of deals in the index.
+	 * @return the number of deals
+	 */
+	public int getNoOfDeals()
+	{
+		return noOfDeals;
+	}
+
+	/**
+	 * Gets the score of a deal.
+	 * @param dealNumber the deal number (in the index's range)
+	 * @return NOT_RATED, 1 to 254, or UNSOLVED
+	 */
+	public int getScore(int dealNumber)
+	{
+		return buffer.get(HEADER_SIZE + dealNumber - firstDeal) & 0xFF;
+	}
+
+	/**
+	 * Sets the score of a deal. Each deal must only be set by one thread.
+	 * @param dealNumber the deal number (in the index's range)
+	 * @param score 1 to 254, or UNSOLVED
+	 */
+	void setScore(int dealNumber, int score)
+	{
+		buffer.put(HEADER_SIZE + dealNumber - firstDeal, (byte) score);
+	}
+
+	/**
+	 * Writes the scores set so far to the disk, so a crash of the computer
+	 * loses none of them.
+	 */
+	void force()
+	{
+		buffer.force();
+	}
+
+	/**
+	 * Gets the difficulty of a deal.
+	 * @param dealNumber the deal number (in the index's range)
+	 * @return EASY, MEDIUM or HARD, or ANY if the deal is not rated or was
+	 *         not solved
+	 */
+	public int getDifficulty(int dealNumber)
+	{
+		int score = getScore(dealNumber);
+		if (score == NOT_RATED || score == UNSOLVED)
+			return ANY;
+		if (score <= easyMax)
+			return EASY;
+		if (score <= mediumMax)
+			return MEDIUM;
+		return HARD;
+	}
+
+	/**
+	 * Picks a random deal of the given difficulty. Deals that were not rated
+	 * or not solved are never picked.
+	 * @param difficulty EASY, MEDIUM, HARD or ANY (any solved deal)
+	 * @return the deal number, or 0 if there is no such deal
+	 */
+	public int sample(int difficulty)
+	{
+		// About a third of the deals have each difficulty, so a few random
+		// tries nearly always find one
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int tries = 0; tries < MAX_TRIES && noOfDeals > 0; tries++)
+		{
+			int dealNumber = firstDeal + random.nextInt(noOfDeals);
+			if (matches(dealNumber, difficulty))
+				return dealNumber;
+		}
+
+		// Only a few deals are rated, so look at them all from a random start
+		int start = noOfDeals > 0 ? random.nextInt(noOfDeals) : 0;
+		for (int deal = 0; deal < noOfDeals; deal++)
+		{
+			int dealNumber = firstDeal + (start + deal) % noOfDeals;
+			if (matches(dealNumber, difficulty))
+				return dealNumber;
+		}
+		return 0;
+	}
+
+	/**
+	 * Helper method of sample() that checks if a deal has a difficulty.
+	 * @param dealNumber the deal number
+	 * @param difficulty EASY, MEDIUM, HARD or ANY
+	 * @return true if the deal was solved and has the difficulty
+	 */
+	private boolean matches(int dealNumber, int difficulty)
+	{
+		int dealDifficulty = getDifficulty(dealNumber);
+		return dealDifficulty != ANY
+				&& (difficulty == ANY || dealDifficulty == difficulty);
+	}
+
+	/**
+	 * Works out the score of a deal from how hard the Solver worked: each
+	 * doubling of the positions expanded adds 8, each FreeCell needed adds 10
+	 * and every 5 moves add 1.
+	 * @param solution the Solver's Solution of the deal
+	 * @param freeCellsNeeded the most FreeCells in use at once in the
+	 *            Solution
+	 * @return 1 to 254, or UNSOLVED if the Solver gave up
+	 */
+	public static int score(Solution solution, int freeCellsNeeded)
+	{
+		if (!solution.isSolved())
+			return UNSOLVED;
+		double effort = Math.log(solution.getNodes() + 1) / Math.log(2) * 8
+				+ freeCellsNeeded * 10 + solution.getLength() / 5.0;
+		return (int) Math.max(1, Math.min(UNSOLVED - 1, 1 + Math.round(effort)));
+	}
+}
@@ -0,0 +1,252 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rates how hard each deal in a range is by solving it, and writes the
+ * scores to a DifficultyIndex that new games pick deals from. The effort
+ * counted is the positions the Solver expanded, the length of the Solution
+ * and the most FreeCells it needed at once (see DifficultyIndex.score()).
+ *
+ * Deals are handed out in blocks to one worker thread per core, the same way
+ * as SelfPlay, and each worker's Solver is guided by the shared
+ * PatternDatabase. Each score goes straight into the mapped index file, and every
+ * CHECKPOINT_MILLIS the file is written to the disk and the progress is
+ * printed. If the job is stopped, running it again with the same range skips
+ * the deals that already have a score.
+ *
+ * Usage: java DifficultyRater [first deal] [deals] [threads] [max nodes]
+ * [index file] [standard | double]
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class DifficultyRater
+{
+	// Number of deals each worker takes at a time
+	private static final int BLOCK_SIZE = 64;
+
+	// How often the index is written to the disk and the progress printed
+	private static final long CHECKPOINT_MILLIS = 10000;
+
+	// Variables for what to rate with
+	private BoardLayout layout;
+	private int maxNodes;
+
+	/**
+	 * Constructs a new DifficultyRater.
+	 * @param layout the size of the games
+	 * @param maxNodes the most positions the Solver expands for each deal
+	 */
+	public DifficultyRater(BoardLayout layout, int maxNodes)
+	{
+		this.layout = layout;
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * Rates every deal of the index that has no score yet.
+	 * @param index the index to rate into
+	 * @param threads the number of worker threads
+	 * @return the combined results of the deals rated this time
+	 * @throws Exception if a worker fails
+	 */
+	public Result rate(final DifficultyIndex index, int threads)
+			throws Exception
+	{
+		final int noOfDeals = index.getNoOfDeals();
+		final AtomicLong nextBlock = new AtomicLong(0);
+		final AtomicLong rated = new AtomicLong(0);
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		ArrayList<Future<Result>> futures = new ArrayList<Future<Result>>();
+		long startTime = System.nanoTime();
+		try
+		{
+			for (int thread = 0; thread < threads; thread++)
+				futures.add(workers.submit(new Callable<Result>()
+				{
+					public Result call()
+					{
+						// Keep taking blocks of deals until there are none left
+						Result result = new Result();
+						Solver solver = new Solver(maxNodes,
+								PatternDatabase.getShared());
+						long block;
+						while ((block = nextBlock.getAndIncrement())
+								* BLOCK_SIZE < noOfDeals)
+						{
+							long end = Math.min(noOfDeals, (block + 1)
+									* BLOCK_SIZE);
+							for (long deal = block * BLOCK_SIZE; deal < end; deal++)
+							{
+								int dealNumber = index.getFirstDeal()
+										+ (int) deal;
+								if (index.getScore(dealNumber) != DifficultyIndex.NOT_RATED)
+									continue;
+								index.setScore(dealNumber, rateDeal(solver,
+										dealNumber, result));
+								rated.incrementAndGet();
+							}
+						}
+						return result;
+					}
+				}));
+
+			// Write the index to the disk and show the progress now and then
+			// until every worker is done
+			workers.shutdown();
+			while (!workers.awaitTermination(CHECKPOINT_MILLIS,
+					TimeUnit.MILLISECONDS))
+			{
+				index.force();
+				double seconds = (System.nanoTime() - startTime) / 1e9;
+				System.out.printf("  %,d deals rated, %.1f deals/s%n", rated
+						.get(), rated.get() / seconds);
+			}
+
+			Result total = new Result();
+			for (Future<Result> future : futures)
+				total.merge(future.get());
+			total.nanos = System.nanoTime() - startTime;
+			return total;
+		}
+		finally
+		{
+			workers.shutdownNow();
+			index.force();
+		}
+	}
+
+	/**
+	 * Solves one deal and works out its score.
+	 * @param solver the worker's Solver
+	 * @param dealNumber the deal number to rate
+	 * @param result the worker's results to add the deal to
+	 * @return the score of the deal
+	 */
+	int rateDeal(Solver solver, int dealNumber, Result result)
+	{
+		Board start = Deal.deal(layout, dealNumber);
+		Solution solution = solver.solve(start);
+
+		// Play the Solution to find the most FreeCells in use at once
+		int freeCellsNeeded = 0;
+		if (solution.isSolved())
+		{
+			Board board = new Board(start);
+			for (int move : solution.getMoves())
+			{
+				board.apply(move);
+				freeCellsNeeded = Math.max(freeCellsNeeded, layout
+						.getNoOfFreeCells() - board.getNoOfOpenFreeCells());
+			}
+		}
+		int score = DifficultyIndex.score(solution, freeCellsNeeded);
+		result.add(solution, freeCellsNeeded);
+		return score;
+	}
+
+	/**
+	 * Rates a range of deals into an index file, carrying on from where an
+	 * earlier run with the same range stopped, and prints the results.
+	 * @param args the first deal, number of deals, number of threads, most
+	 *            positions to expand, index file and layout (all optional)
+	 * @throws Exception if a worker fails or the index cannot be written
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int firstDeal = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+		int noOfDeals = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime
+				.getRuntime().availableProcessors();
+		int maxNodes = args.length > 3 ? Integer.parseInt(args[3])
+				: Solver.DEFAULT_MAX_NODES;
+		File file = new File(args.length > 4 ? args[4]
+				: DifficultyIndex.INDEX_FILE);
+		BoardLayout layout = args.length > 5 && args[5].equals("double") ? BoardLayout.DOUBLE
+				: BoardLayout.STANDARD;
+
+		DifficultyIndex index = new DifficultyIndex(file, layout, firstDeal,
+				noOfDeals);
+		System.out.printf("%s, deals %d to %d on %d threads into %s%n",
+				layout, firstDeal, firstDeal + noOfDeals - 1, threads, file);
+		Result result = new DifficultyRater(layout, maxNodes).rate(index,
+				threads);
+		System.out.println(result);
+
+		// Show how the whole index splits into the difficulties
+		index = new DifficultyIndex(file);
+		int[] counts = new int[DifficultyIndex.NAMES.length];
+		for (int deal = 0; deal < noOfDeals; deal++)
+			counts[index.getDifficulty(firstDeal + deal)]++;
+		System.out.printf("Easy %,d, medium %,d, hard %,d, "
+				+ "unsolved or not rated %,d%n", counts[DifficultyIndex.EASY],
+				counts[DifficultyIndex.MEDIUM], counts[DifficultyIndex.HARD],
+				counts[DifficultyIndex.ANY]);
+	}
+
+	/**
+	 * An inner class that adds up the effort of many deals.
+	 */
+	public static class Result
+	{
+		private long deals;
+		private long solved;
+		private long nodes;
+		private long moves;
+		private long freeCells;
+		private long nanos;
+
+		/**
+		 * Adds the effort of one deal.
+		 * @param solution the Solver's Solution of the deal
+		 * @param freeCellsNeeded the most FreeCells in use at once
+		 */
+		private void add(Solution solution, int freeCellsNeeded)
+		{
+			deals++;
+			nodes += solution.getNodes();
+			if (solution.isSolved())
+			{
+				solved++;
+				moves += solution.getLength();
+				freeCells += freeCellsNeeded;
+			}
+		}
+
+		/**
+		 * Adds the results of another Result to this one.
+		 * @param other the Result to add
+		 */
+		private void merge(Result other)
+		{
+			deals += other.deals;
+			solved += other.solved;
+			nodes += other.nodes;
+			moves += other.moves;
+			freeCells += other.freeCells;
+		}
+
+		/**
+		 * Returns the number of deals solved, the average effort and the
+		 * speed.
+		 * @return a summary of the results
+		 */
+		public String toString()
+		{
+			double seconds = nanos / 1e9;
+			return String.format("%,d deals rated, %,d solved, %,.0f nodes "
+					+ "per deal, %.1f moves and %.2f FreeCells per solution, "
+					+ "%.1f s, %.1f deals/s", deals, solved, deals == 0 ? 0.0
+					: (double) nodes / deals, solved == 0 ? 0.0
+					: (double) moves / solved, solved == 0 ? 0.0
+					: (double) freeCells / solved, seconds,
+					seconds == 0 ? 0.0 : deals / seconds);
+		}
+	}
+}
@@ -0,0 +1,714 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the exact number of moves needed to win positions that have only
+ * a few cards left off the Foundations. The table is filled in lazily: the
+ * first time a small position is looked up, every position that can be
+ * reached from it is found and the distances are worked back from the won
+ * positions, so every one of them is answered at once from then on. Positions
+ * that cannot be won are remembered too, and so are positions with too many
+ * positions after them (as unknown), so they are not explored again.
+ *
+ * Positions are keyed by Board.hash(), which ignores the order of the
+ * Cascades and FreeCells. The table can be saved to an indexed binary file:
+ * a header, the keys in sorted order (so the file can be searched) and then
+ * one distance byte for each key. Once saveInBackground() is called, new
+ * positions are saved a few seconds after they are filled in and when the
+ * program exits.
+ *
+ * One table can be shared by several threads. A fill searches with no lock
+ * held and only locks the table to look up positions and to add what it
+ * found, so one thread's fill does not hold up the others' lookups.
+ *
+ * Usage: java EndgameTable [deals] [file]
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class EndgameTable
+{
+	// Name of the table file of the standard game and the default most
+	// cards left
+	public static final String ENDGAME_FILE = "endgames.dat";
+	public static final int DEFAULT_MAX_CARDS = 8;
+
+	// Values returned by getDistance() for positions that cannot be won and
+	// positions the table does not cover
+	public static final int UNWINNABLE = -1;
+	public static final int UNKNOWN = -2;
+
+	// Constants for the file header
+	private static final int MAGIC = 0x4643454E;
+	private static final int VERSION = 1;
+
+	// Stored values of an unwinnable position and of a position too big to
+	// fill in from (so distances go up to 253)
+	private static final byte UNWINNABLE_VALUE = (byte) 255;
+	private static final byte UNKNOWN_VALUE = (byte) 254;
+
+	// Returned by lookup() for a position that is not in the table
+	private static final int MISSING = -1;
+
+	// Most positions to explore when filling in from one position
+	private static final int MAX_POSITIONS = 100000;
+
+	// How long new positions wait to be saved (so a burst of fills is saved
+	// once) and how long the program waits at exit for the last save
+	private static final int SAVE_DELAY_MILLIS = 5000;
+	private static final int EXIT_WAIT_MILLIS = 2000;
+
+	// Zero marks an empty slot, so a real zero key is stored as this value
+	private static final long ZERO_KEY = 0x9E3779B97F4A7C15L;
+
+	// Variables for the positions this table covers
+	private final BoardLayout layout;
+	private final int maxCards;
+
+	// The keys and distances in one open addressing table
+	private long[] keys;
+	private byte[] distances;
+	private int size;
+
+	// The file new positions are saved to (or null), the thread that saves
+	// them, whether a save is waiting and the positions added since the last
+	// save. Writing the file is locked separately from the table
+	private File saveFile;
+	private ScheduledExecutorService saver;
+	private boolean saveScheduled;
+	private int unsaved;
+	private final Object fileLock = new Object();
+
+	/**
+	 * Constructs a new empty EndgameTable.
+	 * @param layout the size of the game
+	 * @param maxCards the most cards left off the Foundations to cover
+	 */
+	public EndgameTable(BoardLayout layout, int maxCards)
+	{
+		this.layout = layout;
+		this.maxCards = maxCards;
+		keys = new long[1024];
+		distances = new byte[keys.length];
+		size = 0;
+	}
+
+	/**
+	 * Loads the table in the given file, or returns a new empty table if the
+	 * file does not exist or is for another layout.
+	 * @param file the table file
+	 * @param layout the size of the game
+	 * @return the loaded table
+	 * @throws IOException if the file cannot be read
+	 */
+	public static EndgameTable open(File file, BoardLayout layout)
+			throws IOException
+	{
+		if (!file.exists())
+			return new EndgameTable(layout, DEFAULT_MAX_CARDS);
+
+		DataInputStream input = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)));
+		try
+		{
+			if (input.readInt() != MAGIC || input.readInt() != VERSION)
+				throw new IOException(file + " is not an endgame table");
+			int noOfDecks = input.readInt();
+			int noOfCascades = input.readInt();
+			int noOfFreeCells = input.readInt();
+			if (!BoardLayout.isSupported(noOfDecks, noOfCascades,
+					noOfFreeCells))
+				return new EndgameTable(layout, DEFAULT_MAX_CARDS);
+			BoardLayout fileLayout = new BoardLayout(noOfDecks, noOfCascades,
+					noOfFreeCells);
+			int maxCards = input.readInt();
+			int entries = input.readInt();
+			if (!fileLayout.equals(layout))
+				return new EndgameTable(layout, DEFAULT_MAX_CARDS);
+
+			EndgameTable table = new EndgameTable(layout, maxCards);
+			long[] fileKeys = new long[entries];
+			for (int entry = 0; entry < entries; entry++)
+				fileKeys[entry] = input.readLong();
+			for (int entry = 0; entry < entries; entry++)
+				table.put(fileKeys[entry], input.readByte());
+			return table;
+		}
+		finally
+		{
+			input.close();
+		}
+	}
+
+	/**
+	 * Gets the file the table of a layout is kept in, so that the tables of
+	 * different layouts do not write over each other.
+	 * @param layout the size of the game
+	 * @return ENDGAME_FILE for the standard game, or a file named after the
+	 *         layout
+	 */
+	public static File fileFor(BoardLayout layout)
+	{
+		if (layout.isStandard())
+			return new File(ENDGAME_FILE);
+		return new File("endgames-" + layout.getNoOfDecks() + "x"
+				+ layout.getNoOfCascades() + "x" + layout.getNoOfFreeCells()
+				+ ".dat");
+	}
+
+	/**
+	 * Saves this table to the given file with the keys in sorted order. The
+	 * table is only locked while it is copied, and the file is written under
+	 * another name first and then put in place in one step.
+	 * @param file the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(File file) throws IOException
+	{
+		// Gather the keys in sorted order along with their distances
+		long[] sortedKeys;
+		byte[] sortedDistances;
+		int saving;
+		synchronized (this)
+		{
+			sortedKeys = new long[size];
+			int entry = 0;
+			for (long key : keys)
+				if (key != 0)
+					sortedKeys[entry++] = key;
+			Arrays.sort(sortedKeys);
+			sortedDistances = new byte[size];
+			for (entry = 0; entry < size; entry++)
+				sortedDistances[entry] = distances[find(sortedKeys[entry])];
+			saving = unsaved;
+		}
+
+		synchronized (fileLock)
+		{
+			File newFile = new File(file.getPath() + ".new");
+			DataOutputStream output = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(newFile)));
+			try
+			{
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				output.writeInt(layout.getNoOfDecks());
+				output.writeInt(layout.getNoOfCascades());
+				output.writeInt(layout.getNoOfFreeCells());
+				output.writeInt(maxCards);
+				output.writeInt(sortedKeys.length);
+				for (long key : sortedKeys)
+					output.writeLong(key);
+				output.write(sortedDistances);
+			}
+			finally
+			{
+				output.close();
+			}
+			Files.move(newFile.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		synchronized (this)
+		{
+			unsaved -= saving;
+		}
+	}
+
+	/**
+	 * Saves new positions to the given file from now on: on a background
+	 * thread a few seconds after they are filled in, and (for a little
+	 * while) when the program exits.
+	 * @param file the file to save to
+	 */
+	public synchronized void saveInBackground(File file)
+	{
+		saveFile = file;
+		if (saver != null)
+			return;
+		saver = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+		{
+			public Thread newThread(Runnable task)
+			{
+				Thread thread = new Thread(task, "Endgame saver");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(new Thread()
+		{
+			public void run()
+			{
+				// Save now rather than wait for a save that is scheduled
+				saver.shutdownNow();
+				try
+				{
+					saver.awaitTermination(EXIT_WAIT_MILLIS,
+							TimeUnit.MILLISECONDS);
+				}
+				catch (InterruptedException exp)
+				{
+					// Save anyway
+				}
+				saveIfChanged();
+			}
+		});
+	}
+
+	/**
+	 * Stops saving in the background, saving any new positions first, so
+	 * that a table that is no longer used does not write over the file of
+	 * the table that replaces it.
+	 */
+	public void stopSaving()
+	{
+		synchronized (this)
+		{
+			if (saver == null)
+				return;
+			saver.shutdown();
+		}
+		saveIfChanged();
+		synchronized (this)
+		{
+			saveFile = null;
+		}
+	}
+
+	/**
+	 * Schedules a save of the new positions if saving in the background and
+	 * no save is waiting. The caller holds the lock of this table.
+	 */
+	private void scheduleSave()
+	{
+		if (saver == null || saveScheduled || saver.isShutdown())
+			return;
+		saveScheduled = true;
+		saver.schedule(new Runnable()
+		{
+			public void run()
+			{
+				saveIfChanged();
+			}
+		}, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Saves the table to the save file if positions have been added since
+	 * the last save.
+	 */
+	private void saveIfChanged()
+	{
+		File file;
+		synchronized (this)
+		{
+			saveScheduled = false;
+			if (unsaved == 0 || saveFile == null)
+				return;
+			file = saveFile;
+		}
+		try
+		{
+			save(file);
+		}
+		catch (IOException exp)
+		{
+			// Keep the positions in memory and try again with the next fill
+			System.out.println("Error writing the endgame table");
+		}
+	}
+
+	/**
+	 * Gets the most cards left off the Foundations this table covers.
+	 * @return the most cards left
+	 */
+	public int getMaxCards()
+	{
+		return maxCards;
+	}
+
+	/**
+	 * Gets the number of positions in this table.
+	 * @return the number of positions
+	 */
+	public synchronized int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the fewest moves needed to win the given position, filling in the
+	 * table first if the position has not been seen before.
+	 * @param board the position to look up
+	 * @return the number of moves, UNWINNABLE, or UNKNOWN if the position has
+	 *         too many cards left or too many positions follow from it
+	 */
+	public int getDistance(Board board)
+	{
+		if (!board.getLayout().equals(layout) || board.cardsLeft() > maxCards)
+			return UNKNOWN;
+		long key = board.hash();
+		int value = lookup(key);
+		if (value == MISSING)
+		{
+			fill(board);
+			value = lookup(key);
+			if (value == MISSING)
+				return UNKNOWN;
+		}
+		if (value == (UNKNOWN_VALUE & 0xFF))
+			return UNKNOWN;
+		return value == (UNWINNABLE_VALUE & 0xFF) ? UNWINNABLE : value;
+	}
+
+	/**
+	 * Looks up the stored value of a key.
+	 * @param key the key to look for
+	 * @return the stored value (0 to 255) or MISSING
+	 */
+	private synchronized int lookup(long key)
+	{
+		int slot = find(key);
+		return slot < 0 ? MISSING : distances[slot] & 0xFF;
+	}
+
+	/**
+	 * Adds what a fill found to the table and schedules a save.
+	 * @param newKeys the keys
+	 * @param values the stored value of each key
+	 * @param count the number of keys
+	 */
+	private synchronized void store(long[] newKeys, byte[] values, int count)
+	{
+		for (int entry = 0; entry < count; entry++)
+			put(newKeys[entry], values[entry]);
+		unsaved += count;
+		scheduleSave();
+	}
+
+	/**
+	 * Finds the fewest moves that win the given position by always making a
+	 * move to a position one move closer to winning.
+	 * @param board the position to solve (it is not changed)
+	 * @return the packed moves, or null if the position cannot be won or is
+	 *         not covered
+	 */
+	public int[] solve(Board board)
+	{
+		int distance = getDistance(board);
+		if (distance < 0)
+			return null;
+
+		int[] solution = new int[distance];
+		int[] moves = new int[Board.maxMoves(layout)];
+		Board position = new Board(board);
+		Board child = new Board(layout);
+		for (int made = 0; made < distance; made++)
+		{
+			int noOfMoves = position.generateMoves(moves);
+			int next = -1;
+			for (int move = 0; move < noOfMoves && next < 0; move++)
+			{
+				child.copyFrom(position);
+				child.apply(moves[move]);
+				if (getDistance(child) == distance - made - 1)
+					next = moves[move];
+			}
+			if (next < 0)
+				return null;
+			position.apply(next);
+			solution[made] = next;
+		}
+		return solution;
+	}
+
+	/**
+	 * Finds every position that can be reached from the given position and
+	 * works out how far each is from winning, going back from the won
+	 * positions one move at a time. If there are more than MAX_POSITIONS of
+	 * them, only the start is added, as unknown. The table is only locked to
+	 * look up positions and to add the results, so two threads may fill in
+	 * the same positions at once (they find the same distances).
+	 * @param start the position to start from
+	 */
+	private void fill(Board start)
+	{
+		// Find every position and the positions each one leads to. Positions
+		// already answered in the table are not explored (their children stay
+		// null)
+		Board[] positions = new Board[64];
+		int[][] children = new int[64][];
+		boolean[] won = new boolean[64];
+		LongIntMap index = new LongIntMap();
+		int[] moves = new int[Board.maxMoves(layout)];
+		int[] childIds = new int[moves.length];
+		positions[0] = new Board(start);
+		index.put(start.hash(), 0);
+		int noOfPositions = 1;
+
+		for (int id = 0; id < noOfPositions; id++)
+		{
+			Board board = positions[id];
+			if (board == null)
+				continue;
+			positions[id] = null;
+			won[id] = board.isWon();
+			int noOfMoves = board.generateMoves(moves);
+			for (int move = 0; move < noOfMoves; move++)
+			{
+				Board child = new Board(board);
+				child.apply(moves[move]);
+				long key = child.hash();
+				int childId = index.get(key);
+				if (childId < 0)
+				{
+					if (noOfPositions == MAX_POSITIONS)
+					{
+						store(new long[] { start.hash() },
+								new byte[] { UNKNOWN_VALUE }, 1);
+						return;
+					}
+					if (noOfPositions == positions.length)
+					{
+						positions = Arrays.copyOf(positions, noOfPositions * 2);
+						children = Arrays.copyOf(children, noOfPositions * 2);
+						won = Arrays.copyOf(won, noOfPositions * 2);
+					}
+					childId = noOfPositions++;
+					index.put(key, childId);
+					int known = lookup(key);
+					if (known == MISSING || known == (UNKNOWN_VALUE & 0xFF))
+						positions[childId] = child;
+				}
+				childIds[move] = childId;
+			}
+			children[id] = Arrays.copyOf(childIds, noOfMoves);
+		}
+
+		// Link each position to the positions that lead to it
+		int[] firstParent = new int[noOfPositions + 1];
+		for (int id = 0; id < noOfPositions; id++)
+			if (children[id] != null)
+				for (int child : children[id])
+					firstParent[child + 1]++;
+		for (int id = 0; id < noOfPositions; id++)
+			firstParent[id + 1] += firstParent[id];
+		int[] parents = new int[firstParent[noOfPositions]];
+		int[] nextParent = firstParent.clone();
+		for (int id = 0; id < noOfPositions; id++)
+			if (children[id] != null)
+				for (int child : children[id])
+					parents[nextParent[child]++] = id;
+
+		// Put the won positions and the winnable positions already in the table into a list
+		// for each distance
+		long[] keysById = index.keysById(noOfPositions);
+		int[] distance = new int[noOfPositions];
+		int[] firstInList = new int[256];
+		int[] nextInList = new int[noOfPositions];
+		Arrays.fill(distance, -1);
+		Arrays.fill(firstInList, -1);
+		for (int id = 0; id < noOfPositions; id++)
+		{
+			int known = children[id] == null ? lookup(keysById[id]) : MISSING;
+			if (known != MISSING && known != (UNWINNABLE_VALUE & 0xFF))
+				distance[id] = known;
+			else if (won[id])
+				distance[id] = 0;
+			if (distance[id] >= 0)
+			{
+				nextInList[id] = firstInList[distance[id]];
+				firstInList[distance[id]] = id;
+			}
+		}
+
+		// Go back one move at a time in order of distance, so the first
+		// distance given to a position is the smallest
+		for (int round = 0; round < 253; round++)
+			for (int id = firstInList[round]; id >= 0; id = nextInList[id])
+				for (int parent = firstParent[id]; parent < firstParent[id + 1]; parent++)
+				{
+					int from = parents[parent];
+					if (distance[from] < 0)
+					{
+						distance[from] = round + 1;
+						nextInList[from] = firstInList[round + 1];
+						firstInList[round + 1] = from;
+					}
+				}
+
+		// Add the explored positions to the table in one go
+		long[] newKeys = new long[noOfPositions];
+		byte[] values = new byte[noOfPositions];
+		int count = 0;
+		for (int id = 0; id < noOfPositions; id++)
+			if (children[id] != null)
+			{
+				newKeys[count] = keysById[id];
+				values[count++] = distance[id] < 0 ? UNWINNABLE_VALUE
+						: (byte) distance[id];
+			}
+		store(newKeys, values, count);
+	}
+
+	/**
+	 * Finds the slot of a key.
+	 * @param key the key to look for
+	 * @return the slot, or -1 if the key is not in this table
+	 */
+	private int find(long key)
+	{
+		if (key == 0)
+			key = ZERO_KEY;
+		int mask = keys.length - 1;
+		int slot = (int) Board.mix(key) & mask;
+		while (keys[slot] != 0)
+		{
+			if (keys[slot] == key)
+				return slot;
+			slot = slot + 1 & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Adds or replaces the distance of a key, growing the table when it is
+	 * half full.
+	 * @param key the key to add
+	 * @param distance the distance to store
+	 */
+	private void put(long key, byte distance)
+	{
+		if (key == 0)
+			key = ZERO_KEY;
+		int mask = keys.length - 1;
+		int slot = (int) Board.mix(key) & mask;
+		while (keys[slot] != 0 && keys[slot] != key)
+			slot = slot + 1 & mask;
+		if (keys[slot] == 0)
+			size++;
+		keys[slot] = key;
+		distances[slot] = distance;
+
+		if (size > keys.length / 2)
+		{
+			long[] oldKeys = keys;
+			byte[] oldDistances = distances;
+			keys = new long[oldKeys.length * 2];
+			distances = new byte[keys.length];
+			size = 0;
+			for (int old = 0; old < oldKeys.length; old++)
+				if (oldKeys[old] != 0)
+					put(oldKeys[old], oldDistances[old]);
+		}
+	}
+
+	/**
+	 * Fills in the table by solving a range of deals, which reaches many
+	 * endgames, and saves it.
+	 * @param args the number of deals and the file to write (optional)
+	 * @throws IOException if the file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int deals = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		File file = new File(args.length > 1 ? args[1] : ENDGAME_FILE);
+		EndgameTable table = open(file, BoardLayout.STANDARD);
+		Solver solver = new Solver(Solver.DEFAULT_MAX_NODES,
+				Solver.DEFAULT_HEURISTIC, table);
+
+		long startTime = System.nanoTime();
+		for (int deal = 1; deal <= deals; deal++)
+			solver.solve(Deal.microsoft(deal));
+		table.save(file);
+		System.out.printf("Saved %,d positions to %s in %.1f s%n",
+				table.size(), file, (System.nanoTime() - startTime) / 1e9);
+	}
+
+	/**
+	 * An inner class that numbers the positions found while filling in the
+	 * table, using one open addressing table of keys and numbers.
+	 */
+	private static class LongIntMap
+	{
+		private long[] keys = new long[256];
+		private int[] values = new int[256];
+		private int size = 0;
+
+		/**
+		 * Gets the number stored for a key.
+		 * @param key the key to look for
+		 * @return the number, or -1 if the key is not in the map
+		 */
+		public int get(long key)
+		{
+			if (key == 0)
+				key = ZERO_KEY;
+			int mask = keys.length - 1;
+			int slot = (int) Board.mix(key) & mask;
+			while (keys[slot] != 0)
+			{
+				if (keys[slot] == key)
+					return values[slot];
+				slot = slot + 1 & mask;
+			}
+			return -1;
+		}
+
+		/**
+		 * Stores the number for a new key, growing when half full.
+		 * @param key the key to add
+		 * @param value the number to store
+		 */
+		public void put(long key, int value)
+		{
+			if (key == 0)
+				key = ZERO_KEY;
+			int mask = keys.length - 1;
+			int slot = (int) Board.mix(key) & mask;
+			while (keys[slot] != 0)
+				slot = slot + 1 & mask;
+			keys[slot] = key;
+			values[slot] = value;
+
+			if (++size > keys.length / 2)
+			{
+				long[] oldKeys = keys;
+				int[] oldValues = values;
+				keys = new long[oldKeys.length * 2];
+				values = new int[keys.length];
+				size = 0;
+				for (int old = 0; old < oldKeys.length; old++)
+					if (oldKeys[old] != 0)
+						put(oldKeys[old], oldValues[old]);
+			}
+		}
+
+		/**
+		 * Gets the key of every number.
+		 * @param count the number of keys stored
+		 * @return the keys, listed by their numbers
+		 */
+		public long[] keysById(int count)
+		{
+			long[] byId = new long[count];
+			for (int slot = 0; slot < keys.length; slot++)
+				if (keys[slot] != 0)
+					byId[values[slot]] = keys[slot];
+			return byId;
+		}
+	}
+}
@@ -72,7 +72,17 @@ public class FreeCell extends GHand
 	 */
 	public static void resetnoOfOpenFreeCells()
 	{
-		noOfOpenFreeCells = 4;
+		resetnoOfOpenFreeCells(4);
+	}
+
+	/**
+	 * Resets the number of FreeCells to the given number (such as six for
+	 * Double FreeCell).
+	 * @param noOfFreeCells the number of FreeCells in the game
+	 */
+	public static void resetnoOfOpenFreeCells(int noOfFreeCells)
+	{
+		noOfOpenFreeCells = noOfFreeCells;
 	}
 
 	/**
@@ -1,4 +1,4 @@
-import javax.swing.ImageIcon;
+import javax.swing.ButtonGroup;
 import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -6,6 +6,7 @@ import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
+import javax.swing.JRadioButtonMenuItem;
 import javax.swing.JSlider;
 import javax.swing.KeyStroke;
 import javax.swing.event.ChangeEvent;
@@ -19,6 +20,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.net.URL;
+import java.util.Arrays;
 
 /**
  * Main Frame for a Simple FreeCell game. Sets up the menus and places a
@@ -41,28 +43,31 @@ public class FreeCellMain extends JFrame implements ActionListener,
 	// Declare instance variables
 	private CardPanel cardArea;
 	private JMenuItem newMenuItem, undoOption, statisticsOption, quitMenuItem,
-			aboutMenuItem, howToPlayItem;
+			aboutMenuItem, howToPlayItem, timingReportItem, replayItem,
+			leaderboardItem, hintItem, explainHintItem;
 
-	private JCheckBoxMenuItem autoCompleteOption, animateOption;
+	private JCheckBoxMenuItem autoCompleteOption, animateOption,
+			paintTimeOption, doubleOption;
+	private JRadioButtonMenuItem[] difficultyOptions;
 	private JSlider animationSlider;
 
 	private boolean autoComplete, animate;
-	private int animationFrames;
+	private int animationFrames, difficulty;
 
 	/**
 	 * Creates a FreeCellMain from object
 	 */
 	public FreeCellMain()
 	{
-		// Set the title of the window plus make it not resizable
+		// Set the title of the window (the Card area grows and shrinks with
+		// the window)
 		super("FreeCell");
-		setResizable(false);
 
 		// Add a window listener to confirm window closing
 		addWindowListener(new CloseWindow());
 
 		// Add in an Icon - Ace of Spades
-		setIconImage(new ImageIcon("images\\ace.png").getImage());
+		setIconImage(AssetBundle.getImage("ace.png"));
 
 		// Add the Game Menu to the menu bar
 		JMenuBar menuBar = new JMenuBar();
@@ -86,6 +91,24 @@ public class FreeCellMain extends JFrame implements ActionListener,
 				InputEvent.CTRL_MASK));
 		statisticsOption.addActionListener(this);
 
+		hintItem = new JMenuItem("Hint");
+		hintItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_H,
+				InputEvent.CTRL_DOWN_MASK));
+		hintItem.addActionListener(this);
+
+		explainHintItem = new JMenuItem("Why This Hint?");
+		explainHintItem.addActionListener(this);
+
+		leaderboardItem = new JMenuItem("Leaderboard");
+		leaderboardItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_L,
+				InputEvent.CTRL_DOWN_MASK));
+		leaderboardItem.addActionListener(this);
+
+		replayItem = new JMenuItem("Replay Game");
+		replayItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_R,
+				InputEvent.CTRL_DOWN_MASK));
+		replayItem.addActionListener(this);
+
 		quitMenuItem = new JMenuItem("Exit");
 		quitMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_E,
 				InputEvent.CTRL_MASK));
@@ -102,6 +125,26 @@ public class FreeCellMain extends JFrame implements ActionListener,
 		animateOption.setSelected(true);
 		animate = true;
 
+		// Set up the Double FreeCell check box
+		doubleOption = new JCheckBoxMenuItem("Double FreeCell");
+		doubleOption.addActionListener(this);
+		doubleOption.setSelected(false);
+
+		// Set up the difficulty choices for new games (see DifficultyIndex)
+		JMenu difficultyMenu = new JMenu("Difficulty");
+		ButtonGroup difficultyGroup = new ButtonGroup();
+		difficultyOptions = new JRadioButtonMenuItem[DifficultyIndex.NAMES.length];
+		for (int option = 0; option < difficultyOptions.length; option++)
+		{
+			difficultyOptions[option] = new JRadioButtonMenuItem(
+					DifficultyIndex.NAMES[option]);
+			difficultyOptions[option].addActionListener(this);
+			difficultyGroup.add(difficultyOptions[option]);
+			difficultyMenu.add(difficultyOptions[option]);
+		}
+		difficulty = DifficultyIndex.ANY;
+		difficultyOptions[difficulty].setSelected(true);
+
 		// Set up the animation frames JSlider
 		animationFrames = STARTING_FRAMES;
 		animationSlider = new JSlider(JSlider.HORIZONTAL, MIN_FRAMES,
@@ -119,11 +162,17 @@ public class FreeCellMain extends JFrame implements ActionListener,
 		// Add the game menu items in preferred order
 		gameMenu.add(newMenuItem);
 		gameMenu.add(undoOption);
+		gameMenu.add(hintItem);
+		gameMenu.add(explainHintItem);
 		gameMenu.add(statisticsOption);
+		gameMenu.add(leaderboardItem);
+		gameMenu.add(replayItem);
 
 		gameMenu.addSeparator();
 		gameMenu.add(autoCompleteOption);
 		gameMenu.add(animateOption);
+		gameMenu.add(doubleOption);
+		gameMenu.add(difficultyMenu);
 
 		gameMenu.addSeparator();
 		gameMenu.add(new JLabel("         Animation Frames"));
@@ -140,8 +189,15 @@ public class FreeCellMain extends JFrame implements ActionListener,
 		howToPlayItem.addActionListener(this);
 		aboutMenuItem = new JMenuItem("About...");
 		aboutMenuItem.addActionListener(this);
+		paintTimeOption = new JCheckBoxMenuItem("Show Paint Time");
+		paintTimeOption.addActionListener(this);
+		timingReportItem = new JMenuItem("Timing Report");
+		timingReportItem.addActionListener(this);
 		helpMenu.add(howToPlayItem);
 		helpMenu.add(aboutMenuItem);
+		helpMenu.addSeparator();
+		helpMenu.add(paintTimeOption);
+		helpMenu.add(timingReportItem);
 		menuBar.add(helpMenu);
 
 		// Add the menu bar to the frame, set up the layout, and add in a
@@ -151,6 +207,13 @@ public class FreeCellMain extends JFrame implements ActionListener,
 		cardArea = new CardPanel(this);
 		add(cardArea, BorderLayout.CENTER);
 
+		// Pick up a game that did not end last time (such as after a crash)
+		if (cardArea.recoverGame())
+		{
+			doubleOption.setSelected(!cardArea.getBoardLayout().isStandard());
+			pack();
+		}
+
 		// Centre the frame in (almost) the middle of the screen
 		Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
 		this.setVisible(true);
@@ -195,6 +258,22 @@ public class FreeCellMain extends JFrame implements ActionListener,
 			cardArea.showStats();
 
 		}
+		else if (event.getSource() == hintItem)
+		{
+			cardArea.showHint();
+		}
+		else if (event.getSource() == explainHintItem)
+		{
+			cardArea.explainHint();
+		}
+		else if (event.getSource() == leaderboardItem)
+		{
+			cardArea.showLeaderboard();
+		}
+		else if (event.getSource() == replayItem)
+		{
+			cardArea.showReplay();
+		}
 		else if (event.getSource() == autoCompleteOption)
 		{
 			autoComplete = !autoComplete;
@@ -223,6 +302,35 @@ public class FreeCellMain extends JFrame implements ActionListener,
 				System.exit(0);
 			}
 		}
+		else if (event.getSource() == doubleOption)
+		{
+			// Switching games during a game counts as a loss, so confirm
+			// first and put the check box back if they click no
+			if (!cardArea.isInGame())
+				changeBoardLayout();
+			else if (JOptionPane
+					.showConfirmDialog(
+							cardArea,
+							"If you switch games in the middle"
+									+ " of a game, it will count as a loss."
+									+ " Are you sure you want to switch?",
+							"Warning", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION)
+			{
+				cardArea.updateStatsAfterLose();
+				changeBoardLayout();
+			}
+			else
+				doubleOption.setSelected(!doubleOption.isSelected());
+		}
+		else if (event.getSource() == paintTimeOption)
+		{
+			cardArea.setShowPaintTime(paintTimeOption.isSelected());
+		}
+		else if (event.getSource() == timingReportItem)
+		{
+			JOptionPane.showMessageDialog(cardArea, cardArea.getTimingReport(),
+					"Timing Report", JOptionPane.PLAIN_MESSAGE);
+		}
 		else if (event.getSource() == aboutMenuItem)
 		{
 			JOptionPane
@@ -245,6 +353,26 @@ public class FreeCellMain extends JFrame implements ActionListener,
 				exp.printStackTrace();
 			}
 		}
+		else
+		{
+			// The difficulty is used from the next new game
+			for (int option = 0; option < difficultyOptions.length; option++)
+				if (event.getSource() == difficultyOptions[option])
+					difficulty = option;
+		}
+	}
+
+	/**
+	 * Changes the Card area to the standard game or Double FreeCell based on
+	 * the Double FreeCell check box and resizes the frame to fit.
+	 */
+	private void changeBoardLayout()
+	{
+		if (doubleOption.isSelected())
+			cardArea.setBoardLayout(BoardLayout.DOUBLE);
+		else
+			cardArea.setBoardLayout(BoardLayout.STANDARD);
+		pack();
 	}
 
 	/**
@@ -286,6 +414,15 @@ public class FreeCellMain extends JFrame implements ActionListener,
 		return animate;
 	}
 
+	/**
+	 * Gets the difficulty of deal to pick for new games.
+	 * @return DifficultyIndex.EASY, MEDIUM, HARD or ANY
+	 */
+	public int getDifficulty()
+	{
+		return difficulty;
+	}
+
 	/**
 	 * Gets the current animation frames.
 	 * @return the current animation frames
@@ -295,12 +432,39 @@ public class FreeCellMain extends JFrame implements ActionListener,
 		return animationFrames;
 	}
 
-	public static void main(String[] args)
+	/**
+	 * Starts decoding the Card images in the background and then shows the
+	 * frame right away, repainting it once the images are ready (how long
+	 * starting up took is in the Help timing report). With -solve as the
+	 * first argument, solves deals from the command line instead without
+	 * opening a window (see BatchSolver).
+	 * @param args -solve and the BatchSolver arguments, or nothing
+	 * @throws Exception if the BatchSolver input or output fails
+	 */
+	public static void main(String[] args) throws Exception
 	{
+		if (args.length > 0 && args[0].equals("-solve"))
+		{
+			BatchSolver.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+
+		StartupTimer.mark("main");
+		CardImages.preload(new Runnable()
+		{
+			public void run()
+			{
+				StartupTimer.mark("card images loaded");
+				for (Frame frame : Frame.getFrames())
+					frame.repaint();
+			}
+		});
+
 		FreeCellMain frame = new FreeCellMain();
 		frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
 		frame.pack();
 		frame.setVisible(true);
+		StartupTimer.mark("frame shown");
 	}
 
 	/**
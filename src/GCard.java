@@ -1,10 +1,9 @@
+import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.Point;
 import java.awt.Rectangle;
 
-import javax.swing.ImageIcon;
-
 /**
  * Keeps track of a Graphical Card (GCard). Inherits data and methods from Card.
  * Keeps track of a position and an Image for each GCard. Also keeps track of
@@ -19,8 +18,8 @@ import javax.swing.ImageIcon;
 public class GCard extends Card implements Movable
 {
 	// Constants for the back image
-	public final static Image BACK_IMAGE = new ImageIcon("images\\blueback.png")
-			.getImage();
+	public final static Image BACK_IMAGE = AssetBundle
+			.getImage("blueback.png");
 	public final static int WIDTH = BACK_IMAGE.getWidth(null);
 	public final static int HEIGHT = BACK_IMAGE.getHeight(null);
 
@@ -39,11 +38,9 @@ public class GCard extends Card implements Movable
 		super(rank, suit);
 		this.position = position;
 
-		// Load up the appropriate image file for this card
-		String imageFileName = "" + " cdhs".charAt(suit) + rank + ".png";
-		imageFileName = "images\\" + imageFileName;
-		image = new ImageIcon(imageFileName).getImage();
-
+		// The image is decoded in the background by CardImages and picked up
+		// the first time this Card is drawn face up
+		image = null;
 	}
 
 	/**
@@ -70,10 +67,27 @@ public class GCard extends Card implements Movable
 	 */
 	public void draw(Graphics g)
 	{
-		if (isFaceUp())
-			g.drawImage(image, position.x, position.y, null);
+		if (!isFaceUp())
+		{
+			CardImages.draw(g, 0, 0, BACK_IMAGE, position.x, position.y);
+			return;
+		}
+
+		if (image == null)
+			image = CardImages.getFace(getRank(), getSuit());
+		if (image != null)
+			CardImages.draw(g, getRank(), getSuit(), image, position.x,
+					position.y);
 		else
-			g.drawImage(BACK_IMAGE, position.x, position.y, null);
+		{
+			// Draw a plain Card with its name until the image is ready
+			g.setColor(Color.WHITE);
+			g.fillRect(position.x, position.y, WIDTH, HEIGHT);
+			g.setColor(Color.BLACK);
+			g.drawRect(position.x, position.y, WIDTH, HEIGHT);
+			g.drawString(CardCodec.encode(getIndex(), true), position.x + 5,
+					position.y + 15);
+		}
 	}
 
 	/**
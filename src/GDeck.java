@@ -13,19 +13,32 @@ public class GDeck extends Deck
 	private Point position;
 
 	/**
-	 * Constructs a new Graphical Deck (GDeck).
+	 * Constructs a new Graphical Deck (GDeck) of one 52 card deck.
 	 * @param x the x coordinate of the upper left corner of the GDeck
 	 * @param y the y coordinate of the upper left corner of the GDeck
 	 */
 	public GDeck(int x, int y)
+	{
+		this(x, y, 1);
+	}
+
+	/**
+	 * Constructs a new Graphical Deck (GDeck) given the number of standard 52
+	 * card decks it consists of.
+	 * @param x the x coordinate of the upper left corner of the GDeck
+	 * @param y the y coordinate of the upper left corner of the GDeck
+	 * @param noOfDecks the number of 52 card decks in this GDeck
+	 */
+	public GDeck(int x, int y, int noOfDecks)
 	{
 		this.position = new Point(x, y);
 		topCard = 0;
-		deck = new GCard[52];
+		deck = new GCard[noOfDecks * 52];
 
-		for (int suit = 1; suit <= 4; suit++)
-			for (int rank = 1; rank <= 13; rank++)
-				deck[topCard++] = new GCard(rank, suit, position);
+		for (int deckNo = 1; deckNo <= noOfDecks; deckNo++)
+			for (int suit = 1; suit <= 4; suit++)
+				for (int rank = 1; rank <= 13; rank++)
+					deck[topCard++] = new GCard(rank, suit, position);
 
 	}
 
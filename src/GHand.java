@@ -71,6 +71,16 @@ public abstract class GHand extends Hand
 		updateHeight();
 	}
 
+	/**
+	 * Gets where the next GCard added to this GHand would go, so that a Card
+	 * can be animated there before it is added.
+	 * @return the position of the next GCard
+	 */
+	public Point getNextCardPosition()
+	{
+		return new Point(position.x, position.y + hand.size() * spacing);
+	}
+
 	/**
 	 * Removes a GCard from this Hand at the given index.
 	 * @param index the index of the GCard to remove
@@ -0,0 +1,353 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+/**
+ * Writes the game in progress to a memory-mapped file so that it can be picked
+ * up again if the program crashes or is killed. The file holds the layout and
+ * the dealt cards, followed by one fixed size record for each move or undo.
+ * Writing a record only puts eight bytes into the mapped memory and the
+ * operating system writes them to the disk when it wants to, so nothing waits
+ * for the disk. A crash of the program loses nothing since the memory belongs
+ * to the operating system, only a crash of the whole computer can lose the
+ * last few moves.
+ *
+ * The number of records is written after the record itself, so a record cut
+ * short is never read back. Only one window can write the log at a time;
+ * other windows do not keep one.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class GameLog
+{
+	// Name of the log file
+	public static final String LOG_FILE = "game.log";
+
+	// The first four bytes of a log file
+	private static final int MAGIC = 0x4643474C; // "FCGL"
+
+	// States of the game in the log
+	private static final int NO_GAME = 0;
+	private static final int IN_PROGRESS = 1;
+
+	// Where each part of the header is: the magic number, the state, the
+	// number of records, the layout, the number of cards dealt, the cards
+	// and the deal number (logs from before deal numbers have 0)
+	private static final int STATE = 4;
+	private static final int NO_OF_RECORDS = 8;
+	private static final int LAYOUT = 12;
+	private static final int NO_OF_CARDS = 15;
+	private static final int CARDS = 16;
+	private static final int DEAL_NUMBER = 120;
+	private static final int HEADER_SIZE = 128;
+
+	// Each record is the packed move (or UNDO) and the seconds played
+	private static final int RECORD_SIZE = 8;
+	private static final int UNDO = -1;
+
+	// The number of records the file has room for at first
+	private static final int INITIAL_RECORDS = 4096;
+
+	// Variables for the open file and its mapped memory
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private FileLock lock;
+	private MappedByteBuffer buffer;
+	private int noOfRecords;
+
+	/**
+	 * Opens (or creates) the log file and maps it into memory.
+	 * @param logFile the log file
+	 * @throws IOException if the file cannot be opened or another window is
+	 *             using it
+	 */
+	public GameLog(File logFile) throws IOException
+	{
+		file = new RandomAccessFile(logFile, "rw");
+		channel = file.getChannel();
+		lock = channel.tryLock();
+		if (lock == null)
+		{
+			file.close();
+			throw new IOException(logFile + " is used by another window");
+		}
+
+		map(Math.max(channel.size(), HEADER_SIZE + INITIAL_RECORDS
+				* RECORD_SIZE));
+		if (buffer.getInt(0) != MAGIC)
+		{
+			buffer.putInt(STATE, NO_GAME);
+			buffer.putInt(0, MAGIC);
+		}
+		noOfRecords = Math.max(0, Math.min(buffer.getInt(NO_OF_RECORDS),
+				(buffer.capacity() - HEADER_SIZE) / RECORD_SIZE));
+	}
+
+	/**
+	 * Starts logging a new game, throwing away the last one.
+	 * @param layout the size of the game
+	 * @param dealNumber the deal number of the game
+	 * @param cards the indexes of the cards in the order they were dealt
+	 */
+	public void startGame(BoardLayout layout, int dealNumber, int[] cards)
+	{
+		buffer.putInt(STATE, NO_GAME);
+		noOfRecords = 0;
+		buffer.putInt(NO_OF_RECORDS, 0);
+		buffer.put(LAYOUT, (byte) layout.getNoOfDecks());
+		buffer.put(LAYOUT + 1, (byte) layout.getNoOfCascades());
+		buffer.put(LAYOUT + 2, (byte) layout.getNoOfFreeCells());
+		buffer.put(NO_OF_CARDS, (byte) cards.length);
+		for (int card = 0; card < cards.length; card++)
+			buffer.put(CARDS + card, (byte) cards[card]);
+		buffer.putInt(DEAL_NUMBER, dealNumber);
+		buffer.putInt(STATE, IN_PROGRESS);
+	}
+
+	/**
+	 * Adds a move to the log.
+	 * @param move the packed move (see Board.move())
+	 * @param seconds the seconds played so far
+	 */
+	public void addMove(int move, int seconds)
+	{
+		addRecord(move, seconds);
+	}
+
+	/**
+	 * Adds an undo of the last move to the log.
+	 * @param seconds the seconds played so far
+	 */
+	public void addUndo(int seconds)
+	{
+		addRecord(UNDO, seconds);
+	}
+
+	/**
+	 * Marks the game as over (won or lost) so it is not picked up again.
+	 */
+	public void endGame()
+	{
+		buffer.putInt(STATE, NO_GAME);
+	}
+
+	/**
+	 * Reads back the game in progress, if there is one, with every undo
+	 * taken out of its moves.
+	 * @return the game, or null if there is no game in progress or the
+	 *         header is damaged
+	 */
+	public SavedGame getSavedGame()
+	{
+		if (buffer.getInt(STATE) != IN_PROGRESS)
+			return null;
+
+		// A damaged header must not stop the program from starting
+		int noOfDecks = buffer.get(LAYOUT);
+		int noOfCascades = buffer.get(LAYOUT + 1);
+		int noOfFreeCells = buffer.get(LAYOUT + 2);
+		int noOfCards = buffer.get(NO_OF_CARDS) & 0xFF;
+		if (!BoardLayout.isSupported(noOfDecks, noOfCascades, noOfFreeCells)
+				|| noOfCards > DEAL_NUMBER - CARDS)
+			return null;
+		BoardLayout layout = new BoardLayout(noOfDecks, noOfCascades,
+				noOfFreeCells);
+		if (layout.equals(BoardLayout.STANDARD))
+			layout = BoardLayout.STANDARD;
+		else if (layout.equals(BoardLayout.DOUBLE))
+			layout = BoardLayout.DOUBLE;
+
+		int[] cards = new int[noOfCards];
+		for (int card = 0; card < cards.length; card++)
+			cards[card] = buffer.get(CARDS + card);
+
+		// Play the records forward, with an undo taking back the last move
+		int[] moves = new int[noOfRecords];
+		int noOfMoves = 0;
+		int seconds = 0;
+		for (int record = 0; record < noOfRecords; record++)
+		{
+			int offset = HEADER_SIZE + record * RECORD_SIZE;
+			int move = buffer.getInt(offset);
+			seconds = buffer.getInt(offset + 4);
+			if (move != UNDO)
+				moves[noOfMoves++] = move;
+			else if (noOfMoves > 0)
+				noOfMoves--;
+		}
+		int[] finalMoves = new int[noOfMoves];
+		System.arraycopy(moves, 0, finalMoves, 0, noOfMoves);
+		return new SavedGame(layout, buffer.getInt(DEAL_NUMBER), cards,
+				finalMoves, seconds);
+	}
+
+	/**
+	 * Closes the log file. The game in progress stays in it.
+	 * @throws IOException if the file cannot be closed
+	 */
+	public void close() throws IOException
+	{
+		buffer.force();
+		lock.release();
+		file.close();
+	}
+
+	/**
+	 * Writes one record and then the new number of records, making the file
+	 * twice as big first if it is full.
+	 * @param move the packed move or UNDO
+	 * @param seconds the seconds played so far
+	 */
+	private void addRecord(int move, int seconds)
+	{
+		int offset = HEADER_SIZE + noOfRecords * RECORD_SIZE;
+		if (offset + RECORD_SIZE > buffer.capacity())
+		{
+			try
+			{
+				map(buffer.capacity() * 2L);
+			}
+			catch (IOException exp)
+			{
+				// Stop logging this game rather than stop the game
+				System.out.println("Error growing the game log");
+				return;
+			}
+		}
+		buffer.putInt(offset, move);
+		buffer.putInt(offset + 4, seconds);
+		noOfRecords++;
+		buffer.putInt(NO_OF_RECORDS, noOfRecords);
+	}
+
+	/**
+	 * Maps the first bytes of the file into memory, growing the file if it is
+	 * smaller.
+	 * @param size the number of bytes to map
+	 * @throws IOException if the file cannot be mapped
+	 */
+	private void map(long size) throws IOException
+	{
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+	}
+
+	/**
+	 * Times logging and getting back a long game.
+	 * @param args the number of moves (optional)
+	 * @throws IOException if the log cannot be written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int length = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		File logFile = File.createTempFile("game", ".log");
+		logFile.deleteOnExit();
+		GameLog log = new GameLog(logFile);
+
+		// Log a game of length moves with an undo every tenth move, timing
+		// the last of a few games (the first ones touch the memory for the
+		// first time)
+		int[] cards = Deal.microsoftCards(1);
+		double writeNanos = 0;
+		for (int game = 0; game < 5; game++)
+		{
+			long startTime = System.nanoTime();
+			log.startGame(BoardLayout.STANDARD, 1, cards);
+			for (int move = 0; move < length; move++)
+			{
+				log.addMove(Board.move(move % 8, (move + 1) % 8, 1), move);
+				if (move % 10 == 9)
+					log.addUndo(move);
+			}
+			writeNanos = (double) (System.nanoTime() - startTime)
+					/ (length + length / 10);
+		}
+		log.close();
+
+		long startTime = System.nanoTime();
+		log = new GameLog(logFile);
+		SavedGame game = log.getSavedGame();
+		double readMillis = (System.nanoTime() - startTime) / 1e6;
+		log.close();
+		System.out.printf("%.1f ns per record, %d moves read back in %.2f ms%n",
+				writeNanos, game.getMoves().length, readMillis);
+	}
+
+	/**
+	 * An inner class for a game read back from the log.
+	 */
+	public static class SavedGame
+	{
+		private BoardLayout layout;
+		private int dealNumber;
+		private int[] cards;
+		private int[] moves;
+		private int seconds;
+
+		/**
+		 * Constructs a new SavedGame.
+		 * @param layout the size of the game
+		 * @param dealNumber the deal number (0 if it is not known)
+		 * @param cards the cards in the order they were dealt
+		 * @param moves the packed moves made (without the undone ones)
+		 * @param seconds the seconds played
+		 */
+		public SavedGame(BoardLayout layout, int dealNumber, int[] cards,
+				int[] moves, int seconds)
+		{
+			this.layout = layout;
+			this.dealNumber = dealNumber;
+			this.cards = cards;
+			this.moves = moves;
+			this.seconds = seconds;
+		}
+
+		/**
+		 * Gets the size of the game.
+		 * @return the layout
+		 */
+		public BoardLayout getLayout()
+		{
+			return layout;
+		}
+
+		/**
+		 * Gets the deal number of the game.
+		 * @return the deal number, or 0 if it is not known
+		 */
+		public int getDealNumber()
+		{
+			return dealNumber;
+		}
+
+		/**
+		 * Gets the cards in the order they were dealt.
+		 * @return the card indexes
+		 */
+		public int[] getCards()
+		{
+			return cards;
+		}
+
+		/**
+		 * Gets the moves made, without the ones that were undone.
+		 * @return the packed moves
+		 */
+		public int[] getMoves()
+		{
+			return moves;
+		}
+
+		/**
+		 * Gets the seconds played.
+		 * @return the seconds
+		 */
+		public int getSeconds()
+		{
+			return seconds;
+		}
+	}
+}
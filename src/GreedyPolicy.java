@@ -0,0 +1,54 @@
+import java.util.SplittableRandom;
+
+/**
+ * A Policy that looks one move ahead and makes the move that leaves the lowest
+ * Solver estimate of the moves left, breaking ties at random.
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class GreedyPolicy implements Policy
+{
+	/**
+	 * Chooses the move with the lowest estimate after it is made.
+	 * @param board the current position
+	 * @param moves the moves to choose from
+	 * @param noOfMoves the number of moves to choose from
+	 * @param random the random number generator of the calling thread
+	 * @return the index of the chosen move
+	 */
+	public int chooseMove(Board board, int[] moves, int noOfMoves,
+			SplittableRandom random)
+	{
+		Board child = new Board(board);
+		int best = -1;
+		int bestEstimate = Integer.MAX_VALUE;
+		int ties = 0;
+		for (int move = 0; move < noOfMoves; move++)
+		{
+			child.copyFrom(board);
+			child.apply(moves[move]);
+			child.autoComplete(null, 0);
+			int estimate = Solver.estimate(child);
+
+			// Pick evenly between tied moves (reservoir sampling)
+			if (estimate < bestEstimate)
+			{
+				best = move;
+				bestEstimate = estimate;
+				ties = 1;
+			}
+			else if (estimate == bestEstimate && random.nextInt(++ties) == 0)
+				best = move;
+		}
+		return best;
+	}
+
+	/**
+	 * Gets the name of this Policy.
+	 * @return "greedy"
+	 */
+	public String getName()
+	{
+		return "greedy";
+	}
+}
@@ -1,6 +1,5 @@
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.StringTokenizer;
 
 /**
  * Keeps track of a Hand's information including the Card objects in the Hand.
@@ -31,11 +30,27 @@ public class Hand
 			hand = new ArrayList<Card>();
 		else
 		{
-			// Add each Card to the Hand's list of Cards
-			StringTokenizer handTokens = new StringTokenizer(handStr);
+			// Add each two letter Card to the Hand's list of Cards, skipping
+			// the white space in between
 			hand = new ArrayList<Card>((handStr.length() + 1) / 3);
-			while (handTokens.hasMoreTokens())
-				hand.add(new Card(handTokens.nextToken()));
+			int length = handStr.length();
+			int next = 0;
+			while (next < length)
+			{
+				if (handStr.charAt(next) <= ' ')
+					next++;
+				else
+				{
+					int index = CardCodec.decode(handStr, next);
+					if (index != CardCodec.NOT_A_CARD)
+						hand.add(new Card(CardCodec.rankOf(index), CardCodec
+								.suitOf(index), CardCodec.isFaceUp(handStr
+								.charAt(next + 1))));
+					else
+						hand.add(new Card(handStr.substring(next, next + 2)));
+					next += 2;
+				}
+			}
 		}
 	}
 
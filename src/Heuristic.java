@@ -0,0 +1,17 @@
+/**
+ * Behaviour for a guess of how many moves are left to win a position, used by
+ * the Solver to decide which position to expand next. A Heuristic is shared by
+ * every thread using the Solver, so it must be safe to call from many threads
+ * at once.
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public interface Heuristic
+{
+	/**
+	 * Guesses how many moves are left to win the given position.
+	 * @param board the position to guess for (must not be changed)
+	 * @return the guess of the moves left (0 when the position is won)
+	 */
+	public int estimate(Board board);
+}
@@ -0,0 +1,499 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gives hints for the game in progress without searching from the start each
+ * time. Every position on the way through a Solution is kept in a table by
+ * its hash, so after the player makes the hinted move (or any move that
+ * reaches a position the table already has) the next hint is ready straight
+ * away. Only positions not in the table are solved, on one background thread
+ * with a low priority, and the Solutions are also looked up in and added to
+ * the SolutionCache so that they are kept between games.
+ *
+ * CardPanel tells the service about every new position (positionChanged())
+ * so it can warm the table while the player thinks, and getHint() waits at
+ * most a little while for a position still being solved.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class HintService
+{
+	// Most positions kept in the table before it is cleared
+	private static final int MAX_POSITIONS = 1 << 16;
+
+	// What can be solved with and the table of known positions
+	private Solver solver;
+	private File cacheFile;
+	private SolutionCache cache;
+	private final HashMap<Long, Step> table = new HashMap<Long, Step>();
+
+	// The thread that solves positions and the position it is solving
+	private ExecutorService searcher;
+	private Future<?> warming;
+	private long warmingKey;
+
+	/**
+	 * Constructs a new HintService.
+	 * @param solver the Solver to solve new positions with
+	 * @param cacheFile the SolutionCache file to use (or null for none)
+	 */
+	public HintService(Solver solver, File cacheFile)
+	{
+		this.solver = solver;
+		this.cacheFile = cacheFile;
+		searcher = Executors.newSingleThreadExecutor(new ThreadFactory()
+		{
+			public Thread newThread(Runnable task)
+			{
+				Thread thread = new Thread(task, "Hint searcher");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Starts solving a new position in the background if it is not in the
+	 * table yet. A position waiting to be solved that has not started is
+	 * dropped, since the player has moved on from it.
+	 * @param board the new position (it is copied)
+	 */
+	public synchronized void positionChanged(Board board)
+	{
+		final Board position = new Board(board);
+		final long key = position.hash();
+		if (table.containsKey(key) || warming != null && warmingKey == key
+				&& !warming.isDone())
+			return;
+		if (warming != null)
+			warming.cancel(false);
+		warmingKey = key;
+		warming = searcher.submit(new Runnable()
+		{
+			public void run()
+			{
+				solve(position, key);
+			}
+		});
+	}
+
+	/**
+	 * Gets a hint for a position, waiting for it to be solved for at most the
+	 * given time.
+	 * @param board the position
+	 * @param maxWaitMillis the most time to wait
+	 * @return the hint, or null if the position is still being solved
+	 */
+	public Hint getHint(Board board, long maxWaitMillis)
+	{
+		long key = board.hash();
+		Future<?> pending;
+		synchronized (this)
+		{
+			Step step = table.get(key);
+			if (step != null)
+				return toHint(board, step);
+			positionChanged(board);
+			pending = warming;
+		}
+
+		try
+		{
+			pending.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException exp)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException exp)
+		{
+			System.out.println("Error finding a hint");
+		}
+		catch (TimeoutException exp)
+		{
+			// Still solving
+		}
+		synchronized (this)
+		{
+			Step step = table.get(key);
+			return step == null ? null : toHint(board, step);
+		}
+	}
+
+	/**
+	 * Gets the number of positions in the table.
+	 * @return the number of positions
+	 */
+	public synchronized int size()
+	{
+		return table.size();
+	}
+
+	/**
+	 * Stops the background thread and closes the SolutionCache.
+	 */
+	public void shutdown()
+	{
+		searcher.shutdownNow();
+		synchronized (this)
+		{
+			if (cache != null)
+				try
+				{
+					cache.close();
+				}
+				catch (IOException exp)
+				{
+					// Nothing more can be done with the cache
+				}
+		}
+	}
+
+	/**
+	 * Solves a position on the background thread (using the SolutionCache if
+	 * it can) and adds every position of the Solution to the table.
+	 * @param start the position to solve
+	 * @param key the hash of the position
+	 */
+	private void solve(Board start, long key)
+	{
+		synchronized (this)
+		{
+			if (table.containsKey(key))
+				return;
+		}
+
+		Solution solution = null;
+		String source = "searched";
+		SolutionCache openCache = openCache();
+		if (openCache != null)
+			try
+			{
+				solution = openCache.get(start);
+				if (solution != null)
+					source = "found in the solution cache";
+			}
+			catch (IOException exp)
+			{
+				// Solve it instead
+			}
+		if (solution == null)
+		{
+			solution = solver.solve(start);
+			if (openCache != null)
+				try
+				{
+					openCache.put(start, solution);
+				}
+				catch (IOException exp)
+				{
+					// Keep it in the table only
+				}
+		}
+		addPlan(start, new Plan(solution, source));
+	}
+
+	/**
+	 * Helper method of solve() that opens the SolutionCache the first time
+	 * it is needed, so starting the game does not wait for it.
+	 * @return the cache, or null if there is none
+	 */
+	private synchronized SolutionCache openCache()
+	{
+		if (cache == null && cacheFile != null)
+		{
+			try
+			{
+				cache = new SolutionCache(cacheFile);
+			}
+			catch (IOException exp)
+			{
+				System.out.println("Error opening the solution cache");
+			}
+			cacheFile = null;
+		}
+		return cache;
+	}
+
+	/**
+	 * Adds the start of a Plan and every position after each of its moves to
+	 * the table, so the Plan can be picked up from any of them.
+	 * @param start the position the Plan starts from
+	 * @param plan the Plan
+	 */
+	private synchronized void addPlan(Board start, Plan plan)
+	{
+		if (table.size() + plan.moves.length >= MAX_POSITIONS)
+			table.clear();
+		Board board = new Board(start);
+		long key = board.hash();
+		for (int move = 0; move < plan.moves.length; move++)
+		{
+			board.apply(plan.moves[move]);
+			long next = board.hash();
+			if (!table.containsKey(key))
+				table.put(key, new Step(plan, move, next));
+			key = next;
+		}
+		if (!table.containsKey(key))
+			table.put(key, new Step(plan, plan.moves.length, 0));
+	}
+
+	/**
+	 * Turns a Step of a Plan into a hint for the given position. The position
+	 * may have its Cascades and FreeCells in a different order than the one
+	 * the Plan was made for (they have the same hash), so the move is found
+	 * again as the move that reaches the Plan's next position.
+	 * @param board the position
+	 * @param step the Step of the Plan for the position
+	 * @return the hint
+	 */
+	private static Hint toHint(Board board, Step step)
+	{
+		Plan plan = step.plan;
+		if (step.index == plan.moves.length)
+			return new Hint(board, 0, step);
+
+		int planned = plan.moves[step.index];
+		Board child = new Board(board);
+		if (board.isLegal(planned))
+		{
+			child.apply(planned);
+			if (child.hash() == step.nextHash)
+				return new Hint(board, planned, step);
+		}
+		int[] moves = new int[Board.maxMoves(board.getLayout())];
+		int noOfMoves = board.generateMoves(moves);
+		for (int move = 0; move < noOfMoves; move++)
+		{
+			child.copyFrom(board);
+			child.apply(moves[move]);
+			if (child.hash() == step.nextHash)
+				return new Hint(board, moves[move], step);
+		}
+		return new Hint(board, 0, step);
+	}
+
+	/**
+	 * Times hints through a few deals: each deal is played by taking the
+	 * hint, except that every seventh move is some other move (as a player
+	 * would make) so the next hint needs a new search. The table is warmed
+	 * after every move as in the game, and each hint waits at most 50 ms.
+	 * @param args the number of deals (optional)
+	 */
+	public static void main(String[] args)
+	{
+		int deals = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		HintService hints = new HintService(new Solver(), null);
+		LatencyHistogram hintTimes = new LatencyHistogram("hint");
+		int[] moves = new int[Board.maxMoves(BoardLayout.STANDARD)];
+		int won = 0;
+		int notReady = 0;
+		int reused = 0;
+		for (int deal = 1; deal <= deals; deal++)
+		{
+			Board board = Deal.microsoft(deal);
+			hints.positionChanged(board);
+			for (int moveNo = 0; moveNo < SelfPlay.MAX_MOVES
+					&& !board.isWon(); moveNo++)
+			{
+				long startTime = System.nanoTime();
+				Hint hint = hints.getHint(board, 50);
+				hintTimes.record(System.nanoTime() - startTime);
+				if (hint == null)
+				{
+					// Not ready in time, so wait as the player would
+					notReady++;
+					hint = hints.getHint(board, 60000);
+				}
+				else if (hint.step.index > 0)
+					reused++;
+				if (hint.getMove() == 0)
+					break;
+
+				int move = hint.getMove();
+				int noOfMoves = board.generateMoves(moves);
+				if (moveNo % 7 == 6 && noOfMoves > 1)
+					move = moves[moves[0] == move ? 1 : 0];
+				board.apply(move);
+				hints.positionChanged(board);
+			}
+			if (board.isWon())
+				won++;
+		}
+		hints.shutdown();
+		System.out.printf("%d of %d deals won by following hints, %d "
+				+ "hints from a kept win, %d not ready within 50 ms, %d "
+				+ "positions kept%n", won, deals, reused, notReady, hints
+				.size());
+		System.out.println(hintTimes);
+	}
+
+	/**
+	 * An inner class for a Solution and how it was found.
+	 */
+	private static class Plan
+	{
+		private int[] moves;
+		private boolean solved;
+		private long nodes;
+		private String source;
+
+		/**
+		 * Constructs a new Plan.
+		 * @param solution the Solution
+		 * @param source how the Solution was found
+		 */
+		public Plan(Solution solution, String source)
+		{
+			moves = solution.isSolved() ? solution.getMoves() : new int[0];
+			solved = solution.isSolved();
+			nodes = solution.getNodes();
+			this.source = source;
+		}
+	}
+
+	/**
+	 * An inner class for a position's place in a Plan: the index of the next
+	 * move and the hash of the position after it.
+	 */
+	private static class Step
+	{
+		private Plan plan;
+		private int index;
+		private long nextHash;
+
+		/**
+		 * Constructs a new Step.
+		 * @param plan the Plan
+		 * @param index the index of the next move
+		 * @param nextHash the hash after the next move
+		 */
+		public Step(Plan plan, int index, long nextHash)
+		{
+			this.plan = plan;
+			this.index = index;
+			this.nextHash = nextHash;
+		}
+	}
+
+	/**
+	 * An inner class for a hint: the move to make and why.
+	 */
+	public static class Hint
+	{
+		private Board board;
+		private int move;
+		private Step step;
+
+		/**
+		 * Constructs a new Hint.
+		 * @param board the position the hint is for
+		 * @param move the packed move, or 0 if there is none
+		 * @param step the Step of the Plan it comes from
+		 */
+		private Hint(Board board, int move, Step step)
+		{
+			this.board = board;
+			this.move = move;
+			this.step = step;
+		}
+
+		/**
+		 * Gets the move to make.
+		 * @return the packed move (see Board.move()), or 0 if there is no
+		 *         move that leads to a win
+		 */
+		public int getMove()
+		{
+			return move;
+		}
+
+		/**
+		 * Gets the number of moves left to win after the hinted move.
+		 * @return the moves left
+		 */
+		public int getMovesLeft()
+		{
+			return Math.max(0, step.plan.moves.length - step.index - 1);
+		}
+
+		/**
+		 * Returns the move in a few words, such as
+		 * "Move 7H from Cascade 3 to a Foundation".
+		 * @return the move as a String
+		 */
+		public String toString()
+		{
+			if (move == 0)
+				return step.plan.solved ? "The game is won"
+						: "No winning move was found";
+			int count = Board.getCount(board.resolveCount(move));
+			int from = Board.getFrom(move);
+			String cards = CardCodec.encode(board.cardAt(from), true);
+			if (count > 1)
+				cards = count + " cards from " + cards;
+			return "Move " + cards + " from " + describe(board, from)
+					+ " to " + describe(board, Board.getTo(move));
+		}
+
+		/**
+		 * Explains why the move was chosen: the win it is part of, how that
+		 * win was found and how the position gets better.
+		 * @return the explanation
+		 */
+		public String explain()
+		{
+			Plan plan = step.plan;
+			if (!plan.solved)
+				return String.format("The Solver searched %,d positions "
+						+ "from here without finding a win, so the game may "
+						+ "be lost.", plan.nodes);
+			if (move == 0)
+				return toString() + ".";
+
+			Board after = new Board(board);
+			after.apply(move);
+			StringBuilder why = new StringBuilder(toString() + ".\n");
+			why.append(String.format("It is move %d of a %d move win that "
+					+ "was %s (%,d positions), so %d more moves win the "
+					+ "game.%n", step.index + 1, plan.moves.length,
+					plan.source, plan.nodes, getMovesLeft()));
+			if (step.index > 0)
+				why.append("That win was found for an earlier position and "
+						+ "kept, so no new search was needed.\n");
+			why.append(String.format("Guess of the moves left: %d now, %d "
+					+ "after the move. Open FreeCells: %d now, %d after.",
+					Solver.estimate(board), Solver.estimate(after), board
+							.getNoOfOpenFreeCells(), after
+							.getNoOfOpenFreeCells()));
+			return why.toString();
+		}
+
+		/**
+		 * Helper method of toString() that names a location of the Board.
+		 * @param board the Board
+		 * @param location the location
+		 * @return the name of the location
+		 */
+		private static String describe(Board board, int location)
+		{
+			BoardLayout layout = board.getLayout();
+			if (location < layout.getFirstFreeCell())
+				return "Cascade " + (location + 1);
+			if (location < layout.getFirstFoundation())
+				return "a FreeCell";
+			return "a Foundation";
+		}
+	}
+}
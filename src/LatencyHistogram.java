@@ -0,0 +1,141 @@
+/**
+ * Keeps track of how long a repeated piece of work (such as a mouse handler or
+ * a paint) takes. Each time is put into a power of two bucket of nanoseconds
+ * so that recording is cheap and never allocates. Can record a time, get the
+ * number of times recorded, the last, mean and maximum time, estimate a
+ * percentile and can return a String summary of the times.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class LatencyHistogram
+{
+	// One bucket for each possible power of two of a long number of
+	// nanoseconds (bucket n holds times from 2^(n-1) up to 2^n - 1)
+	private static final int NO_OF_BUCKETS = 64;
+
+	// Variables to keep track of the name, buckets and running totals
+	private String name;
+	private long[] buckets;
+	private long count;
+	private long totalNanos;
+	private long maxNanos;
+	private long lastNanos;
+
+	/**
+	 * Constructs a new empty LatencyHistogram with the given name.
+	 * @param name the name of the work being timed
+	 */
+	public LatencyHistogram(String name)
+	{
+		this.name = name;
+		buckets = new long[NO_OF_BUCKETS];
+	}
+
+	/**
+	 * Records one time.
+	 * @param nanos the time that the work took in nanoseconds
+	 */
+	public synchronized void record(long nanos)
+	{
+		if (nanos < 0)
+			nanos = 0;
+		buckets[NO_OF_BUCKETS - Long.numberOfLeadingZeros(nanos)]++;
+		count++;
+		totalNanos += nanos;
+		lastNanos = nanos;
+		if (nanos > maxNanos)
+			maxNanos = nanos;
+	}
+
+	/**
+	 * Gets the number of times recorded.
+	 * @return the number of times recorded
+	 */
+	public synchronized long getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Gets the most recently recorded time.
+	 * @return the last time in nanoseconds or 0 if nothing has been recorded
+	 */
+	public synchronized long getLastNanos()
+	{
+		return lastNanos;
+	}
+
+	/**
+	 * Gets the mean of all of the recorded times.
+	 * @return the mean time in nanoseconds or 0 if nothing has been recorded
+	 */
+	public synchronized long getMeanNanos()
+	{
+		if (count == 0)
+			return 0;
+		return totalNanos / count;
+	}
+
+	/**
+	 * Gets the longest recorded time.
+	 * @return the maximum time in nanoseconds
+	 */
+	public synchronized long getMaxNanos()
+	{
+		return maxNanos;
+	}
+
+	/**
+	 * Estimates the time that the given percent of recorded times are at or
+	 * below. The estimate is the upper edge of the bucket the percentile falls
+	 * in, so it is never lower than the real value.
+	 * @param percent the percentile to find (0 to 100)
+	 * @return the estimated percentile time in nanoseconds
+	 */
+	public synchronized long getPercentileNanos(double percent)
+	{
+		if (count == 0)
+			return 0;
+
+		// Walk the buckets until we have passed the wanted number of times
+		long wanted = (long) Math.ceil(count * percent / 100);
+		long seen = 0;
+		for (int bucket = 0; bucket < NO_OF_BUCKETS; bucket++)
+		{
+			seen += buckets[bucket];
+			if (seen >= wanted && seen > 0)
+				if (bucket == NO_OF_BUCKETS - 1)
+					return maxNanos;
+				else
+					return Math.min(maxNanos, (1L << bucket) - 1);
+		}
+		return maxNanos;
+	}
+
+	/**
+	 * Removes all of the recorded times.
+	 */
+	public synchronized void clear()
+	{
+		for (int bucket = 0; bucket < NO_OF_BUCKETS; bucket++)
+			buckets[bucket] = 0;
+		count = 0;
+		totalNanos = 0;
+		maxNanos = 0;
+		lastNanos = 0;
+	}
+
+	/**
+	 * Returns a one line summary of the recorded times in milliseconds.
+	 * @return the name, count, mean, 50th, 99th percentile and maximum times
+	 */
+	public synchronized String toString()
+	{
+		return String.format(
+				"%s: %d, mean %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+				name, count, getMeanNanos() / 1e6,
+				getPercentileNanos(50) / 1e6, getPercentileNanos(99) / 1e6,
+				maxNanos / 1e6);
+	}
+}
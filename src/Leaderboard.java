@@ -0,0 +1,1016 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps every win of every player by deal number, so the best times and
+ * fewest moves for a deal can be shown overall or for one player.
+ *
+ * The wins are kept in sorted runs: files of fixed size records sorted by the
+ * layout, the deal number, the time and then the moves. After the records
+ * each run has a second order, the record numbers sorted by the layout, the
+ * deal number, the moves and then the time. Each run is mapped into memory
+ * and a deal is found in it with a binary search, so the top 10 for a deal
+ * only reads a few records of each run however many wins there are, whether
+ * by time or by moves. A list of the current runs (the manifest) says which
+ * files are in use.
+ *
+ * Adding a win only puts it in a list of unsaved wins; a background thread
+ * writes them as a new run. When the newest run gets close to the size of
+ * the one before it, the two are merged into one, so there are only a few
+ * runs (about the log of the number of wins). The folder is locked while it
+ * is changed so that several windows can add wins at the same time. Nothing
+ * waits on the lock: opening skips the clean up when another window has the
+ * folder, and the writer tries again a little later.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class Leaderboard
+{
+	// Name of the folder of runs and of the files in it
+	public static final String FOLDER = "leaderboard";
+	private static final String MANIFEST = "runs.txt";
+	private static final String LOCK_FILE = "lock";
+	private static final String RUN_SUFFIX = ".run";
+
+	// The first four bytes of a run, followed by the number of records
+	private static final int MAGIC = 0x46434C42; // "FCLB"
+	private static final int HEADER_SIZE = 8;
+
+	// Each record number in the moves order is an int
+	private static final int ORDER_SIZE = 4;
+
+	// Each record is the key (layout and deal number), the time, the moves
+	// and the player's name
+	private static final int RECORD_SIZE = 32;
+	private static final int PROFILE_BYTES = 16;
+
+	// How long the program waits at exit for the last wins to be written
+	private static final int EXIT_WAIT_MILLIS = 2000;
+
+	// How long the writer waits before trying the lock again, and how many
+	// times opening reads the manifest when another window is changing it
+	private static final int RETRY_MILLIS = 50;
+	private static final int OPEN_ATTEMPTS = 5;
+
+	// The folder, the runs in use (oldest first) and the wins not yet in a run
+	private File folder;
+	private volatile List<Run> runs = new ArrayList<Run>();
+	private final ArrayList<Entry> unsaved = new ArrayList<Entry>();
+	private ExecutorService writer;
+
+	/**
+	 * Opens the leaderboard in the given folder, making it if it is new.
+	 * @param folder the folder of runs
+	 * @throws IOException if the folder cannot be made or read
+	 */
+	public Leaderboard(File folder) throws IOException
+	{
+		this.folder = folder;
+		if (!folder.isDirectory() && !folder.mkdirs())
+			throw new IOException("Cannot make " + folder);
+		synchronized (this)
+		{
+			// Take out any runs left over from a merge or a crash, unless
+			// another window is changing the folder (the next open does it)
+			FileLock lock = tryLockFolder();
+			if (lock == null)
+				openRunsUnlocked();
+			else
+				try
+				{
+					List<String> names = readManifest();
+					File[] files = folder.listFiles();
+					if (files != null)
+						for (File file : files)
+							if (file.getName().endsWith(RUN_SUFFIX)
+									&& !names.contains(file.getName()))
+								file.delete();
+					openRuns(names);
+				}
+				finally
+				{
+					release(lock);
+				}
+		}
+
+		writer = Executors.newSingleThreadExecutor(new ThreadFactory()
+		{
+			public Thread newThread(Runnable task)
+			{
+				Thread thread = new Thread(task, "Leaderboard writer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(new Thread()
+		{
+			public void run()
+			{
+				writer.shutdown();
+				try
+				{
+					writer.awaitTermination(EXIT_WAIT_MILLIS,
+							TimeUnit.MILLISECONDS);
+				}
+				catch (InterruptedException exp)
+				{
+					// Exit without the last wins
+				}
+			}
+		});
+	}
+
+	/**
+	 * Adds a win. It shows in queries straight away and is written to the
+	 * disk in the background, so this never waits for the disk.
+	 * @param entry the win
+	 * @return a Future that is done once the win is written
+	 */
+	public Future<?> add(Entry entry)
+	{
+		synchronized (unsaved)
+		{
+			unsaved.add(entry);
+		}
+		return writer.submit(new Runnable()
+		{
+			public void run()
+			{
+				flush();
+			}
+		});
+	}
+
+	/**
+	 * Gets the best wins of a deal, fastest first or fewest moves first.
+	 * @param layout the size of the game
+	 * @param dealNumber the deal number
+	 * @param profile the player to get the wins of, or null for everyone
+	 * @param byMoves true to put the fewest moves first or false to put the
+	 *            fastest times first
+	 * @param limit the most wins to get (such as 10)
+	 * @return the best wins, best first
+	 */
+	public List<Entry> top(BoardLayout layout, int dealNumber, String profile,
+			boolean byMoves, int limit)
+	{
+		long key = key(layout, dealNumber);
+		ArrayList<Entry> found = new ArrayList<Entry>();
+		for (Run run : runs)
+		{
+			// The wins of a deal are together in both orders of a run, so only
+			// the first few of the right order are needed
+			int taken = 0;
+			for (int position = run.find(key); position < run.size
+					&& taken < limit; position++)
+			{
+				int record = byMoves ? run.getByMoves(position) : position;
+				if (run.getKey(record) != key)
+					break;
+				Entry entry = run.get(record);
+				if (profile == null || profile.equals(entry.profile))
+				{
+					found.add(entry);
+					taken++;
+				}
+			}
+		}
+		synchronized (unsaved)
+		{
+			for (Entry entry : unsaved)
+				if (entry.getKey() == key
+						&& (profile == null || profile.equals(entry.profile)))
+					found.add(entry);
+		}
+
+		Collections.sort(found, byMoves ? Entry.BY_MOVES : Entry.BY_TIME);
+		if (found.size() > limit)
+			return new ArrayList<Entry>(found.subList(0, limit));
+		return found;
+	}
+
+	/**
+	 * Gets the number of wins written to the runs.
+	 * @return the number of wins
+	 */
+	public long size()
+	{
+		long size = 0;
+		for (Run run : runs)
+			size += run.size;
+		return size;
+	}
+
+	/**
+	 * Gets the number of runs the wins are in.
+	 * @return the number of runs
+	 */
+	public int getNoOfRuns()
+	{
+		return runs.size();
+	}
+
+	/**
+	 * Writes the unsaved wins as a new run, merges runs that are close in
+	 * size and updates the manifest. Only the writer thread calls this
+	 * (main() calls it directly to load wins quickly). If another window has
+	 * the folder, this tries again every so often rather than waiting on the
+	 * lock.
+	 */
+	private synchronized void flush()
+	{
+		ArrayList<Entry> entries;
+		synchronized (unsaved)
+		{
+			if (unsaved.isEmpty())
+				return;
+			entries = new ArrayList<Entry>(unsaved);
+		}
+		Collections.sort(entries, Entry.BY_TIME);
+
+		try
+		{
+			FileLock lock;
+			while ((lock = tryLockFolder()) == null)
+				try
+				{
+					Thread.sleep(RETRY_MILLIS);
+				}
+				catch (InterruptedException exp)
+				{
+					// Keep the wins in memory for the next flush
+					Thread.currentThread().interrupt();
+					return;
+				}
+			try
+			{
+				// Another window may have changed the runs, so start from the
+				// manifest
+				List<String> names = readManifest();
+				openRuns(names);
+				ArrayList<Run> newRuns = new ArrayList<Run>(runs);
+				newRuns.add(writeRun(entries));
+
+				// Merge the newest run into the one before it until each run
+				// is more than twice the size of the next one
+				HashSet<Run> merged = new HashSet<Run>();
+				int last = newRuns.size() - 1;
+				while (last > 0
+						&& newRuns.get(last).size * 2 >= newRuns.get(last - 1).size)
+				{
+					Run older = newRuns.remove(last - 1);
+					Run newer = newRuns.remove(last - 1);
+					newRuns.add(merge(older, newer));
+					merged.add(older);
+					merged.add(newer);
+					last--;
+				}
+
+				names = new ArrayList<String>();
+				for (Run run : newRuns)
+					names.add(run.file.getName());
+				writeManifest(names);
+				runs = newRuns;
+
+				// The merged runs are no longer needed (on some systems a
+				// mapped file cannot be deleted, so the next open does it)
+				for (Run run : merged)
+					run.file.delete();
+			}
+			finally
+			{
+				release(lock);
+			}
+			synchronized (unsaved)
+			{
+				unsaved.subList(0, entries.size()).clear();
+			}
+		}
+		catch (IOException exp)
+		{
+			// Keep the wins in memory and try again with the next win
+			System.out.println("Error writing the leaderboard");
+		}
+	}
+
+	/**
+	 * Writes sorted wins as a new run, followed by their moves order.
+	 * @param entries the wins in time order
+	 * @return the new run
+	 * @throws IOException if the run cannot be written
+	 */
+	private Run writeRun(final List<Entry> entries) throws IOException
+	{
+		File file = newRunFile();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), 1 << 16));
+		try
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(entries.size());
+			byte[] record = new byte[RECORD_SIZE];
+			for (Entry entry : entries)
+				out.write(entry.toBytes(record));
+
+			Integer[] order = new Integer[entries.size()];
+			for (int position = 0; position < order.length; position++)
+				order[position] = position;
+			Arrays.sort(order, new Comparator<Integer>()
+			{
+				public int compare(Integer first, Integer second)
+				{
+					return Entry.BY_MOVES.compare(entries.get(first), entries
+							.get(second));
+				}
+			});
+			for (int position = 0; position < order.length; position++)
+				out.writeInt(order[position]);
+		}
+		finally
+		{
+			out.close();
+		}
+		return new Run(file);
+	}
+
+	/**
+	 * Merges two runs into a new one, reading each in order once, and then
+	 * merges their moves orders the same way.
+	 * @param first a run
+	 * @param second the other run
+	 * @return the merged run
+	 * @throws IOException if the run cannot be written
+	 */
+	private Run merge(Run first, Run second) throws IOException
+	{
+		File file = newRunFile();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), 1 << 16));
+		try
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(first.size + second.size);
+
+			// Remember where each record ends up for the moves order
+			int[] firstMoved = new int[first.size];
+			int[] secondMoved = new int[second.size];
+			byte[] record = new byte[RECORD_SIZE];
+			int nextFirst = 0;
+			int nextSecond = 0;
+			for (int written = 0; written < first.size + second.size; written++)
+			{
+				if (nextSecond == second.size || nextFirst < first.size
+						&& first.compare(nextFirst, second, nextSecond) <= 0)
+				{
+					firstMoved[nextFirst] = written;
+					first.copy(nextFirst++, record);
+				}
+				else
+				{
+					secondMoved[nextSecond] = written;
+					second.copy(nextSecond++, record);
+				}
+				out.write(record);
+			}
+
+			nextFirst = 0;
+			nextSecond = 0;
+			while (nextFirst < first.size || nextSecond < second.size)
+			{
+				if (nextSecond == second.size || nextFirst < first.size
+						&& first.compareByMoves(first.getByMoves(nextFirst),
+								second, second.getByMoves(nextSecond)) <= 0)
+					out.writeInt(firstMoved[first.getByMoves(nextFirst++)]);
+				else
+					out.writeInt(secondMoved[second.getByMoves(nextSecond++)]);
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+		return new Run(file);
+	}
+
+	/**
+	 * Gets a file name for a new run that no other run uses.
+	 * @return the new file
+	 * @throws IOException if the file cannot be made
+	 */
+	private File newRunFile() throws IOException
+	{
+		return File.createTempFile("run", RUN_SUFFIX, folder);
+	}
+
+	/**
+	 * Maps the runs named in the manifest without the lock. Another window
+	 * may merge runs and delete them in the meantime, so the manifest is read
+	 * again if a run has gone.
+	 * @throws IOException if the runs still cannot be read
+	 */
+	private void openRunsUnlocked() throws IOException
+	{
+		for (int attempt = 1;; attempt++)
+		{
+			try
+			{
+				openRuns(readManifest());
+				return;
+			}
+			catch (IOException exp)
+			{
+				if (attempt == OPEN_ATTEMPTS)
+					throw exp;
+			}
+		}
+	}
+
+	/**
+	 * Maps the runs named in the manifest, keeping the ones already mapped.
+	 * @param names the file names of the runs, oldest first
+	 * @throws IOException if a run cannot be read
+	 */
+	private void openRuns(List<String> names) throws IOException
+	{
+		HashMap<String, Run> open = new HashMap<String, Run>();
+		for (Run run : runs)
+			open.put(run.file.getName(), run);
+		ArrayList<Run> newRuns = new ArrayList<Run>();
+		for (String name : names)
+		{
+			Run run = open.get(name);
+			newRuns.add(run != null ? run : new Run(new File(folder, name)));
+		}
+		runs = newRuns;
+	}
+
+	/**
+	 * Reads the names of the runs in use from the manifest.
+	 * @return the file names, oldest first
+	 * @throws IOException if the manifest cannot be read
+	 */
+	private List<String> readManifest() throws IOException
+	{
+		ArrayList<String> names = new ArrayList<String>();
+		File manifest = new File(folder, MANIFEST);
+		if (!manifest.exists())
+			return names;
+		BufferedReader in = new BufferedReader(new FileReader(manifest));
+		try
+		{
+			String name;
+			while ((name = in.readLine()) != null)
+				if (!name.isEmpty())
+					names.add(name);
+		}
+		finally
+		{
+			in.close();
+		}
+		return names;
+	}
+
+	/**
+	 * Writes the manifest to a new file and then puts it in place of the old
+	 * one in one step, so it is never seen half written.
+	 * @param names the file names of the runs, oldest first
+	 * @throws IOException if the manifest cannot be written
+	 */
+	private void writeManifest(List<String> names) throws IOException
+	{
+		File newManifest = new File(folder, MANIFEST + ".new");
+		PrintWriter out = new PrintWriter(newManifest);
+		try
+		{
+			for (String name : names)
+				out.println(name);
+		}
+		finally
+		{
+			out.close();
+		}
+		Files.move(newManifest.toPath(), new File(folder, MANIFEST).toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Locks the folder against other windows if none of them has it, without
+	 * waiting.
+	 * @return the lock, or null if another window (or another Leaderboard in
+	 *         this program) has the folder
+	 * @throws IOException if the lock file cannot be opened
+	 */
+	private FileLock tryLockFolder() throws IOException
+	{
+		FileChannel channel = new RandomAccessFile(new File(folder,
+				LOCK_FILE), "rw").getChannel();
+		FileLock lock = null;
+		try
+		{
+			lock = channel.tryLock();
+		}
+		catch (OverlappingFileLockException exp)
+		{
+			// This program already has the folder
+		}
+		finally
+		{
+			if (lock == null)
+				channel.close();
+		}
+		return lock;
+	}
+
+	/**
+	 * Releases the lock on the folder.
+	 * @param lock the lock
+	 * @throws IOException if the lock file cannot be closed
+	 */
+	private static void release(FileLock lock) throws IOException
+	{
+		lock.channel().close();
+	}
+
+	/**
+	 * Gets the key that wins are sorted and found by.
+	 * @param layout the size of the game
+	 * @param dealNumber the deal number
+	 * @return the key
+	 */
+	private static long key(BoardLayout layout, int dealNumber)
+	{
+		return (layout.isStandard() ? 0L : 1L) << 32 | dealNumber & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Times the top 10 queries with a given number of wins over a given
+	 * number of deals.
+	 * @param args the number of wins and of deals (both optional)
+	 * @throws Exception if the leaderboard cannot be written
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int noOfWins = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		int noOfDeals = args.length > 1 ? Integer.parseInt(args[1]) : 32000;
+		File folder = Files.createTempDirectory("leaderboard").toFile();
+		Leaderboard board = new Leaderboard(folder);
+		String[] profiles = { "Derrick", "Alice", "Bob", "Carol", "Dave" };
+
+		// Load the wins in batches, the way the writer would, so they are
+		// merged into a few runs
+		Random random = new Random(42);
+		long startTime = System.nanoTime();
+		for (int win = 0; win < noOfWins; win++)
+		{
+			board.add(new Entry(BoardLayout.STANDARD, 1 + random
+					.nextInt(noOfDeals), profiles[random.nextInt(profiles.length)],
+					60 + random.nextInt(600), 60 + random.nextInt(100)), false);
+			if ((win + 1) % 100000 == 0 || win == noOfWins - 1)
+				board.flush();
+		}
+		System.out.printf("Wrote %,d wins in %d runs in %.1f s%n", board
+				.size(), board.getNoOfRuns(),
+				(System.nanoTime() - startTime) / 1e9);
+
+		// Time adding a win on the caller's thread
+		LatencyHistogram addTimes = new LatencyHistogram("add");
+		for (int win = 0; win < 1000; win++)
+		{
+			Entry entry = new Entry(BoardLayout.STANDARD, 11982, "Derrick",
+					30 + win, 50 + win % 40);
+			long addStart = System.nanoTime();
+			board.add(entry);
+			addTimes.record(System.nanoTime() - addStart);
+		}
+
+		// Time random top 10 queries both ways
+		LatencyHistogram timeQueries = new LatencyHistogram("top 10 by time");
+		LatencyHistogram movesQueries = new LatencyHistogram("top 10 by moves");
+		for (int query = 0; query < 100000; query++)
+		{
+			int deal = 1 + random.nextInt(noOfDeals);
+			String profile = query % 4 == 0 ? profiles[random
+					.nextInt(profiles.length)] : null;
+			boolean byMoves = query % 2 == 0;
+			long queryStart = System.nanoTime();
+			board.top(BoardLayout.STANDARD, deal, profile, byMoves, 10);
+			(byMoves ? movesQueries : timeQueries).record(System.nanoTime()
+					- queryStart);
+		}
+		System.out.println(addTimes);
+		System.out.println(timeQueries);
+		System.out.println(movesQueries);
+		for (Entry entry : board.top(BoardLayout.STANDARD, 11982, null,
+				false, 3))
+			System.out.println("  " + entry);
+
+		// Let the last wins be written, then take out the folder
+		board.writer.shutdown();
+		board.writer.awaitTermination(EXIT_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+		for (File file : folder.listFiles())
+			file.delete();
+		folder.delete();
+	}
+
+	/**
+	 * Adds a win to the unsaved wins without writing it in the background,
+	 * for main() to load many wins at once.
+	 * @param entry the win
+	 * @param inBackground true to write it in the background
+	 */
+	private void add(Entry entry, boolean inBackground)
+	{
+		if (inBackground)
+			add(entry);
+		else
+			synchronized (unsaved)
+			{
+				unsaved.add(entry);
+			}
+	}
+
+	/**
+	 * An inner class for a sorted run mapped into memory.
+	 */
+	private static class Run
+	{
+		private File file;
+		private ByteBuffer buffer;
+		private IntBuffer byMoves;
+		private int size;
+
+		/**
+		 * Maps a run file into memory.
+		 * @param file the run file
+		 * @throws IOException if the file cannot be read or is not a run
+		 */
+		public Run(File file) throws IOException
+		{
+			this.file = file;
+			RandomAccessFile in = new RandomAccessFile(file, "r");
+			try
+			{
+				MappedByteBuffer mapped = in.getChannel().map(
+						FileChannel.MapMode.READ_ONLY, 0, in.length());
+				if (mapped.capacity() < HEADER_SIZE
+						|| mapped.getInt(0) != MAGIC)
+					throw new IOException(file + " is not a run");
+				size = Math.min(mapped.getInt(4),
+						(mapped.capacity() - HEADER_SIZE) / RECORD_SIZE);
+				buffer = mapped;
+
+				// A run cut short loses its moves order, so sort it again
+				int orderStart = HEADER_SIZE + size * RECORD_SIZE;
+				if (mapped.capacity() >= orderStart + size * ORDER_SIZE)
+				{
+					ByteBuffer order = mapped.duplicate();
+					order.position(orderStart);
+					byMoves = order.slice().asIntBuffer();
+				}
+				else
+					byMoves = sortByMoves();
+			}
+			finally
+			{
+				// The mapping stays after the file is closed
+				in.close();
+			}
+		}
+
+		/**
+		 * Finds the first record with the given key or more.
+		 * @param key the key
+		 * @return the index of the record (size if every key is less)
+		 */
+		public int find(long key)
+		{
+			int low = 0;
+			int high = size;
+			while (low < high)
+			{
+				int middle = (low + high) >>> 1;
+				if (getKey(middle) < key)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			return low;
+		}
+
+		/**
+		 * Sorts the record numbers by moves when the run has no moves order.
+		 * @return the record numbers in moves order
+		 */
+		private IntBuffer sortByMoves()
+		{
+			Integer[] order = new Integer[size];
+			for (int position = 0; position < size; position++)
+				order[position] = position;
+			Arrays.sort(order, new Comparator<Integer>()
+			{
+				public int compare(Integer first, Integer second)
+				{
+					return compareByMoves(first, Run.this, second);
+				}
+			});
+			int[] records = new int[size];
+			for (int position = 0; position < size; position++)
+				records[position] = order[position];
+			return IntBuffer.wrap(records);
+		}
+
+		/**
+		 * Gets the record at a place in the moves order.
+		 * @param position the place in the moves order
+		 * @return the index of the record
+		 */
+		public int getByMoves(int position)
+		{
+			return byMoves.get(position);
+		}
+
+		/**
+		 * Gets the key of a record.
+		 * @param record the index of the record
+		 * @return the key
+		 */
+		public long getKey(int record)
+		{
+			return buffer.getLong(HEADER_SIZE + record * RECORD_SIZE);
+		}
+
+		/**
+		 * Reads a record.
+		 * @param record the index of the record
+		 * @return the win
+		 */
+		public Entry get(int record)
+		{
+			byte[] bytes = new byte[RECORD_SIZE];
+			copy(record, bytes);
+			return Entry.fromBytes(bytes);
+		}
+
+		/**
+		 * Copies the bytes of a record.
+		 * @param record the index of the record
+		 * @param bytes where to copy the record to
+		 */
+		public void copy(int record, byte[] bytes)
+		{
+			ByteBuffer view = buffer.duplicate();
+			view.position(HEADER_SIZE + record * RECORD_SIZE);
+			view.get(bytes, 0, RECORD_SIZE);
+		}
+
+		/**
+		 * Compares the key, time and moves of a record with a record of
+		 * another run.
+		 * @param record the index of the record in this run
+		 * @param other the other run
+		 * @param otherRecord the index of the record in the other run
+		 * @return less than 0, 0 or more than 0 if this record goes before,
+		 *         with or after the other one
+		 */
+		public int compare(int record, Run other, int otherRecord)
+		{
+			int offset = HEADER_SIZE + record * RECORD_SIZE;
+			int otherOffset = HEADER_SIZE + otherRecord * RECORD_SIZE;
+			int compare = Long.compare(buffer.getLong(offset), other.buffer
+					.getLong(otherOffset));
+			if (compare == 0)
+				compare = Integer.compare(buffer.getInt(offset + 8),
+						other.buffer.getInt(otherOffset + 8));
+			if (compare == 0)
+				compare = Integer.compare(buffer.getInt(offset + 12),
+						other.buffer.getInt(otherOffset + 12));
+			return compare;
+		}
+
+		/**
+		 * Compares the key, moves and time of a record with a record of
+		 * another run.
+		 * @param record the index of the record in this run
+		 * @param other the other run
+		 * @param otherRecord the index of the record in the other run
+		 * @return less than 0, 0 or more than 0 if this record goes before,
+		 *         with or after the other one in moves order
+		 */
+		public int compareByMoves(int record, Run other, int otherRecord)
+		{
+			int offset = HEADER_SIZE + record * RECORD_SIZE;
+			int otherOffset = HEADER_SIZE + otherRecord * RECORD_SIZE;
+			int compare = Long.compare(buffer.getLong(offset), other.buffer
+					.getLong(otherOffset));
+			if (compare == 0)
+				compare = Integer.compare(buffer.getInt(offset + 12),
+						other.buffer.getInt(otherOffset + 12));
+			if (compare == 0)
+				compare = Integer.compare(buffer.getInt(offset + 8),
+						other.buffer.getInt(otherOffset + 8));
+			return compare;
+		}
+	}
+
+	/**
+	 * An inner class for one win on the leaderboard.
+	 */
+	public static class Entry
+	{
+		// Orders wins by key, then fastest time, then fewest moves
+		static final Comparator<Entry> BY_TIME = new Comparator<Entry>()
+		{
+			public int compare(Entry first, Entry second)
+			{
+				int compare = Long.compare(first.key, second.key);
+				if (compare == 0)
+					compare = Integer.compare(first.seconds, second.seconds);
+				if (compare == 0)
+					compare = Integer.compare(first.moves, second.moves);
+				return compare;
+			}
+		};
+
+		// Orders wins by key, then fewest moves, then fastest time
+		static final Comparator<Entry> BY_MOVES = new Comparator<Entry>()
+		{
+			public int compare(Entry first, Entry second)
+			{
+				int compare = Long.compare(first.key, second.key);
+				if (compare == 0)
+					compare = Integer.compare(first.moves, second.moves);
+				if (compare == 0)
+					compare = Integer.compare(first.seconds, second.seconds);
+				return compare;
+			}
+		};
+
+		private long key;
+		private String profile;
+		private int seconds;
+		private int moves;
+
+		/**
+		 * Constructs a new Entry.
+		 * @param layout the size of the game
+		 * @param dealNumber the deal number
+		 * @param profile the player's name (only the first 16 bytes are kept)
+		 * @param seconds the time of the win in seconds
+		 * @param moves the number of moves of the win
+		 */
+		public Entry(BoardLayout layout, int dealNumber, String profile,
+				int seconds, int moves)
+		{
+			this(key(layout, dealNumber), trim(profile), seconds, moves);
+		}
+
+		/**
+		 * Constructs a new Entry from its key.
+		 * @param key the layout and deal number (see Leaderboard.key())
+		 * @param profile the player's name
+		 * @param seconds the time of the win in seconds
+		 * @param moves the number of moves of the win
+		 */
+		private Entry(long key, String profile, int seconds, int moves)
+		{
+			this.key = key;
+			this.profile = profile;
+			this.seconds = seconds;
+			this.moves = moves;
+		}
+
+		/**
+		 * Gets the deal number of the win.
+		 * @return the deal number
+		 */
+		public int getDealNumber()
+		{
+			return (int) key;
+		}
+
+		/**
+		 * Gets the player who won.
+		 * @return the player's name
+		 */
+		public String getProfile()
+		{
+			return profile;
+		}
+
+		/**
+		 * Gets the time of the win.
+		 * @return the time in seconds
+		 */
+		public int getSeconds()
+		{
+			return seconds;
+		}
+
+		/**
+		 * Gets the number of moves of the win.
+		 * @return the number of moves
+		 */
+		public int getMoves()
+		{
+			return moves;
+		}
+
+		/**
+		 * Gets the key (layout and deal number) of the win.
+		 * @return the key
+		 */
+		long getKey()
+		{
+			return key;
+		}
+
+		/**
+		 * Writes the win as a record: the key, the time, the moves and the
+		 * player's name in UTF-8 filled out with zeros.
+		 * @param record the bytes to write to
+		 * @return the record
+		 */
+		byte[] toBytes(byte[] record)
+		{
+			ByteBuffer bytes = ByteBuffer.wrap(record);
+			bytes.putLong(key).putInt(seconds).putInt(moves);
+			byte[] name = profile.getBytes(StandardCharsets.UTF_8);
+			bytes.put(name);
+			for (int next = name.length; next < PROFILE_BYTES; next++)
+				bytes.put((byte) 0);
+			return record;
+		}
+
+		/**
+		 * Reads a win from a record.
+		 * @param record the bytes of the record
+		 * @return the win
+		 */
+		static Entry fromBytes(byte[] record)
+		{
+			ByteBuffer bytes = ByteBuffer.wrap(record);
+			long key = bytes.getLong();
+			int seconds = bytes.getInt();
+			int moves = bytes.getInt();
+			int length = 0;
+			while (length < PROFILE_BYTES && record[16 + length] != 0)
+				length++;
+			return new Entry(key, new String(record, 16, length,
+					StandardCharsets.UTF_8), seconds, moves);
+		}
+
+		/**
+		 * Shortens a player's name to fit in a record without cutting a
+		 * character in half.
+		 * @param profile the player's name
+		 * @return the name that fits
+		 */
+		private static String trim(String profile)
+		{
+			while (profile.getBytes(StandardCharsets.UTF_8).length > PROFILE_BYTES)
+				profile = profile.substring(0, profile.length() - 1);
+			return profile;
+		}
+
+		/**
+		 * Returns the win as the player, time and moves.
+		 * @return the win as a String
+		 */
+		public String toString()
+		{
+			return String.format("%-16s %d:%02d %4d moves", profile,
+					seconds / 60, seconds % 60, moves);
+		}
+	}
+}
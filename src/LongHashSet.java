@@ -0,0 +1,113 @@
+import java.util.Arrays;
+
+/**
+ * A set of long values (such as Board hashes) stored in one open addressing
+ * array, so adding a value does not create any objects. The array doubles in
+ * size when it is half full.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class LongHashSet
+{
+	// Zero marks an empty slot, so a real zero is stored as this value
+	private static final long ZERO_KEY = 0x9E3779B97F4A7C15L;
+
+	// Variables to keep track of the slots and how many are used
+	private long[] slots;
+	private int size;
+	private int mask;
+
+	/**
+	 * Constructs a new empty LongHashSet with room for about the given number
+	 * of values before it has to grow.
+	 * @param expectedSize the number of values expected
+	 */
+	public LongHashSet(int expectedSize)
+	{
+		int capacity = 16;
+		while (capacity < 2 * expectedSize)
+			capacity *= 2;
+		slots = new long[capacity];
+		mask = capacity - 1;
+		size = 0;
+	}
+
+	/**
+	 * Adds a value to this set.
+	 * @param value the value to add
+	 * @return true if the value was added or false if it was already in the
+	 *         set
+	 */
+	public boolean add(long value)
+	{
+		if (value == 0)
+			value = ZERO_KEY;
+		int slot = (int) Board.mix(value) & mask;
+		while (slots[slot] != 0)
+		{
+			if (slots[slot] == value)
+				return false;
+			slot = slot + 1 & mask;
+		}
+		slots[slot] = value;
+		if (++size > slots.length / 2)
+			grow();
+		return true;
+	}
+
+	/**
+	 * Checks if a value is in this set.
+	 * @param value the value to look for
+	 * @return true if the value is in the set or false if not
+	 */
+	public boolean contains(long value)
+	{
+		if (value == 0)
+			value = ZERO_KEY;
+		int slot = (int) Board.mix(value) & mask;
+		while (slots[slot] != 0)
+		{
+			if (slots[slot] == value)
+				return true;
+			slot = slot + 1 & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the number of values in this set.
+	 * @return the number of values
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Removes every value from this set, keeping its current capacity.
+	 */
+	public void clear()
+	{
+		Arrays.fill(slots, 0);
+		size = 0;
+	}
+
+	/**
+	 * Doubles the number of slots and puts every value back in.
+	 */
+	private void grow()
+	{
+		long[] oldSlots = slots;
+		slots = new long[oldSlots.length * 2];
+		mask = slots.length - 1;
+		for (long value : oldSlots)
+			if (value != 0)
+			{
+				int slot = (int) Board.mix(value) & mask;
+				while (slots[slot] != 0)
+					slot = slot + 1 & mask;
+				slots[slot] = value;
+			}
+	}
+}
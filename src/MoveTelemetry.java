@@ -0,0 +1,297 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records how long the player thought before each move, with the kinds of
+ * hands the move went from and to and a few things about the position, so
+ * that TelemetryReport can show where players get stuck.
+ *
+ * Each move is packed into one long (see pack()) and put in a ring buffer
+ * without any locks: only the event thread adds to it and only the writer
+ * thread takes from it, and each side only moves its own index forward. The
+ * writer thread wakes up every DRAIN_MILLIS and appends what is in the buffer
+ * to the file as 8 byte records. If the writer falls behind and the buffer is
+ * full, new moves are dropped (and counted) rather than make the game wait.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class MoveTelemetry
+{
+	// Name of the telemetry file
+	public static final String TELEMETRY_FILE = "telemetry.dat";
+
+	// The first four bytes of a telemetry file, before the records
+	public static final int MAGIC = 0x4643544D; // "FCTM"
+	public static final int HEADER_SIZE = 4;
+
+	// Kinds of hands
+	public static final int CASCADE = 0;
+	public static final int FREECELL = 1;
+	public static final int FOUNDATION = 2;
+
+	// Number of records the ring buffer holds (a power of two) and how often
+	// the writer empties it
+	private static final int CAPACITY = 1 << 14;
+	private static final long DRAIN_MILLIS = 1000;
+
+	// The ring buffer and the number of records ever added and taken out
+	private final long[] ring = new long[CAPACITY];
+	private final AtomicLong added = new AtomicLong();
+	private final AtomicLong taken = new AtomicLong();
+	private long dropped;
+
+	// The file the records are appended to and the writer thread
+	private FileChannel channel;
+	private Thread writer;
+	private volatile boolean closed;
+
+	/**
+	 * Opens (or creates) the telemetry file and starts the writer thread.
+	 * @param file the file to append to
+	 * @throws IOException if the file cannot be opened
+	 */
+	public MoveTelemetry(File file) throws IOException
+	{
+		RandomAccessFile start = new RandomAccessFile(file, "rw");
+		try
+		{
+			if (start.length() < HEADER_SIZE)
+			{
+				start.setLength(0);
+				start.writeInt(MAGIC);
+			}
+
+			// Keep only whole records if the last write was cut short
+			long records = (start.length() - HEADER_SIZE) / 8;
+			if (start.length() != HEADER_SIZE + records * 8)
+				start.setLength(HEADER_SIZE + records * 8);
+		}
+		finally
+		{
+			start.close();
+		}
+
+		// Every write goes to the end of the file, even with another window
+		// adding to it at the same time
+		channel = new FileOutputStream(file, true).getChannel();
+
+		writer = new Thread("Telemetry writer")
+		{
+			public void run()
+			{
+				while (!closed)
+				{
+					LockSupport.parkNanos(DRAIN_MILLIS * 1000000L);
+					drain();
+				}
+				drain();
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+		Runtime.getRuntime().addShutdownHook(new Thread()
+		{
+			public void run()
+			{
+				close();
+			}
+		});
+	}
+
+	/**
+	 * Records one move. Only the event thread may call this.
+	 * @param thinkMillis the time from the last move to this one
+	 * @param fromType the kind of hand the cards came from
+	 * @param toType the kind of hand the cards went to
+	 * @param count the number of cards moved
+	 * @param cardsLeft the cards not on the Foundations after the move
+	 * @param openFreeCells the empty FreeCells after the move
+	 * @param emptyCascades the empty Cascades after the move
+	 * @return true if the move was recorded or false if the buffer was full
+	 */
+	public boolean record(long thinkMillis, int fromType, int toType,
+			int count, int cardsLeft, int openFreeCells, int emptyCascades)
+	{
+		long next = added.get();
+		if (next - taken.get() == CAPACITY)
+		{
+			dropped++;
+			return false;
+		}
+		ring[(int) next & (CAPACITY - 1)] = pack(thinkMillis, fromType,
+				toType, count, cardsLeft, openFreeCells, emptyCascades);
+		added.lazySet(next + 1);
+		return true;
+	}
+
+	/**
+	 * Gets the number of moves dropped because the buffer was full.
+	 * @return the number of dropped moves
+	 */
+	public long getDropped()
+	{
+		return dropped;
+	}
+
+	/**
+	 * Stops the writer thread after it writes what is left in the buffer.
+	 */
+	public void close()
+	{
+		if (closed)
+			return;
+		closed = true;
+		LockSupport.unpark(writer);
+		try
+		{
+			writer.join(DRAIN_MILLIS);
+		}
+		catch (InterruptedException exp)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Appends every record in the buffer to the file. Only the writer thread
+	 * calls this.
+	 */
+	private synchronized void drain()
+	{
+		long first = taken.get();
+		long last = added.get();
+		if (first == last)
+			return;
+
+		ByteBuffer bytes = ByteBuffer.allocate((int) (last - first) * 8);
+		for (long next = first; next < last; next++)
+			bytes.putLong(ring[(int) next & (CAPACITY - 1)]);
+		taken.lazySet(last);
+		bytes.flip();
+		try
+		{
+			while (bytes.hasRemaining())
+				channel.write(bytes);
+		}
+		catch (IOException exp)
+		{
+			System.out.println("Error writing telemetry");
+		}
+	}
+
+	/**
+	 * Packs a move into a long: the think time in the low 32 bits, then 2 bits
+	 * each for the from and to hand kinds, 7 bits each for the number of cards
+	 * moved and the cards left, and 4 bits each for the open FreeCells and
+	 * empty Cascades.
+	 * @param thinkMillis the think time (capped at 2^32 - 1 ms)
+	 * @param fromType the kind of hand the cards came from
+	 * @param toType the kind of hand the cards went to
+	 * @param count the number of cards moved
+	 * @param cardsLeft the cards not on the Foundations
+	 * @param openFreeCells the empty FreeCells
+	 * @param emptyCascades the empty Cascades
+	 * @return the packed record
+	 */
+	static long pack(long thinkMillis, int fromType, int toType, int count,
+			int cardsLeft, int openFreeCells, int emptyCascades)
+	{
+		return Math.min(Math.max(thinkMillis, 0), 0xFFFFFFFFL)
+				| (long) (fromType & 3) << 32 | (long) (toType & 3) << 34
+				| (long) (count & 0x7F) << 36
+				| (long) (cardsLeft & 0x7F) << 43
+				| (long) (openFreeCells & 0xF) << 50
+				| (long) (emptyCascades & 0xF) << 54;
+	}
+
+	/**
+	 * Gets the think time of a packed record.
+	 * @param record the packed record
+	 * @return the think time in milliseconds
+	 */
+	public static long getThinkMillis(long record)
+	{
+		return record & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Gets the kind of hand the cards came from.
+	 * @param record the packed record
+	 * @return CASCADE, FREECELL or FOUNDATION
+	 */
+	public static int getFromType(long record)
+	{
+		return (int) (record >>> 32 & 3);
+	}
+
+	/**
+	 * Gets the kind of hand the cards went to.
+	 * @param record the packed record
+	 * @return CASCADE, FREECELL or FOUNDATION
+	 */
+	public static int getToType(long record)
+	{
+		return (int) (record >>> 34 & 3);
+	}
+
+	/**
+	 * Gets the number of cards moved.
+	 * @param record the packed record
+	 * @return the number of cards
+	 */
+	public static int getCount(long record)
+	{
+		return (int) (record >>> 36 & 0x7F);
+	}
+
+	/**
+	 * Gets the number of cards not on the Foundations after the move.
+	 * @param record the packed record
+	 * @return the cards left
+	 */
+	public static int getCardsLeft(long record)
+	{
+		return (int) (record >>> 43 & 0x7F);
+	}
+
+	/**
+	 * Gets the number of empty FreeCells after the move.
+	 * @param record the packed record
+	 * @return the open FreeCells
+	 */
+	public static int getOpenFreeCells(long record)
+	{
+		return (int) (record >>> 50 & 0xF);
+	}
+
+	/**
+	 * Gets the number of empty Cascades after the move.
+	 * @param record the packed record
+	 * @return the empty Cascades
+	 */
+	public static int getEmptyCascades(long record)
+	{
+		return (int) (record >>> 54 & 0xF);
+	}
+
+	/**
+	 * Gets the kind of a GHand.
+	 * @param hand the GHand
+	 * @return CASCADE, FREECELL or FOUNDATION
+	 */
+	public static int typeOf(GHand hand)
+	{
+		if (hand instanceof FreeCell)
+			return FREECELL;
+		if (hand instanceof Foundation)
+			return FOUNDATION;
+		return CASCADE;
+	}
+}
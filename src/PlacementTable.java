@@ -0,0 +1,291 @@
+import java.util.Random;
+
+/**
+ * Answers the placement rules from tables built once, so that the rule
+ * checks in the tightest loops are an array read and a bit test instead of
+ * comparing the colours and ranks every time. Each table is indexed by card
+ * index (see CardCodec) and each row is a set of cards packed into a long the
+ * same way as a Bitboard.
+ *
+ * This is the only place the placement rules are written out: Card, Board,
+ * Bitboard and CardPanel all ask these tables.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public final class PlacementTable
+{
+	// For each card, the cards it can be placed on in a Cascade and the
+	// cards that can be placed on it in a Cascade (the same bit matrix turned
+	// on its side)
+	private static final long[] CASCADE_TARGETS = new long[CardCodec.NO_OF_CARDS];
+	private static final long[] CASCADE_PLACEABLE = new long[CardCodec.NO_OF_CARDS];
+
+	// For each card, the top Foundation cards it can be placed on
+	private static final long[] FOUNDATION_TARGETS = new long[CardCodec.NO_OF_CARDS];
+
+	// For each card, the next card of its suit (NOT_A_CARD after a King) and
+	// the card before it (NOT_A_CARD before an Ace)
+	private static final byte[] SUCCESSORS = new byte[CardCodec.NO_OF_CARDS];
+	private static final byte[] PREDECESSORS = new byte[CardCodec.NO_OF_CARDS];
+
+	// Number of card pairs to time and timing rounds
+	private static final int TIMED_PAIRS = 1 << 16;
+	private static final int DEFAULT_ROUNDS = 500;
+
+	static
+	{
+		for (int card = 0; card < CardCodec.NO_OF_CARDS; card++)
+		{
+			int rank = CardCodec.rankOf(card);
+			int suit = CardCodec.suitOf(card);
+			for (int other = 0; other < CardCodec.NO_OF_CARDS; other++)
+			{
+				int otherRank = CardCodec.rankOf(other);
+				int otherSuit = CardCodec.suitOf(other);
+
+				// Cascades need the opposite colour and one rank lower, and
+				// Foundations need the same suit and one rank higher
+				if (!(suit == otherSuit || suit + otherSuit == 5)
+						&& rank == otherRank - 1)
+				{
+					CASCADE_TARGETS[card] |= 1L << other;
+					CASCADE_PLACEABLE[other] |= 1L << card;
+				}
+				if (suit == otherSuit && rank == otherRank + 1)
+					FOUNDATION_TARGETS[card] |= 1L << other;
+			}
+			SUCCESSORS[card] = (byte) (rank == 13 ? CardCodec.NOT_A_CARD
+					: card + 1);
+			PREDECESSORS[card] = (byte) (rank == 1 ? CardCodec.NOT_A_CARD
+					: card - 1);
+		}
+	}
+
+	/**
+	 * There are no PlacementTable objects, only static methods.
+	 */
+	private PlacementTable()
+	{
+	}
+
+	/**
+	 * Checks if a card can be placed on a Cascade whose top card is the other
+	 * given card.
+	 * @param card the index of the card to place
+	 * @param cascadeCard the index of the top card of the Cascade
+	 * @return true if the card can be placed or false if not
+	 */
+	public static boolean canPlaceOnCascade(int card, int cascadeCard)
+	{
+		return (CASCADE_TARGETS[card] >>> cascadeCard & 1) != 0;
+	}
+
+	/**
+	 * Checks if a card can be placed on a Foundation whose top card is the
+	 * other given card.
+	 * @param card the index of the card to place
+	 * @param foundationCard the index of the top card of the Foundation
+	 * @return true if the card can be placed or false if not
+	 */
+	public static boolean canPlaceOnFoundation(int card, int foundationCard)
+	{
+		return (FOUNDATION_TARGETS[card] >>> foundationCard & 1) != 0;
+	}
+
+	/**
+	 * Gets the cards the given card can be placed on in a Cascade.
+	 * @param card the index of the card
+	 * @return the set of cards it can be placed on (see Bitboard)
+	 */
+	public static long cascadeTargets(int card)
+	{
+		return CASCADE_TARGETS[card];
+	}
+
+	/**
+	 * Gets the cards that can be placed on the given card in a Cascade.
+	 * @param card the index of the card
+	 * @return the set of cards that can be placed on it (see Bitboard)
+	 */
+	public static long cascadePlaceable(int card)
+	{
+		return CASCADE_PLACEABLE[card];
+	}
+
+	/**
+	 * Gets the next card of the same suit, which goes on the given card in a
+	 * Foundation.
+	 * @param card the index of the card
+	 * @return the index of the next card or NOT_A_CARD after a King
+	 */
+	public static int successor(int card)
+	{
+		return SUCCESSORS[card];
+	}
+
+	/**
+	 * Gets the card of the same suit one rank lower, which the given card
+	 * goes on in a Foundation.
+	 * @param card the index of the card
+	 * @return the index of the card before or NOT_A_CARD before an Ace
+	 */
+	public static int predecessor(int card)
+	{
+		return PREDECESSORS[card];
+	}
+
+	/**
+	 * Checks the tables against the rules worked out by hand for every pair
+	 * of cards, then times the tables against working out the rules on the
+	 * same random pairs, for both the card indexes and the Card objects.
+	 * @param args the number of timing rounds (optional)
+	 */
+	public static void main(String[] args)
+	{
+		int rounds = args.length > 0 ? Integer.parseInt(args[0])
+				: DEFAULT_ROUNDS;
+
+		// Every pair of cards
+		int differences = 0;
+		for (int card = 0; card < CardCodec.NO_OF_CARDS; card++)
+		{
+			for (int other = 0; other < CardCodec.NO_OF_CARDS; other++)
+			{
+				if (canPlaceOnCascade(card, other) != computeCascade(card, other))
+					differences++;
+				if (canPlaceOnFoundation(card, other) != computeFoundation(
+						card, other))
+					differences++;
+				if (canPlaceOnFoundation(card, other) != (successor(other) == card))
+					differences++;
+			}
+			if (predecessor(card) != CardCodec.NOT_A_CARD
+					&& successor(predecessor(card)) != card)
+				differences++;
+		}
+		System.out.printf("%,d pairs checked, %d differences%n",
+				CardCodec.NO_OF_CARDS * CardCodec.NO_OF_CARDS, differences);
+		if (differences > 0)
+			System.exit(1);
+
+		// The same random pairs for each way, about one in eight a match
+		Random random = new Random(48);
+		int[] cards = new int[TIMED_PAIRS];
+		int[] others = new int[TIMED_PAIRS];
+		Card[] cardObjects = new Card[TIMED_PAIRS];
+		Card[] otherObjects = new Card[TIMED_PAIRS];
+		for (int pair = 0; pair < TIMED_PAIRS; pair++)
+		{
+			cards[pair] = random.nextInt(CardCodec.NO_OF_CARDS);
+			others[pair] = random.nextInt(8) == 0 ? cards[pair] + 1
+					+ (random.nextBoolean() ? 12 : -14) : random
+					.nextInt(CardCodec.NO_OF_CARDS);
+			others[pair] = (others[pair] + CardCodec.NO_OF_CARDS)
+					% CardCodec.NO_OF_CARDS;
+			cardObjects[pair] = new Card(CardCodec.rankOf(cards[pair]),
+					CardCodec.suitOf(cards[pair]), true);
+			otherObjects[pair] = new Card(CardCodec.rankOf(others[pair]),
+					CardCodec.suitOf(others[pair]), true);
+		}
+
+		String[] names = { "Worked out (indexes)", "Table (indexes)",
+				"Worked out (Cards)", "Card (table)" };
+		long[] nanos = new long[names.length];
+		long[] matches = new long[names.length];
+		for (int round = 0; round < rounds; round++)
+			for (int way = 0; way < names.length; way++)
+			{
+				long startTime = System.nanoTime();
+				matches[way] += timePairs(way, cards, others, cardObjects,
+						otherObjects);
+				nanos[way] += System.nanoTime() - startTime;
+			}
+		for (int way = 0; way < names.length; way++)
+			System.out.printf("%-22s%6.2f ns per check, %,d matches%n",
+					names[way], (double) nanos[way] / rounds / TIMED_PAIRS / 2,
+					matches[way] / rounds);
+	}
+
+	/**
+	 * Helper method of main() that works out the Cascade rule by hand, the
+	 * way it was before these tables.
+	 * @param card the index of the card to place
+	 * @param cascadeCard the index of the top card of the Cascade
+	 * @return true if the card can be placed or false if not
+	 */
+	private static boolean computeCascade(int card, int cascadeCard)
+	{
+		int suit = CardCodec.suitOf(card);
+		int cascadeSuit = CardCodec.suitOf(cascadeCard);
+		return !(suit == cascadeSuit || suit + cascadeSuit == 5)
+				&& CardCodec.rankOf(card) == CardCodec.rankOf(cascadeCard) - 1;
+	}
+
+	/**
+	 * Helper method of main() that works out the Foundation rule by hand,
+	 * the way it was before these tables.
+	 * @param card the index of the card to place
+	 * @param foundationCard the index of the top card of the Foundation
+	 * @return true if the card can be placed or false if not
+	 */
+	private static boolean computeFoundation(int card, int foundationCard)
+	{
+		return CardCodec.suitOf(card) == CardCodec.suitOf(foundationCard)
+				&& CardCodec.rankOf(card) == CardCodec.rankOf(foundationCard) + 1;
+	}
+
+	/**
+	 * Helper method of main() that checks both rules on every pair one way.
+	 * @param way 0 to work them out from the indexes, 1 for the tables, 2 to
+	 *            work them out from the Cards' ranks and suits or 3 for the
+	 *            Card methods (which use the tables)
+	 * @param cards the indexes of the cards to place
+	 * @param others the indexes of the cards to place on
+	 * @param cardObjects the Cards to place
+	 * @param otherObjects the Cards to place on
+	 * @return the number of checks that passed
+	 */
+	private static int timePairs(int way, int[] cards, int[] others,
+			Card[] cardObjects, Card[] otherObjects)
+	{
+		int matches = 0;
+		for (int pair = 0; pair < cards.length; pair++)
+		{
+			if (way == 0)
+			{
+				if (computeCascade(cards[pair], others[pair]))
+					matches++;
+				if (computeFoundation(cards[pair], others[pair]))
+					matches++;
+			}
+			else if (way == 1)
+			{
+				if (canPlaceOnCascade(cards[pair], others[pair]))
+					matches++;
+				if (canPlaceOnFoundation(cards[pair], others[pair]))
+					matches++;
+			}
+			else if (way == 2)
+			{
+				Card card = cardObjects[pair];
+				Card other = otherObjects[pair];
+				int suit = card.getSuit();
+				int otherSuit = other.getSuit();
+				if (!(suit == otherSuit || suit + otherSuit == 5)
+						&& card.getRank() == other.getRank() - 1)
+					matches++;
+				if (suit == otherSuit && card.getRank() == other.getRank() + 1)
+					matches++;
+			}
+			else
+			{
+				if (cardObjects[pair].canPlaceOnCascade(otherObjects[pair]))
+					matches++;
+				if (cardObjects[pair].canPlaceOnFoundation(otherObjects[pair]))
+					matches++;
+			}
+		}
+		return matches;
+	}
+}
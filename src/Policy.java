@@ -0,0 +1,29 @@
+import java.util.SplittableRandom;
+
+/**
+ * Behaviour for a move selection policy used by SelfPlay to play games
+ * without a player. A Policy must not keep any state that is shared between
+ * games, since SelfPlay calls one Policy from many threads at once.
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public interface Policy
+{
+	/**
+	 * Chooses the next move to make.
+	 * @param board the current position (must not be changed)
+	 * @param moves the legal packed moves that lead to positions not yet seen
+	 *            in this game
+	 * @param noOfMoves the number of moves to choose from (at least one)
+	 * @param random the random number generator of the calling thread
+	 * @return the index of the chosen move in moves, or -1 to give up
+	 */
+	public int chooseMove(Board board, int[] moves, int noOfMoves,
+			SplittableRandom random);
+
+	/**
+	 * Gets the name of this Policy for reports.
+	 * @return the name of this Policy
+	 */
+	public String getName();
+}
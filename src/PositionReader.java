@@ -0,0 +1,429 @@
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads positions and solutions in the text layout written by PositionWriter
+ * (and by other FreeCell tools). Positions are separated by blank lines, the
+ * ":" at the start of a Cascade line is optional, and the Foundations and
+ * Freecells lines may be left out when they are empty. Foundation ranks may
+ * be written as letters (A, T, J, Q, K) or numbers (0 to 13).
+ *
+ * Text is read through one fixed size buffer and parsed straight into a Board
+ * that the caller passes in, so files of any size can be read using the same
+ * small amount of memory.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class PositionReader
+{
+	// Default size of the input buffer (the longest line that can be read)
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	// Variables to keep track of the stream, the layout of the solutions, the
+	// buffered bytes, the current line and the line number for error messages
+	private InputStream in;
+	private BoardLayout layout;
+	private byte[] buffer;
+	private int size;
+	private int next;
+	private int lineStart, lineEnd;
+	private long lineNumber;
+	private boolean endOfStream;
+
+	// Keeps track of which cards have been seen in the current position and
+	// whether a position was left part way through by an error
+	private int[] seen;
+	private boolean inPosition;
+
+	/**
+	 * Constructs a new PositionReader that reads standard games from the
+	 * given stream.
+	 * @param in the stream to read from
+	 */
+	public PositionReader(InputStream in)
+	{
+		this(in, BoardLayout.STANDARD, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Constructs a new PositionReader with the given buffer size.
+	 * @param in the stream to read from
+	 * @param layout the size of the games the solutions are for
+	 * @param bufferSize the size of the buffer (the longest line allowed)
+	 */
+	public PositionReader(InputStream in, BoardLayout layout, int bufferSize)
+	{
+		this.in = in;
+		this.layout = layout;
+		buffer = new byte[bufferSize];
+		size = 0;
+		next = 0;
+		lineNumber = 0;
+		endOfStream = false;
+		seen = new int[CardCodec.NO_OF_CARDS];
+		inPosition = false;
+	}
+
+	/**
+	 * Reads the next position into the given Board. The position must be for
+	 * the Board's layout.
+	 * @param board the Board to fill in (it is cleared first)
+	 * @return true if a position was read or false at the end of the stream
+	 * @throws IOException if the stream cannot be read or the position is not
+	 *             valid
+	 */
+	public boolean readPosition(Board board) throws IOException
+	{
+		// Skip blank lines before the position
+		inPosition = true;
+		if (!nextNonBlankLine())
+		{
+			inPosition = false;
+			return false;
+		}
+
+		BoardLayout boardLayout = board.getLayout();
+		board.clear();
+		for (int card = 0; card < seen.length; card++)
+			seen[card] = 0;
+		int cascade = 0;
+		do
+		{
+			if (startsWith("Foundations:"))
+				readFoundations(board, lineStart + 12);
+			else if (startsWith("Freecells:"))
+				readFreeCells(board, lineStart + 10);
+			else
+			{
+				if (cascade == boardLayout.getNoOfCascades())
+					throw error("too many cascades");
+				readCascade(board, cascade++);
+			}
+		}
+		while (nextLine() && !isBlank());
+		inPosition = false;
+
+		// Every card must be on the Board once for each deck
+		int decks = boardLayout.getNoOfDecks();
+		for (int card = 0; card < seen.length; card++)
+		{
+			int rank = CardCodec.rankOf(card);
+			int onFoundation = 0;
+			for (int foundation = 0; foundation < boardLayout
+					.getNoOfFoundations(); foundation++)
+				if (Board.getFoundationSuit(foundation) == CardCodec
+						.suitOf(card) && board.getFoundation(foundation) >= rank)
+					onFoundation++;
+			if (seen[card] + onFoundation != decks)
+				throw error("card " + CardCodec.encode(card, true)
+						+ (seen[card] + onFoundation < decks ? " is missing"
+								: " appears too many times"));
+		}
+		return true;
+	}
+
+	/**
+	 * Skips the rest of a position that readPosition() stopped part way
+	 * through because it was not valid, so the next position can be read.
+	 * Does nothing if the last position was read to its end.
+	 * @throws IOException if the stream cannot be read or a line is longer
+	 *             than the buffer
+	 */
+	public void skipPosition() throws IOException
+	{
+		if (inPosition)
+			while (nextLine() && !isBlank());
+		inPosition = false;
+	}
+
+	/**
+	 * Reads the next solution line into the given array. Each move's count
+	 * is left as zero and a move to 'h' goes to the first Foundation; use
+	 * Board.resolveCount() to fill in the count and the Foundation while
+	 * replaying.
+	 * @param moves the array to store the packed moves in
+	 * @return the number of moves read or -1 at the end of the stream
+	 * @throws IOException if the stream cannot be read, a move is not valid
+	 *             or there are more moves than fit in the array
+	 */
+	public int readSolution(int[] moves) throws IOException
+	{
+		if (!nextNonBlankLine())
+			return -1;
+
+		int count = 0;
+		int position = skipSpaces(lineStart);
+		while (position < lineEnd)
+		{
+			if (position + 1 >= lineEnd)
+				throw error("incomplete move");
+			int from = location(buffer[position], layout);
+			int to = location(buffer[position + 1], layout);
+			if (from < 0 || to < 0)
+				throw error("unknown move "
+						+ (char) buffer[position] + (char) buffer[position + 1]);
+			if (count == moves.length)
+				throw error("more than " + moves.length + " moves");
+			moves[count++] = Board.move(from, to, 0);
+			position = skipSpaces(position + 2);
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the number of the line that was read last (starting from 1).
+	 * @return the current line number
+	 */
+	public long getLineNumber()
+	{
+		return lineNumber;
+	}
+
+	/**
+	 * Closes the stream.
+	 * @throws IOException if the stream cannot be closed
+	 */
+	public void close() throws IOException
+	{
+		in.close();
+	}
+
+	/**
+	 * Gets the location number of a letter in the move notation.
+	 * @param letter the letter ('1' to '9' or '0', 'a' to 'g' or 'h')
+	 * @param layout the size of the game
+	 * @return the location number or -1 if the letter is not a location
+	 */
+	public static int location(int letter, BoardLayout layout)
+	{
+		int cascade = letter == '0' ? 9 : letter - '1';
+		if (cascade >= 0 && cascade < layout.getNoOfCascades()
+				&& letter <= '9')
+			return cascade;
+		if (letter >= 'a' && letter < 'a' + layout.getNoOfFreeCells())
+			return layout.getFirstFreeCell() + letter - 'a';
+		if (letter == 'h')
+			return layout.getFirstFoundation();
+		return -1;
+	}
+
+	/**
+	 * Reads a Foundations line such as "H-0 C-2 D-A S-K".
+	 * @param board the Board to fill in
+	 * @param position where the Foundations start in the buffer
+	 * @throws IOException if the line is not valid
+	 */
+	private void readFoundations(Board board, int position) throws IOException
+	{
+		position = skipSpaces(position);
+		while (position < lineEnd)
+		{
+			int suit = CardCodec.decode('A', (char) buffer[position]);
+			if (suit == CardCodec.NOT_A_CARD || position + 2 >= lineEnd
+					|| buffer[position + 1] != '-')
+				throw error("bad foundation");
+			suit = CardCodec.suitOf(suit);
+
+			// The rank is a letter, a single digit or the numbers 10 to 13
+			position += 2;
+			int rank;
+			if (buffer[position] >= '0' && buffer[position] <= '9')
+			{
+				rank = buffer[position++] - '0';
+				if (rank == 1 && position < lineEnd && buffer[position] >= '0'
+						&& buffer[position] <= '3')
+					rank = 10 + buffer[position++] - '0';
+			}
+			else
+			{
+				int card = CardCodec.decode((char) buffer[position++], 'C');
+				if (card == CardCodec.NOT_A_CARD)
+					throw error("bad foundation rank");
+				rank = CardCodec.rankOf(card);
+			}
+
+			// Use the first Foundation of this suit that is still empty
+			int foundation = suit - 1;
+			int noOfFoundations = board.getLayout().getNoOfFoundations();
+			while (foundation < noOfFoundations
+					&& board.getFoundation(foundation) != 0)
+				foundation += 4;
+			if (foundation >= noOfFoundations)
+				throw error("too many foundations");
+			board.setFoundation(foundation, rank);
+			position = skipSpaces(position);
+		}
+	}
+
+	/**
+	 * Reads a Freecells line such as "8H - - QS".
+	 * @param board the Board to fill in
+	 * @param position where the FreeCells start in the buffer
+	 * @throws IOException if the line is not valid
+	 */
+	private void readFreeCells(Board board, int position) throws IOException
+	{
+		int freeCell = 0;
+		position = skipSpaces(position);
+		while (position < lineEnd)
+		{
+			if (freeCell == board.getLayout().getNoOfFreeCells())
+				throw error("too many freecells");
+			if (buffer[position] == '-')
+				position++;
+			else
+			{
+				int card = readCard(position);
+				board.setFreeCell(freeCell, card);
+				position += 2;
+			}
+			freeCell++;
+			position = skipSpaces(position);
+		}
+	}
+
+	/**
+	 * Reads a Cascade line such as ": 4C 2C 9C" (bottom card first).
+	 * @param board the Board to fill in
+	 * @param cascade the Cascade to fill in
+	 * @throws IOException if the line is not valid
+	 */
+	private void readCascade(Board board, int cascade) throws IOException
+	{
+		int position = skipSpaces(lineStart);
+		if (position < lineEnd && buffer[position] == ':')
+			position = skipSpaces(position + 1);
+		while (position < lineEnd)
+		{
+			if (!board.hasRoom(cascade))
+				throw error("cascade too tall");
+			board.addToCascade(cascade, readCard(position));
+			position = skipSpaces(position + 2);
+		}
+	}
+
+	/**
+	 * Reads the two letter card at the given position and marks it as seen.
+	 * @param position where the card starts in the buffer
+	 * @return the index of the card
+	 * @throws IOException if the letters are not a card
+	 */
+	private int readCard(int position) throws IOException
+	{
+		int card = CardCodec.NOT_A_CARD;
+		if (position + 1 < lineEnd)
+			card = CardCodec.decode(buffer, position);
+		if (card == CardCodec.NOT_A_CARD)
+			throw error("bad card");
+		seen[card]++;
+		return card;
+	}
+
+	/**
+	 * Skips over spaces and tabs.
+	 * @param position the position in the buffer to start at
+	 * @return the position of the next character that is not a space
+	 */
+	private int skipSpaces(int position)
+	{
+		while (position < lineEnd
+				&& (buffer[position] == ' ' || buffer[position] == '\t'))
+			position++;
+		return position;
+	}
+
+	/**
+	 * Checks if the current line starts with the given text.
+	 * @param text the text to look for
+	 * @return true if the line starts with the text
+	 */
+	private boolean startsWith(String text)
+	{
+		if (lineEnd - lineStart < text.length())
+			return false;
+		for (int index = 0; index < text.length(); index++)
+			if (buffer[lineStart + index] != text.charAt(index))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Checks if the current line only has white space.
+	 * @return true if the line is blank
+	 */
+	private boolean isBlank()
+	{
+		return skipSpaces(lineStart) == lineEnd;
+	}
+
+	/**
+	 * Moves to the next line that is not blank.
+	 * @return true if there is one or false at the end of the stream
+	 * @throws IOException if the stream cannot be read
+	 */
+	private boolean nextNonBlankLine() throws IOException
+	{
+		while (nextLine())
+			if (!isBlank())
+				return true;
+		return false;
+	}
+
+	/**
+	 * Moves to the next line, reading more of the stream into the buffer when
+	 * needed. The line is from lineStart up to (not including) lineEnd with
+	 * any "\r" at the end removed.
+	 * @return true if there is a line or false at the end of the stream
+	 * @throws IOException if the stream cannot be read or a line is longer
+	 *             than the buffer
+	 */
+	private boolean nextLine() throws IOException
+	{
+		int scan = next;
+		while (true)
+		{
+			// Look for the end of the line in what has been read so far
+			while (scan < size && buffer[scan] != '\n')
+				scan++;
+			if (scan < size || endOfStream)
+				break;
+
+			// Move the start of the line to the front and read some more
+			if (next > 0)
+			{
+				System.arraycopy(buffer, next, buffer, 0, size - next);
+				size -= next;
+				scan -= next;
+				next = 0;
+			}
+			if (size == buffer.length)
+				throw error("line longer than " + buffer.length + " bytes");
+			int read = in.read(buffer, size, buffer.length - size);
+			if (read < 0)
+				endOfStream = true;
+			else
+				size += read;
+		}
+
+		if (next == size && endOfStream)
+			return false;
+		lineStart = next;
+		lineEnd = scan;
+		next = scan < size ? scan + 1 : scan;
+		if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r')
+			lineEnd--;
+		lineNumber++;
+		return true;
+	}
+
+	/**
+	 * Makes an exception for a problem on the current line.
+	 * @param message what is wrong
+	 * @return the exception to throw
+	 */
+	private IOException error(String message)
+	{
+		return new IOException("Line " + lineNumber + ": " + message);
+	}
+}
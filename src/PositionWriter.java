@@ -0,0 +1,256 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes Boards and solutions in the text layout used by other FreeCell tools.
+ * A position is written as a Foundations line, a Freecells line and one line
+ * for each Cascade (bottom card first), followed by a blank line:
+ *
+ * <pre>
+ * Foundations: H-0 C-2 D-A S-0
+ * Freecells: 8H - - -
+ * : 4C 2C 9C 8C QS 4S 2H
+ * ...
+ * </pre>
+ *
+ * A solution is written on one line as moves such as "1a 2h 34", where the
+ * Cascades are 1 to 9 then 0, the FreeCells are a to g and h is the
+ * Foundations.
+ * Everything goes through one fixed size buffer so writing a large file never
+ * creates more than a few objects.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class PositionWriter
+{
+	// Size of the output buffer
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	// Letters for each Foundation's rank (0 when empty) and suit
+	private static final String FOUNDATION_RANKS = "0A23456789TJQK";
+	private static final String SUIT_LETTERS = "CDHS";
+
+	// The longest a single line can be (a Cascade of every card of four
+	// decks)
+	private static final int MAX_LINE = 3 * 4 * CardCodec.NO_OF_CARDS + 16;
+
+	// Variables to keep track of where to write, the layout of the solutions
+	// and the buffered bytes
+	private OutputStream out;
+	private BoardLayout layout;
+	private byte[] buffer;
+	private int size;
+
+	/**
+	 * Constructs a new PositionWriter that writes standard games to the given
+	 * stream.
+	 * @param out the stream to write to
+	 */
+	public PositionWriter(OutputStream out)
+	{
+		this(out, BoardLayout.STANDARD);
+	}
+
+	/**
+	 * Constructs a new PositionWriter that writes solutions for the given
+	 * layout to the given stream.
+	 * @param out the stream to write to
+	 * @param layout the size of the games the solutions are for
+	 */
+	public PositionWriter(OutputStream out, BoardLayout layout)
+	{
+		this.out = out;
+		this.layout = layout;
+		buffer = new byte[BUFFER_SIZE];
+		size = 0;
+	}
+
+	/**
+	 * Writes the given Board as a position followed by a blank line.
+	 * @param board the Board to write
+	 * @throws IOException if the stream cannot be written to
+	 */
+	public void writePosition(Board board) throws IOException
+	{
+		BoardLayout boardLayout = board.getLayout();
+
+		// Foundations line
+		makeRoom();
+		writeAscii("Foundations:");
+		for (int foundation = 0; foundation < boardLayout.getNoOfFoundations(); foundation++)
+		{
+			buffer[size++] = ' ';
+			buffer[size++] = (byte) SUIT_LETTERS.charAt(Board
+					.getFoundationSuit(foundation) - 1);
+			buffer[size++] = '-';
+			buffer[size++] = (byte) FOUNDATION_RANKS.charAt(board
+					.getFoundation(foundation));
+		}
+		buffer[size++] = '\n';
+
+		// Freecells line
+		makeRoom();
+		writeAscii("Freecells:");
+		for (int freeCell = 0; freeCell < boardLayout.getNoOfFreeCells(); freeCell++)
+		{
+			buffer[size++] = ' ';
+			int card = board.getFreeCell(freeCell);
+			if (card == Board.EMPTY)
+				buffer[size++] = '-';
+			else
+				size = CardCodec.encode(card, true, buffer, size);
+		}
+		buffer[size++] = '\n';
+
+		// One line for each Cascade
+		for (int cascade = 0; cascade < boardLayout.getNoOfCascades(); cascade++)
+		{
+			makeRoom();
+			buffer[size++] = ':';
+			for (int card = 0; card < board.getHeight(cascade); card++)
+			{
+				buffer[size++] = ' ';
+				size = CardCodec.encode(board.getCascadeCard(cascade, card),
+						true, buffer, size);
+			}
+			buffer[size++] = '\n';
+		}
+		buffer[size++] = '\n';
+	}
+
+	/**
+	 * Writes the given moves as one solution line.
+	 * @param moves the packed moves (see Board.move())
+	 * @param count the number of moves to write
+	 * @throws IOException if the stream cannot be written to
+	 */
+	public void writeSolution(int[] moves, int count) throws IOException
+	{
+		for (int move = 0; move < count; move++)
+		{
+			if (BUFFER_SIZE - size < 4)
+				flushBuffer();
+			if (move > 0)
+				buffer[size++] = ' ';
+			buffer[size++] = (byte) locationLetter(Board.getFrom(moves[move]),
+					layout);
+			buffer[size++] = (byte) locationLetter(Board.getTo(moves[move]),
+					layout);
+		}
+		makeRoom();
+		buffer[size++] = '\n';
+	}
+
+	/**
+	 * Writes everything in the buffer to the stream and flushes the stream.
+	 * @throws IOException if the stream cannot be written to
+	 */
+	public void flush() throws IOException
+	{
+		flushBuffer();
+		out.flush();
+	}
+
+	/**
+	 * Flushes and closes the stream.
+	 * @throws IOException if the stream cannot be written to
+	 */
+	public void close() throws IOException
+	{
+		flush();
+		out.close();
+	}
+
+	/**
+	 * Gets the letter of a location in the move notation.
+	 * @param location the location number (see Board)
+	 * @param layout the size of the game
+	 * @return '1' to '9' or '0' (the tenth) for a Cascade, 'a' to 'g' for a
+	 *         FreeCell or 'h' for a Foundation
+	 */
+	public static char locationLetter(int location, BoardLayout layout)
+	{
+		if (location < layout.getFirstFreeCell())
+			return location == 9 ? '0' : (char) ('1' + location);
+		if (location < layout.getFirstFoundation())
+			return (char) ('a' + location - layout.getFirstFreeCell());
+		return 'h';
+	}
+
+	/**
+	 * Returns the given move of a standard game in the move notation.
+	 * @param move the packed move
+	 * @return the two letters of the move
+	 */
+	public static String toString(int move)
+	{
+		return toString(move, BoardLayout.STANDARD);
+	}
+
+	/**
+	 * Returns the given move in the move notation.
+	 * @param move the packed move
+	 * @param layout the size of the game
+	 * @return the two letters of the move
+	 */
+	public static String toString(int move, BoardLayout layout)
+	{
+		return "" + locationLetter(Board.getFrom(move), layout)
+				+ locationLetter(Board.getTo(move), layout);
+	}
+
+	/**
+	 * Returns the given Board as position text.
+	 * @param board the Board to write
+	 * @return the position text of the Board
+	 */
+	public static String toString(Board board)
+	{
+		try
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+			PositionWriter writer = new PositionWriter(bytes);
+			writer.writePosition(board);
+			writer.flush();
+			return bytes.toString("US-ASCII");
+		}
+		catch (IOException exp)
+		{
+			// Writing to memory cannot fail
+			throw new IllegalStateException(exp);
+		}
+	}
+
+	/**
+	 * Makes sure there is room in the buffer for the longest line.
+	 * @throws IOException if the stream cannot be written to
+	 */
+	private void makeRoom() throws IOException
+	{
+		if (BUFFER_SIZE - size < MAX_LINE)
+			flushBuffer();
+	}
+
+	/**
+	 * Writes the bytes in the buffer to the stream and empties the buffer.
+	 * @throws IOException if the stream cannot be written to
+	 */
+	private void flushBuffer() throws IOException
+	{
+		if (size > 0)
+			out.write(buffer, 0, size);
+		size = 0;
+	}
+
+	/**
+	 * Adds an ASCII String to the buffer (there must be room for it).
+	 * @param text the text to add
+	 */
+	private void writeAscii(String text)
+	{
+		for (int index = 0; index < text.length(); index++)
+			buffer[size++] = (byte) text.charAt(index);
+	}
+}
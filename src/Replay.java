@@ -0,0 +1,198 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Records a game as its starting position and its packed moves (see
+ * Board.move()) so that any point of the game can be looked at again. A copy
+ * of the position is kept every few moves, so going to any move starts from
+ * the nearest copy at or before it and makes fewer than that many moves, no
+ * matter how long the game is.
+ *
+ * Usage: java Replay [moves] [seeks]
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class Replay
+{
+	// Default number of moves between copies of the position
+	public static final int DEFAULT_INTERVAL = 16;
+
+	// Variables for the starting position, the moves and how often a copy is
+	// kept
+	private Board start;
+	private int[] moves;
+	private int noOfMoves;
+	private int interval;
+
+	// Copy k is the position after k * interval moves, and the position
+	// after every move so far
+	private ArrayList<Board> snapshots;
+	private Board last;
+
+	/**
+	 * Constructs a new Replay of a game with no moves yet.
+	 * @param start the starting position (it is copied)
+	 * @param interval the number of moves between copies of the position
+	 */
+	public Replay(Board start, int interval)
+	{
+		this.start = new Board(start);
+		this.interval = interval;
+		moves = new int[64];
+		noOfMoves = 0;
+		snapshots = new ArrayList<Board>();
+		snapshots.add(this.start);
+		last = new Board(start);
+	}
+
+	/**
+	 * Constructs a new Replay of a game with no moves yet that keeps a copy
+	 * every DEFAULT_INTERVAL moves.
+	 * @param start the starting position (it is copied)
+	 */
+	public Replay(Board start)
+	{
+		this(start, DEFAULT_INTERVAL);
+	}
+
+	/**
+	 * Adds the next move of the game.
+	 * @param move the packed move (with its count filled in)
+	 */
+	public void addMove(int move)
+	{
+		if (noOfMoves == moves.length)
+			moves = Arrays.copyOf(moves, noOfMoves * 2);
+		moves[noOfMoves++] = move;
+		last.apply(move);
+		if (noOfMoves % interval == 0)
+			snapshots.add(new Board(last));
+	}
+
+	/**
+	 * Takes back the last move of the game (for an undo).
+	 */
+	public void removeLastMove()
+	{
+		if (noOfMoves == 0)
+			return;
+		if (noOfMoves % interval == 0)
+			snapshots.remove(snapshots.size() - 1);
+		noOfMoves--;
+		seek(noOfMoves, last);
+	}
+
+	/**
+	 * Gets the number of moves in the game so far.
+	 * @return the number of moves
+	 */
+	public int getLength()
+	{
+		return noOfMoves;
+	}
+
+	/**
+	 * Gets one move of the game.
+	 * @param index the number of the move (starting from 0)
+	 * @return the packed move
+	 */
+	public int getMove(int index)
+	{
+		return moves[index];
+	}
+
+	/**
+	 * Gets the layout of the game.
+	 * @return the size of the game
+	 */
+	public BoardLayout getLayout()
+	{
+		return start.getLayout();
+	}
+
+	/**
+	 * Gets the position after every move so far.
+	 * @return a copy of the last position
+	 */
+	public Board getLastPosition()
+	{
+		return new Board(last);
+	}
+
+	/**
+	 * Finds the position after the given number of moves, starting from the
+	 * nearest copy and making fewer than interval moves.
+	 * @param moveNumber the number of moves made (0 for the start)
+	 * @param position the Board to put the position in
+	 * @return the given Board
+	 */
+	public Board seek(int moveNumber, Board position)
+	{
+		moveNumber = Math.max(0, Math.min(moveNumber, noOfMoves));
+		int snapshot = moveNumber / interval;
+		position.copyFrom(snapshots.get(snapshot));
+		for (int move = snapshot * interval; move < moveNumber; move++)
+			position.apply(moves[move]);
+		return position;
+	}
+
+	/**
+	 * Times going to random moves of a long random game against making every
+	 * move from the start.
+	 * @param args the number of moves in the game and the number of seeks
+	 *            (optional)
+	 */
+	public static void main(String[] args)
+	{
+		int length = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int seeks = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+		// Record a long game of random moves, taking a few back when stuck
+		Random random = new Random(1);
+		Board board = Deal.microsoft(1);
+		Replay replay = new Replay(board);
+		int[] moves = new int[Board.maxMoves(board.getLayout())];
+		while (replay.getLength() < length)
+		{
+			int noOfMoves = board.generateMoves(moves);
+			if (noOfMoves == 0)
+			{
+				for (int undo = 0; undo < 8; undo++)
+					replay.removeLastMove();
+				board = replay.getLastPosition();
+				continue;
+			}
+			int move = moves[random.nextInt(noOfMoves)];
+			board.apply(move);
+			replay.addMove(move);
+		}
+
+		Board position = new Board(board.getLayout());
+		long checksum = 0;
+		long startTime = System.nanoTime();
+		for (int seek = 0; seek < seeks; seek++)
+			checksum += replay.seek(random.nextInt(replay.getLength() + 1),
+					position).hash();
+		double seekNanos = (double) (System.nanoTime() - startTime) / seeks;
+
+		// Making every move from the start, as the Move history does
+		int slowSeeks = Math.max(1, seeks / 1000);
+		startTime = System.nanoTime();
+		for (int seek = 0; seek < slowSeeks; seek++)
+		{
+			int moveNumber = random.nextInt(replay.getLength() + 1);
+			position.copyFrom(replay.start);
+			for (int move = 0; move < moveNumber; move++)
+				position.apply(replay.moves[move]);
+			checksum += position.hash();
+		}
+		double replayNanos = (double) (System.nanoTime() - startTime)
+				/ slowSeeks;
+
+		System.out.printf("%,d moves, %d snapshots: seek %.0f ns, replay "
+				+ "from start %.0f ns (checksum %x)%n", replay.getLength(),
+				replay.snapshots.size(), seekNanos, replayNanos, checksum);
+	}
+}
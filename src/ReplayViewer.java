@@ -0,0 +1,201 @@
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Frame;
+import java.awt.Graphics;
+import java.awt.Point;
+
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSlider;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * Shows a recorded game with a timeline slider. Moving the slider goes to that
+ * move of the Replay, which only makes a few moves from the nearest copy of
+ * the position, so even long games can be scrubbed through smoothly.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class ReplayViewer extends JDialog implements ChangeListener
+{
+	// To remove yellow warning
+	private static final long serialVersionUID = 1L;
+
+	// Constants for the table layout (the same as CardPanel)
+	private static final Color TABLE_COLOUR = new Color(0, 140, 0);
+	private static final Color BASE_COLOUR = new Color(210, 210, 210, 100);
+	private static final int CASCADE_X = 30;
+	private static final int CASCADE_Y = 150;
+	private static final int CASCADE_SPACING = 95;
+	private static final int CARD_SPACING = 20;
+	private static final int TOP_X = 30;
+	private static final int TOP_Y = 30;
+	private static final int TOP_SPACING = 90;
+	private static final int FOUNDATION_GAP = 35;
+
+	// Variables for the game being shown
+	private Replay replay;
+	private BoardLayout layout;
+	private Board position;
+	private GCard[] faces;
+
+	// Variables for the timeline and the drawing area
+	private JSlider timeline;
+	private JLabel moveLabel;
+	private JPanel boardView;
+
+	/**
+	 * Constructs a new ReplayViewer showing the start of the given Replay.
+	 * @param owner the Frame that owns this dialog
+	 * @param replay the recorded game to show
+	 */
+	public ReplayViewer(Frame owner, Replay replay)
+	{
+		super(owner, "Replay", true);
+		this.replay = replay;
+		layout = replay.getLayout();
+		position = replay.seek(0, new Board(layout));
+		faces = new GCard[CardCodec.NO_OF_CARDS];
+
+		// Size the drawing area to fit the Cascades and the top row
+		int foundationX = TOP_X + layout.getNoOfFreeCells() * TOP_SPACING
+				+ FOUNDATION_GAP;
+		int width = Math.max(CASCADE_X + layout.getNoOfCascades()
+				* CASCADE_SPACING, foundationX + layout.getNoOfFoundations()
+				* TOP_SPACING);
+		int height = CASCADE_Y + (layout.getMaxCascadeHeight() - 1)
+				* CARD_SPACING + GCard.HEIGHT;
+		boardView = new JPanel()
+		{
+			// To remove yellow warning
+			private static final long serialVersionUID = 1L;
+
+			public void paintComponent(Graphics g)
+			{
+				super.paintComponent(g);
+				drawBoard(g);
+			}
+		};
+		boardView.setBackground(TABLE_COLOUR);
+		boardView.setPreferredSize(new Dimension(width, height));
+
+		// Set up the timeline and the move label below the drawing area
+		timeline = new JSlider(JSlider.HORIZONTAL, 0, replay.getLength(), 0);
+		timeline.addChangeListener(this);
+		moveLabel = new JLabel();
+		JPanel controls = new JPanel(new BorderLayout());
+		controls.add(timeline, BorderLayout.CENTER);
+		controls.add(moveLabel, BorderLayout.EAST);
+
+		setLayout(new BorderLayout());
+		add(boardView, BorderLayout.CENTER);
+		add(controls, BorderLayout.SOUTH);
+		updateLabel();
+		pack();
+		setLocationRelativeTo(owner);
+	}
+
+	/**
+	 * Goes to the move picked on the timeline. Every change is shown right
+	 * away (not only when the slider is let go) since seeking is cheap.
+	 * @param event the event that triggered this method
+	 */
+	public void stateChanged(ChangeEvent event)
+	{
+		if (event.getSource() == timeline)
+		{
+			replay.seek(timeline.getValue(), position);
+			updateLabel();
+			boardView.repaint();
+		}
+	}
+
+	/**
+	 * Shows the move number and the last move made in standard notation.
+	 */
+	private void updateLabel()
+	{
+		int moveNumber = timeline.getValue();
+		String lastMove = moveNumber == 0 ? "" : "  "
+				+ PositionWriter.toString(replay.getMove(moveNumber - 1),
+						layout);
+		moveLabel.setText(String.format(" Move %d of %d%s ", moveNumber,
+				replay.getLength(), lastMove));
+	}
+
+	/**
+	 * Draws the current position: the FreeCells and Foundations along the top
+	 * and the Cascades below.
+	 * @param g the Graphics context to draw in
+	 */
+	private void drawBoard(Graphics g)
+	{
+		for (int freeCell = 0; freeCell < layout.getNoOfFreeCells(); freeCell++)
+		{
+			int x = TOP_X + freeCell * TOP_SPACING;
+			drawBase(g, x, TOP_Y);
+			int card = position.getFreeCell(freeCell);
+			if (card != Board.EMPTY)
+				drawCard(g, card, x, TOP_Y);
+		}
+
+		int foundationX = TOP_X + layout.getNoOfFreeCells() * TOP_SPACING
+				+ FOUNDATION_GAP;
+		for (int foundation = 0; foundation < layout.getNoOfFoundations(); foundation++)
+		{
+			int x = foundationX + foundation * TOP_SPACING;
+			drawBase(g, x, TOP_Y);
+			int rank = position.getFoundation(foundation);
+			if (rank > 0)
+				drawCard(g, CardCodec.indexOf(rank, Board
+						.getFoundationSuit(foundation)), x, TOP_Y);
+		}
+
+		for (int cascade = 0; cascade < layout.getNoOfCascades(); cascade++)
+		{
+			int x = CASCADE_X + cascade * CASCADE_SPACING;
+			drawBase(g, x, CASCADE_Y);
+			for (int card = 0; card < position.getHeight(cascade); card++)
+				drawCard(g, position.getCascadeCard(cascade, card), x,
+						CASCADE_Y + card * CARD_SPACING);
+		}
+	}
+
+	/**
+	 * Draws the base of an empty spot, the same way as GHand.
+	 * @param g the Graphics context to draw in
+	 * @param x the x coordinate of the spot
+	 * @param y the y coordinate of the spot
+	 */
+	private void drawBase(Graphics g, int x, int y)
+	{
+		g.setColor(BASE_COLOUR);
+		g.fillRect(x, y, GCard.WIDTH, GCard.HEIGHT);
+		g.setColor(Color.BLACK);
+		g.drawRect(x, y, GCard.WIDTH, GCard.HEIGHT);
+	}
+
+	/**
+	 * Draws a face up card, loading its GCard the first time it is needed.
+	 * @param g the Graphics context to draw in
+	 * @param card the index of the card
+	 * @param x the x coordinate to draw at
+	 * @param y the y coordinate to draw at
+	 */
+	private void drawCard(Graphics g, int card, int x, int y)
+	{
+		if (faces[card] == null)
+		{
+			faces[card] = new GCard(CardCodec.rankOf(card), CardCodec
+					.suitOf(card), new Point());
+			if (!faces[card].isFaceUp())
+				faces[card].flip();
+		}
+		faces[card].setPosition(new Point(x, y));
+		faces[card].draw(g);
+	}
+}
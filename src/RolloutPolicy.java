@@ -0,0 +1,81 @@
+import java.util.SplittableRandom;
+
+/**
+ * A Policy that tries each move by playing a few short random games from the
+ * position it leads to, then makes the move whose random games got the most
+ * cards onto the Foundations on average.
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class RolloutPolicy implements Policy
+{
+	// Variables for the number and length of the random games for each move
+	private int rollouts;
+	private int depth;
+
+	/**
+	 * Constructs a new RolloutPolicy.
+	 * @param rollouts the number of random games to play for each move
+	 * @param depth the most moves in each random game
+	 */
+	public RolloutPolicy(int rollouts, int depth)
+	{
+		this.rollouts = rollouts;
+		this.depth = depth;
+	}
+
+	/**
+	 * Chooses the move with the best random games.
+	 * @param board the current position
+	 * @param moves the moves to choose from
+	 * @param noOfMoves the number of moves to choose from
+	 * @param random the random number generator of the calling thread
+	 * @return the index of the chosen move
+	 */
+	public int chooseMove(Board board, int[] moves, int noOfMoves,
+			SplittableRandom random)
+	{
+		Board child = new Board(board);
+		Board rollout = new Board(board);
+		int[] rolloutMoves = new int[Board.maxMoves(board.getLayout())];
+		int best = 0;
+		long bestTotal = Long.MAX_VALUE;
+		for (int move = 0; move < noOfMoves; move++)
+		{
+			child.copyFrom(board);
+			child.apply(moves[move]);
+			child.autoComplete(null, 0);
+
+			// Add up the cards left at the end of each random game
+			long total = 0;
+			for (int game = 0; game < rollouts; game++)
+			{
+				rollout.copyFrom(child);
+				for (int turn = 0; turn < depth && !rollout.isWon(); turn++)
+				{
+					int count = rollout.generateMoves(rolloutMoves);
+					if (count == 0)
+						break;
+					rollout.apply(rolloutMoves[random.nextInt(count)]);
+					rollout.autoComplete(null, 0);
+				}
+				total += rollout.cardsLeft();
+			}
+			if (total < bestTotal)
+			{
+				best = move;
+				bestTotal = total;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Gets the name of this Policy.
+	 * @return "random-rollout"
+	 */
+	public String getName()
+	{
+		return "random-rollout";
+	}
+}
@@ -0,0 +1,274 @@
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays numbered deals without a player or any graphics, choosing every move
+ * with a Policy, and reports how many games the Policy won and how many moves
+ * it took. Deals are handed out in blocks to one worker thread per core. Each
+ * game gets its own random number generator seeded from its deal number, so
+ * no generator is shared between threads and the results are the same for
+ * any number of threads.
+ *
+ * Usage: java SelfPlay [greedy | auto | rollout] [games] [first deal]
+ * [threads] [standard | double]
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class SelfPlay
+{
+	// Most moves in one game before it counts as a loss
+	public static final int MAX_MOVES = 1000;
+
+	// Number of deals each worker takes at a time
+	private static final int BLOCK_SIZE = 256;
+
+	// Variables for what to play
+	private Policy policy;
+	private BoardLayout layout;
+
+	/**
+	 * Constructs a new SelfPlay for the given Policy and layout.
+	 * @param policy the Policy to choose moves with
+	 * @param layout the size of the games
+	 */
+	public SelfPlay(Policy policy, BoardLayout layout)
+	{
+		this.policy = policy;
+		this.layout = layout;
+	}
+
+	/**
+	 * Plays a range of deal numbers on the given number of threads.
+	 * @param firstDeal the first deal number to play
+	 * @param games the number of deals to play
+	 * @param threads the number of worker threads
+	 * @return the combined results of every game
+	 * @throws Exception if a worker fails
+	 */
+	public Result play(final long firstDeal, final long games, int threads)
+			throws Exception
+	{
+		final AtomicLong nextBlock = new AtomicLong(0);
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		ArrayList<Future<Result>> futures = new ArrayList<Future<Result>>();
+		long startTime = System.nanoTime();
+		try
+		{
+			for (int thread = 0; thread < threads; thread++)
+				futures.add(workers.submit(new Callable<Result>()
+				{
+					public Result call()
+					{
+						// Keep taking blocks of deals until there are none left
+						Result result = new Result();
+						GameState game = new GameState(layout);
+						long block;
+						while ((block = nextBlock.getAndIncrement())
+								* BLOCK_SIZE < games)
+						{
+							long end = Math.min(games, (block + 1) * BLOCK_SIZE);
+							for (long deal = block * BLOCK_SIZE; deal < end; deal++)
+								result.add(playGame(game, firstDeal + deal));
+						}
+						return result;
+					}
+				}));
+
+			Result total = new Result();
+			for (Future<Result> future : futures)
+				total.merge(future.get());
+			total.nanos = System.nanoTime() - startTime;
+			return total;
+		}
+		finally
+		{
+			workers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Plays one deal until it is won, no new moves are left, the Policy gives
+	 * up or MAX_MOVES is reached. Safe moves to the Foundations are made after
+	 * every move, like auto complete in the game, and count as moves.
+	 * @param game the worker's reusable Board and arrays
+	 * @param dealNumber the deal number to play
+	 * @return the number of moves made if the game was won, or minus one
+	 *         minus the number of moves made if it was lost
+	 */
+	int playGame(GameState game, long dealNumber)
+	{
+		SplittableRandom random = new SplittableRandom(dealNumber);
+		Board board = game.board;
+		board.copyFrom(Deal.deal(layout, dealNumber));
+		game.seen.clear();
+		int movesMade = board.autoComplete(null, 0);
+		game.seen.add(board.hash());
+
+		while (!board.isWon() && movesMade < MAX_MOVES)
+		{
+			// Only offer moves that lead somewhere new so the Policy cannot
+			// go around in circles
+			int noOfMoves = board.generateMoves(game.moves);
+			int fresh = 0;
+			for (int move = 0; move < noOfMoves; move++)
+			{
+				game.child.copyFrom(board);
+				game.child.apply(game.moves[move]);
+				game.child.autoComplete(null, 0);
+				if (!game.seen.contains(game.child.hash()))
+					game.moves[fresh++] = game.moves[move];
+			}
+			if (fresh == 0)
+				break;
+
+			int chosen = policy.chooseMove(board, game.moves, fresh, random);
+			if (chosen < 0)
+				break;
+			board.apply(game.moves[chosen]);
+			movesMade += 1 + board.autoComplete(null, 0);
+			game.seen.add(board.hash());
+		}
+
+		if (board.isWon())
+			return movesMade;
+		return -1 - movesMade;
+	}
+
+	/**
+	 * Plays a range of deals with the Policy named on the command line and
+	 * prints the results.
+	 * @param args the Policy, number of games, first deal, number of threads
+	 *            and layout (all optional)
+	 * @throws Exception if a worker fails
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		String policyName = args.length > 0 ? args[0] : "greedy";
+		long games = args.length > 1 ? Long.parseLong(args[1]) : 10000;
+		long firstDeal = args.length > 2 ? Long.parseLong(args[2]) : 1;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime
+				.getRuntime().availableProcessors();
+		BoardLayout layout = args.length > 4 && args[4].equals("double") ? BoardLayout.DOUBLE
+				: BoardLayout.STANDARD;
+
+		Policy policy;
+		if (policyName.equals("auto"))
+			policy = new AutoCompletePolicy();
+		else if (policyName.equals("rollout"))
+			policy = new RolloutPolicy(4, 20);
+		else
+			policy = new GreedyPolicy();
+
+		Result result = new SelfPlay(policy, layout).play(firstDeal, games,
+				threads);
+		System.out.printf("%s, %s, deals %d to %d on %d threads%n",
+				policy.getName(), layout, firstDeal, firstDeal + games - 1,
+				threads);
+		System.out.println(result);
+	}
+
+	/**
+	 * An inner class for the Boards and arrays each worker reuses between
+	 * games.
+	 */
+	static class GameState
+	{
+		private Board board;
+		private Board child;
+		private int[] moves;
+		private LongHashSet seen;
+
+		/**
+		 * Constructs a new GameState for the given layout.
+		 * @param layout the size of the games
+		 */
+		public GameState(BoardLayout layout)
+		{
+			board = new Board(layout);
+			child = new Board(layout);
+			moves = new int[Board.maxMoves(layout)];
+			seen = new LongHashSet(MAX_MOVES);
+		}
+	}
+
+	/**
+	 * An inner class that adds up the results of many games.
+	 */
+	public static class Result
+	{
+		private long games;
+		private long wins;
+		private long moves;
+		private long winningMoves;
+		private long nanos;
+
+		/**
+		 * Adds the result of one game.
+		 * @param outcome the value returned by playGame()
+		 */
+		private void add(int outcome)
+		{
+			games++;
+			if (outcome >= 0)
+			{
+				wins++;
+				moves += outcome;
+				winningMoves += outcome;
+			}
+			else
+				moves += -1 - outcome;
+		}
+
+		/**
+		 * Adds the results of another Result to this one.
+		 * @param other the Result to add
+		 */
+		private void merge(Result other)
+		{
+			games += other.games;
+			wins += other.wins;
+			moves += other.moves;
+			winningMoves += other.winningMoves;
+		}
+
+		/**
+		 * Gets the number of games played.
+		 * @return the number of games
+		 */
+		public long getGames()
+		{
+			return games;
+		}
+
+		/**
+		 * Gets the number of games won.
+		 * @return the number of wins
+		 */
+		public long getWins()
+		{
+			return wins;
+		}
+
+		/**
+		 * Returns the win rate, move counts and speed.
+		 * @return a summary of the results
+		 */
+		public String toString()
+		{
+			double seconds = nanos / 1e9;
+			return String.format(
+					"%d games, %d won (%.2f%%), %.1f moves per game, "
+							+ "%.1f moves per win, %.1f s, %,.0f games/min",
+					games, wins, games == 0 ? 0.0 : 100.0 * wins / games,
+					games == 0 ? 0.0 : (double) moves / games,
+					wins == 0 ? 0.0 : (double) winningMoves / wins, seconds,
+					seconds == 0 ? 0.0 : games / seconds * 60);
+		}
+	}
+}
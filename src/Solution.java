@@ -0,0 +1,131 @@
+import java.util.Arrays;
+
+/**
+ * Keeps track of the result of solving a position: whether it was solved, the
+ * moves that solve it (including the automatic moves to the Foundations), the
+ * number of positions the Solver expanded and how long it took.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class Solution
+{
+	// Variables to keep track of the result
+	private boolean solved;
+	private int[] moves;
+	private long nodes;
+	private long nanos;
+
+	/**
+	 * Constructs a new Solution.
+	 * @param solved true if the position was solved
+	 * @param moves the packed moves that solve the position (empty if not
+	 *            solved)
+	 * @param nodes the number of positions expanded
+	 * @param nanos the time taken in nanoseconds
+	 */
+	public Solution(boolean solved, int[] moves, long nodes, long nanos)
+	{
+		this.solved = solved;
+		this.moves = moves;
+		this.nodes = nodes;
+		this.nanos = nanos;
+	}
+
+	/**
+	 * Checks if the position was solved.
+	 * @return true if a solution was found or false if not
+	 */
+	public boolean isSolved()
+	{
+		return solved;
+	}
+
+	/**
+	 * Gets the moves that solve the position.
+	 * @return a copy of the packed moves (see Board.move())
+	 */
+	public int[] getMoves()
+	{
+		return moves.clone();
+	}
+
+	/**
+	 * Gets one move of the solution.
+	 * @param index the number of the move (starting from 0)
+	 * @return the packed move
+	 */
+	public int getMove(int index)
+	{
+		return moves[index];
+	}
+
+	/**
+	 * Gets the number of moves in the solution.
+	 * @return the number of moves
+	 */
+	public int getLength()
+	{
+		return moves.length;
+	}
+
+	/**
+	 * Gets the number of positions the Solver expanded.
+	 * @return the number of positions expanded
+	 */
+	public long getNodes()
+	{
+		return nodes;
+	}
+
+	/**
+	 * Gets how long the Solver took in nanoseconds.
+	 * @return the time taken in nanoseconds
+	 */
+	public long getNanos()
+	{
+		return nanos;
+	}
+
+	/**
+	 * Gets how long the Solver took in milliseconds.
+	 * @return the time taken in milliseconds
+	 */
+	public double getMillis()
+	{
+		return nanos / 1e6;
+	}
+
+	/**
+	 * Checks if the other object is a Solution with the same moves.
+	 * @param other the object to compare to
+	 * @return true if both are solved (or not) with the same moves
+	 */
+	public boolean equals(Object other)
+	{
+		if (!(other instanceof Solution))
+			return false;
+		Solution solution = (Solution) other;
+		return solved == solution.solved && Arrays.equals(moves, solution.moves);
+	}
+
+	/**
+	 * Returns a hash code made from the moves.
+	 * @return the hash code of this Solution
+	 */
+	public int hashCode()
+	{
+		return Arrays.hashCode(moves);
+	}
+
+	/**
+	 * Returns a short summary of this Solution.
+	 * @return whether it was solved, the length, nodes and time
+	 */
+	public String toString()
+	{
+		return String.format("%s in %d moves, %d nodes, %.1f ms",
+				solved ? "solved" : "not solved", moves.length, nodes,
+				getMillis());
+	}
+}
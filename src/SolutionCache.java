@@ -0,0 +1,556 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Remembers the best known Solution of each deal on disk so that the same
+ * deals are not solved again and again. Deals are keyed by a hash of their
+ * layout and starting position (see keyOf()) that changes when the Cascades
+ * or FreeCells are in another order, since the moves of a Solution name them
+ * by their places. A Solution read back for a position is only given out if
+ * every move follows the rules from that position.
+ *
+ * The file is an append-only log of records. A new record is only added when
+ * it is shorter than the one already known, and the newest record of a deal
+ * wins. An index in memory keeps where the record of each deal starts, and the
+ * most recently used Solutions are kept in memory as well, dropping the least
+ * recently used one when there are too many. Appends take an exclusive lock on
+ * the file and reads of new records take a shared lock, so other programs can
+ * read and add to the same file at the same time. A record cut short by a
+ * crash fails its checksum and is written over by the next append.
+ *
+ * File format: the magic number "FCSC" and the version (two ints), then the
+ * records. Each record is its length (an int), the key (a long), whether it
+ * was solved (a byte), the nodes expanded and the time taken in nanoseconds
+ * (two longs), the number of moves and the packed moves (ints), and then the
+ * CRC32 of everything after the length (an int).
+ *
+ * Usage: java SolutionCache [deals] [file]
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class SolutionCache
+{
+	// Name of the default cache file and the default number of Solutions
+	// kept in memory
+	public static final String CACHE_FILE = "solutions.dat";
+	public static final int DEFAULT_HOT_SIZE = 1024;
+
+	// Constants for the file
+	private static final int MAGIC = 0x46435343;
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 8;
+
+	// Size of a record without its moves (length, key, solved, nodes, nanos,
+	// number of moves and checksum)
+	private static final int RECORD_OVERHEAD = 4 + 8 + 1 + 8 + 8 + 4 + 4;
+
+	// Size of the buffer used to read new records
+	private static final int SCAN_BUFFER_SIZE = 1 << 16;
+
+	// Variables for the file and how far it has been read
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private long scannedTo;
+
+	// Where each deal's newest record starts, its number of moves and the
+	// most recently used Solutions
+	private HashMap<Long, IndexEntry> index;
+	private LinkedHashMap<Long, Solution> hot;
+
+	// Counts of hits in memory, hits on disk and misses
+	private long hotHits, diskHits, misses;
+
+	/**
+	 * Opens the cache in the given file, creating the file if needed, and
+	 * reads every record into the index.
+	 * @param cacheFile the cache file
+	 * @param hotSize the most Solutions to keep in memory
+	 * @throws IOException if the file cannot be read or is not a cache
+	 */
+	public SolutionCache(File cacheFile, final int hotSize) throws IOException
+	{
+		file = new RandomAccessFile(cacheFile, "rw");
+		channel = file.getChannel();
+		index = new HashMap<Long, IndexEntry>();
+		hot = new LinkedHashMap<Long, Solution>(16, 0.75f, true)
+		{
+			// To remove yellow warning
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Long, Solution> eldest)
+			{
+				return size() > hotSize;
+			}
+		};
+
+		// Write the header if the file is new
+		FileLock lock = channel.lock();
+		try
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			if (channel.size() == 0)
+			{
+				header.putInt(MAGIC).putInt(VERSION).flip();
+				writeFully(header, 0);
+			}
+			else if (!readFully(header, 0) || header.getInt(0) != MAGIC
+					|| header.getInt(4) > VERSION)
+				throw new IOException(cacheFile + " is not a solution cache");
+			else if (header.getInt(4) < VERSION)
+			{
+				// Older versions used other keys, so start again
+				channel.truncate(0);
+				header.clear();
+				header.putInt(MAGIC).putInt(VERSION).flip();
+				writeFully(header, 0);
+			}
+			scannedTo = HEADER_SIZE;
+			refresh();
+		}
+		finally
+		{
+			lock.release();
+		}
+	}
+
+	/**
+	 * Opens the cache in the given file keeping the default number of
+	 * Solutions in memory.
+	 * @param cacheFile the cache file
+	 * @throws IOException if the file cannot be read or is not a cache
+	 */
+	public SolutionCache(File cacheFile) throws IOException
+	{
+		this(cacheFile, DEFAULT_HOT_SIZE);
+	}
+
+	/**
+	 * Gets the key of a deal: a hash of its layout and of every Cascade,
+	 * FreeCell and Foundation in order.
+	 * @param start the starting position of the deal
+	 * @return the key
+	 */
+	public static long keyOf(Board start)
+	{
+		BoardLayout layout = start.getLayout();
+		long key = Board.mix(layout.getNoOfDecks() << 16
+				| layout.getNoOfCascades() << 8 | layout.getNoOfFreeCells());
+		for (int cascade = 0; cascade < layout.getNoOfCascades(); cascade++)
+		{
+			int height = start.getHeight(cascade);
+			key = key * 0x100000001B3L + height;
+			for (int position = 0; position < height; position++)
+				key = key * 0x100000001B3L
+						+ start.getCascadeCard(cascade, position) + 1;
+		}
+		for (int freeCell = 0; freeCell < layout.getNoOfFreeCells(); freeCell++)
+			key = key * 0x100000001B3L + start.getFreeCell(freeCell) + 1;
+		for (int foundation = 0; foundation < layout.getNoOfFoundations(); foundation++)
+			key = key * 0x100000001B3L + start.getFoundation(foundation);
+		return Board.mix(key);
+	}
+
+	/**
+	 * Gets the best known Solution of the given deal, as long as every one
+	 * of its moves follows the rules from the starting position (and a
+	 * solved one ends in a win).
+	 * @param start the starting position of the deal
+	 * @return the Solution, or null if the deal is not in the cache or the
+	 *         Solution does not fit the position
+	 * @throws IOException if the file cannot be read
+	 */
+	public Solution get(Board start) throws IOException
+	{
+		Solution solution = get(keyOf(start));
+		if (solution == null || !fits(start, solution))
+			return null;
+		return solution;
+	}
+
+	/**
+	 * Helper method of get() that plays a Solution from a position, checking
+	 * each move before making it.
+	 * @param start the starting position
+	 * @param solution the Solution
+	 * @return true if every move is legal and a solved Solution ends in a
+	 *         win, or false if not
+	 */
+	private static boolean fits(Board start, Solution solution)
+	{
+		Board board = new Board(start);
+		for (int move = 0; move < solution.getLength(); move++)
+		{
+			if (!board.isLegal(solution.getMove(move)))
+				return false;
+			board.apply(solution.getMove(move));
+		}
+		return !solution.isSolved() || board.isWon();
+	}
+
+	/**
+	 * Gets the best known Solution of the deal with the given key, without
+	 * checking it against a position.
+	 * @param key the key of the deal (see keyOf())
+	 * @return the Solution, or null if the deal is not in the cache
+	 * @throws IOException if the file cannot be read
+	 */
+	public synchronized Solution get(long key) throws IOException
+	{
+		Solution solution = hot.get(key);
+		if (solution != null)
+		{
+			hotHits++;
+			return solution;
+		}
+
+		// Another program may have added the deal since it was last looked at
+		IndexEntry entry = index.get(key);
+		if (entry == null)
+		{
+			FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+			try
+			{
+				refresh();
+			}
+			finally
+			{
+				lock.release();
+			}
+			entry = index.get(key);
+		}
+		if (entry == null)
+		{
+			misses++;
+			return null;
+		}
+
+		solution = readRecord(entry.offset, entry.noOfMoves);
+		diskHits++;
+		hot.put(key, solution);
+		return solution;
+	}
+
+	/**
+	 * Adds a Solution of the given deal if it is better than the one known:
+	 * a solved Solution beats an unsolved one and a shorter one beats a longer
+	 * one.
+	 * @param start the starting position of the deal
+	 * @param solution the Solution to add
+	 * @return true if the Solution was added or false if a better one is known
+	 * @throws IOException if the file cannot be written
+	 */
+	public boolean put(Board start, Solution solution) throws IOException
+	{
+		return put(keyOf(start), solution);
+	}
+
+	/**
+	 * Adds a Solution of the deal with the given key if it is better than the
+	 * one known.
+	 * @param key the key of the deal (see keyOf())
+	 * @param solution the Solution to add
+	 * @return true if the Solution was added or false if a better one is known
+	 * @throws IOException if the file cannot be written
+	 */
+	public synchronized boolean put(long key, Solution solution)
+			throws IOException
+	{
+		ByteBuffer record = encode(key, solution);
+		FileLock lock = channel.lock();
+		try
+		{
+			// Read what other programs have added so that the check sees
+			// their Solutions and the append goes after their records
+			refresh();
+			if (!isBetter(solution, index.get(key)))
+				return false;
+
+			long offset = scannedTo;
+			writeFully(record, offset);
+			scannedTo = offset + record.capacity();
+			if (channel.size() > scannedTo)
+				channel.truncate(scannedTo);
+			index.put(key, new IndexEntry(offset, solution.getLength(),
+					solution.isSolved()));
+			hot.put(key, solution);
+			return true;
+		}
+		finally
+		{
+			lock.release();
+		}
+	}
+
+	/**
+	 * Gets the Solution of the given deal from the cache, or solves it and
+	 * adds the Solution if it is not there.
+	 * @param solver the Solver to use on a miss
+	 * @param start the starting position of the deal
+	 * @return the Solution
+	 * @throws IOException if the file cannot be read or written
+	 */
+	public Solution solve(Solver solver, Board start) throws IOException
+	{
+		Solution solution = get(start);
+		if (solution == null)
+		{
+			solution = solver.solve(start);
+			put(start, solution);
+		}
+		return solution;
+	}
+
+	/**
+	 * Gets the number of deals in the cache.
+	 * @return the number of deals
+	 */
+	public synchronized int size()
+	{
+		return index.size();
+	}
+
+	/**
+	 * Returns the number of deals and how many lookups were hits in memory,
+	 * hits on disk and misses.
+	 * @return a summary of the cache
+	 */
+	public synchronized String toString()
+	{
+		return String.format("%d deals, %d in memory, %d memory hits, "
+				+ "%d disk hits, %d misses", index.size(), hot.size(),
+				hotHits, diskHits, misses);
+	}
+
+	/**
+	 * Closes the cache file.
+	 * @throws IOException if the file cannot be closed
+	 */
+	public synchronized void close() throws IOException
+	{
+		file.close();
+	}
+
+	/**
+	 * Reads the records added to the file since it was last read into the
+	 * index. Stops at the end of the file or at a record that is cut short or
+	 * fails its checksum.
+	 * @throws IOException if the file cannot be read
+	 */
+	private void refresh() throws IOException
+	{
+		long size = channel.size();
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		CRC32 crc = new CRC32();
+		while (scannedTo + 4 <= size)
+		{
+			// Read as many whole records as fit in the buffer
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), size - scannedTo));
+			if (!readFully(buffer, scannedTo))
+				return;
+
+			int recordStart = 0;
+			int length = 0;
+			while (recordStart + 4 <= buffer.limit())
+			{
+				length = buffer.getInt(recordStart);
+				if (length < RECORD_OVERHEAD
+						|| (length - RECORD_OVERHEAD) % 4 != 0
+						|| scannedTo + recordStart + length > size)
+				{
+					scannedTo += recordStart;
+					return;
+				}
+				if (recordStart + length > buffer.limit())
+					break;
+
+				// Check the record before adding it to the index
+				crc.reset();
+				crc.update(buffer.array(), recordStart + 4, length - 8);
+				if ((int) crc.getValue() != buffer.getInt(recordStart + length
+						- 4))
+				{
+					scannedTo += recordStart;
+					return;
+				}
+				long key = buffer.getLong(recordStart + 4);
+				boolean solved = buffer.get(recordStart + 12) != 0;
+				int noOfMoves = buffer.getInt(recordStart + 29);
+				index.put(key, new IndexEntry(scannedTo + recordStart,
+						noOfMoves, solved));
+				hot.remove(key);
+				recordStart += length;
+			}
+
+			// Grow the buffer if one record does not fit in it
+			if (recordStart == 0)
+				buffer = ByteBuffer.allocate(length);
+			scannedTo += recordStart;
+		}
+	}
+
+	/**
+	 * Reads the record at the given place in the file.
+	 * @param offset where the record starts
+	 * @param noOfMoves the number of moves in the record
+	 * @return the Solution in the record
+	 * @throws IOException if the record cannot be read or fails its checksum
+	 */
+	private Solution readRecord(long offset, int noOfMoves) throws IOException
+	{
+		ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + 4 * noOfMoves);
+		if (!readFully(record, offset))
+			throw new IOException("Record at " + offset + " is cut short");
+
+		CRC32 crc = new CRC32();
+		crc.update(record.array(), 4, record.capacity() - 8);
+		if ((int) crc.getValue() != record.getInt(record.capacity() - 4))
+			throw new IOException("Record at " + offset + " is damaged");
+
+		record.position(4 + 8);
+		boolean solved = record.get() != 0;
+		long nodes = record.getLong();
+		long nanos = record.getLong();
+		int[] moves = new int[record.getInt()];
+		for (int move = 0; move < moves.length; move++)
+			moves[move] = record.getInt();
+		return new Solution(solved, moves, nodes, nanos);
+	}
+
+	/**
+	 * Makes the record for a Solution.
+	 * @param key the key of the deal (see keyOf())
+	 * @param solution the Solution
+	 * @return the record, ready to write
+	 */
+	private static ByteBuffer encode(long key, Solution solution)
+	{
+		int length = RECORD_OVERHEAD + 4 * solution.getLength();
+		ByteBuffer record = ByteBuffer.allocate(length);
+		record.putInt(length);
+		record.putLong(key);
+		record.put((byte) (solution.isSolved() ? 1 : 0));
+		record.putLong(solution.getNodes());
+		record.putLong(solution.getNanos());
+		record.putInt(solution.getLength());
+		for (int move = 0; move < solution.getLength(); move++)
+			record.putInt(solution.getMove(move));
+
+		CRC32 crc = new CRC32();
+		crc.update(record.array(), 4, length - 8);
+		record.putInt((int) crc.getValue());
+		record.flip();
+		return record;
+	}
+
+	/**
+	 * Checks if a Solution is better than the known one.
+	 * @param solution the new Solution
+	 * @param known the index entry of the known Solution (or null)
+	 * @return true if the new Solution is better
+	 */
+	private static boolean isBetter(Solution solution, IndexEntry known)
+	{
+		if (known == null)
+			return true;
+		if (solution.isSolved() != known.solved)
+			return solution.isSolved();
+		return solution.isSolved() && solution.getLength() < known.noOfMoves;
+	}
+
+	/**
+	 * Reads from the file until the buffer is full.
+	 * @param buffer the buffer to fill
+	 * @param position where in the file to start reading
+	 * @return true if the buffer was filled or false if the file ended
+	 * @throws IOException if the file cannot be read
+	 */
+	private boolean readFully(ByteBuffer buffer, long position)
+			throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			int read = channel.read(buffer, position);
+			if (read < 0)
+				return false;
+			position += read;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the whole buffer to the file.
+	 * @param buffer the buffer to write
+	 * @param position where in the file to start writing
+	 * @throws IOException if the file cannot be written
+	 */
+	private void writeFully(ByteBuffer buffer, long position)
+			throws IOException
+	{
+		while (buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+
+	/**
+	 * Solves a range of Microsoft deals through the cache twice and prints
+	 * how long the lookups took.
+	 * @param args the number of deals and the cache file (optional)
+	 * @throws IOException if the file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int deals = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		File cacheFile = new File(args.length > 1 ? args[1] : CACHE_FILE);
+		SolutionCache cache = new SolutionCache(cacheFile);
+		Solver solver = new Solver();
+		try
+		{
+			for (int pass = 1; pass <= 2; pass++)
+			{
+				long startTime = System.nanoTime();
+				for (int deal = 1; deal <= deals; deal++)
+					cache.solve(solver, Deal.microsoft(deal));
+				System.out.printf("Pass %d: %.1f us per deal%n", pass,
+						(System.nanoTime() - startTime) / 1e3 / deals);
+			}
+			System.out.println(cache);
+		}
+		finally
+		{
+			cache.close();
+		}
+	}
+
+	/**
+	 * An inner class for where a record starts in the file, how many moves
+	 * its Solution has and whether it was solved.
+	 */
+	private static class IndexEntry
+	{
+		private long offset;
+		private int noOfMoves;
+		private boolean solved;
+
+		/**
+		 * Constructs a new IndexEntry.
+		 * @param offset where the record starts in the file
+		 * @param noOfMoves the number of moves in the Solution
+		 * @param solved true if the Solution was solved
+		 */
+		public IndexEntry(long offset, int noOfMoves, boolean solved)
+		{
+			this.offset = offset;
+			this.noOfMoves = noOfMoves;
+			this.solved = solved;
+		}
+	}
+}
@@ -0,0 +1,386 @@
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks solutions from players and other solvers by making every move on a
+ * packed Board with the same rules as Card and Tableau. The first illegal
+ * move stops the check with an error that says which move it was and why it
+ * is not allowed, and a solution whose moves are all legal must also leave
+ * the game won. Moves read from the move notation (a count of zero and any
+ * Foundation for 'h') are filled in the same way as a Replay would.
+ *
+ * Many solutions can be checked at once, handed out in blocks to worker
+ * threads that each reuse one Board, so checking does not create any objects
+ * for a valid solution besides its Result.
+ *
+ * Usage: java SolutionValidator [deals] [rounds] [threads]
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class SolutionValidator
+{
+	// Number of solutions each worker takes at a time
+	private static final int BLOCK_SIZE = 64;
+
+	// The position the moves are made on (reused between solutions)
+	private Board board;
+
+	/**
+	 * Constructs a new SolutionValidator. Each thread needs its own.
+	 */
+	public SolutionValidator()
+	{
+	}
+
+	/**
+	 * Checks a solution from the given deal.
+	 * @param deal the starting position (it is not changed)
+	 * @param moves the packed moves of the solution
+	 * @return the Result, which says which move is wrong if it is not valid
+	 */
+	public Result validate(Board deal, int[] moves)
+	{
+		return validate(deal, moves, moves.length);
+	}
+
+	/**
+	 * Checks the first moves of an array as a solution from the given deal.
+	 * @param deal the starting position (it is not changed)
+	 * @param moves the packed moves of the solution
+	 * @param noOfMoves the number of moves in the solution
+	 * @return the Result, which says which move is wrong if it is not valid
+	 */
+	public Result validate(Board deal, int[] moves, int noOfMoves)
+	{
+		if (board == null || board.getLayout() != deal.getLayout())
+			board = new Board(deal);
+		else
+			board.copyFrom(deal);
+
+		for (int index = 0; index < noOfMoves; index++)
+		{
+			int move = normalize(board, moves[index]);
+			if (!board.isLegal(move))
+				return new Result(index, "move " + (index + 1) + " ("
+						+ PositionWriter.toString(move, board.getLayout())
+						+ "): " + explain(board, move));
+			board.apply(move);
+		}
+
+		if (!board.isWon())
+			return new Result(noOfMoves, "the game is not won after "
+					+ noOfMoves + " moves, " + board.cardsLeft()
+					+ " cards are left");
+		return new Result(noOfMoves, null);
+	}
+
+	/**
+	 * Fills in a move read from the move notation: the number of cards and,
+	 * for a move to the Foundations, the Foundation of the card's suit (see
+	 * Board.resolveCount()). The notation has one 'h' for all the
+	 * Foundations, so a single card moved with a count to any Foundation is
+	 * read again the same way.
+	 * @param board the position before the move
+	 * @param move the packed move, possibly with a count of zero
+	 * @return the packed move ready to check
+	 */
+	private static int normalize(Board board, int move)
+	{
+		BoardLayout layout = board.getLayout();
+		int from = Board.getFrom(move);
+		int to = Board.getTo(move);
+		if (to >= layout.getFirstFoundation() && Board.getCount(move) == 1)
+			move = Board.move(from, to, 0);
+		if (Board.getCount(move) != 0)
+			return move;
+		if (from >= layout.getNoOfLocations()
+				|| to >= layout.getNoOfLocations())
+			return Board.move(from, to, 1);
+		return board.resolveCount(move);
+	}
+
+	/**
+	 * Works out why a move is not legal. This is only called once a move has
+	 * failed, so it can take its time.
+	 * @param board the position before the move
+	 * @param move the packed move that failed
+	 * @return the reason the move is not allowed
+	 */
+	static String explain(Board board, int move)
+	{
+		BoardLayout layout = board.getLayout();
+		int from = Board.getFrom(move);
+		int to = Board.getTo(move);
+		int count = Board.getCount(move);
+		if (from >= layout.getNoOfLocations() || to >= layout.getNoOfLocations())
+			return "there is no such location";
+		if (from == to)
+			return "the cards move to where they already are";
+		if (from >= layout.getFirstFoundation())
+			return "cards cannot move off the Foundations";
+		if (count < 1)
+			return "no cards are moved";
+
+		// Check the cards being picked up
+		String fromName = name(from, layout);
+		int available = from < layout.getFirstFreeCell() ? board
+				.getRunLength(from) : board.cardAt(from) == Board.EMPTY ? 0
+				: 1;
+		if (available == 0)
+			return fromName + " is empty";
+		if (from >= layout.getFirstFreeCell() && count > 1)
+			return "only one card can move from " + fromName;
+		if (count > available)
+			return "only the top " + available + " cards of " + fromName
+					+ " are in order, not " + count;
+		int card = from < layout.getFirstFreeCell() ? board.getCascadeCard(
+				from, board.getHeight(from) - count) : board.cardAt(from);
+		String cardName = CardCodec.encode(card, true);
+
+		// Check where they go
+		if (to >= layout.getFirstFoundation())
+		{
+			if (count > 1)
+				return "only one card at a time can go on a Foundation";
+			int rank = board.getFoundation(to - layout.getFirstFoundation());
+			if (Board.getFoundationSuit(to - layout.getFirstFoundation()) != CardCodec
+					.suitOf(card))
+				return cardName + " is not the suit of the Foundation";
+			return cardName + " cannot go on a Foundation at "
+					+ (rank == 0 ? "no cards" : CardCodec.encode(CardCodec
+							.indexOf(rank, CardCodec.suitOf(card)), true));
+		}
+		if (to >= layout.getFirstFreeCell())
+		{
+			if (count > 1)
+				return "only one card at a time can go in a FreeCell";
+			return name(to, layout) + " already holds "
+					+ CardCodec.encode(board.cardAt(to), true);
+		}
+		boolean toEmpty = board.getHeight(to) == 0;
+		if (count > board.maxCardsMovable(toEmpty))
+			return "only " + board.maxCardsMovable(toEmpty) + " cards can move "
+					+ "with " + board.getNoOfOpenFreeCells() + " open FreeCells "
+					+ "and " + board.getNoOfOpenCascades() + " empty Cascades, "
+					+ "not " + count;
+		return cardName + " cannot go on "
+				+ CardCodec.encode(board.getTopCard(to), true);
+	}
+
+	/**
+	 * Gets the name of a location for an error message.
+	 * @param location the location number
+	 * @param layout the size of the game
+	 * @return the name such as "Cascade 3" or "FreeCell b"
+	 */
+	private static String name(int location, BoardLayout layout)
+	{
+		char letter = PositionWriter.locationLetter(location, layout);
+		if (location < layout.getFirstFreeCell())
+			return "Cascade " + letter;
+		if (location < layout.getFirstFoundation())
+			return "FreeCell " + letter;
+		return "the Foundations";
+	}
+
+	/**
+	 * Checks many solutions on the given number of threads.
+	 * @param deals the starting position of each solution
+	 * @param solutions the packed moves of each solution
+	 * @param threads the number of worker threads
+	 * @return the Result of each solution, in the same order
+	 * @throws Exception if a worker fails
+	 */
+	public static Result[] validateAll(final Board[] deals,
+			final int[][] solutions, int threads) throws Exception
+	{
+		final Result[] results = new Result[deals.length];
+		final AtomicInteger nextBlock = new AtomicInteger(0);
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		ArrayList<Future<Object>> futures = new ArrayList<Future<Object>>();
+		try
+		{
+			for (int thread = 0; thread < threads; thread++)
+				futures.add(workers.submit(new Callable<Object>()
+				{
+					public Object call()
+					{
+						// Keep taking blocks of solutions until none are left
+						SolutionValidator validator = new SolutionValidator();
+						int block;
+						while ((block = nextBlock.getAndIncrement())
+								* BLOCK_SIZE < deals.length)
+						{
+							int end = Math.min(deals.length, (block + 1)
+									* BLOCK_SIZE);
+							for (int index = block * BLOCK_SIZE; index < end; index++)
+								results[index] = validator.validate(
+										deals[index], solutions[index]);
+						}
+						return null;
+					}
+				}));
+
+			for (Future<Object> future : futures)
+				future.get();
+			return results;
+		}
+		finally
+		{
+			workers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Solves some Microsoft deals, breaks a few of the solutions on purpose
+	 * and times checking all of them many times over.
+	 * @param args the number of deals, rounds and threads (all optional)
+	 * @throws Exception if a worker fails
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int noOfDeals = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime
+				.getRuntime().availableProcessors();
+
+		Solver solver = new Solver();
+		ArrayList<Board> dealList = new ArrayList<Board>();
+		ArrayList<int[]> solutionList = new ArrayList<int[]>();
+		for (int deal = 1; deal <= noOfDeals; deal++)
+		{
+			Board board = Deal.microsoft(deal);
+			Solution solution = solver.solve(board);
+			if (solution.isSolved())
+			{
+				dealList.add(board);
+				solutionList.add(solution.getMoves());
+			}
+		}
+
+		// Break every tenth solution: drop a move, swap two moves or stop
+		// early
+		for (int index = 0; index < solutionList.size(); index += 10)
+		{
+			int[] moves = solutionList.get(index);
+			int middle = moves.length / 2;
+			if (index % 30 == 0)
+			{
+				int[] shorter = new int[moves.length - 1];
+				System.arraycopy(moves, 0, shorter, 0, middle);
+				System.arraycopy(moves, middle + 1, shorter, middle,
+						shorter.length - middle);
+				moves = shorter;
+			}
+			else if (index % 30 == 10)
+			{
+				moves = moves.clone();
+				int swap = moves[middle];
+				moves[middle] = moves[middle + 1];
+				moves[middle + 1] = swap;
+			}
+			else
+			{
+				int[] shorter = new int[middle];
+				System.arraycopy(moves, 0, shorter, 0, middle);
+				moves = shorter;
+			}
+			solutionList.set(index, moves);
+		}
+
+		// Copy the solutions rounds times to have plenty of work
+		int size = solutionList.size();
+		Board[] deals = new Board[size * rounds];
+		int[][] solutions = new int[size * rounds][];
+		long totalMoves = 0;
+		for (int index = 0; index < deals.length; index++)
+		{
+			deals[index] = dealList.get(index % size);
+			solutions[index] = solutionList.get(index % size);
+			totalMoves += solutions[index].length;
+		}
+
+		long startTime = System.nanoTime();
+		Result[] results = validateAll(deals, solutions, threads);
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+
+		int invalid = 0;
+		for (int index = 0; index < size; index++)
+			if (!results[index].isValid())
+			{
+				invalid++;
+				System.out.println("Solution " + (index + 1) + ": "
+						+ results[index]);
+			}
+		System.out.printf("%,d solutions (%d of each %d invalid), %,d moves "
+				+ "on %d threads in %.2f s: %,.0f moves/s%n", deals.length,
+				invalid, size, totalMoves, threads, seconds, totalMoves
+						/ seconds);
+	}
+
+	/**
+	 * An inner class for the outcome of checking one solution.
+	 */
+	public static class Result
+	{
+		// The number of the first bad move (or the number of moves) and why
+		// the solution is not valid (null if it is)
+		private int moveNumber;
+		private String error;
+
+		/**
+		 * Constructs a new Result.
+		 * @param moveNumber the index of the bad move, or the number of moves
+		 * @param error why the solution is not valid, or null if it is
+		 */
+		public Result(int moveNumber, String error)
+		{
+			this.moveNumber = moveNumber;
+			this.error = error;
+		}
+
+		/**
+		 * Checks if the solution was valid and won the game.
+		 * @return true if the solution is valid or false if not
+		 */
+		public boolean isValid()
+		{
+			return error == null;
+		}
+
+		/**
+		 * Gets the index of the first illegal move (starting from 0), or the
+		 * number of moves if every move was legal.
+		 * @return the move number
+		 */
+		public int getMoveNumber()
+		{
+			return moveNumber;
+		}
+
+		/**
+		 * Gets why the solution is not valid.
+		 * @return the error, or null if the solution is valid
+		 */
+		public String getError()
+		{
+			return error;
+		}
+
+		/**
+		 * Returns "valid" or the error.
+		 * @return a description of the Result
+		 */
+		public String toString()
+		{
+			if (error == null)
+				return "valid, " + moveNumber + " moves";
+			return error;
+		}
+	}
+}
@@ -0,0 +1,331 @@
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+
+/**
+ * Solves FreeCell positions with a best first search over packed Boards. The
+ * position with the lowest estimate (moves made so far plus a weighted guess
+ * of the moves left) is always expanded next, and every position reached is
+ * remembered by its hash so that it is never expanded twice. Safe moves to the
+ * Foundations are made automatically after every move and are included in the
+ * solution.
+ *
+ * The guess of the moves left comes from a Heuristic, by default the cards
+ * left plus the out of order cards (see estimate()). When an EndgameTable is
+ * given, positions with only a few cards left are finished from the table
+ * (or dropped if the table says they cannot be won) instead of searched. A
+ * Solver keeps no state between calls to solve(), so one Solver can be used by
+ * many threads at once as long as its Heuristic can.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class Solver
+{
+	// Default most positions to expand before giving up
+	public static final int DEFAULT_MAX_NODES = 200000;
+
+	// How much more the guess of the moves left counts than the moves made
+	private static final int WEIGHT = 3;
+
+	// How many positions are expanded between checks for being cancelled
+	private static final int CANCEL_CHECK_NODES = 256;
+
+	// The default Heuristic, which uses estimate()
+	public static final Heuristic DEFAULT_HEURISTIC = new Heuristic()
+	{
+		public int estimate(Board board)
+		{
+			return Solver.estimate(board);
+		}
+	};
+
+	// Most positions to expand before giving up, the guess of the moves left
+	// and the table of endgames (or null), which may be set from another
+	// thread
+	private int maxNodes;
+	private Heuristic heuristic;
+	private volatile EndgameTable endgames;
+
+	/**
+	 * Constructs a new Solver that expands at most the default number of
+	 * positions.
+	 */
+	public Solver()
+	{
+		this(DEFAULT_MAX_NODES);
+	}
+
+	/**
+	 * Constructs a new Solver that expands at most the given number of
+	 * positions.
+	 * @param maxNodes the most positions to expand before giving up
+	 */
+	public Solver(int maxNodes)
+	{
+		this(maxNodes, DEFAULT_HEURISTIC);
+	}
+
+	/**
+	 * Constructs a new Solver that expands at most the given number of
+	 * positions using the given Heuristic.
+	 * @param maxNodes the most positions to expand before giving up
+	 * @param heuristic the guess of the moves left
+	 */
+	public Solver(int maxNodes, Heuristic heuristic)
+	{
+		this(maxNodes, heuristic, null);
+	}
+
+	/**
+	 * Constructs a new Solver that expands at most the given number of
+	 * positions using the given Heuristic and finishes small positions from
+	 * the given EndgameTable.
+	 * @param maxNodes the most positions to expand before giving up
+	 * @param heuristic the guess of the moves left
+	 * @param endgames the table of endgames to use (or null for none)
+	 */
+	public Solver(int maxNodes, Heuristic heuristic, EndgameTable endgames)
+	{
+		this.maxNodes = maxNodes;
+		this.heuristic = heuristic;
+		this.endgames = endgames;
+	}
+
+	/**
+	 * Sets the EndgameTable small positions are finished from, such as once
+	 * it has been loaded in the background. A search already running may go
+	 * on with the old table.
+	 * @param endgames the table of endgames to use (or null for none)
+	 */
+	public void setEndgameTable(EndgameTable endgames)
+	{
+		this.endgames = endgames;
+	}
+
+	/**
+	 * Gets the most positions this Solver expands before giving up.
+	 * @return the most positions to expand
+	 */
+	public int getMaxNodes()
+	{
+		return maxNodes;
+	}
+
+	/**
+	 * Solves the given position. If the thread is interrupted (such as by
+	 * cancelling its Future) the search stops soon after and gives up.
+	 * @param start the position to solve (it is not changed)
+	 * @return the Solution, which is not solved if the position cannot be won
+	 *         or the Solver gave up
+	 */
+	public Solution solve(Board start)
+	{
+		long startTime = System.nanoTime();
+		BoardLayout layout = start.getLayout();
+		int[] moves = new int[Board.maxMoves(layout)];
+		int[] autoMoves = new int[layout.getNoOfCards() + 1];
+		long nodes = 0;
+
+		// The whole search uses the table set when it starts
+		EndgameTable endgames = this.endgames;
+
+		// Start with any safe moves to the Foundations
+		Board root = new Board(start);
+		autoMoves[0] = 0;
+		int made = root.autoComplete(autoMoves, 0);
+		Node rootNode = new Node(root, null, copyOf(autoMoves, 0, made), made,
+				heuristic.estimate(root), 0);
+		if (root.isWon())
+			return finish(rootNode, null, nodes, startTime);
+		int[] endgame = solveEndgame(root, endgames);
+		if (endgame != null)
+			return finish(rootNode, endgame, nodes, startTime);
+
+		PriorityQueue<Node> open = new PriorityQueue<Node>();
+		LongHashSet seen = new LongHashSet(4096);
+		seen.add(root.hash());
+		open.add(rootNode);
+		long order = 1;
+
+		while (!open.isEmpty() && nodes < maxNodes)
+		{
+			Node node = open.poll();
+			nodes++;
+			if (nodes % CANCEL_CHECK_NODES == 0
+					&& Thread.currentThread().isInterrupted())
+				break;
+			Board board = node.board;
+			node.board = null;
+
+			// Try every move from this position
+			int noOfMoves = board.generateMoves(moves);
+			for (int move = 0; move < noOfMoves; move++)
+			{
+				Board child = new Board(board);
+				child.apply(moves[move]);
+				autoMoves[0] = moves[move];
+				made = 1 + child.autoComplete(autoMoves, 1);
+				if (!seen.add(child.hash()))
+					continue;
+
+				// Small positions are finished or dropped by the endgames
+				endgame = null;
+				if (endgames != null
+						&& child.cardsLeft() <= endgames.getMaxCards())
+				{
+					int distance = endgames.getDistance(child);
+					if (distance == EndgameTable.UNWINNABLE)
+						continue;
+					if (distance >= 0)
+						endgame = endgames.solve(child);
+				}
+
+				Node childNode = new Node(child, node, copyOf(autoMoves, 0,
+						made), node.depth + made, heuristic.estimate(child),
+						order++);
+				if (child.isWon() || endgame != null)
+					return finish(childNode, endgame, nodes, startTime);
+				open.add(childNode);
+			}
+		}
+		return new Solution(false, new int[0], nodes, System.nanoTime()
+				- startTime);
+	}
+
+	/**
+	 * Guesses how many moves are left to win the given position: one for each
+	 * card not on the Foundations, one more for each card sitting on top of a
+	 * lower card (it has to be moved out of the way) and one for each full
+	 * FreeCell.
+	 * @param board the position to guess for
+	 * @return the guess of the moves left
+	 */
+	static int estimate(Board board)
+	{
+		BoardLayout layout = board.getLayout();
+		int guess = board.cardsLeft();
+		for (int cascade = 0; cascade < layout.getNoOfCascades(); cascade++)
+		{
+			// Count the cards above the lowest card seen so far
+			int height = board.getHeight(cascade);
+			int lowest = 14;
+			for (int position = 0; position < height; position++)
+			{
+				int rank = CardCodec.rankOf(board.getCascadeCard(cascade,
+						position));
+				if (rank > lowest)
+					guess++;
+				else
+					lowest = rank;
+			}
+		}
+		return guess + layout.getNoOfFreeCells()
+				- board.getNoOfOpenFreeCells();
+	}
+
+	/**
+	 * Finishes the given position from the EndgameTable.
+	 * @param board the position to finish
+	 * @param endgames the table of endgames (or null)
+	 * @return the moves that win it, or null if there is no table, the
+	 *         position is too big or it cannot be won
+	 */
+	private static int[] solveEndgame(Board board, EndgameTable endgames)
+	{
+		if (endgames == null || board.cardsLeft() > endgames.getMaxCards())
+			return null;
+		return endgames.solve(board);
+	}
+
+	/**
+	 * Makes the Solution for a won position by following the parents back to
+	 * the start.
+	 * @param won the Node of the won position, or of a position the endgame
+	 *            moves win
+	 * @param endgame the moves that win from the Node (or null)
+	 * @param nodes the number of positions expanded
+	 * @param startTime when solving started from System.nanoTime()
+	 * @return the solved Solution
+	 */
+	private Solution finish(Node won, int[] endgame, long nodes,
+			long startTime)
+	{
+		ArrayList<Node> path = new ArrayList<Node>();
+		for (Node node = won; node != null; node = node.parent)
+			path.add(node);
+
+		int[] solution = new int[won.depth
+				+ (endgame == null ? 0 : endgame.length)];
+		int length = 0;
+		for (int node = path.size() - 1; node >= 0; node--)
+			for (int move : path.get(node).moves)
+				solution[length++] = move;
+		if (endgame != null)
+			for (int move : endgame)
+				solution[length++] = move;
+		return new Solution(true, solution, nodes, System.nanoTime()
+				- startTime);
+	}
+
+	/**
+	 * Copies part of an array.
+	 * @param array the array to copy from
+	 * @param from the first index to copy
+	 * @param length the number of values to copy
+	 * @return the copied values
+	 */
+	private static int[] copyOf(int[] array, int from, int length)
+	{
+		int[] copy = new int[length];
+		System.arraycopy(array, from, copy, 0, length);
+		return copy;
+	}
+
+	/**
+	 * An inner class for each position reached during a search.
+	 */
+	private static class Node implements Comparable<Node>
+	{
+		// The position (dropped once expanded), the Node it was reached from,
+		// the moves made to reach it, the total moves from the start, the
+		// priority in the search and the order it was reached
+		private Board board;
+		private Node parent;
+		private int[] moves;
+		private int depth;
+		private int priority;
+		private long order;
+
+		/**
+		 * Constructs a new Node.
+		 * @param board the position
+		 * @param parent the Node this position was reached from
+		 * @param moves the moves made from the parent
+		 * @param depth the total number of moves from the start
+		 * @param estimate the guess of the moves left
+		 * @param order the number of Nodes reached before this one
+		 */
+		public Node(Board board, Node parent, int[] moves, int depth,
+				int estimate, long order)
+		{
+			this.board = board;
+			this.parent = parent;
+			this.moves = moves;
+			this.depth = depth;
+			this.priority = depth + WEIGHT * estimate;
+			this.order = order;
+		}
+
+		/**
+		 * Compares Nodes by priority, then by the order they were reached.
+		 * @param other the Node to compare to
+		 * @return a value < 0 if this Node should be expanded first
+		 */
+		public int compareTo(Node other)
+		{
+			if (priority != other.priority)
+				return priority - other.priority;
+			return Long.compare(order, other.order);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Times the packed Board and the Solver for the standard game and for Double
+ * FreeCell so that changes to one layout can be checked against the other.
+ * For each layout it times generating, making and hashing moves along random
+ * games, then solves a fixed set of seeded deals with the Solver's own
+ * Heuristic and with the PatternDatabase.
+ *
+ * Usage: java SolverBenchmark [deals per layout]
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class SolverBenchmark
+{
+	// Default number of deals to solve for each layout
+	private static final int DEFAULT_DEALS = 50;
+
+	// Number of random games to time the move operations over
+	private static final int RANDOM_GAMES = 20000;
+
+	/**
+	 * Runs the benchmark for each layout.
+	 * @param args the number of deals to solve for each layout (optional)
+	 * @throws IOException if the pattern database cannot be built or loaded
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int deals = DEFAULT_DEALS;
+		if (args.length > 0)
+			deals = Integer.parseInt(args[0]);
+		PatternDatabase patterns = PatternDatabase.open(new File(
+				PatternDatabase.PATTERN_FILE));
+
+		BoardLayout[] layouts = { BoardLayout.STANDARD, BoardLayout.DOUBLE };
+		for (BoardLayout layout : layouts)
+		{
+			// Run once to warm up the JIT compiler, then once to time it
+			timeMoves(layout, RANDOM_GAMES / 10, false);
+			timeMoves(layout, RANDOM_GAMES, true);
+			timeSolver(layout, deals, "default", Solver.DEFAULT_HEURISTIC);
+			timeSolver(layout, deals, "patterns", patterns);
+		}
+	}
+
+	/**
+	 * Times generating, making and hashing moves along random games.
+	 * @param layout the size of the game
+	 * @param games the number of random games to play
+	 * @param print true to print the result
+	 */
+	private static void timeMoves(BoardLayout layout, int games, boolean print)
+	{
+		Random random = new Random(1);
+		int[] moves = new int[Board.maxMoves(layout)];
+		long operations = 0;
+		long checksum = 0;
+		long startTime = System.nanoTime();
+
+		for (int game = 0; game < games; game++)
+		{
+			Board board = Board.deal(layout, shuffledCards(layout, random));
+			for (int turn = 0; turn < 100; turn++)
+			{
+				int noOfMoves = board.generateMoves(moves);
+				if (noOfMoves == 0)
+					break;
+				board.apply(moves[random.nextInt(noOfMoves)]);
+				checksum += board.hash();
+				operations++;
+			}
+		}
+
+		long nanos = System.nanoTime() - startTime;
+		if (print)
+			System.out.printf(
+					"%s: %,d generate/apply/hash in %.1f ms (%.0f ns each, "
+							+ "checksum %x)%n", layout, operations,
+					nanos / 1e6, (double) nanos / operations, checksum);
+	}
+
+	/**
+	 * Times solving seeded deals.
+	 * @param layout the size of the game
+	 * @param deals the number of deals to solve
+	 * @param name the name of the Heuristic to print
+	 * @param heuristic the Heuristic for the Solver to use
+	 */
+	private static void timeSolver(BoardLayout layout, int deals, String name,
+			Heuristic heuristic)
+	{
+		Random random = new Random(2);
+		Solver solver = new Solver(Solver.DEFAULT_MAX_NODES, heuristic);
+		int solved = 0;
+		long nodes = 0;
+		long moves = 0;
+		long startTime = System.nanoTime();
+
+		for (int deal = 0; deal < deals; deal++)
+		{
+			Solution solution = solver.solve(Board.deal(layout, shuffledCards(
+					layout, random)));
+			nodes += solution.getNodes();
+			if (solution.isSolved())
+			{
+				solved++;
+				moves += solution.getLength();
+			}
+		}
+
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		System.out.printf("%s (%s): solved %d of %d deals, %.1f moves and %,d "
+				+ "nodes each, %,.0f nodes/s, %.1f ms per deal%n", layout, name,
+				solved, deals, solved == 0 ? 0.0 : (double) moves / solved,
+				nodes / deals, nodes / seconds, seconds * 1000 / deals);
+	}
+
+	/**
+	 * Shuffles every card of the given layout.
+	 * @param layout the size of the game
+	 * @param random the random number generator to shuffle with
+	 * @return the card indexes in dealing order
+	 */
+	private static int[] shuffledCards(BoardLayout layout, Random random)
+	{
+		int[] cards = new int[layout.getNoOfCards()];
+		for (int card = 0; card < cards.length; card++)
+			cards[card] = card % CardCodec.NO_OF_CARDS;
+		for (int card = cards.length - 1; card > 0; card--)
+		{
+			int other = random.nextInt(card + 1);
+			int temp = cards[card];
+			cards[card] = cards[other];
+			cards[other] = temp;
+		}
+		return cards;
+	}
+}
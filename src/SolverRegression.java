@@ -0,0 +1,470 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solves a fixed corpus of deals with fixed settings before a release, and
+ * fails if the Solver got slower or needs more positions than in a stored
+ * baseline. The corpus file (see CORPUS_FILE) lists groups of Microsoft deal
+ * numbers, one group to a line: a name followed by deal numbers and ranges
+ * such as "1-32000". Lines starting with # are comments.
+ *
+ * Every deal is solved in order on one thread by a default Solver (the
+ * default most positions, the default Heuristic and no EndgameTable), so the
+ * positions expanded are the same on every computer and only the times
+ * change. The group, deal number, result, length, positions expanded and
+ * microseconds of every deal are written to the results file.
+ *
+ * The results are then checked against the baseline, an earlier results
+ * file kept with the corpus: the run fails (exit code 1) if the total
+ * positions expanded went up by more than the node threshold, the positions
+ * expanded per second went down by more than the speed threshold, or a deal
+ * solved in the baseline is no longer solved. A missing baseline also fails
+ * the run. To accept a change, copy the results over the baseline.
+ *
+ * Usage: java SolverRegression [corpus file] [results file] [baseline file]
+ * [node threshold %] [speed threshold %]
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class SolverRegression
+{
+	// Default names of the corpus, results and baseline files
+	public static final String CORPUS_FILE = "benchmark/corpus.txt";
+	public static final String RESULTS_FILE = "benchmark/results.txt";
+	public static final String BASELINE_FILE = "benchmark/baseline.txt";
+
+	// Default most percent the positions expanded may go up and the
+	// positions expanded per second may go down before the run fails
+	private static final double DEFAULT_NODE_THRESHOLD = 2;
+	private static final double DEFAULT_SPEED_THRESHOLD = 10;
+
+	// Number of deals (Microsoft deals from 1) solved first and thrown away
+	// so the timing starts with the Solver already compiled
+	private static final int WARM_UP_DEALS = 200;
+
+	// How often the progress is printed
+	private static final long PROGRESS_MILLIS = 10000;
+
+	// Number of deals with the biggest change in positions expanded to show
+	private static final int CHANGES_SHOWN = 10;
+
+	// The column names at the top of a results file
+	private static final String COLUMNS = "group\tdeal\tsolved\tlength\tnodes\tmicros";
+
+	/**
+	 * Reads the groups of deal numbers from a corpus file.
+	 * @param file the corpus file
+	 * @return the deal numbers of each group, in the order of the file
+	 * @throws IOException if the file cannot be read or has a bad line
+	 */
+	public static Map<String, List<Integer>> readCorpus(File file)
+			throws IOException
+	{
+		Map<String, List<Integer>> groups = new LinkedHashMap<String, List<Integer>>();
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try
+		{
+			String line;
+			int lineNumber = 0;
+			while ((line = in.readLine()) != null)
+			{
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#"))
+					continue;
+
+				// The name and then the deal numbers and ranges
+				String[] words = line.split("\\s+");
+				List<Integer> deals = groups.get(words[0]);
+				if (deals == null)
+				{
+					deals = new ArrayList<Integer>();
+					groups.put(words[0], deals);
+				}
+				try
+				{
+					for (int word = 1; word < words.length; word++)
+					{
+						int dash = words[word].indexOf('-');
+						int first = Integer.parseInt(dash == -1 ? words[word]
+								: words[word].substring(0, dash));
+						int last = dash == -1 ? first : Integer
+								.parseInt(words[word].substring(dash + 1));
+						for (int deal = first; deal <= last; deal++)
+							deals.add(deal);
+					}
+				}
+				catch (NumberFormatException exp)
+				{
+					throw new IOException(file + " line " + lineNumber
+							+ ": bad deal number");
+				}
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+		return groups;
+	}
+
+	/**
+	 * Solves every deal of the corpus and writes each result to the results
+	 * file as soon as it is known.
+	 * @param groups the deal numbers of each group
+	 * @param file the results file
+	 * @return the results, in the order of the corpus
+	 * @throws IOException if the results cannot be written
+	 */
+	public static List<Record> run(Map<String, List<Integer>> groups, File file)
+			throws IOException
+	{
+		Solver solver = new Solver();
+		int total = 0;
+		for (List<Integer> deals : groups.values())
+			total += deals.size();
+
+		// Warm up on the same easy deals every time without keeping the
+		// results
+		for (int deal = 1; deal <= WARM_UP_DEALS; deal++)
+			solver.solve(Deal.microsoft(deal));
+
+		List<Record> records = new ArrayList<Record>(total);
+		PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(
+				file)));
+		try
+		{
+			out.printf("# Solver max nodes %d, default Heuristic, Java %s%n",
+					solver.getMaxNodes(), System.getProperty("java.version"));
+			out.println(COLUMNS);
+			long lastProgress = System.currentTimeMillis();
+			for (Map.Entry<String, List<Integer>> group : groups.entrySet())
+				for (int deal : group.getValue())
+				{
+					Solution solution = solver.solve(Deal.microsoft(deal));
+					Record record = new Record(group.getKey(), deal, solution
+							.isSolved(), solution.getLength(), solution
+							.getNodes(), solution.getNanos() / 1000);
+					records.add(record);
+					out.println(record);
+
+					if (System.currentTimeMillis() - lastProgress >= PROGRESS_MILLIS)
+					{
+						lastProgress = System.currentTimeMillis();
+						System.out.printf("  %,d of %,d deals done%n",
+								records.size(), total);
+					}
+				}
+		}
+		finally
+		{
+			out.close();
+		}
+		if (out.checkError())
+			throw new IOException("could not write " + file);
+		return records;
+	}
+
+	/**
+	 * Reads the results of an earlier run.
+	 * @param file the results file
+	 * @return the results, in the order of the file
+	 * @throws IOException if the file cannot be read or has a bad line
+	 */
+	public static List<Record> readResults(File file) throws IOException
+	{
+		List<Record> records = new ArrayList<Record>();
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try
+		{
+			String line;
+			while ((line = in.readLine()) != null)
+			{
+				if (line.isEmpty() || line.startsWith("#")
+						|| line.equals(COLUMNS))
+					continue;
+				String[] fields = line.split("\t");
+				try
+				{
+					records.add(new Record(fields[0], Integer
+							.parseInt(fields[1]), fields[2].equals("1"),
+							Integer.parseInt(fields[3]), Long
+									.parseLong(fields[4]), Long
+									.parseLong(fields[5])));
+				}
+				catch (RuntimeException exp)
+				{
+					throw new IOException(file + ": bad line \"" + line + "\"");
+				}
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+		return records;
+	}
+
+	/**
+	 * Compares a run with the baseline, printing the totals of each group and
+	 * the deals that changed the most.
+	 * @param baseline the results of the baseline
+	 * @param current the results of this run
+	 * @param nodeThreshold the most percent the positions expanded may go up
+	 * @param speedThreshold the most percent the positions expanded per
+	 *            second may go down
+	 * @return true if the run passes or false if it is a regression
+	 */
+	public static boolean compare(List<Record> baseline, List<Record> current,
+			double nodeThreshold, double speedThreshold)
+	{
+		Map<String, Record> before = new HashMap<String, Record>();
+		for (Record record : baseline)
+			before.put(record.getKey(), record);
+
+		// Add up each group over the deals in both runs
+		Map<String, long[]> totals = new LinkedHashMap<String, long[]>();
+		long[] total = new long[7];
+		List<Record[]> pairs = new ArrayList<Record[]>();
+		int lost = 0;
+		int missing = 0;
+		for (Record record : current)
+		{
+			Record old = before.get(record.getKey());
+			if (old == null)
+			{
+				missing++;
+				continue;
+			}
+			pairs.add(new Record[] { old, record });
+			if (old.solved && !record.solved)
+				lost++;
+			addTo(totals, record.group, old, record);
+			addTo(total, old, record);
+		}
+		totals.put("total", total);
+
+		System.out.printf("%-12s%8s%9s%9s%16s%16s%14s%14s%n", "group", "deals",
+				"solved", "before", "nodes", "before", "nodes/s", "before");
+		for (Map.Entry<String, long[]> group : totals.entrySet())
+		{
+			long[] sums = group.getValue();
+			System.out.printf("%-12s%,8d%,9d%,9d%,16d%,16d%,14.0f%,14.0f%n",
+					group.getKey(), sums[0], sums[1], sums[2], sums[3],
+					sums[4], perSecond(sums[3], sums[5]), perSecond(sums[4],
+							sums[6]));
+		}
+		if (missing > 0)
+			System.out.printf("%,d deals are not in the baseline%n", missing);
+
+		// The deals whose positions expanded changed the most
+		Collections.sort(pairs, new Comparator<Record[]>()
+		{
+			public int compare(Record[] first, Record[] second)
+			{
+				return Long.compare(Math.abs(second[1].nodes - second[0].nodes),
+						Math.abs(first[1].nodes - first[0].nodes));
+			}
+		});
+		for (Record[] pair : pairs.subList(0, Math.min(CHANGES_SHOWN, pairs
+				.size())))
+			if (pair[1].nodes != pair[0].nodes || pair[1].solved != pair[0].solved)
+				System.out.printf("  %s %d: %,d nodes (was %,d)%s%n",
+						pair[1].group, pair[1].deal, pair[1].nodes,
+						pair[0].nodes, pair[1].solved == pair[0].solved ? ""
+								: pair[1].solved ? ", now solved"
+										: ", no longer solved");
+
+		// Check the totals against the thresholds
+		if (total[0] == 0)
+		{
+			System.out.println("FAIL: no deals in both runs");
+			return false;
+		}
+		double nodeChange = percentChange(total[4], total[3]);
+		double speedChange = percentChange(perSecond(total[4], total[6]),
+				perSecond(total[3], total[5]));
+		System.out.printf("Nodes %+.2f%% (threshold +%.1f%%), nodes/s "
+				+ "%+.2f%% (threshold -%.1f%%), %d deals no longer solved%n",
+				nodeChange, nodeThreshold, speedChange, speedThreshold, lost);
+		boolean passed = true;
+		if (nodeChange > nodeThreshold)
+		{
+			System.out.println("FAIL: the Solver expands more positions");
+			passed = false;
+		}
+		if (-speedChange > speedThreshold)
+		{
+			System.out.println("FAIL: the Solver is slower");
+			passed = false;
+		}
+		if (lost > 0)
+		{
+			System.out.println("FAIL: deals are no longer solved");
+			passed = false;
+		}
+		return passed;
+	}
+
+	/**
+	 * Helper method of compare() that adds a deal to the totals of a group.
+	 * @param totals the totals of each group
+	 * @param group the name of the group
+	 * @param old the result in the baseline
+	 * @param record the result of this run
+	 */
+	private static void addTo(Map<String, long[]> totals, String group,
+			Record old, Record record)
+	{
+		long[] total = totals.get(group);
+		if (total == null)
+		{
+			total = new long[7];
+			totals.put(group, total);
+		}
+		addTo(total, old, record);
+	}
+
+	/**
+	 * Helper method of compare() that adds a deal to some totals: the deals,
+	 * solved now and before, positions expanded now and before and
+	 * microseconds now and before.
+	 * @param total the totals
+	 * @param old the result in the baseline
+	 * @param record the result of this run
+	 */
+	private static void addTo(long[] total, Record old, Record record)
+	{
+		total[0]++;
+		total[1] += record.solved ? 1 : 0;
+		total[2] += old.solved ? 1 : 0;
+		total[3] += record.nodes;
+		total[4] += old.nodes;
+		total[5] += record.micros;
+		total[6] += old.micros;
+	}
+
+	/**
+	 * Helper method of compare() that works out a speed.
+	 * @param nodes the positions expanded
+	 * @param micros the microseconds taken
+	 * @return the positions expanded per second
+	 */
+	private static double perSecond(long nodes, long micros)
+	{
+		return micros == 0 ? 0 : nodes * 1e6 / micros;
+	}
+
+	/**
+	 * Helper method of compare() that works out a change in percent.
+	 * @param before the value in the baseline
+	 * @param after the value in this run
+	 * @return the change in percent (positive if it went up)
+	 */
+	private static double percentChange(double before, double after)
+	{
+		return before == 0 ? 0 : (after - before) * 100 / before;
+	}
+
+	/**
+	 * Solves the corpus, writes the results and checks them against the
+	 * baseline, exiting with 1 if the Solver got worse or there is no
+	 * baseline.
+	 * @param args the corpus, results and baseline files and the node and
+	 *            speed thresholds in percent (all optional)
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		File corpus = new File(args.length > 0 ? args[0] : CORPUS_FILE);
+		File results = new File(args.length > 1 ? args[1] : RESULTS_FILE);
+		File baseline = new File(args.length > 2 ? args[2] : BASELINE_FILE);
+		double nodeThreshold = args.length > 3 ? Double.parseDouble(args[3])
+				: DEFAULT_NODE_THRESHOLD;
+		double speedThreshold = args.length > 4 ? Double.parseDouble(args[4])
+				: DEFAULT_SPEED_THRESHOLD;
+
+		// Check for the baseline first rather than after the whole run
+		if (!baseline.exists())
+		{
+			System.out.println("FAIL: there is no baseline " + baseline
+					+ " (copy a results file there to make one)");
+			System.exit(1);
+		}
+
+		Map<String, List<Integer>> groups = readCorpus(corpus);
+		long startTime = System.nanoTime();
+		List<Record> current = run(groups, results);
+		System.out.printf("%,d deals solved in %.1f s, results in %s%n",
+				current.size(), (System.nanoTime() - startTime) / 1e9, results);
+
+		if (!compare(readResults(baseline), current, nodeThreshold,
+				speedThreshold))
+			System.exit(1);
+	}
+
+	/**
+	 * An inner class for the result of one deal of the corpus.
+	 */
+	public static class Record
+	{
+		private String group;
+		private int deal;
+		private boolean solved;
+		private int length;
+		private long nodes;
+		private long micros;
+
+		/**
+		 * Constructs a new Record.
+		 * @param group the name of the deal's group
+		 * @param deal the deal number
+		 * @param solved true if the deal was solved
+		 * @param length the number of moves in the solution
+		 * @param nodes the positions expanded
+		 * @param micros the microseconds taken
+		 */
+		public Record(String group, int deal, boolean solved, int length,
+				long nodes, long micros)
+		{
+			this.group = group;
+			this.deal = deal;
+			this.solved = solved;
+			this.length = length;
+			this.nodes = nodes;
+			this.micros = micros;
+		}
+
+		/**
+		 * Gets the group and deal number, which match a deal between runs.
+		 * @return the key of this Record
+		 */
+		public String getKey()
+		{
+			return group + " " + deal;
+		}
+
+		/**
+		 * Returns this Record as a line of a results file.
+		 * @return the fields separated by tabs
+		 */
+		public String toString()
+		{
+			return group + "\t" + deal + "\t" + (solved ? 1 : 0) + "\t"
+					+ length + "\t" + nodes + "\t" + micros;
+		}
+	}
+}
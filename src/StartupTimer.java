@@ -0,0 +1,73 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+/**
+ * Keeps track of how long each step of starting the game takes, counting from
+ * when the Java virtual machine started. The most important step is the first
+ * paint of the window, which should happen within TARGET_FIRST_PAINT_MILLIS.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class StartupTimer
+{
+	// The most time the first paint should take from the start
+	public static final long TARGET_FIRST_PAINT_MILLIS = 500;
+
+	// The name of the step for the first paint
+	public static final String FIRST_PAINT = "first paint";
+
+	// The steps in the order they finished and when (in ms from the start)
+	private static final ArrayList<String> steps = new ArrayList<String>();
+	private static final ArrayList<Long> times = new ArrayList<Long>();
+
+	/**
+	 * There are no StartupTimer objects, only static methods.
+	 */
+	private StartupTimer()
+	{
+	}
+
+	/**
+	 * Records that a step of starting up has finished. Only the first time a
+	 * step finishes is kept.
+	 * @param step the name of the step
+	 */
+	public static synchronized void mark(String step)
+	{
+		if (steps.contains(step))
+			return;
+		steps.add(step);
+		times.add(System.currentTimeMillis()
+				- ManagementFactory.getRuntimeMXBean().getStartTime());
+	}
+
+	/**
+	 * Checks if a step has finished.
+	 * @param step the name of the step
+	 * @return true if the step has been marked or false if not
+	 */
+	public static synchronized boolean isMarked(String step)
+	{
+		return steps.contains(step);
+	}
+
+	/**
+	 * Returns every step and when it finished, and if the first paint was
+	 * within the target.
+	 * @return one line for each step
+	 */
+	public static synchronized String getReport()
+	{
+		StringBuilder report = new StringBuilder("Startup (ms from start):");
+		for (int step = 0; step < steps.size(); step++)
+			report.append(String.format("%n  %-24s %6d", steps.get(step),
+					times.get(step)));
+		int firstPaint = steps.indexOf(FIRST_PAINT);
+		if (firstPaint >= 0)
+			report.append(String.format("%n  %s %s the %d ms target",
+					FIRST_PAINT, times.get(firstPaint) <= TARGET_FIRST_PAINT_MILLIS
+							? "is within" : "MISSED", TARGET_FIRST_PAINT_MILLIS));
+		return report.toString();
+	}
+}
@@ -1,13 +1,31 @@
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Keeps track of the Statistics for a FreeCell game include the games played
  * and won, current and longest win streak, win percentage, and fastest time.
+ *
+ * More than one FreeCell window can share the same file, so games are not
+ * saved by writing these Statistics over the file. Each finished game (or a
+ * reset) is kept as a pending result, and saving locks the file, reads what
+ * is there now, adds the pending results to it and writes it back, so games
+ * from other windows are never lost. Saving happens on a background thread
+ * that only tries the lock a few times and keeps the results for the next
+ * save if it cannot get it, so the game never waits on another window.
  * @author Derrick Thai
  * @version November 27, 2014
  */
@@ -19,6 +37,22 @@ public class Statistics implements Serializable
 	// Name of file to save Statistics to
 	public static final String STATS_FILE = "stats.dat";
 
+	// Pending results that are not a win time
+	private static final int LOSS = -1;
+	private static final int RESET = -2;
+
+	// Times to try the file lock when saving and how long to wait in between
+	private static final int LOCK_TRIES = 20;
+	private static final int LOCK_WAIT_MILLIS = 50;
+
+	// Most time to wait for the last save when the program exits
+	private static final int EXIT_WAIT_MILLIS = 2000;
+
+	// The thread that saves Statistics, finishing its last save on exit, and
+	// the lock that keeps two saves from adding the same results
+	private static ExecutorService saver;
+	private static final Object SAVE_LOCK = new Object();
+
 	// Variables to keep track of statistics for a FreeCell game
 	private int gamesPlayed;
 	private int gamesWon;
@@ -27,6 +61,9 @@ public class Statistics implements Serializable
 	private double winPercentage;
 	private int fastestTime;
 
+	// Results not yet added to the file (a win time, LOSS or RESET)
+	private transient ArrayList<Integer> pending;
+
 	/**
 	 * Constructs a new Statistics object with all of the statistics reset to
 	 * their starting values.
@@ -40,51 +77,319 @@ public class Statistics implements Serializable
 		longestStreak = 0;
 		winPercentage = 0;
 		fastestTime = Integer.MAX_VALUE;
+		pending = new ArrayList<Integer>();
+	}
+
+	/**
+	 * Reads a Statistics object from a file with the given name. The file is
+	 * only read if no other window is saving to it right now, otherwise the
+	 * Statistics start empty and are filled in by the first save.
+	 * @param fileName the name of the file to read from
+	 * @return the Statistics object read from the file
+	 */
+	public static Statistics readFromFile(String fileName)
+	{
+		Statistics stats = new Statistics();
+		stats.refresh(fileName);
+		return stats;
+	}
+
+	/**
+	 * Records a won game with the given time and saves it in the background.
+	 * @param time the time in seconds the game lasted
+	 * @param fileName the name of the file to save to
+	 */
+	public synchronized void recordWin(int time, String fileName)
+	{
+		addResult(time);
+		pending.add(time);
+		saveInBackground(fileName);
+	}
+
+	/**
+	 * Records a lost game and saves it in the background.
+	 * @param fileName the name of the file to save to
+	 */
+	public synchronized void recordLoss(String fileName)
+	{
+		addResult(LOSS);
+		pending.add(LOSS);
+		saveInBackground(fileName);
+	}
+
+	/**
+	 * Resets all of the Statistics, in the file as well, in the background.
+	 * @param fileName the name of the file to save to
+	 */
+	public synchronized void reset(String fileName)
+	{
+		addResult(RESET);
+		pending.add(RESET);
+		saveInBackground(fileName);
+	}
+
+	/**
+	 * Updates these Statistics with what is in the file now plus the results
+	 * not saved yet, so games from other windows show up. Nothing changes if
+	 * another window is saving right now.
+	 * @param fileName the name of the file to read from
+	 */
+	public void refresh(String fileName)
+	{
+		try
+		{
+			RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+			try
+			{
+				FileLock lock = tryLock(file.getChannel(), true);
+				if (lock == null)
+					return;
+				Statistics saved = read(file.getChannel());
+				lock.release();
+				synchronized (this)
+				{
+					copyResults(saved);
+				}
+			}
+			finally
+			{
+				file.close();
+			}
+		}
+		catch (IOException exp)
+		{
+			// Keep the Statistics as they are
+		}
+	}
+
+	/**
+	 * Adds the pending results to the file: locks it (trying a few times),
+	 * reads the Statistics saved by every window, adds the results and writes
+	 * them back. If the lock cannot be had the results are kept for next time.
+	 * @param fileName the name of the file to save to
+	 * @return true if the results were saved or false if not
+	 */
+	public boolean save(String fileName)
+	{
+		synchronized (SAVE_LOCK)
+		{
+			return saveResults(fileName);
+		}
 	}
 
 	/**
-	 * Writes this Statistics object to a file with the given name.
-	 * @param fileName the name of the file to write to
+	 * Helper method of save() that adds the pending results to the file.
+	 * @param fileName the name of the file to save to
+	 * @return true if the results were saved or false if not
 	 */
-	public void writeToFile(String fileName)
+	private boolean saveResults(String fileName)
 	{
+		ArrayList<Integer> results;
+		synchronized (this)
+		{
+			if (pending.isEmpty())
+				return true;
+			results = new ArrayList<Integer>(pending);
+		}
+
 		try
 		{
-			// Write the entire object
-			ObjectOutputStream fileOut = new ObjectOutputStream(
-					new FileOutputStream(fileName));
-			fileOut.writeObject(this);
-			fileOut.close();
+			RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+			try
+			{
+				FileChannel channel = file.getChannel();
+				FileLock lock = null;
+				for (int tries = 0; lock == null && tries < LOCK_TRIES; tries++)
+				{
+					lock = tryLock(channel, false);
+					if (lock == null)
+						Thread.sleep(LOCK_WAIT_MILLIS);
+				}
+				if (lock == null)
+					return false;
+
+				// Read, merge and write while holding the lock
+				Statistics saved = read(channel);
+				for (int result : results)
+					saved.addResult(result);
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				ObjectOutputStream objectOut = new ObjectOutputStream(bytes);
+				objectOut.writeObject(saved);
+				objectOut.close();
+				channel.truncate(0);
+				channel.write(ByteBuffer.wrap(bytes.toByteArray()), 0);
+				channel.force(true);
+				lock.release();
+
+				// Show the merged Statistics with any newer results on top
+				synchronized (this)
+				{
+					pending.subList(0, results.size()).clear();
+					copyResults(saved);
+				}
+				return true;
+			}
+			finally
+			{
+				file.close();
+			}
+		}
+		catch (InterruptedException exp)
+		{
+			Thread.currentThread().interrupt();
+			return false;
 		}
 		catch (IOException exp)
 		{
 			System.out.println("Error writing to the file");
+			return false;
 		}
 	}
 
 	/**
-	 * Reads a Statistics object from a file with the given name.
-	 * @param fileName the name of the file to read from
-	 * @return the Statistics object read from the file
+	 * Saves the pending results on the saving thread, which finishes its
+	 * last save (for a little while) when the program exits.
+	 * @param fileName the name of the file to save to
 	 */
-	public static Statistics readFromFile(String fileName)
+	private void saveInBackground(final String fileName)
+	{
+		synchronized (Statistics.class)
+		{
+			if (saver == null)
+			{
+				saver = Executors.newSingleThreadExecutor(new ThreadFactory()
+				{
+					public Thread newThread(Runnable task)
+					{
+						Thread thread = new Thread(task, "Statistics saver");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+				Runtime.getRuntime().addShutdownHook(new Thread()
+				{
+					public void run()
+					{
+						saver.shutdown();
+						try
+						{
+							saver.awaitTermination(EXIT_WAIT_MILLIS,
+									TimeUnit.MILLISECONDS);
+						}
+						catch (InterruptedException exp)
+						{
+						}
+					}
+				});
+			}
+		}
+		saver.execute(new Runnable()
+		{
+			public void run()
+			{
+				save(fileName);
+			}
+		});
+	}
+
+	/**
+	 * Tries to lock a whole file without waiting.
+	 * @param channel the channel of the file
+	 * @param shared true for a lock shared with other readers or false for an
+	 *            exclusive lock
+	 * @return the lock, or null if another window or thread has the file
+	 *         locked
+	 * @throws IOException if the file cannot be locked
+	 */
+	private static FileLock tryLock(FileChannel channel, boolean shared)
+			throws IOException
+	{
+		try
+		{
+			return channel.tryLock(0, Long.MAX_VALUE, shared);
+		}
+		catch (OverlappingFileLockException exp)
+		{
+			// Another thread of this program has the file locked
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the Statistics in a locked file.
+	 * @param channel the channel of the file
+	 * @return the Statistics in the file, or new Statistics if it is empty or
+	 *         cannot be read
+	 * @throws IOException if the file cannot be read
+	 */
+	private static Statistics read(FileChannel channel) throws IOException
 	{
+		ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+		while (buffer.hasRemaining()
+				&& channel.read(buffer, buffer.position()) > 0)
+			;
 		try
 		{
-			// Read the entire object
-			ObjectInputStream fileIn = new ObjectInputStream(
-					new FileInputStream(fileName));
-			Statistics stats = (Statistics) fileIn.readObject();
-			fileIn.close();
-			return stats;
+			ObjectInputStream objectIn = new ObjectInputStream(
+					new ByteArrayInputStream(buffer.array()));
+			Statistics saved = (Statistics) objectIn.readObject();
+			objectIn.close();
+			saved.pending = new ArrayList<Integer>();
+			return saved;
 		}
 		catch (Exception exp)
 		{
-			// If the file does not exist, return a new Statistics object
+			// The file is new (or not a Statistics file), so start again
 			return new Statistics();
 		}
 	}
 
+	/**
+	 * Copies the saved Statistics and then adds the results not saved yet.
+	 * @param saved the Statistics read from the file
+	 */
+	private void copyResults(Statistics saved)
+	{
+		gamesPlayed = saved.gamesPlayed;
+		gamesWon = saved.gamesWon;
+		currentStreak = saved.currentStreak;
+		longestStreak = saved.longestStreak;
+		winPercentage = saved.winPercentage;
+		fastestTime = saved.fastestTime;
+		for (int result : pending)
+			addResult(result);
+	}
+
+	/**
+	 * Adds one result to these Statistics.
+	 * @param result the win time, LOSS or RESET
+	 */
+	private void addResult(int result)
+	{
+		if (result == RESET)
+		{
+			gamesPlayed = 0;
+			gamesWon = 0;
+			winPercentage = 0;
+			currentStreak = 0;
+			longestStreak = 0;
+			fastestTime = Integer.MAX_VALUE;
+		}
+		else if (result == LOSS)
+		{
+			incrementGamesPlayed();
+			resetCurrentStreak();
+		}
+		else
+		{
+			incrementGamesWon();
+			incrementGamesPlayed();
+			incrementCurrentStreak();
+			updateLongestStreak();
+			updateFastestTime(result);
+		}
+	}
+
 	/**
 	 * Increments the number of games played by one and updates the win
 	 * percentage as well. Precondition: if the game played was a win, this
@@ -143,7 +448,7 @@ public class Statistics implements Serializable
 	/**
 	 * Returns a String representation of all of the statistics.
 	 */
-	public String toString()
+	public synchronized String toString()
 	{
 		// Let minutes surpass 60 since it is uncommon for one to play an hour
 		// long game
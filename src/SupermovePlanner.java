@@ -0,0 +1,755 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Breaks a move of several cards (a supermove) into the single card moves
+ * that make it legal, going through the open FreeCells and empty Cascades.
+ *
+ * The plan only depends on the number of cards, the number of open FreeCells,
+ * the number of empty Cascades that can be used and whether the cards go to an
+ * empty Cascade, so each plan is worked out once as a template of numbered
+ * spots and kept. The template is found by an A* search over where
+ * each card of the run is, so it has the fewest single card moves possible.
+ * Using a template only means filling in the real locations of the spots.
+ *
+ * The searches take up to a second each, so prepare() does them all on a
+ * background thread when a layout is picked. Until a template is ready, a
+ * plan is built the usual recursive way instead (part of the run to an empty
+ * Cascade, the rest to the target, then the part onto it), which is quick
+ * but can take more moves.
+ *
+ * Usage: java SupermovePlanner
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class SupermovePlanner
+{
+	// Spots in a template: the Cascade the cards come from, the one they go
+	// to, then the FreeCells, then the empty Cascades
+	private static final int SOURCE = 0;
+	private static final int TARGET = 1;
+	private static final int FIRST_SPARE = 2;
+
+	// Each card's spot is packed into 4 bits of a long
+	private static final int BITS = 4;
+
+	// Templates already worked out, by pattern (see key())
+	private static final ConcurrentHashMap<Integer, int[]> templates = new ConcurrentHashMap<Integer, int[]>();
+
+	// The numbers of FreeCells and empty Cascades (see prepare()) whose
+	// templates are being or have been worked out
+	private static final Set<Integer> prepared = Collections
+			.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+	/**
+	 * There are no SupermovePlanner objects, only static methods.
+	 */
+	private SupermovePlanner()
+	{
+	}
+
+	/**
+	 * Starts working out the templates of every pattern of a layout on a low
+	 * priority background thread, if that has not been started already.
+	 * @param layout the size of the game
+	 */
+	public static void prepare(BoardLayout layout)
+	{
+		final int freeCells = layout.getNoOfFreeCells();
+		final int emptyCascades = layout.getNoOfCascades() - 1;
+		if (!prepared.add(freeCells * 16 + emptyCascades))
+			return;
+
+		Thread thread = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				searchAll(freeCells, emptyCascades);
+			}
+		}, "Supermove planner");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Breaks the given move into single card moves from the given position.
+	 * A move of one card is returned as it is.
+	 * @param board the position before the move (it is not changed)
+	 * @param move the packed move (see Board.move())
+	 * @return the packed single card moves, or null if the move cannot be made
+	 *         with the open FreeCells and empty Cascades
+	 */
+	public static int[] plan(Board board, int move)
+	{
+		int count = Board.getCount(move);
+		if (count <= 1)
+			return new int[] { move };
+
+		// Find the spots: open FreeCells, then empty Cascades other than the
+		// one the cards go to
+		BoardLayout layout = board.getLayout();
+		int from = Board.getFrom(move);
+		int to = Board.getTo(move);
+		int[] spots = new int[FIRST_SPARE + layout.getNoOfFreeCells()
+				+ layout.getNoOfCascades()];
+		spots[SOURCE] = from;
+		spots[TARGET] = to;
+		int noOfFreeCells = 0;
+		for (int freeCell = 0; freeCell < layout.getNoOfFreeCells(); freeCell++)
+			if (board.getFreeCell(freeCell) == Board.EMPTY)
+				spots[FIRST_SPARE + noOfFreeCells++] = layout
+						.getFirstFreeCell() + freeCell;
+		int noOfEmpty = 0;
+		for (int cascade = 0; cascade < layout.getNoOfCascades(); cascade++)
+			if (cascade != to && board.getHeight(cascade) == 0)
+				spots[FIRST_SPARE + noOfFreeCells + noOfEmpty++] = cascade;
+
+		int[] template = getTemplate(count, noOfFreeCells, noOfEmpty, board
+				.getHeight(to) == 0);
+		if (template == null)
+			return null;
+
+		// Empty Cascades come after the FreeCells in the template, so move
+		// them down if the template uses fewer FreeCells
+		int usedFreeCells = freeCellsUsed(count, noOfFreeCells, noOfEmpty);
+		int[] steps = new int[template.length];
+		for (int step = 0; step < template.length; step++)
+			steps[step] = Board.move(spotLocation(spots, template[step] >>> 8,
+					usedFreeCells, noOfFreeCells), spotLocation(spots,
+					template[step] & 0xFF, usedFreeCells, noOfFreeCells), 1);
+		return steps;
+	}
+
+	/**
+	 * Breaks every move of a solution into single card moves.
+	 * @param start the position the solution starts from (it is not changed)
+	 * @param moves the packed moves of the solution
+	 * @return the packed single card moves, or null if a move cannot be made
+	 */
+	public static int[] expand(Board start, int[] moves)
+	{
+		Board board = new Board(start);
+		ArrayList<int[]> plans = new ArrayList<int[]>(moves.length);
+		int length = 0;
+		for (int move : moves)
+		{
+			int[] steps = plan(board, move);
+			if (steps == null)
+				return null;
+			plans.add(steps);
+			length += steps.length;
+			board.apply(move);
+		}
+
+		int[] expanded = new int[length];
+		length = 0;
+		for (int[] steps : plans)
+		{
+			System.arraycopy(steps, 0, expanded, length, steps.length);
+			length += steps.length;
+		}
+		return expanded;
+	}
+
+	/**
+	 * Gets the template for a pattern. This never searches, so it is quick
+	 * enough for the event thread: if the template has not been worked out
+	 * yet, a plan is built the recursive way.
+	 * @param count the number of cards to move
+	 * @param freeCells the number of open FreeCells
+	 * @param emptyCascades the number of empty Cascades that can be used
+	 * @param toEmpty true if the cards go to an empty Cascade
+	 * @return the template of single card moves (from spot << 8 | to spot),
+	 *         or null if the cards cannot be moved
+	 */
+	static int[] getTemplate(int count, int freeCells, int emptyCascades,
+			boolean toEmpty)
+	{
+		// Extra FreeCells and empty Cascades beyond one per card never help
+		freeCells = freeCellsUsed(count, freeCells, emptyCascades);
+		emptyCascades = Math.min(emptyCascades, count - 1 - freeCells);
+		int[] template = templates.get(key(count, freeCells, emptyCascades,
+				toEmpty));
+		if (template == null)
+			template = construct(count, freeCells, emptyCascades);
+		return template.length == 0 ? null : template;
+	}
+
+	/**
+	 * Gets the template for a pattern, searching for it the first time.
+	 * @param count the number of cards to move
+	 * @param freeCells the number of open FreeCells
+	 * @param emptyCascades the number of empty Cascades that can be used
+	 * @param toEmpty true if the cards go to an empty Cascade
+	 * @return the template of single card moves (from spot << 8 | to spot),
+	 *         or null if the cards cannot be moved
+	 */
+	private static int[] findTemplate(int count, int freeCells,
+			int emptyCascades, boolean toEmpty)
+	{
+		freeCells = freeCellsUsed(count, freeCells, emptyCascades);
+		emptyCascades = Math.min(emptyCascades, count - 1 - freeCells);
+		int key = key(count, freeCells, emptyCascades, toEmpty);
+		int[] template = templates.get(key);
+		if (template == null)
+		{
+			template = search(count, freeCells, emptyCascades, toEmpty);
+			if (template == null)
+				template = new int[0];
+			templates.put(key, template);
+		}
+		return template.length == 0 ? null : template;
+	}
+
+	/**
+	 * Searches for the template of every pattern with up to the given
+	 * numbers of FreeCells and empty Cascades.
+	 * @param freeCells the most open FreeCells
+	 * @param emptyCascades the most empty Cascades that can be used
+	 * @return the number of patterns
+	 */
+	private static int searchAll(int freeCells, int emptyCascades)
+	{
+		int patterns = 0;
+		for (int free = 0; free <= freeCells; free++)
+			for (int empty = 0; empty <= emptyCascades; empty++)
+				for (int toEmpty = 0; toEmpty <= 1; toEmpty++)
+					for (int count = 2; count <= Math.min(13, mostCards(free,
+							empty)); count++)
+					{
+						if (findTemplate(count, free, empty, toEmpty == 1) == null)
+							throw new IllegalStateException("No plan for "
+									+ count + " cards");
+						patterns++;
+					}
+		return patterns;
+	}
+
+	/**
+	 * Builds a plan the recursive way: with room for all but one card in the
+	 * FreeCells, the cards go up to the FreeCells, the bottom card goes
+	 * across and the rest come back down. Otherwise the top part of the run
+	 * goes to the last empty Cascade, the rest goes to the target and then
+	 * the part goes onto it, each using the other empty Cascades. The size of
+	 * each part is picked from a small table so the plan has as few moves as
+	 * this way allows.
+	 * @param count the number of cards to move
+	 * @param freeCells the number of FreeCells to use
+	 * @param emptyCascades the number of empty Cascades to use
+	 * @return the template, or an empty one if the cards cannot be moved
+	 */
+	private static int[] construct(int count, int freeCells, int emptyCascades)
+	{
+		if (count > mostCards(freeCells, emptyCascades))
+			return new int[0];
+
+		// The fewest moves for each number of cards and of empty Cascades,
+		// and the part that goes to the last empty Cascade (0 for none)
+		int[][] fewest = new int[emptyCascades + 1][count + 1];
+		int[][] parts = new int[emptyCascades + 1][count + 1];
+		for (int empty = 0; empty <= emptyCascades; empty++)
+			for (int cards = 1; cards <= count; cards++)
+			{
+				fewest[empty][cards] = cards <= freeCells + 1 ? 2 * cards - 1
+						: Integer.MAX_VALUE;
+				if (empty == 0 || cards <= freeCells + 1)
+					continue;
+				int[] fewer = fewest[empty - 1];
+				if (fewer[cards] < fewest[empty][cards])
+					fewest[empty][cards] = fewer[cards];
+				for (int part = 1; part < cards; part++)
+					if (fewer[part] < Integer.MAX_VALUE
+							&& fewer[cards - part] < Integer.MAX_VALUE
+							&& 2 * fewer[part] + fewer[cards - part] < fewest[empty][cards])
+					{
+						fewest[empty][cards] = 2 * fewer[part]
+								+ fewer[cards - part];
+						parts[empty][cards] = part;
+					}
+			}
+
+		ArrayList<Integer> steps = new ArrayList<Integer>();
+		construct(steps, parts, count, SOURCE, TARGET, freeCells,
+				emptyCascades);
+		int[] template = new int[steps.size()];
+		for (int step = 0; step < template.length; step++)
+			template[step] = steps.get(step);
+		return template;
+	}
+
+	/**
+	 * Helper method of construct() that adds the moves of one part of the
+	 * run. The FreeCells are empty before and after.
+	 * @param steps the moves so far
+	 * @param parts the part to put in the last empty Cascade for each number
+	 *            of empty Cascades and of cards (0 for none)
+	 * @param count the number of cards to move
+	 * @param fromSpot the spot the cards are on
+	 * @param toSpot the spot the cards go to
+	 * @param freeCells the number of FreeCells
+	 * @param emptyCascades the number of empty Cascades that can be used
+	 *            (the first ones after the FreeCells)
+	 */
+	private static void construct(ArrayList<Integer> steps, int[][] parts,
+			int count, int fromSpot, int toSpot, int freeCells,
+			int emptyCascades)
+	{
+		if (count <= freeCells + 1)
+		{
+			for (int card = 0; card < count - 1; card++)
+				steps.add(fromSpot << 8 | FIRST_SPARE + card);
+			steps.add(fromSpot << 8 | toSpot);
+			for (int card = count - 2; card >= 0; card--)
+				steps.add(FIRST_SPARE + card << 8 | toSpot);
+			return;
+		}
+
+		int part = parts[emptyCascades][count];
+		if (part == 0)
+		{
+			construct(steps, parts, count, fromSpot, toSpot, freeCells,
+					emptyCascades - 1);
+			return;
+		}
+		int spare = FIRST_SPARE + freeCells + emptyCascades - 1;
+		construct(steps, parts, part, fromSpot, spare, freeCells,
+				emptyCascades - 1);
+		construct(steps, parts, count - part, fromSpot, toSpot, freeCells,
+				emptyCascades - 1);
+		construct(steps, parts, part, spare, toSpot, freeCells,
+				emptyCascades - 1);
+	}
+
+	/**
+	 * Gets the most cards that can be moved at once.
+	 * @param freeCells the number of open FreeCells
+	 * @param emptyCascades the number of empty Cascades that can be used
+	 * @return the most cards
+	 */
+	private static int mostCards(int freeCells, int emptyCascades)
+	{
+		return (1 + freeCells) << emptyCascades;
+	}
+
+	/**
+	 * Gets the number of FreeCells a template uses for a pattern.
+	 * @param count the number of cards to move
+	 * @param freeCells the number of open FreeCells
+	 * @param emptyCascades the number of empty Cascades that can be used
+	 * @return the number of FreeCells in the template
+	 */
+	private static int freeCellsUsed(int count, int freeCells,
+			int emptyCascades)
+	{
+		return Math.min(freeCells, count - 1);
+	}
+
+	/**
+	 * Gets the location of a template spot.
+	 * @param spots the locations of the spots (FreeCells, then Cascades)
+	 * @param spot the spot in the template
+	 * @param usedFreeCells the number of FreeCells the template uses
+	 * @param freeCells the number of open FreeCells in the spots
+	 * @return the location number
+	 */
+	private static int spotLocation(int[] spots, int spot, int usedFreeCells,
+			int freeCells)
+	{
+		if (spot >= FIRST_SPARE + usedFreeCells)
+			spot += freeCells - usedFreeCells;
+		return spots[spot];
+	}
+
+	/**
+	 * Packs a pattern into a key.
+	 * @param count the number of cards to move
+	 * @param freeCells the number of FreeCells used
+	 * @param emptyCascades the number of empty Cascades used
+	 * @param toEmpty true if the cards go to an empty Cascade
+	 * @return the key of the pattern
+	 */
+	private static int key(int count, int freeCells, int emptyCascades,
+			boolean toEmpty)
+	{
+		return ((count * 16 + freeCells) * 16 + emptyCascades) * 2
+				+ (toEmpty ? 1 : 0);
+	}
+
+	/**
+	 * Finds the fewest single card moves that move a run of cards with an A*
+	 * search. Card 0 is the bottom card of the run and card i can only go on
+	 * card i - 1, in a spare spot that is empty or (for the target) on the
+	 * card the run goes to. Each state packs the spot of every card, with the
+	 * FreeCells and the empty Cascades numbered in the order their first card
+	 * appears (see canonical()) since swapping them does not change anything.
+	 * @param count the number of cards to move
+	 * @param freeCells the number of FreeCells to use
+	 * @param emptyCascades the number of empty Cascades to use
+	 * @param toEmpty true if the cards go to an empty Cascade
+	 * @return the template, or null if the cards cannot be moved
+	 */
+	private static int[] search(int count, int freeCells, int emptyCascades,
+			boolean toEmpty)
+	{
+		int noOfSpots = FIRST_SPARE + freeCells + emptyCascades;
+		long start = 0;
+		long goal = 0;
+		for (int card = 0; card < count; card++)
+			goal |= (long) TARGET << card * BITS;
+
+		// The fewest moves found to each state, and the state and move (in
+		// the numbering of that state) it was reached from
+		HashMap<Long, Integer> bestMoves = new HashMap<Long, Integer>();
+		HashMap<Long, long[]> parents = new HashMap<Long, long[]>();
+		bestMoves.put(start, 0);
+
+		// States waiting to be expanded, in a list for each estimate of the
+		// total moves
+		ArrayList<ArrayList<long[]>> open = new ArrayList<ArrayList<long[]>>();
+		addOpen(open, lowerBound(start, count, freeCells, toEmpty), start, 0);
+		int[] top = new int[noOfSpots];
+
+		for (int bound = 0; bound < open.size(); bound++)
+		{
+			ArrayList<long[]> list = open.get(bound);
+			while (!list.isEmpty())
+			{
+				long[] entry = list.remove(list.size() - 1);
+				long state = entry[0];
+				int moves = (int) entry[1];
+				if (moves > bestMoves.get(state))
+					continue;
+				if (state == goal)
+					return path(parents, goal, count, freeCells, noOfSpots);
+
+				// Find the top card of each spot (the highest numbered card)
+				for (int spot = 0; spot < noOfSpots; spot++)
+					top[spot] = -1;
+				for (int card = 0; card < count; card++)
+					top[spotOf(state, card)] = card;
+
+				for (int fromSpot = 0; fromSpot < noOfSpots; fromSpot++)
+				{
+					int card = top[fromSpot];
+					if (card < 0)
+						continue;
+					for (int toSpot = 0; toSpot < noOfSpots; toSpot++)
+					{
+						if (toSpot == fromSpot || toSpot == SOURCE
+								&& top[toSpot] < 0)
+							continue;
+
+						// A FreeCell holds one card, a Cascade takes the next
+						// card of the run and an empty target only takes the
+						// bottom card unless it is an empty Cascade
+						boolean isFreeCell = toSpot >= FIRST_SPARE
+								&& toSpot < FIRST_SPARE + freeCells;
+						if (top[toSpot] >= 0 ? isFreeCell
+								|| top[toSpot] != card - 1 : toSpot == TARGET
+								&& !toEmpty && card != 0)
+							continue;
+
+						long child = canonical(state & ~(0xFL << card * BITS)
+								| (long) toSpot << card * BITS, count,
+								freeCells);
+						Integer known = bestMoves.get(child);
+						if (known == null || moves + 1 < known)
+						{
+							bestMoves.put(child, moves + 1);
+							parents.put(child, new long[] { state,
+									fromSpot << 8 | toSpot });
+							addOpen(open, moves + 1
+									+ lowerBound(child, count, freeCells,
+											toEmpty), child, moves + 1);
+						}
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Adds a state to the list for its estimate of the total moves.
+	 * @param open the lists of states waiting to be expanded
+	 * @param estimate the moves made plus the lower bound of the moves left
+	 * @param state the packed state
+	 * @param moves the moves made to reach the state
+	 */
+	private static void addOpen(ArrayList<ArrayList<long[]>> open,
+			int estimate, long state, int moves)
+	{
+		while (open.size() <= estimate)
+			open.add(new ArrayList<long[]>());
+		open.get(estimate).add(new long[] { state, moves });
+	}
+
+	/**
+	 * Finds a lower bound of the moves left. Every card not yet on the target
+	 * moves at least once, and a card with another card on top of it outside
+	 * the target has to wait for that card to move out of the way first, so
+	 * the card on top moves at least twice. On an empty target Cascade the
+	 * cards only count as placed if card 0 is at the bottom.
+	 * @param state the packed state
+	 * @param count the number of cards
+	 * @param freeCells the number of FreeCells
+	 * @param toEmpty true if the cards go to an empty Cascade
+	 * @return the lower bound
+	 */
+	private static int lowerBound(long state, int count, int freeCells,
+			boolean toEmpty)
+	{
+		boolean placed = spotOf(state, 0) == TARGET;
+		int bound = 0;
+		int lastSpot = -1;
+		for (int card = 0; card < count; card++)
+		{
+			int spot = spotOf(state, card);
+			if (spot == TARGET && (placed || !toEmpty))
+				continue;
+			bound++;
+
+			// The card below this one in the same Cascade is covered by it
+			if (spot == lastSpot && (spot < FIRST_SPARE
+					|| spot >= FIRST_SPARE + freeCells))
+				bound++;
+			lastSpot = spot;
+		}
+		return bound;
+	}
+
+	/**
+	 * Follows the parents back from the goal and then plays the moves forward
+	 * from the start, turning each move from the numbering of the state it
+	 * was found in to the numbering of the spots as they really are.
+	 * @param parents the parent and move of each state seen
+	 * @param goal the goal state
+	 * @param count the number of cards
+	 * @param freeCells the number of FreeCells
+	 * @param noOfSpots the number of spots
+	 * @return the template of moves in order
+	 */
+	private static int[] path(HashMap<Long, long[]> parents, long goal,
+			int count, int freeCells, int noOfSpots)
+	{
+		ArrayList<long[]> reversed = new ArrayList<long[]>();
+		for (long[] step = parents.get(goal); step != null; step = parents
+				.get(step[0]))
+			reversed.add(step);
+
+		int[] template = new int[reversed.size()];
+		long state = 0;
+		for (int move = 0; move < template.length; move++)
+		{
+			// The real spot of each spot number of the canonical state
+			int[] realSpot = realSpots(state, count, freeCells, noOfSpots);
+			int canonicalMove = (int) reversed.get(template.length - 1 - move)[1];
+			int fromSpot = realSpot[canonicalMove >>> 8];
+			int toSpot = realSpot[canonicalMove & 0xFF];
+			template[move] = fromSpot << 8 | toSpot;
+
+			int card = -1;
+			for (int next = 0; next < count; next++)
+				if (spotOf(state, next) == fromSpot)
+					card = next;
+			state = state & ~(0xFL << card * BITS) | (long) toSpot << card
+					* BITS;
+		}
+		return template;
+	}
+
+	/**
+	 * Renumbers the FreeCells and the empty Cascades of a state in the order
+	 * their first card appears, so states that only swap them are the same.
+	 * @param state the packed state
+	 * @param count the number of cards
+	 * @param freeCells the number of FreeCells
+	 * @return the canonical form of the state
+	 */
+	private static long canonical(long state, int count, int freeCells)
+	{
+		int[] renumber = new int[16];
+		int nextFreeCell = FIRST_SPARE;
+		int nextCascade = FIRST_SPARE + freeCells;
+		long result = 0;
+		for (int card = 0; card < count; card++)
+		{
+			int spot = spotOf(state, card);
+			if (spot >= FIRST_SPARE)
+			{
+				if (renumber[spot] == 0)
+					renumber[spot] = spot < FIRST_SPARE + freeCells ? nextFreeCell++
+							: nextCascade++;
+				spot = renumber[spot];
+			}
+			result |= (long) spot << card * BITS;
+		}
+		return result;
+	}
+
+	/**
+	 * Works out which real spot each spot number of the canonical form of a
+	 * state stands for. Spots with no cards are matched up in order.
+	 * @param state the packed state (in real spot numbers)
+	 * @param count the number of cards
+	 * @param freeCells the number of FreeCells
+	 * @param noOfSpots the number of spots
+	 * @return the real spot of each canonical spot number
+	 */
+	private static int[] realSpots(long state, int count, int freeCells,
+			int noOfSpots)
+	{
+		int[] realSpot = new int[noOfSpots];
+		boolean[] used = new boolean[noOfSpots];
+		realSpot[SOURCE] = SOURCE;
+		realSpot[TARGET] = TARGET;
+		int nextFreeCell = FIRST_SPARE;
+		int nextCascade = FIRST_SPARE + freeCells;
+		for (int card = 0; card < count; card++)
+		{
+			int spot = spotOf(state, card);
+			if (spot >= FIRST_SPARE && !used[spot])
+			{
+				used[spot] = true;
+				if (spot < FIRST_SPARE + freeCells)
+					realSpot[nextFreeCell++] = spot;
+				else
+					realSpot[nextCascade++] = spot;
+			}
+		}
+		for (int spot = FIRST_SPARE; spot < noOfSpots; spot++)
+			if (!used[spot])
+			{
+				if (spot < FIRST_SPARE + freeCells)
+					realSpot[nextFreeCell++] = spot;
+				else
+					realSpot[nextCascade++] = spot;
+			}
+		return realSpot;
+	}
+
+	/**
+	 * Gets the spot of a card in a state.
+	 * @param state the packed state
+	 * @param card the number of the card in the run
+	 * @return the spot of the card
+	 */
+	private static int spotOf(long state, int card)
+	{
+		return (int) (state >>> card * BITS & 0xF);
+	}
+
+	/**
+	 * Times building every pattern of the standard game the recursive way,
+	 * then works out the templates by searching, checks that every plan of
+	 * both kinds is legal and prints the number of single card moves of each.
+	 * @param args not used
+	 */
+	public static void main(String[] args)
+	{
+		// The recursive plans, as they are used before the searches finish
+		long startTime = System.nanoTime();
+		int built = 0;
+		for (int freeCells = 0; freeCells <= 4; freeCells++)
+			for (int emptyCascades = 0; emptyCascades <= 7; emptyCascades++)
+				for (int count = 2; count <= Math.min(13, mostCards(freeCells,
+						emptyCascades)); count++)
+					for (int toEmpty = 0; toEmpty <= 1; toEmpty++)
+					{
+						getTemplate(count, freeCells, emptyCascades,
+								toEmpty == 1);
+						built++;
+					}
+		System.out.printf("Built %d patterns in %.1f ms%n", built,
+				(System.nanoTime() - startTime) / 1e6);
+
+		startTime = System.nanoTime();
+		int patterns = searchAll(4, 7);
+		System.out.printf("Worked out %d patterns in %.1f ms%n", patterns,
+				(System.nanoTime() - startTime) / 1e6);
+
+		int illegal = 0;
+		for (int freeCells = 0; freeCells <= 4; freeCells++)
+			for (int emptyCascades = 0; emptyCascades <= 7; emptyCascades++)
+				for (int count = 2; count <= 13; count++)
+					for (int toEmpty = 0; toEmpty <= 1; toEmpty++)
+					{
+						int used = freeCellsUsed(count, freeCells,
+								emptyCascades);
+						int usedEmpty = Math.min(emptyCascades, count - 1
+								- used);
+						int[] template = construct(count, used, usedEmpty);
+						boolean possible = count <= mostCards(freeCells,
+								emptyCascades);
+						if (possible != (template.length > 0)
+								|| possible
+								&& !isLegal(template, count, used, usedEmpty,
+										toEmpty == 1)
+								|| possible
+								&& !isLegal(getTemplate(count, freeCells,
+										emptyCascades, toEmpty == 1), count,
+										used, usedEmpty, toEmpty == 1))
+							illegal++;
+					}
+		System.out.printf("%d illegal plans%n", illegal);
+		if (illegal > 0)
+			System.exit(1);
+
+		for (int count = 2; count <= 13; count++)
+		{
+			int[] template = getTemplate(count, 1, 3, false);
+			System.out.printf("%d cards, 1 FreeCell, 3 empty Cascades: %d "
+					+ "moves (%d built)%n", count, template == null ? -1
+					: template.length, construct(count, 1, Math.min(3,
+					count - 2)).length);
+		}
+	}
+
+	/**
+	 * Helper method of main() that plays a template on stacks of card
+	 * numbers and checks that each move is legal and that the run ends up on
+	 * the target in order.
+	 * @param template the template
+	 * @param count the number of cards
+	 * @param freeCells the number of FreeCells
+	 * @param emptyCascades the number of empty Cascades
+	 * @param toEmpty true if the cards go to an empty Cascade
+	 * @return true if the template is legal or false if not
+	 */
+	private static boolean isLegal(int[] template, int count, int freeCells,
+			int emptyCascades, boolean toEmpty)
+	{
+		ArrayList<ArrayList<Integer>> stacks = new ArrayList<ArrayList<Integer>>();
+		for (int spot = 0; spot < FIRST_SPARE + freeCells + emptyCascades; spot++)
+			stacks.add(new ArrayList<Integer>());
+		for (int card = 0; card < count; card++)
+			stacks.get(SOURCE).add(card);
+
+		for (int step : template)
+		{
+			ArrayList<Integer> from = stacks.get(step >>> 8);
+			ArrayList<Integer> to = stacks.get(step & 0xFF);
+			if (from.isEmpty() || from == to)
+				return false;
+			int card = from.get(from.size() - 1);
+			boolean isFreeCell = (step & 0xFF) >= FIRST_SPARE
+					&& (step & 0xFF) < FIRST_SPARE + freeCells;
+			if (to.isEmpty() ? (step & 0xFF) == SOURCE
+					|| (step & 0xFF) == TARGET && !toEmpty && card != 0
+					: isFreeCell || to.get(to.size() - 1) != card - 1)
+				return false;
+			to.add(from.remove(from.size() - 1));
+		}
+
+		ArrayList<Integer> target = stacks.get(TARGET);
+		for (int card = 0; card < count; card++)
+			if (target.size() != count || target.get(card) != card)
+				return false;
+		return true;
+	}
+}
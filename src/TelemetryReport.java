@@ -0,0 +1,275 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Reads a telemetry file from MoveTelemetry and prints histograms of the think
+ * times for each kind of move and for each value of a few things about the
+ * position (open FreeCells, empty Cascades, cards left and cards moved). The
+ * records are read one at a time through a buffer and only added to the
+ * counts, so a file of millions of moves needs no more memory than a small
+ * one.
+ *
+ * Usage: java TelemetryReport [telemetry file]
+ *        java TelemetryReport -generate records [telemetry file]
+ * The second form writes a file of random moves to try the report on.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class TelemetryReport
+{
+	// The upper limit (in ms) of each think time bucket; the last bucket
+	// holds everything longer
+	private static final long[] BUCKET_LIMITS = { 250, 500, 1000, 2000,
+			4000, 8000, 15000, 30000, 60000 };
+	private static final String[] BUCKET_NAMES = { "<.25s", "<.5s", "<1s",
+			"<2s", "<4s", "<8s", "<15s", "<30s", "<1m", "1m+" };
+
+	// Names of the kinds of hands
+	private static final String[] TYPE_NAMES = { "Cascade", "FreeCell",
+			"Foundation", "?" };
+
+	// The histograms for each feature, by the feature's value
+	private Histogram[] byMove = new Histogram[16];
+	private Histogram[] byOpenFreeCells = new Histogram[16];
+	private Histogram[] byEmptyCascades = new Histogram[16];
+	private Histogram[] byCardsLeft = new Histogram[9];
+	private Histogram[] byCount = new Histogram[8];
+	private Histogram all = new Histogram();
+
+	/**
+	 * Adds one packed record to every histogram it belongs in.
+	 * @param record the packed record (see MoveTelemetry.pack())
+	 */
+	public void add(long record)
+	{
+		long think = MoveTelemetry.getThinkMillis(record);
+		all.add(think);
+		add(byMove, MoveTelemetry.getFromType(record) * 4
+				+ MoveTelemetry.getToType(record), think);
+		add(byOpenFreeCells, MoveTelemetry.getOpenFreeCells(record), think);
+		add(byEmptyCascades, MoveTelemetry.getEmptyCascades(record), think);
+		add(byCardsLeft, Math.min(MoveTelemetry.getCardsLeft(record) / 13,
+				byCardsLeft.length - 1), think);
+		add(byCount, Math.min(MoveTelemetry.getCount(record),
+				byCount.length - 1), think);
+	}
+
+	/**
+	 * Helper method of add() that adds a think time to the histogram for one
+	 * value of a feature, making the histogram the first time.
+	 * @param histograms the histograms of the feature
+	 * @param value the value of the feature
+	 * @param think the think time in ms
+	 */
+	private static void add(Histogram[] histograms, int value, long think)
+	{
+		if (histograms[value] == null)
+			histograms[value] = new Histogram();
+		histograms[value].add(think);
+	}
+
+	/**
+	 * Reads every record of a telemetry file.
+	 * @param file the telemetry file
+	 * @return the number of records read
+	 * @throws IOException if the file cannot be read or is not a telemetry
+	 *             file
+	 */
+	public long read(File file) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file), 1 << 16));
+		long noOfRecords = 0;
+		try
+		{
+			if (in.readInt() != MoveTelemetry.MAGIC)
+				throw new IOException(file + " is not a telemetry file");
+			while (true)
+			{
+				add(in.readLong());
+				noOfRecords++;
+			}
+		}
+		catch (EOFException exp)
+		{
+			// The end of the file (a cut short last record is left out)
+		}
+		finally
+		{
+			in.close();
+		}
+		return noOfRecords;
+	}
+
+	/**
+	 * Returns a table of the think times for every feature.
+	 * @return the report
+	 */
+	public String toString()
+	{
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("%-35s", "Moves"));
+		for (String name : BUCKET_NAMES)
+			report.append(String.format("%7s", name));
+		report.append(String.format("%9s%9s%n", "median", "90%"));
+		append(report, "All moves", all);
+
+		report.append(String.format("%nBy move%n"));
+		for (int move = 0; move < byMove.length; move++)
+			append(report, TYPE_NAMES[move / 4] + " to "
+					+ TYPE_NAMES[move % 4], byMove[move]);
+		report.append(String.format("%nBy open FreeCells after the move%n"));
+		for (int open = 0; open < byOpenFreeCells.length; open++)
+			append(report, open + " open", byOpenFreeCells[open]);
+		report.append(String.format("%nBy empty Cascades after the move%n"));
+		for (int empty = 0; empty < byEmptyCascades.length; empty++)
+			append(report, empty + " empty", byEmptyCascades[empty]);
+		report.append(String.format("%nBy cards not on the Foundations%n"));
+		for (int left = 0; left < byCardsLeft.length; left++)
+			append(report, left * 13 + "-" + (left * 13 + 12) + " cards",
+					byCardsLeft[left]);
+		report.append(String.format("%nBy cards moved%n"));
+		for (int count = 0; count < byCount.length; count++)
+			append(report, count + (count == byCount.length - 1 ? "+" : "")
+					+ " cards", byCount[count]);
+		return report.toString();
+	}
+
+	/**
+	 * Helper method of toString() that adds one line for a histogram: the
+	 * percentage of moves in each bucket, then the median and 90th percentile.
+	 * @param report the report to add to
+	 * @param name the name of the line
+	 * @param histogram the histogram, or null to add nothing
+	 */
+	private static void append(StringBuilder report, String name,
+			Histogram histogram)
+	{
+		if (histogram == null)
+			return;
+		report.append(String.format("%-24s%,11d", name, histogram.count));
+		for (long bucket : histogram.buckets)
+			report.append(String.format("%6.1f%%", 100.0 * bucket
+					/ histogram.count));
+		report.append(String.format("%9s%9s%n", BUCKET_NAMES[histogram
+				.percentile(0.5)], BUCKET_NAMES[histogram.percentile(0.9)]));
+	}
+
+	/**
+	 * Writes a telemetry file of random moves, with the think times longer
+	 * when the position is harder, to try the report on.
+	 * @param file the file to write
+	 * @param noOfRecords the number of moves
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void generate(File file, long noOfRecords)
+			throws IOException
+	{
+		Random random = new Random(42);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), 1 << 16));
+		try
+		{
+			out.writeInt(MoveTelemetry.MAGIC);
+			for (long record = 0; record < noOfRecords; record++)
+			{
+				int openFreeCells = random.nextInt(5);
+				int emptyCascades = random.nextInt(3);
+				int from = random.nextInt(2);
+				int to = random.nextInt(3);
+				int count = 1;
+				if (from == MoveTelemetry.CASCADE && to == MoveTelemetry.CASCADE)
+					count += random.nextInt(4);
+				double hardness = 1 + (4 - openFreeCells) + 2
+						* (2 - emptyCascades);
+				long think = (long) (300 * hardness * -Math.log(1 - random
+						.nextDouble()));
+				out.writeLong(MoveTelemetry.pack(think, from, to, count,
+						random.nextInt(53), openFreeCells, emptyCascades));
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * Prints the report of a telemetry file, or writes a file of random moves.
+	 * @param args the telemetry file, or -generate, the number of records and
+	 *            the file
+	 * @throws IOException if the file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length > 0 && args[0].equals("-generate"))
+		{
+			long noOfRecords = args.length > 1 ? Long.parseLong(args[1])
+					: 1000000;
+			File file = new File(args.length > 2 ? args[2]
+					: MoveTelemetry.TELEMETRY_FILE);
+			generate(file, noOfRecords);
+			System.out.printf("Wrote %,d moves to %s%n", noOfRecords, file);
+			return;
+		}
+
+		File file = new File(args.length > 0 ? args[0]
+				: MoveTelemetry.TELEMETRY_FILE);
+		TelemetryReport report = new TelemetryReport();
+		long startTime = System.nanoTime();
+		long noOfRecords = report.read(file);
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		System.out.print(report);
+		System.out.printf("%nRead %,d moves in %.2f s (%,.0f moves/s)%n",
+				noOfRecords, seconds, noOfRecords / seconds);
+	}
+
+	/**
+	 * An inner class for the think time histogram of one value of a feature.
+	 */
+	private static class Histogram
+	{
+		private long[] buckets = new long[BUCKET_LIMITS.length + 1];
+		private long count;
+
+		/**
+		 * Adds a think time to its bucket.
+		 * @param think the think time in ms
+		 */
+		public void add(long think)
+		{
+			int bucket = 0;
+			while (bucket < BUCKET_LIMITS.length
+					&& think >= BUCKET_LIMITS[bucket])
+				bucket++;
+			buckets[bucket]++;
+			count++;
+		}
+
+		/**
+		 * Finds the bucket that a fraction of the think times are within.
+		 * @param fraction the fraction, such as 0.5 for the median
+		 * @return the index of the bucket
+		 */
+		public int percentile(double fraction)
+		{
+			long total = 0;
+			for (int bucket = 0; bucket < buckets.length; bucket++)
+			{
+				total += buckets[bucket];
+				if (total >= fraction * count)
+					return bucket;
+			}
+			return buckets.length - 1;
+		}
+	}
+}
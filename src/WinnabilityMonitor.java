@@ -0,0 +1,253 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Works out in the background whether the current position can still be won,
+ * for the indicator on the board. Every new position cancels the search for
+ * the last one (the Solver stops when its thread is interrupted) and starts a
+ * new one, so only the newest position is ever searched.
+ *
+ * The searches run on a pool of at most one low priority thread with room
+ * for one waiting search; a newer search pushes out the waiting one, so fast
+ * play never builds up a backlog. Each search has a number, and its result is
+ * only shown if no newer position has come in, both when the search finishes
+ * and again on the event thread where the result is handed to the board.
+ *
+ * @author Derrick Thai
+ * @version October 2026
+ */
+public class WinnabilityMonitor
+{
+	// What is known about the current position
+	public static final int CHECKING = 0;
+	public static final int WINNABLE = 1;
+	public static final int LOST = 2;
+	public static final int UNKNOWN = 3;
+	public static final String[] NAMES = { "Checking...", "Winnable", "Lost",
+			"Unknown" };
+
+	// The Solver, the thread that searches and the search in progress
+	private Solver solver;
+	private ThreadPoolExecutor searcher;
+	private Future<?> search;
+
+	// The number of the newest position and what is known about it (only
+	// changed on the event thread)
+	private final AtomicLong generation = new AtomicLong();
+	private int state;
+
+	// Run on the event thread when the state changes
+	private Runnable onChange;
+
+	// Counts of searches started, cancelled and shown
+	private final AtomicLong started = new AtomicLong();
+	private final AtomicLong cancelled = new AtomicLong();
+	private final AtomicLong shown = new AtomicLong();
+
+	/**
+	 * Constructs a new WinnabilityMonitor.
+	 * @param solver the Solver to search with
+	 * @param onChange run on the event thread when the state changes (such
+	 *            as a repaint)
+	 */
+	public WinnabilityMonitor(Solver solver, Runnable onChange)
+	{
+		this.solver = solver;
+		this.onChange = onChange;
+		state = UNKNOWN;
+		searcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(1), new ThreadFactory()
+				{
+					public Thread newThread(Runnable task)
+					{
+						Thread thread = new Thread(task, "Winnability searcher");
+						thread.setDaemon(true);
+						thread.setPriority(Thread.MIN_PRIORITY);
+						return thread;
+					}
+				}, new ThreadPoolExecutor.DiscardOldestPolicy());
+	}
+
+	/**
+	 * Starts checking a new position, cancelling the check of the last one.
+	 * Only the event thread may call this.
+	 * @param board the new position (it is copied)
+	 */
+	public void positionChanged(Board board)
+	{
+		final Board position = new Board(board);
+		final long number = generation.incrementAndGet();
+		if (search != null && search.cancel(true))
+			cancelled.incrementAndGet();
+		setState(CHECKING);
+		search = searcher.submit(new Runnable()
+		{
+			public void run()
+			{
+				check(position, number);
+			}
+		});
+	}
+
+	/**
+	 * Stops checking, such as when the game is over, and clears the state.
+	 * Only the event thread may call this.
+	 * @param newState the state to show (such as UNKNOWN)
+	 */
+	public void stop(int newState)
+	{
+		generation.incrementAndGet();
+		if (search != null && search.cancel(true))
+			cancelled.incrementAndGet();
+		setState(newState);
+	}
+
+	/**
+	 * Gets what is known about the current position. Only the event thread
+	 * may call this.
+	 * @return CHECKING, WINNABLE, LOST or UNKNOWN
+	 */
+	public int getState()
+	{
+		return state;
+	}
+
+	/**
+	 * Stops the searching thread for good.
+	 */
+	public void shutdown()
+	{
+		searcher.shutdownNow();
+	}
+
+	/**
+	 * Searches a position on the searching thread and hands the result to
+	 * the event thread if the position is still the newest.
+	 * @param position the position
+	 * @param number the number of the position
+	 */
+	private void check(Board position, final long number)
+	{
+		if (number != generation.get())
+			return;
+		started.incrementAndGet();
+		Solution solution = solver.solve(position);
+
+		// A cancelled search gives up early, so its result means nothing
+		if (Thread.interrupted() || number != generation.get())
+			return;
+		final int result;
+		if (solution.isSolved())
+			result = WINNABLE;
+		else if (solution.getNodes() < solver.getMaxNodes())
+			result = LOST;
+		else
+			result = UNKNOWN;
+
+		SwingUtilities.invokeLater(new Runnable()
+		{
+			public void run()
+			{
+				// A move may have landed while this was waiting to run
+				if (number == generation.get())
+				{
+					shown.incrementAndGet();
+					setState(result);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Helper method that changes the state and tells the board.
+	 * @param newState the new state
+	 */
+	private void setState(int newState)
+	{
+		if (state == newState)
+			return;
+		state = newState;
+		if (onChange != null)
+			onChange.run();
+	}
+
+	/**
+	 * Returns how many searches were started, cancelled and shown.
+	 * @return the counts as a String
+	 */
+	public String toString()
+	{
+		return String.format("winnability: %d started, %d cancelled, "
+				+ "%d shown, %d waiting", started.get(), cancelled.get(),
+				shown.get(), searcher.getQueue().size());
+	}
+
+	/**
+	 * Plays a few deals fast (a move every few milliseconds, much faster than
+	 * a search) and then waits, to check that fast play does not build up
+	 * searches and that the last position's result is the one shown.
+	 * @param args the milliseconds between moves (optional)
+	 * @throws Exception if the event thread cannot be used
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		final long moveMillis = args.length > 0 ? Long.parseLong(args[0]) : 5;
+		final WinnabilityMonitor monitor = new WinnabilityMonitor(
+				new Solver(), null);
+		int mostWaiting = 0;
+		for (int deal = 1; deal <= 5; deal++)
+		{
+			// Make the moves of a solution on the event thread, one at a time
+			Board start = Deal.microsoft(deal);
+			int[] moves = new Solver().solve(start).getMoves();
+			final Board board = new Board(start);
+			for (final int move : moves)
+			{
+				SwingUtilities.invokeAndWait(new Runnable()
+				{
+					public void run()
+					{
+						board.apply(move);
+						monitor.positionChanged(board);
+					}
+				});
+				mostWaiting = Math.max(mostWaiting, monitor.searcher
+						.getQueue().size());
+				Thread.sleep(moveMillis);
+			}
+		}
+
+		// Then a deal that cannot be won, which needs a full search
+		final Board last = Deal.microsoft(11982);
+		long startTime = System.nanoTime();
+		SwingUtilities.invokeAndWait(new Runnable()
+		{
+			public void run()
+			{
+				monitor.positionChanged(last);
+			}
+		});
+		final int[] state = new int[1];
+		while (state[0] == CHECKING)
+		{
+			Thread.sleep(10);
+			SwingUtilities.invokeAndWait(new Runnable()
+			{
+				public void run()
+				{
+					state[0] = monitor.getState();
+				}
+			});
+		}
+		System.out.printf("Deal 11982 is %s after %.0f ms%n", NAMES[state[0]],
+				(System.nanoTime() - startTime) / 1e6);
+		System.out.println(monitor + ", most waiting " + mostWaiting);
+		monitor.shutdown();
+	}
+}